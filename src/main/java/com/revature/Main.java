@@ -11,12 +11,23 @@ import com.revature.service.ChefService;
 import com.revature.service.IngredientService;
 import com.revature.service.RecipeService;
 import com.revature.util.AdminMiddleware;
+import com.revature.util.CatalogSnapshot;
+import com.revature.util.ChangeLog;
 import com.revature.util.ConnectionUtil;
+import com.revature.util.DatabaseExecutor;
 import com.revature.util.JavalinAppUtil;
+import com.revature.util.Metrics;
 import com.revature.util.DBUtil;
+import com.revature.util.RecipeSummaryTable;
+import com.revature.util.WriteBehindBuffer;
 
 import io.javalin.Javalin;
 
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * The Main class serves as the entry point for the application.
  * It initializes and manages various components related to recipes, chefs, 
@@ -83,25 +94,60 @@ public class Main {
      * The main method serves as the entry point for the application.
      * It initializes the application context and starts the server.
      *
+     * The database is migrated in place by default. Passing "--reset" (or
+     * setting the "db.reset" system property to true) drops and re-seeds it.
+     *
+     * Setting the "recipe.writeBehind" system property to true buffers recipe
+     * updates and writes them in batches. The "recipe.writeBehind.flushMillis"
+     * and "recipe.writeBehind.maxPending" properties tune how often they are
+     * written. Pending updates are written when the JVM shuts down.
+     *
+     * Setting the "recipe.cache.compressInstructions" system property to true
+     * compresses long instructions in the recipe cache, trading CPU when a
+     * cached recipe is serialized for less off-heap memory.
+     *
+     * A snapshot of the recipe catalog is written when the JVM shuts down, to
+     * the file set by the "catalog.snapshot" system property. On the next start
+     * it serves recipe lookups while the database warms up in the background,
+     * unless the database was reset.
+     *
+     * Passing "--rebuild-summaries" rebuilds the RECIPE_SUMMARY read table from
+     * the recipe, chef and ingredient tables, and "--check-summaries" reports
+     * every summary that differs from them; either migrates the database, runs
+     * and exits without starting the server.
+     *
      * @param args Command line arguments passed during application startup.
      */
     public static void main(String[] args) {
 
+		// Maintenance commands run against the migrated database and exit
+		List<String> arguments = Arrays.asList(args);
+		if (arguments.contains("--rebuild-summaries") || arguments.contains("--check-summaries")) {
+			DBUtil.MIGRATE(CONNECTION_UTIL);
+			System.exit(maintainSummaries(arguments));
+		}
+
     INGREDIENT_DAO = new IngredientDAO(CONNECTION_UTIL);
 		
 		CHEF_DAO = new ChefDAO(CONNECTION_UTIL);
 		
 		RECIPE_DAO = new RecipeDAO(CHEF_DAO, INGREDIENT_DAO, CONNECTION_UTIL);
 		
-		CHEF_SERVICE = new ChefService(CHEF_DAO);
+		CHEF_SERVICE = new ChefService(CHEF_DAO, DatabaseExecutor.shared(), ChangeLog.shared());
 		
 		AUTH_SERVICE = new AuthenticationService(CHEF_SERVICE);
 		
-		RECIPE_SERVICE = new RecipeService(RECIPE_DAO);
+		RECIPE_SERVICE = new RecipeService(RECIPE_DAO, DatabaseExecutor.shared(), ChangeLog.shared());
+		
+		if (Boolean.getBoolean("recipe.writeBehind")) {
+			RECIPE_SERVICE.enableWriteBehind(
+					Long.getLong("recipe.writeBehind.flushMillis", WriteBehindBuffer.DEFAULT_FLUSH_INTERVAL_MILLIS),
+					Integer.getInteger("recipe.writeBehind.maxPending", WriteBehindBuffer.DEFAULT_MAX_PENDING));
+		}
 		
 		RECIPE_CONTROLLER = new RecipeController(RECIPE_SERVICE, AUTH_SERVICE);
 		
-		INGREDIENT_SERVICE = new IngredientService(INGREDIENT_DAO);
+		INGREDIENT_SERVICE = new IngredientService(INGREDIENT_DAO, DatabaseExecutor.shared(), ChangeLog.shared());
 		
 		INGREDIENT_CONTROLLER = new IngredientController(INGREDIENT_SERVICE);
 		
@@ -109,11 +155,66 @@ public class Main {
 		
 		JAVALIN_APP_UTIL = new JavalinAppUtil(RECIPE_CONTROLLER, AUTH_CONTROLLER, INGREDIENT_CONTROLLER);
 		
-		DBUtil.RUN_SQL();
+		// Only wipe and re-seed the database when explicitly asked to, otherwise
+		// apply pending migrations and keep the existing data
+		if (Arrays.asList(args).contains("--reset") || Boolean.getBoolean("db.reset")) {
+			DBUtil.RUN_SQL();
+		} else {
+			DBUtil.MIGRATE();
+			
+			// Serve recipes from the last snapshot until the database is warm
+			try {
+				if (RECIPE_SERVICE.useSnapshot(CatalogSnapshot.open(CatalogSnapshot.defaultPath()))) {
+					RECIPE_SERVICE.warmUp();
+				}
+			} catch (IOException e) {
+				// a first start has no snapshot yet, so recipes are read from the database
+				Metrics.increment("recipe.snapshot.unavailable");
+			}
+		}
+		
+		// Build the similar recipes index in the background rather than on the first lookup
+		RECIPE_SERVICE.buildSimilarityIndexAsync();
 		
 		Javalin app = JAVALIN_APP_UTIL.getApp();
 		
+		// Stop accepting requests before writing the buffered updates and the snapshot
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			app.stop();
+			RECIPE_SERVICE.close();
+			try {
+				RECIPE_SERVICE.writeSnapshot(CatalogSnapshot.defaultPath());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}));
+		
 		app.start(8081);
     }
-}
 
+    /**
+     * Runs the recipe summary maintenance commands.
+     *
+     * @param args the command line arguments
+     * @return the exit status: 0 if the summaries are consistent, 1 if the check
+     *         found differences and 2 if a command failed
+     */
+    private static int maintainSummaries(List<String> args) {
+        try {
+            if (args.contains("--rebuild-summaries")) {
+                System.out.println("Rebuilt " + RecipeSummaryTable.rebuild(CONNECTION_UTIL) + " recipe summaries");
+            }
+            if (args.contains("--check-summaries")) {
+                List<String> problems = RecipeSummaryTable.check(CONNECTION_UTIL);
+                problems.forEach(System.out::println);
+                System.out.println(problems.isEmpty() ? "Recipe summaries are consistent"
+                        : problems.size() + " recipe summaries are inconsistent");
+                return problems.isEmpty() ? 0 : 1;
+            }
+            return 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 2;
+        }
+    }
+}
@@ -4,8 +4,12 @@ import io.javalin.Javalin;
 import io.javalin.http.Context;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.revature.dao.IngredientDAO;
 import com.revature.service.IngredientService;
 import com.revature.model.Ingredient;
+import com.revature.util.AsyncHandlers;
+import com.revature.util.Batch;
+import com.revature.util.FieldSet;
 import com.revature.util.Page;
 
 /**
@@ -14,6 +18,8 @@ import com.revature.util.Page;
  * ingredients, as well as retrieving a list of all ingredients.
  * 
  * The class interacts with the IngredientService to perform these operations.
+ * Retrieving and creating a single ingredient run on the service's database
+ * executor through {@link AsyncHandlers}.
  */
 
 public class IngredientController {
@@ -43,19 +49,34 @@ public class IngredientController {
      * TODO: Retrieves a single ingredient by its ID.
      * 
      * If the ingredient exists, responds with a 200 OK status and the ingredient
-     * data. If not found, responds with a 404 Not Found status.
+     * data. If not found, responds with a 404 Not Found status. A fields
+     * parameter such as "name" narrows the ingredient to the listed fields.
      *
      * @param ctx the Javalin context containing the request path parameter for the
      *            ingredient ID
      */
     public void getIngredient(Context ctx) {
         int id = Integer.parseInt(ctx.pathParam("id"));
-        var ingredient = ingredientService.findIngredient(id);
-        if (ingredient.isPresent()) {
-            ctx.status(200).json(ingredient.get());
-        } else {
-            ctx.status(404).result("Ingredient not found");
+        String fields = ctx.queryParam("fields");
+        if (fields != null) {
+            FieldSet.Projection<Ingredient> projection = IngredientDAO.FIELDS.select(fields);
+            AsyncHandlers.respond(ctx, () -> ingredientService.findIngredientAsync(id, projection),
+                    (c, ingredient) -> {
+                        if (ingredient.isPresent()) {
+                            c.status(200).json(projection.toJson(ingredient.get()));
+                        } else {
+                            c.status(404).result("Ingredient not found");
+                        }
+                    });
+            return;
         }
+        AsyncHandlers.respond(ctx, () -> ingredientService.findIngredientAsync(id), (c, ingredient) -> {
+            if (ingredient.isPresent()) {
+                c.status(200).json(ingredient.get());
+            } else {
+                c.status(404).result("Ingredient not found");
+            }
+        });
     }
 
     /**
@@ -107,13 +128,15 @@ public class IngredientController {
      *            body
      */
     public void createIngredient(Context ctx) {
+        Ingredient ingredient;
         try {
-            Ingredient ingredient = objectMapper.readValue(ctx.body(), Ingredient.class);
-            ingredientService.saveIngredient(ingredient);
-            ctx.status(201);
+            ingredient = objectMapper.readValue(ctx.body(), Ingredient.class);
         } catch (Exception e) {
             ctx.status(400).result("Invalid ingredient data");
+            return;
         }
+        AsyncHandlers.respond(ctx, () -> ingredientService.saveIngredientAsync(ingredient),
+                (c, saved) -> c.status(201));
     }
 
     /**
@@ -121,17 +144,33 @@ public class IngredientController {
      * pagination parameters are provided.
      * 
      * If pagination parameters are included, returns ingredients based on page,
-     * page size, sorting, and filter term.
+     * page size, sorting, and filter term. A fields parameter such as "name"
+     * narrows each ingredient to the listed fields.
+     * 
+     * An ids parameter such as "3,1,2" instead resolves the listed ingredients in
+     * one request, responding with a Batch of ingredients in request order and
+     * the ids that were not found.
      *
      * @param ctx the Javalin context containing query parameters for pagination,
      *            sorting, and filtering
      */
     public void getIngredients(Context ctx) {
+        String ids = ctx.queryParam("ids");
+        if (ids != null) {
+            ctx.status(200).json(ingredientService.findIngredients(Batch.parseIds(ids)));
+            return;
+        }
         String term = ctx.queryParam("term");
         String pageParam = ctx.queryParam("page");
         String pageSizeParam = ctx.queryParam("pageSize");
         String sortBy = getParamAsClassOrElse(ctx, "sortBy", String.class, "name");
         String sortDirection = getParamAsClassOrElse(ctx, "sortDirection", String.class, "asc");
+        String fields = ctx.queryParam("fields");
+        if (fields != null) {
+            getIngredientFields(ctx, term, pageParam == null && pageSizeParam == null, sortBy, sortDirection,
+                    IngredientDAO.FIELDS.select(fields));
+            return;
+        }
 
         // If no pagination parameters are provided, return simple array
         if (pageParam == null && pageSizeParam == null) {
@@ -159,6 +198,33 @@ public class IngredientController {
         }
     }
 
+    /**
+     * Responds with the selected fields of the ingredients matching a listing
+     * request.
+     *
+     * @param ctx           the Javalin context containing query parameters
+     * @param term          the filter term, or null for every ingredient
+     * @param unpaged       true to respond with a simple array instead of a page
+     * @param sortBy        the field to sort the page by
+     * @param sortDirection the direction to sort the page in
+     * @param projection    the fields to read and write
+     */
+    private void getIngredientFields(Context ctx, String term, boolean unpaged, String sortBy,
+            String sortDirection, FieldSet.Projection<Ingredient> projection) {
+        if (term == null || term.trim().isEmpty()) {
+            term = "";
+        }
+        if (unpaged) {
+            ctx.status(200).json(projection.toJson(ingredientService.searchIngredients(term, projection)));
+        } else {
+            int page = getParamAsClassOrElse(ctx, "page", Integer.class, 1);
+            int pageSize = getParamAsClassOrElse(ctx, "pageSize", Integer.class, 10);
+            Page<Ingredient> ingredients = ingredientService.searchIngredients(term, page, pageSize, sortBy,
+                    sortDirection, projection);
+            ctx.status(200).json(projection.toJson(ingredients));
+        }
+    }
+
     /**
      * A helper method to retrieve a query parameter from the context as a specific
      * class type, or return a default value if the query parameter is not present.
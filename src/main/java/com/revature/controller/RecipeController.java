@@ -2,14 +2,27 @@ package com.revature.controller;
 
 import io.javalin.http.Handler;
 import io.javalin.Javalin;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.revature.dao.RecipeDAO;
 import com.revature.service.AuthenticationService;
 import com.revature.service.RecipeService;
 import com.revature.model.Recipe;
 import com.revature.model.Chef;
+import com.revature.util.AsyncHandlers;
+import com.revature.util.Batch;
+import com.revature.util.EventBroadcaster;
+import com.revature.util.FetchPlan;
+import com.revature.util.FieldSet;
 import com.revature.util.Page;
+import com.revature.util.ResponseCache;
 
 /**
  * The RecipeController class provides RESTful endpoints for managing recipes.
@@ -17,6 +30,15 @@ import com.revature.util.Page;
  * recipes.
  * Handlers in this class are fields assigned to lambdas, which define the
  * behavior for each endpoint.
+ * 
+ * The single recipe handlers run their queries on the services' database
+ * executor through {@link AsyncHandlers}, so the request thread is released
+ * while the database works. The listing handler stays synchronous, since most
+ * of its requests are answered from the response cache without a query.
+ * 
+ * GET /recipes/stream pushes recipe create, update and delete events from the
+ * service's change log as Server-Sent Events, so clients no longer need to poll
+ * the listing to notice changes.
  */
 
 public class RecipeController {
@@ -27,8 +49,30 @@ public class RecipeController {
     /** A service that handles authentication-related operations. */
     private AuthenticationService authService;
 
+    /** The view parameter value selecting RecipeSummary listings. */
+    private static final String VIEW_SUMMARY = "summary";
+
+    /** The view parameter value selecting full Recipe listings. */
+    private static final String VIEW_DETAIL = "detail";
+
+    /** The largest number of similar recipes a request may ask for. */
+    private static final int MAX_SIMILAR_RECIPES = 50;
+
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * Broadcasts the recipe events of the service's change log, created when the
+     * first client connects.
+     */
+    private EventBroadcaster recipeEvents;
+
+    /**
+     * A cache of serialized recipe listing pages, invalidated whenever the
+     * recipe, chef, ingredient or recipe summary tables change.
+     */
+    private ResponseCache responseCache = new ResponseCache("recipes", ResponseCache.DEFAULT_MAX_ENTRIES,
+            "RECIPE", "CHEF", "INGREDIENT", "RECIPE_SUMMARY");
+
     /**
      * TODO: Constructor that initializes the RecipeController with the parameters.
      * 
@@ -42,34 +86,104 @@ public class RecipeController {
         this.authService = authService;
     }
 
+    /**
+     * @return the broadcaster of recipe events, created on first use
+     */
+    private synchronized EventBroadcaster recipeEvents() {
+        if (recipeEvents == null) {
+            recipeEvents = new EventBroadcaster("recipes", recipeService.getChangeLog(),
+                    event -> event.getEntity().equals("recipe"), EventBroadcaster.DEFAULT_BUFFER_SIZE);
+        }
+        return recipeEvents;
+    }
+
     /**
      * TODO: Handler for fetching all recipes. Supports pagination, sorting, and
      * filtering by recipe name or ingredient.
      * 
+     * The view query parameter selects the representation of each recipe:
+     * "summary" (the default) returns RecipeSummary objects, while "detail"
+     * returns full Recipe objects including instructions and the author. A
+     * fields parameter such as "id,name" narrows the detail representation to
+     * the listed fields and implies the detail view. A fetch parameter such as
+     * "author,ingredients" also implies the detail view, but reads only the
+     * listed parts of each recipe besides its id and name: the instructions,
+     * the author and the ingredients. Unlisted parts are null, except the
+     * author, which keeps its id.
+     * 
+     * The total of a search over a large catalog is estimated and the page is
+     * marked "approximate"; an exact parameter of true counts it instead.
+     * 
+     * An ids parameter such as "3,1,2" instead resolves the listed recipes in one
+     * request, responding with a Batch of full recipes in request order and the
+     * ids that were not found.
+     * 
      * Responds with a 200 OK status and the list of recipes, or 404 Not Found with
      * a result of "No recipes found".
      */
     public Handler fetchAllRecipes = ctx -> {
+        String ids = ctx.queryParam("ids");
+        if (ids != null) {
+            ctx.status(200).json(recipeService.findRecipes(Batch.parseIds(ids)));
+            return;
+        }
         String term = ctx.queryParam("term");
         int page = getParamAsClassOrElse(ctx, "page", Integer.class, 1);
         int pageSize = getParamAsClassOrElse(ctx, "pageSize", Integer.class, 10);
         String sortBy = getParamAsClassOrElse(ctx, "sortBy", String.class, "name");
         String sortDirection = getParamAsClassOrElse(ctx, "sortDirection", String.class, "asc");
+        String fields = ctx.queryParam("fields");
+        String fetch = ctx.queryParam("fetch");
+        boolean exact = getParamAsClassOrElse(ctx, "exact", Boolean.class, false);
+        String view = getParamAsClassOrElse(ctx, "view", String.class,
+                fields == null && fetch == null ? VIEW_SUMMARY : VIEW_DETAIL).toLowerCase();
+        if (!view.equals(VIEW_SUMMARY) && !view.equals(VIEW_DETAIL)) {
+            throw new IllegalArgumentException("view must be " + VIEW_SUMMARY + " or " + VIEW_DETAIL);
+        }
+        if (fields != null && view.equals(VIEW_SUMMARY)) {
+            throw new IllegalArgumentException("fields can only be selected with the " + VIEW_DETAIL + " view");
+        }
+        if (fetch != null && view.equals(VIEW_SUMMARY)) {
+            throw new IllegalArgumentException("fetch can only be selected with the " + VIEW_DETAIL + " view");
+        }
+        if (fields != null && fetch != null) {
+            throw new IllegalArgumentException("fields and fetch cannot be combined");
+        }
+        FieldSet.Projection<Recipe> projection = fields == null ? null : RecipeDAO.FIELDS.select(fields);
+        FetchPlan plan = fetch == null ? null : FetchPlan.parse(fetch);
 
-        if (term != null && !term.trim().isEmpty()) {
-            Page<Recipe> recipes = recipeService.searchRecipes(term, page, pageSize, sortBy, sortDirection);
-            if (recipes.getItems().isEmpty()) {
-                ctx.status(404).result("No recipes found");
-            } else {
-                ctx.status(200).json(recipes);
-            }
+        // Serve identical listings straight from the cached bytes
+        if (term == null || term.trim().isEmpty()) {
+            term = "";
+        }
+        String cacheKey = ResponseCache.key("/recipes", term, page, pageSize, sortBy.toLowerCase(),
+                sortDirection.toLowerCase(), view, projection == null ? "" : String.join(",", projection.names()),
+                plan, exact);
+        byte[] cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            ctx.status(200).contentType(ContentType.APPLICATION_JSON).result(cached);
+            return;
+        }
+        long stamp = responseCache.stamp();
+
+        Page<?> recipes;
+        if (projection != null) {
+            recipes = projection
+                    .toJson(recipeService.searchRecipes(term, page, pageSize, sortBy, sortDirection, projection));
+        } else if (plan != null) {
+            recipes = recipeService.searchRecipes(term, page, pageSize, sortBy, sortDirection, plan, exact);
+        } else if (view.equals(VIEW_DETAIL)) {
+            recipes = recipeService.searchRecipes(term, page, pageSize, sortBy, sortDirection);
+        } else if (exact) {
+            recipes = recipeService.searchRecipeSummaries(term, page, pageSize, sortBy, sortDirection, true);
         } else {
-            Page<Recipe> recipes = recipeService.searchRecipes("", page, pageSize, sortBy, sortDirection);
-            if (recipes.getItems().isEmpty()) {
-                ctx.status(404).result("No recipes found");
-            } else {
-                ctx.status(200).json(recipes);
-            }
+            recipes = recipeService.searchRecipeSummaries(term, page, pageSize, sortBy, sortDirection);
+        }
+        if (recipes.getItems().isEmpty()) {
+            ctx.status(404).result("No recipes found");
+        } else {
+            ctx.status(200).json(recipes);
+            cacheResult(ctx, cacheKey, stamp);
         }
     };
 
@@ -77,19 +191,57 @@ public class RecipeController {
      * TODO: Handler for fetching a recipe by its ID.
      * 
      * If successful, responds with a 200 status code and the recipe as the response
-     * body.
+     * body. A fields parameter such as "id,name" narrows the recipe to the listed
+     * fields.
      * 
      * If unsuccessful, responds with a 404 status code and a result of "Recipe not
      * found".
      */
     public Handler fetchRecipeById = ctx -> {
         int id = Integer.parseInt(ctx.pathParam("id"));
-        var recipe = recipeService.findRecipe(id);
-        if (recipe.isPresent()) {
-            ctx.status(200).json(recipe.get());
-        } else {
-            ctx.status(404).result("Recipe not found");
+        String fields = ctx.queryParam("fields");
+        if (fields != null) {
+            FieldSet.Projection<Recipe> projection = RecipeDAO.FIELDS.select(fields);
+            AsyncHandlers.respond(ctx, () -> recipeService.findRecipeAsync(id, projection), (c, recipe) -> {
+                if (recipe.isPresent()) {
+                    c.status(200).json(projection.toJson(recipe.get()));
+                } else {
+                    c.status(404).result("Recipe not found");
+                }
+            });
+            return;
         }
+        AsyncHandlers.respond(ctx, () -> recipeService.findRecipeAsync(id), (c, recipe) -> {
+            if (recipe.isPresent()) {
+                c.status(200).json(recipe.get());
+            } else {
+                c.status(404).result("Recipe not found");
+            }
+        });
+    };
+
+    /**
+     * Handler for fetching the recipes most alike a recipe by their
+     * ingredients. The k query parameter sets the number of recipes returned,
+     * 10 by default and at most MAX_SIMILAR_RECIPES.
+     * 
+     * Responds with a 200 status and the similar recipes, from the most to the
+     * least similar, each with its id, name and similarity. Responds with a 404
+     * status and a result of "Recipe not found" if the recipe does not exist.
+     */
+    public Handler fetchSimilarRecipes = ctx -> {
+        int id = Integer.parseInt(ctx.pathParam("id"));
+        int k = getParamAsClassOrElse(ctx, "k", Integer.class, 10);
+        if (k < 1 || k > MAX_SIMILAR_RECIPES) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_SIMILAR_RECIPES);
+        }
+        AsyncHandlers.respond(ctx, () -> recipeService.findSimilarRecipesAsync(id, k), (c, similar) -> {
+            if (similar.isPresent()) {
+                c.status(200).json(similar.get());
+            } else {
+                c.status(404).result("Recipe not found");
+            }
+        });
     };
 
     /**
@@ -119,8 +271,7 @@ public class RecipeController {
 
         Recipe recipe = objectMapper.readValue(ctx.body(), Recipe.class);
         recipe.setAuthor(chef);
-        recipeService.saveRecipe(recipe);
-        ctx.status(201);
+        AsyncHandlers.respond(ctx, () -> recipeService.saveRecipeAsync(recipe), (c, saved) -> c.status(201));
     };
 
     /**
@@ -153,18 +304,54 @@ public class RecipeController {
      */
     public Handler updateRecipe = ctx -> {
         int id = Integer.parseInt(ctx.pathParam("id"));
-        var existingRecipe = recipeService.findRecipe(id);
-        if (existingRecipe.isPresent()) {
-            Recipe recipe = objectMapper.readValue(ctx.body(), Recipe.class);
+        String body = ctx.body();
+        AsyncHandlers.respond(ctx, () -> recipeService.findRecipeAsync(id).thenCompose(existingRecipe -> {
+            if (existingRecipe.isEmpty()) {
+                return CompletableFuture.completedFuture(Optional.<Recipe>empty());
+            }
+            Recipe recipe = readRecipe(body);
             recipe.setId(id);
             recipe.setAuthor(existingRecipe.get().getAuthor()); // Preserve the original author
-            recipeService.saveRecipe(recipe);
-            ctx.status(200).json(recipe);
-        } else {
-            ctx.status(404).result("Recipe not found.");
-        }
+            return recipeService.saveRecipeAsync(recipe).thenApply(Optional::of);
+        }), (c, recipe) -> {
+            if (recipe.isPresent()) {
+                c.status(200).json(recipe.get());
+            } else {
+                c.status(404).result("Recipe not found.");
+            }
+        });
     };
 
+    /**
+     * A helper method to read a recipe from a request body.
+     * 
+     * @param body The JSON request body.
+     * @return The recipe described by the body.
+     * @throws IllegalArgumentException if the body is not a valid recipe.
+     */
+    private Recipe readRecipe(String body) {
+        try {
+            return objectMapper.readValue(body, Recipe.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid recipe data");
+        }
+    }
+
+    /**
+     * A helper method to store the response body that has just been written to
+     * the context in the response cache.
+     * 
+     * @param ctx      The context of the request.
+     * @param cacheKey The key the response is cached under.
+     * @param stamp    The table version stamp captured before the query ran.
+     */
+    private void cacheResult(Context ctx, String cacheKey, long stamp) {
+        String body = ctx.result();
+        if (body != null) {
+            responseCache.put(cacheKey, stamp, body.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     /**
      * A helper method to retrieve a query parameter from the context as a specific
      * class type, or return a default value if the query parameter is not present.
@@ -198,8 +385,11 @@ public class RecipeController {
      * @param app the Javalin application
      */
     public void configureRoutes(Javalin app) {
+        // Registered before /recipes/{id}, which would otherwise match it
+        app.sse("/recipes/stream", client -> recipeEvents().connect(client));
         app.get("/recipes", fetchAllRecipes);
         app.get("/recipes/{id}", fetchRecipeById);
+        app.get("/recipes/{id}/similar", fetchSimilarRecipes);
         app.post("/recipes", createRecipe);
         app.put("/recipes/{id}", updateRecipe);
         app.delete("/recipes/{id}", deleteRecipe);
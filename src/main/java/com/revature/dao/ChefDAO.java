@@ -1,10 +1,16 @@
 package com.revature.dao;
 
+import com.revature.util.Batch;
 import com.revature.util.ConnectionUtil;
+import com.revature.util.Metrics;
 import com.revature.util.Page;
 import com.revature.util.PageOptions;
+import com.revature.util.TableVersions;
 import com.revature.model.Chef;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.ArrayList;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -23,6 +29,15 @@ import java.sql.SQLException;
 
 public class ChefDAO {
 
+    /** The columns chef listings may be sorted by. */
+    public static final Set<String> SORTABLE_COLUMNS = Set.of("id", "username", "email", "isadmin");
+
+    /**
+     * The projection read for a chef. Rows are mapped by column index, so the
+     * order of these columns must match mapSingleRow.
+     */
+    private static final String SELECT_CHEF = "SELECT id, username, email, password, isAdmin FROM CHEF";
+
     /** A utility class for establishing connections to the database. */
     private ConnectionUtil connectionUtil;
 
@@ -45,7 +60,7 @@ public class ChefDAO {
      * @return a list of all Chef objects
      */
     public List<Chef> getAllChefs() {
-        String sql = "SELECT * FROM CHEF ORDER BY username";
+        String sql = SELECT_CHEF + " ORDER BY username";
         try (Connection connection = connectionUtil.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             ResultSet resultSet = statement.executeQuery();
@@ -64,7 +79,7 @@ public class ChefDAO {
      * @return a paginated list of Chef objects
      */
     public Page<Chef> getAllChefs(PageOptions pageOptions) {
-        String sql = "SELECT * FROM CHEF ORDER BY " + pageOptions.getSortBy() + " " + pageOptions.getSortDirection();
+        String sql = pageOptions.toSql(SELECT_CHEF, SORTABLE_COLUMNS);
         try (Connection connection = connectionUtil.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             ResultSet resultSet = statement.executeQuery();
@@ -82,7 +97,7 @@ public class ChefDAO {
      * @return the Chef object, if found.
      */
     public Chef getChefById(int id) {
-        String sql = "SELECT * FROM CHEF WHERE id = ?";
+        String sql = SELECT_CHEF + " WHERE id = ?";
         try (Connection connection = connectionUtil.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setInt(1, id);
@@ -96,14 +111,74 @@ public class ChefDAO {
         return null;
     }
 
+    /**
+     * Retrieves the author of a recipe. The chef is looked up through the
+     * recipe's chef id in a single statement, so the author can be fetched
+     * without first reading the recipe row.
+     *
+     * @param recipeId the unique identifier of the recipe
+     * @return the Chef who wrote the recipe, or null if there is no such recipe
+     */
+    public Chef getChefByRecipeId(int recipeId) {
+        String sql = SELECT_CHEF + " WHERE id = (SELECT chef_id FROM RECIPE WHERE id = ?)";
+        int shard = shardCount() > 1 ? connectionUtil.shardForRecipe(recipeId) : 0;
+        try (Connection connection = connect(shard);
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, recipeId);
+            ResultSet resultSet = statement.executeQuery();
+            if (resultSet.next()) {
+                return mapSingleRow(resultSet);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the chefs with the given ids. The ids are fetched in chunks of
+     * Batch.CHUNK_SIZE, one statement per chunk.
+     *
+     * @param ids the ids of the chefs to retrieve
+     * @return the chefs found, indexed by id
+     */
+    public Map<Integer, Chef> getChefsByIds(List<Integer> ids) {
+        String sql = SELECT_CHEF + " WHERE id = ANY(?)";
+        Map<Integer, Chef> chefs = new HashMap<>();
+        if (ids.isEmpty()) {
+            return chefs;
+        }
+        try (Connection connection = connectionUtil.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (List<Integer> chunk : Batch.chunks(ids, Batch.CHUNK_SIZE)) {
+                statement.setArray(1, connection.createArrayOf("INTEGER", chunk.toArray()));
+                ResultSet resultSet = statement.executeQuery();
+                for (Chef chef : mapRows(resultSet)) {
+                    chefs.put(chef.getId(), chef);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return chefs;
+    }
+
     /**
      * TODO: Creates a new Chef record in the database.
      *
+     * The chef is inserted on the primary, which allocates its id, and then
+     * copied with the same id to every other shard. Each copy commits on its
+     * own, so if one of them fails the copies already written are deleted
+     * again and the chef is not created; the failure is counted under
+     * "chef.replication.failures".
+     *
      * @param chef the Chef object to be created.
-     * @return the unique identifier of the created Chef.
+     * @return the unique identifier of the created Chef, or 0 if it could not
+     *         be written to every shard.
      */
     public int createChef(Chef chef) {
         String sql = "INSERT INTO CHEF (username, email, password, isAdmin) VALUES (?, ?, ?, ?)";
+        int id = 0;
         try (Connection connection = connectionUtil.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql,
                         PreparedStatement.RETURN_GENERATED_KEYS)) {
@@ -113,51 +188,122 @@ public class ChefDAO {
             statement.setBoolean(4, chef.isAdmin());
             int affectedRows = statement.executeUpdate();
             if (affectedRows > 0) {
+                TableVersions.bump("CHEF");
                 ResultSet generatedKeys = statement.getGeneratedKeys();
                 if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
+                    id = generatedKeys.getInt(1);
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return 0;
+        if (id != 0) {
+            String replica = "INSERT INTO CHEF (id, username, email, password, isAdmin) VALUES (?, ?, ?, ?, ?)";
+            for (int shard = 1; shard < shardCount(); shard++) {
+                try (Connection connection = connect(shard);
+                        PreparedStatement statement = connection.prepareStatement(replica)) {
+                    statement.setInt(1, id);
+                    statement.setString(2, chef.getUsername());
+                    statement.setString(3, chef.getEmail());
+                    statement.setString(4, chef.getPassword());
+                    statement.setBoolean(5, chef.isAdmin());
+                    statement.executeUpdate();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                    Metrics.increment("chef.replication.failures");
+                    removeCopies(id, shard);
+                    return 0;
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Deletes the copies of a chef written to the first shards by a create that
+     * could not be completed.
+     *
+     * @param id      the id of the chef
+     * @param written the number of shards the chef was written to
+     */
+    private void removeCopies(int id, int written) {
+        for (int shard = 0; shard < written; shard++) {
+            try (Connection connection = connect(shard);
+                    PreparedStatement statement = connection.prepareStatement("DELETE FROM CHEF WHERE id = ?")) {
+                statement.setInt(1, id);
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        TableVersions.bump("CHEF");
     }
 
     /**
-     * TODO: Updates an existing Chef record in the database.
+     * TODO: Updates an existing Chef record in the database, on every shard.
      *
      * @param chef the Chef object containing updated information.
+     * @return true if the chef was updated on every shard, false if it does not
+     *         exist or the update failed on one
      */
-    public void updateChef(Chef chef) {
+    public boolean updateChef(Chef chef) {
         String sql = "UPDATE CHEF SET username = ?, email = ?, password = ?, isAdmin = ? WHERE id = ?";
-        try (Connection connection = connectionUtil.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, chef.getUsername());
-            statement.setString(2, chef.getEmail());
-            statement.setString(3, chef.getPassword());
-            statement.setBoolean(4, chef.isAdmin());
-            statement.setInt(5, chef.getId());
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        boolean written = true;
+        for (int shard = 0; shard < shardCount(); shard++) {
+            try (Connection connection = connect(shard);
+                    PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, chef.getUsername());
+                statement.setString(2, chef.getEmail());
+                statement.setString(3, chef.getPassword());
+                statement.setBoolean(4, chef.isAdmin());
+                statement.setInt(5, chef.getId());
+                written &= statement.executeUpdate() > 0;
+                TableVersions.bump("CHEF");
+            } catch (SQLException e) {
+                e.printStackTrace();
+                written = false;
+            }
         }
+        return written;
     }
 
     /**
-     * TODO: Deletes a Chef record from the database.
+     * TODO: Deletes a Chef record from the database, on every shard.
      *
      * @param chef the Chef object to be deleted.
+     * @return true if the chef was deleted from every shard, false if it does
+     *         not exist or the delete failed on one
      */
-    public void deleteChef(Chef chef) {
+    public boolean deleteChef(Chef chef) {
         String sql = "DELETE FROM CHEF WHERE id = ?";
-        try (Connection connection = connectionUtil.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, chef.getId());
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        boolean deleted = true;
+        for (int shard = 0; shard < shardCount(); shard++) {
+            try (Connection connection = connect(shard);
+                    PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, chef.getId());
+                deleted &= statement.executeUpdate() > 0;
+                TableVersions.bump("CHEF");
+            } catch (SQLException e) {
+                e.printStackTrace();
+                deleted = false;
+            }
         }
+        return deleted;
+    }
+
+    /**
+     * @return the number of shards holding a copy of the CHEF table
+     */
+    private int shardCount() {
+        return Math.max(1, connectionUtil.getShardCount());
+    }
+
+    /**
+     * @param shard the index of the shard
+     * @return an active connection to the shard, the primary being shard 0
+     */
+    private Connection connect(int shard) {
+        return shard == 0 ? connectionUtil.getConnection() : connectionUtil.getConnection(shard);
     }
 
     /**
@@ -167,7 +313,7 @@ public class ChefDAO {
      * @return a list of Chef objects that match the search term.
      */
     public List<Chef> searchChefsByTerm(String term) {
-        String sql = "SELECT * FROM CHEF WHERE username LIKE ? OR email LIKE ? ORDER BY username";
+        String sql = SELECT_CHEF + " WHERE username LIKE ? OR email LIKE ? ORDER BY username";
         try (Connection connection = connectionUtil.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, "%" + term + "%");
@@ -190,8 +336,7 @@ public class ChefDAO {
      * @return a paginated list of Chef objects that match the search term
      */
     public Page<Chef> searchChefsByTerm(String term, PageOptions pageOptions) {
-        String sql = "SELECT * FROM CHEF WHERE username LIKE ? OR email LIKE ? ORDER BY " + pageOptions.getSortBy()
-                + " " + pageOptions.getSortDirection();
+        String sql = pageOptions.toSql(SELECT_CHEF + " WHERE username LIKE ? OR email LIKE ?", SORTABLE_COLUMNS);
         try (Connection connection = connectionUtil.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, "%" + term + "%");
@@ -207,18 +352,19 @@ public class ChefDAO {
     // below are helper methods that are included for your convenience
 
     /**
-     * Maps a single row from the ResultSet to a Chef object.
+     * Maps a single row from the ResultSet to a Chef object. Columns are read by
+     * their position in the SELECT_CHEF projection.
      *
      * @param set the ResultSet containing Chef data.
      * @return a Chef object representing the row.
      * @throws SQLException if an error occurs while accessing the ResultSet.
      */
     private Chef mapSingleRow(ResultSet set) throws SQLException {
-        int id = set.getInt("id");
-        String username = set.getString("username");
-        String email = set.getString("email");
-        String password = set.getString("password");
-        boolean isAdmin = set.getBoolean("isAdmin");
+        int id = set.getInt(1);
+        String username = set.getString(2);
+        String email = set.getString(3);
+        String password = set.getString(4);
+        boolean isAdmin = set.getBoolean(5);
         return new Chef(id, username, email, password, isAdmin);
     }
 
@@ -5,11 +5,18 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import com.revature.util.Batch;
 import com.revature.util.ConnectionUtil;
+import com.revature.util.FieldSet;
+import com.revature.util.Metrics;
 import com.revature.util.Page;
 import com.revature.util.PageOptions;
+import com.revature.util.TableVersions;
 import com.revature.model.Ingredient;
 
 /**
@@ -23,6 +30,19 @@ import com.revature.model.Ingredient;
 
 public class IngredientDAO {
 
+    /** The columns ingredient listings may be sorted by. */
+    public static final Set<String> SORTABLE_COLUMNS = Set.of("id", "name");
+
+    /**
+     * The fields a sparse fieldset may select from an ingredient. Every query in
+     * this class reads the projection it is given, the full one by default.
+     */
+    public static final FieldSet<Ingredient> FIELDS = new FieldSet<Ingredient>("ingredient", Ingredient::new)
+            .field("id", "id", Ingredient::getId,
+                    (ingredient, set, column) -> ingredient.setId(set.getInt(column)))
+            .field("name", "name", Ingredient::getName,
+                    (ingredient, set, column) -> ingredient.setName(set.getString(column)));
+
     /** A utility class used for establishing connections to the database. */
     private ConnectionUtil connectionUtil;
 
@@ -46,13 +66,25 @@ public class IngredientDAO {
      * @return the Ingredient object with the specified id.
      */
     public Ingredient getIngredientById(int id) {
-        String sql = "SELECT * FROM INGREDIENT WHERE id = ?";
-        try (Connection connection = connectionUtil.getConnection();
+        return getIngredientById(id, FIELDS.all());
+    }
+
+    /**
+     * Retrieves an Ingredient record by its unique identifier, reading only the
+     * selected fields.
+     *
+     * @param id     the unique identifier of the Ingredient to retrieve.
+     * @param fields the fields to read.
+     * @return the Ingredient object with the specified id.
+     */
+    public Ingredient getIngredientById(int id, FieldSet.Projection<Ingredient> fields) {
+        String sql = "SELECT " + fields.columns() + " FROM INGREDIENT WHERE id = ?";
+        try (Connection connection = connectionUtil.getReadConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setInt(1, id);
             ResultSet resultSet = statement.executeQuery();
             if (resultSet.next()) {
-                return mapSingleRow(resultSet);
+                return fields.map(resultSet);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -60,74 +92,182 @@ public class IngredientDAO {
         return null;
     }
 
+    /**
+     * Retrieves the ingredients with the given ids. The ids are fetched in chunks
+     * of Batch.CHUNK_SIZE, one statement per chunk.
+     *
+     * @param ids the ids of the ingredients to retrieve
+     * @return the ingredients found, indexed by id
+     */
+    public Map<Integer, Ingredient> getIngredientsByIds(List<Integer> ids) {
+        FieldSet.Projection<Ingredient> fields = FIELDS.all();
+        String sql = "SELECT " + fields.columns() + " FROM INGREDIENT WHERE id = ANY(?)";
+        Map<Integer, Ingredient> ingredients = new HashMap<>();
+        if (ids.isEmpty()) {
+            return ingredients;
+        }
+        try (Connection connection = connectionUtil.getReadConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (List<Integer> chunk : Batch.chunks(ids, Batch.CHUNK_SIZE)) {
+                statement.setArray(1, connection.createArrayOf("INTEGER", chunk.toArray()));
+                ResultSet resultSet = statement.executeQuery();
+                for (Ingredient ingredient : mapRows(resultSet, fields)) {
+                    ingredients.put(ingredient.getId(), ingredient);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return ingredients;
+    }
+
     /**
      * TODO: Creates a new Ingredient record in the database.
      *
+     * The ingredient is inserted on the primary, which allocates its id, and
+     * then copied with the same id to every other shard. Each copy commits on
+     * its own, so if one of them fails the copies already written are deleted
+     * again and the ingredient is not created; the failure is counted under
+     * "ingredient.replication.failures".
+     *
      * @param ingredient the Ingredient object to be created.
-     * @return the unique identifier of the created Ingredient.
+     * @return the unique identifier of the created Ingredient, or 0 if it
+     *         could not be written to every shard.
      */
     public int createIngredient(Ingredient ingredient) {
         String sql = "INSERT INTO INGREDIENT (name) VALUES (?)";
+        int id = 0;
         try (Connection connection = connectionUtil.getConnection();
                 PreparedStatement statement = connection.prepareStatement(sql,
                         PreparedStatement.RETURN_GENERATED_KEYS)) {
             statement.setString(1, ingredient.getName());
             int affectedRows = statement.executeUpdate();
             if (affectedRows > 0) {
+                TableVersions.bump("INGREDIENT");
                 ResultSet generatedKeys = statement.getGeneratedKeys();
                 if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
+                    id = generatedKeys.getInt(1);
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return 0;
+        if (id != 0) {
+            for (int shard = 1; shard < shardCount(); shard++) {
+                try (Connection connection = connect(shard);
+                        PreparedStatement statement = connection
+                                .prepareStatement("INSERT INTO INGREDIENT (id, name) VALUES (?, ?)")) {
+                    statement.setInt(1, id);
+                    statement.setString(2, ingredient.getName());
+                    statement.executeUpdate();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                    Metrics.increment("ingredient.replication.failures");
+                    removeCopies(id, shard);
+                    return 0;
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Deletes the copies of an ingredient written to the first shards by a
+     * create that could not be completed.
+     *
+     * @param id      the id of the ingredient
+     * @param written the number of shards the ingredient was written to
+     */
+    private void removeCopies(int id, int written) {
+        for (int shard = 0; shard < written; shard++) {
+            try (Connection connection = connect(shard);
+                    PreparedStatement statement = connection.prepareStatement("DELETE FROM INGREDIENT WHERE id = ?")) {
+                statement.setInt(1, id);
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        TableVersions.bump("INGREDIENT");
     }
 
     /**
      * TODO: Deletes an ingredient record from the database, including references in
-     * related tables.
+     * related tables, on every shard.
      *
      * @param ingredient the Ingredient object to be deleted.
+     * @return true if the ingredient was deleted from every shard, false if it
+     *         does not exist or a delete failed on one
      */
-    public void deleteIngredient(Ingredient ingredient) {
-        // First delete from RECIPE_INGREDIENT table
-        String deleteRecipeIngredientSql = "DELETE FROM RECIPE_INGREDIENT WHERE ingredient_id = ?";
-        try (Connection connection = connectionUtil.getConnection();
-                PreparedStatement statement = connection.prepareStatement(deleteRecipeIngredientSql)) {
-            statement.setInt(1, ingredient.getId());
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    public boolean deleteIngredient(Ingredient ingredient) {
+        boolean deleted = true;
+        for (int shard = 0; shard < shardCount(); shard++) {
+            // First delete from RECIPE_INGREDIENT table
+            String deleteRecipeIngredientSql = "DELETE FROM RECIPE_INGREDIENT WHERE ingredient_id = ?";
+            try (Connection connection = connect(shard);
+                    PreparedStatement statement = connection.prepareStatement(deleteRecipeIngredientSql)) {
+                statement.setInt(1, ingredient.getId());
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                deleted = false;
+                continue;
+            }
 
-        // Then delete from INGREDIENT table
-        String deleteIngredientSql = "DELETE FROM INGREDIENT WHERE id = ?";
-        try (Connection connection = connectionUtil.getConnection();
-                PreparedStatement statement = connection.prepareStatement(deleteIngredientSql)) {
-            statement.setInt(1, ingredient.getId());
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+            // Then delete from INGREDIENT table
+            String deleteIngredientSql = "DELETE FROM INGREDIENT WHERE id = ?";
+            try (Connection connection = connect(shard);
+                    PreparedStatement statement = connection.prepareStatement(deleteIngredientSql)) {
+                statement.setInt(1, ingredient.getId());
+                deleted &= statement.executeUpdate() > 0;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                deleted = false;
+            } finally {
+                TableVersions.bump("INGREDIENT", "RECIPE_INGREDIENT");
+            }
         }
+        return deleted;
     }
 
     /**
-     * TODO: Updates an existing Ingredient record in the database.
+     * TODO: Updates an existing Ingredient record in the database, on every shard.
      *
      * @param ingredient the Ingredient object containing updated information.
+     * @return true if the ingredient was updated on every shard, false if it
+     *         does not exist or the update failed on one
      */
-    public void updateIngredient(Ingredient ingredient) {
+    public boolean updateIngredient(Ingredient ingredient) {
         String sql = "UPDATE INGREDIENT SET name = ? WHERE id = ?";
-        try (Connection connection = connectionUtil.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, ingredient.getName());
-            statement.setInt(2, ingredient.getId());
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+        boolean written = true;
+        for (int shard = 0; shard < shardCount(); shard++) {
+            try (Connection connection = connect(shard);
+                    PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, ingredient.getName());
+                statement.setInt(2, ingredient.getId());
+                written &= statement.executeUpdate() > 0;
+                TableVersions.bump("INGREDIENT");
+            } catch (SQLException e) {
+                e.printStackTrace();
+                written = false;
+            }
         }
+        return written;
+    }
+
+    /**
+     * @return the number of shards holding a copy of the INGREDIENT table
+     */
+    private int shardCount() {
+        return Math.max(1, connectionUtil.getShardCount());
+    }
+
+    /**
+     * @param shard the index of the shard
+     * @return an active connection to the shard, the primary being shard 0
+     */
+    private Connection connect(int shard) {
+        return shard == 0 ? connectionUtil.getConnection() : connectionUtil.getConnection(shard);
     }
 
     /**
@@ -136,11 +276,22 @@ public class IngredientDAO {
      * @return a list of all Ingredient objects.
      */
     public List<Ingredient> getAllIngredients() {
-        String sql = "SELECT * FROM INGREDIENT ORDER BY name";
-        try (Connection connection = connectionUtil.getConnection();
+        return getAllIngredients(FIELDS.all());
+    }
+
+    /**
+     * Retrieves all ingredient records from the database, reading only the
+     * selected fields.
+     *
+     * @param fields the fields to read.
+     * @return a list of all Ingredient objects.
+     */
+    public List<Ingredient> getAllIngredients(FieldSet.Projection<Ingredient> fields) {
+        String sql = "SELECT " + fields.columns() + " FROM INGREDIENT ORDER BY name";
+        try (Connection connection = connectionUtil.getReadConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             ResultSet resultSet = statement.executeQuery();
-            return mapRows(resultSet);
+            return mapRows(resultSet, fields);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -155,12 +306,23 @@ public class IngredientDAO {
      * @return a Page of Ingredient objects containing the retrieved ingredients.
      */
     public Page<Ingredient> getAllIngredients(PageOptions pageOptions) {
-        String sql = "SELECT * FROM INGREDIENT ORDER BY " + pageOptions.getSortBy() + " "
-                + pageOptions.getSortDirection();
-        try (Connection connection = connectionUtil.getConnection();
+        return getAllIngredients(pageOptions, FIELDS.all());
+    }
+
+    /**
+     * Retrieves all ingredient records from the database with pagination
+     * options, reading only the selected fields.
+     *
+     * @param pageOptions options for pagination and sorting.
+     * @param fields      the fields to read.
+     * @return a Page of Ingredient objects containing the retrieved ingredients.
+     */
+    public Page<Ingredient> getAllIngredients(PageOptions pageOptions, FieldSet.Projection<Ingredient> fields) {
+        String sql = pageOptions.toSql("SELECT " + fields.columns() + " FROM INGREDIENT", SORTABLE_COLUMNS);
+        try (Connection connection = connectionUtil.getReadConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             ResultSet resultSet = statement.executeQuery();
-            return pageResults(resultSet, pageOptions);
+            return pageResults(resultSet, pageOptions, fields);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -174,12 +336,24 @@ public class IngredientDAO {
      * @return a list of Ingredient objects that match the search term.
      */
     public List<Ingredient> searchIngredients(String term) {
-        String sql = "SELECT * FROM INGREDIENT WHERE name LIKE ? ORDER BY name";
-        try (Connection connection = connectionUtil.getConnection();
+        return searchIngredients(term, FIELDS.all());
+    }
+
+    /**
+     * Searches for Ingredient records by a search term in the name, reading only
+     * the selected fields.
+     *
+     * @param term   the search term to filter Ingredient names.
+     * @param fields the fields to read.
+     * @return a list of Ingredient objects that match the search term.
+     */
+    public List<Ingredient> searchIngredients(String term, FieldSet.Projection<Ingredient> fields) {
+        String sql = "SELECT " + fields.columns() + " FROM INGREDIENT WHERE name LIKE ? ORDER BY name";
+        try (Connection connection = connectionUtil.getReadConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, "%" + term + "%");
             ResultSet resultSet = statement.executeQuery();
-            return mapRows(resultSet);
+            return mapRows(resultSet, fields);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -195,13 +369,27 @@ public class IngredientDAO {
      * @return a Page of Ingredient objects containing the retrieved ingredients.
      */
     public Page<Ingredient> searchIngredients(String term, PageOptions pageOptions) {
-        String sql = "SELECT * FROM INGREDIENT WHERE name LIKE ? ORDER BY " + pageOptions.getSortBy() + " "
-                + pageOptions.getSortDirection();
-        try (Connection connection = connectionUtil.getConnection();
+        return searchIngredients(term, pageOptions, FIELDS.all());
+    }
+
+    /**
+     * Searches for Ingredient records by a search term in the name with
+     * pagination options, reading only the selected fields.
+     *
+     * @param term        the search term to filter Ingredient names.
+     * @param pageOptions options for pagination and sorting.
+     * @param fields      the fields to read.
+     * @return a Page of Ingredient objects containing the retrieved ingredients.
+     */
+    public Page<Ingredient> searchIngredients(String term, PageOptions pageOptions,
+            FieldSet.Projection<Ingredient> fields) {
+        String sql = pageOptions.toSql("SELECT " + fields.columns() + " FROM INGREDIENT WHERE name LIKE ?",
+                SORTABLE_COLUMNS);
+        try (Connection connection = connectionUtil.getReadConnection();
                 PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, "%" + term + "%");
             ResultSet resultSet = statement.executeQuery();
-            return pageResults(resultSet, pageOptions);
+            return pageResults(resultSet, pageOptions, fields);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -210,28 +398,20 @@ public class IngredientDAO {
 
     // below are helper methods for your convenience
 
-    /**
-     * Maps a single row from the ResultSet to an Ingredient object.
-     *
-     * @param resultSet the ResultSet containing Ingredient data.
-     * @return an Ingredient object representing the row.
-     * @throws SQLException if an error occurs while accessing the ResultSet.
-     */
-    private Ingredient mapSingleRow(ResultSet resultSet) throws SQLException {
-        return new Ingredient(resultSet.getInt("ID"), resultSet.getString("NAME"));
-    }
-
     /**
      * Maps multiple rows from the ResultSet to a list of Ingredient objects.
+     * Columns are read by their position in the projection the query selected.
      *
      * @param resultSet the ResultSet containing Ingredient data.
+     * @param fields    the fields the query selected.
      * @return a list of Ingredient objects.
      * @throws SQLException if an error occurs while accessing the ResultSet.
      */
-    private List<Ingredient> mapRows(ResultSet resultSet) throws SQLException {
+    private List<Ingredient> mapRows(ResultSet resultSet, FieldSet.Projection<Ingredient> fields)
+            throws SQLException {
         List<Ingredient> ingredients = new ArrayList<Ingredient>();
         while (resultSet.next()) {
-            ingredients.add(mapSingleRow(resultSet));
+            ingredients.add(fields.map(resultSet));
         }
         return ingredients;
     }
@@ -241,11 +421,13 @@ public class IngredientDAO {
      *
      * @param resultSet   the ResultSet containing Ingredient data.
      * @param pageOptions options for pagination and sorting.
+     * @param fields      the fields the query selected.
      * @return a Page of Ingredient objects containing the paginated results.
      * @throws SQLException if an error occurs while accessing the ResultSet.
      */
-    private Page<Ingredient> pageResults(ResultSet resultSet, PageOptions pageOptions) throws SQLException {
-        List<Ingredient> ingredients = mapRows(resultSet);
+    private Page<Ingredient> pageResults(ResultSet resultSet, PageOptions pageOptions,
+            FieldSet.Projection<Ingredient> fields) throws SQLException {
+        List<Ingredient> ingredients = mapRows(resultSet, fields);
         int offset = (pageOptions.getPageNumber() - 1) * pageOptions.getPageSize();
         int limit = Math.min(offset + pageOptions.getPageSize(), ingredients.size());
         List<Ingredient> subList = ingredients.subList(offset, limit);
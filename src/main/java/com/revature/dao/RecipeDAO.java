@@ -4,14 +4,32 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 
+import com.revature.util.Batch;
 import com.revature.util.ConnectionUtil;
+import com.revature.util.FetchPlan;
+import com.revature.util.FieldSet;
 import com.revature.util.Page;
 import com.revature.util.PageOptions;
+import com.revature.util.ScatterGather;
+import com.revature.util.TableVersions;
 import com.revature.model.Chef;
 import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
+import com.revature.model.RecipeSummary;
 
 /**
  * The RecipeDAO class abstracts the CRUD operations for Recipe objects.
@@ -22,10 +40,150 @@ import com.revature.model.Recipe;
  * Although the implementation may seem extensive for simple functionality, this
  * design improves testability, maintainability, and extensibility of the
  * overall infrastructure.
+ * 
+ * When the data is split across several shards, a recipe is created on the
+ * shard of its author and read, updated and deleted on the shard its id routes
+ * to; changing a recipe's author does not move it. Listings query every shard
+ * and merge the sorted rows.
+ * 
+ * Summary listings, and listings taking a FetchPlan, read the RECIPE_SUMMARY
+ * table, which is kept current by the RecipeSummaryTrigger on every write.
+ * Listings taking a FetchPlan read only the id, name and author id of the
+ * matching rows there, and read the instructions, author and ingredients the plan
+ * asks for in batches, for the recipes of the requested page only.
  */
 
 public class RecipeDAO {
 
+	/** The columns recipe listings may be sorted by. */
+	public static final Set<String> SORTABLE_COLUMNS = Set.of("id", "name", "chef_id");
+
+	/**
+	 * The projection read for a full recipe. Rows are mapped by column index, so
+	 * the order of these columns must match mapSingleRow.
+	 */
+	private static final String RECIPE_COLUMNS = "id, name, instructions, chef_id";
+
+	/** The statement reading full recipes. */
+	private static final String SELECT_RECIPE = "SELECT " + RECIPE_COLUMNS + " FROM RECIPE";
+
+	/**
+	 * The projection read for recipe listings, from the RECIPE_SUMMARY read
+	 * table. The table holds the author's username and the ingredient count of
+	 * each recipe, kept current on every write, so listings read one narrow
+	 * table without joining CHEF or RECIPE_INGREDIENT. It must match
+	 * mapSummaryRow.
+	 */
+	private static final String SUMMARY_COLUMNS = "id, name, chef_id, chef_username, ingredient_count";
+
+	/** The read table of recipe listings. */
+	private static final String SUMMARY_TABLE = "RECIPE_SUMMARY";
+
+	/** The statement reading recipe summaries. */
+	private static final String SELECT_RECIPE_SUMMARY = "SELECT " + SUMMARY_COLUMNS + " FROM " + SUMMARY_TABLE;
+
+	/**
+	 * The filter of recipe searches against the read table, binding the term
+	 * twice. The instructions are not part of a summary, so they are matched
+	 * in RECIPE.
+	 */
+	private static final String SUMMARY_SEARCH_FILTER = " WHERE name LIKE ? "
+			+ "OR id IN (SELECT id FROM RECIPE WHERE instructions LIKE ?)";
+
+	/** The filter of recipe searches, binding the term twice. */
+	private static final String SEARCH_FILTER = " WHERE name LIKE ? OR instructions LIKE ?";
+
+	/**
+	 * The number of recipes in a database, kept by the RowCountTrigger in the
+	 * transaction of every insert and delete.
+	 */
+	private static final String RECIPE_ROW_COUNT = "(SELECT row_count FROM TABLE_ROW_COUNT "
+			+ "WHERE table_name = 'RECIPE')";
+
+	/** The number of recipes of a chef in a database, kept by the RowCountTrigger. */
+	private static final String SELECT_CHEF_RECIPE_COUNT = "SELECT recipe_count FROM CHEF_RECIPE_COUNT "
+			+ "WHERE chef_id = ?";
+
+	/**
+	 * The statement updating a recipe, binding its name, instructions, chef id
+	 * and id, then whether the new chef's recipes are placed on the recipe's
+	 * shard and the new chef id again. A recipe's shard is fixed by its id, so a
+	 * recipe may only be given to a chef whose recipes are placed on another
+	 * shard if it stays with its current chef.
+	 */
+	private static final String UPDATE_RECIPE = "UPDATE RECIPE SET name = ?, instructions = ?, chef_id = ? "
+			+ "WHERE id = ? AND (? OR chef_id = ?)";
+
+	/** Reads only the rows of the requested page, after the ORDER BY clause. */
+	private static final String PAGE_LIMIT = " LIMIT ? OFFSET ?";
+
+	/**
+	 * The number of recipe ids a search total is estimated from. Searches of a
+	 * database holding more recipes than this count the matches among a sample
+	 * of the recipes and scale them up, unless an exact total is asked for.
+	 */
+	public static final int COUNT_SAMPLE_ROWS = 10_000;
+
+	/** The lowest and highest recipe id of a database. */
+	private static final String SELECT_ID_RANGE = "SELECT MIN(id), MAX(id) FROM " + SUMMARY_TABLE;
+
+	/**
+	 * The number of sampled recipes found and the number matching a search term
+	 * bound twice. The sample is read by primary key, so only its rows are
+	 * matched against the name and instructions.
+	 */
+	private static final String COUNT_SAMPLED_MATCHES = "SELECT COUNT(*), COUNT(CASE WHEN sample.name LIKE ? "
+			+ "OR RECIPE.instructions LIKE ? THEN 1 END) FROM " + SUMMARY_TABLE + " AS sample "
+			+ "JOIN RECIPE ON RECIPE.id = sample.id WHERE sample.id = ANY(?)";
+
+	/** Draws the sampled ids; fixed, so a search is estimated alike from page to page. */
+	private static final long SAMPLE_SEED = 0x5A4D_91E5L;
+
+	/**
+	 * The instructions of several recipes, with the recipe id first.
+	 */
+	private static final String SELECT_INSTRUCTIONS_OF_RECIPES = "SELECT id, instructions FROM RECIPE "
+			+ "WHERE id = ANY(?)";
+
+	/** The order of the unpaged listings. */
+	private static final PageOptions BY_NAME = new PageOptions(1, 0, "name", "asc");
+
+	/** The order of the unpaged id listing. */
+	private static final PageOptions BY_ID = new PageOptions(1, 0, "id", "asc");
+
+	/**
+	 * The ingredients of a recipe, with the name of each ingredient, in the order
+	 * they were added. It must match mapIngredientRow.
+	 */
+	private static final String SELECT_RECIPE_INGREDIENTS = "SELECT RECIPE_INGREDIENT.ingredient_id, "
+			+ "INGREDIENT.name, RECIPE_INGREDIENT.vol, RECIPE_INGREDIENT.unit FROM RECIPE_INGREDIENT "
+			+ "JOIN INGREDIENT ON INGREDIENT.id = RECIPE_INGREDIENT.ingredient_id "
+			+ "WHERE RECIPE_INGREDIENT.recipe_id = ? ORDER BY RECIPE_INGREDIENT.id";
+
+	/**
+	 * The ingredients of several recipes, with the recipe id after the columns
+	 * read by mapIngredientRow.
+	 */
+	private static final String SELECT_INGREDIENTS_OF_RECIPES = "SELECT RECIPE_INGREDIENT.ingredient_id, "
+			+ "INGREDIENT.name, RECIPE_INGREDIENT.vol, RECIPE_INGREDIENT.unit, RECIPE_INGREDIENT.recipe_id "
+			+ "FROM RECIPE_INGREDIENT JOIN INGREDIENT ON INGREDIENT.id = RECIPE_INGREDIENT.ingredient_id "
+			+ "WHERE RECIPE_INGREDIENT.recipe_id = ANY(?) ORDER BY RECIPE_INGREDIENT.id";
+
+	/**
+	 * The fields a sparse fieldset may select from a recipe. The author field is
+	 * read as the chef id and resolved through the ChefDAO after mapping.
+	 */
+	public static final FieldSet<Recipe> FIELDS = new FieldSet<Recipe>("recipe", Recipe::new)
+			.field("id", "id", Recipe::getId, (recipe, set, column) -> recipe.setId(set.getInt(column)))
+			.field("name", "name", Recipe::getName, (recipe, set, column) -> recipe.setName(set.getString(column)))
+			.field("instructions", "instructions", Recipe::getInstructions,
+					(recipe, set, column) -> recipe.setInstructions(set.getString(column)))
+			.field("author", "chef_id", Recipe::getAuthor, (recipe, set, column) -> {
+				Chef author = new Chef();
+				author.setId(set.getInt(column));
+				recipe.setAuthor(author);
+			});
+
 	/**
 	 * DAO for managing Chef entities, used for retrieving chef details associated
 	 * with recipes.
@@ -65,8 +223,11 @@ public class RecipeDAO {
 	 */
 
 	public List<Recipe> getAllRecipes() {
-		String sql = "SELECT * FROM RECIPE ORDER BY name";
-		try (Connection connection = connectionUtil.getConnection();
+		if (isSharded()) {
+			return scatterSorted("RECIPE", RECIPE_COLUMNS, 4, "", null, BY_NAME, 0, this::mapSingleRow);
+		}
+		String sql = SELECT_RECIPE + " ORDER BY name";
+		try (Connection connection = connectionUtil.getReadConnection();
 				PreparedStatement statement = connection.prepareStatement(sql)) {
 			ResultSet resultSet = statement.executeQuery();
 			return mapRows(resultSet);
@@ -84,8 +245,12 @@ public class RecipeDAO {
 	 * @return a paginated list of Recipe objects
 	 */
 	public Page<Recipe> getAllRecipes(PageOptions pageOptions) {
-		String sql = "SELECT * FROM RECIPE ORDER BY " + pageOptions.getSortBy() + " " + pageOptions.getSortDirection();
-		try (Connection connection = connectionUtil.getConnection();
+		if (isSharded()) {
+			return toPage(scatterSorted("RECIPE", RECIPE_COLUMNS, 4, "", null, pageOptions, 0, this::mapSingleRow),
+					pageOptions);
+		}
+		String sql = pageOptions.toSql(SELECT_RECIPE, SORTABLE_COLUMNS);
+		try (Connection connection = connectionUtil.getReadConnection();
 				PreparedStatement statement = connection.prepareStatement(sql)) {
 			ResultSet resultSet = statement.executeQuery();
 			return pageResults(resultSet, pageOptions);
@@ -103,8 +268,11 @@ public class RecipeDAO {
 	 */
 
 	public List<Recipe> searchRecipesByTerm(String term) {
-		String sql = "SELECT * FROM RECIPE WHERE name LIKE ? OR instructions LIKE ? ORDER BY name";
-		try (Connection connection = connectionUtil.getConnection();
+		if (isSharded()) {
+			return scatterSorted("RECIPE", RECIPE_COLUMNS, 4, SEARCH_FILTER, term, BY_NAME, 0, this::mapSingleRow);
+		}
+		String sql = SELECT_RECIPE + " WHERE name LIKE ? OR instructions LIKE ? ORDER BY name";
+		try (Connection connection = connectionUtil.getReadConnection();
 				PreparedStatement statement = connection.prepareStatement(sql)) {
 			statement.setString(1, "%" + term + "%");
 			statement.setString(2, "%" + term + "%");
@@ -127,9 +295,13 @@ public class RecipeDAO {
 	 */
 
 	public Page<Recipe> searchRecipesByTerm(String term, PageOptions pageOptions) {
-		String sql = "SELECT * FROM RECIPE WHERE name LIKE ? OR instructions LIKE ? ORDER BY " + pageOptions.getSortBy()
-				+ " " + pageOptions.getSortDirection();
-		try (Connection connection = connectionUtil.getConnection();
+		if (isSharded()) {
+			return toPage(scatterSorted("RECIPE", RECIPE_COLUMNS, 4, SEARCH_FILTER, term, pageOptions, 0,
+					this::mapSingleRow), pageOptions);
+		}
+		String sql = pageOptions.toSql(SELECT_RECIPE + " WHERE name LIKE ? OR instructions LIKE ?",
+				SORTABLE_COLUMNS);
+		try (Connection connection = connectionUtil.getReadConnection();
 				PreparedStatement statement = connection.prepareStatement(sql)) {
 			statement.setString(1, "%" + term + "%");
 			statement.setString(2, "%" + term + "%");
@@ -141,6 +313,201 @@ public class RecipeDAO {
 		return new Page<>(pageOptions.getPageNumber(), pageOptions.getPageSize(), 0, 0, new ArrayList<>());
 	}
 
+	/**
+	 * Retrieves a paginated list of recipes, reading only the fields selected by
+	 * a sparse fieldset. The page is read like a summary page; the instructions
+	 * and authors, when selected, are read for the recipes of the page only.
+	 *
+	 * @param pageOptions options for pagination, including page size and page
+	 *                    number
+	 * @param fields      the fields to read
+	 * @return a paginated list of Recipe objects holding the selected fields
+	 */
+	public Page<Recipe> getAllRecipes(PageOptions pageOptions, FieldSet.Projection<Recipe> fields) {
+		Page<Recipe> page = pageReferences("", null, false, pageOptions);
+		applyPlan(page.getItems(), planFor(fields));
+		return page;
+	}
+
+	/**
+	 * Searches for recipes that match a specified term and returns a paginated
+	 * result, reading only the fields selected by a sparse fieldset. The matches
+	 * are counted exactly, since a sparse page carries no approximate flag.
+	 *
+	 * @param term        the search term to filter recipes by
+	 * @param pageOptions options for pagination, including page size and page
+	 *                    number
+	 * @param fields      the fields to read
+	 * @return a paginated list of Recipe objects holding the selected fields
+	 */
+	public Page<Recipe> searchRecipesByTerm(String term, PageOptions pageOptions,
+			FieldSet.Projection<Recipe> fields) {
+		Page<Recipe> page = pageReferences(SUMMARY_SEARCH_FILTER, term, true, pageOptions);
+		applyPlan(page.getItems(), planFor(fields));
+		return page;
+	}
+
+	/**
+	 * @param fields the fields of a sparse fieldset
+	 * @return the plan reading the instructions and author of a page if they
+	 *         are selected
+	 */
+	private static FetchPlan planFor(FieldSet.Projection<Recipe> fields) {
+		return new FetchPlan(fields.includes("instructions") ? FetchPlan.Fetch.EAGER : FetchPlan.Fetch.SKIP,
+				fields.includes("author") ? FetchPlan.Fetch.EAGER : FetchPlan.Fetch.SKIP, FetchPlan.Fetch.SKIP);
+	}
+
+	/**
+	 * Retrieves a paginated list of recipes, reading the parts of each recipe as
+	 * a fetch plan asks. Only the id, name and author id are read for every
+	 * row; the other parts are read for the recipes of the page.
+	 *
+	 * @param pageOptions options for pagination, including page size and page
+	 *                    number
+	 * @param plan        how the instructions, author and ingredients are read
+	 * @return a paginated list of Recipe objects
+	 */
+	public Page<Recipe> getAllRecipes(PageOptions pageOptions, FetchPlan plan) {
+		Page<Recipe> page = pageReferences("", null, false, pageOptions);
+		applyPlan(page.getItems(), plan);
+		return page;
+	}
+
+	/**
+	 * Searches for recipes that match a specified term and returns a paginated
+	 * result, reading the parts of each recipe as a fetch plan asks. The term is
+	 * still matched against the instructions whatever the plan.
+	 *
+	 * @param term        the search term to filter recipes by
+	 * @param pageOptions options for pagination, including page size and page
+	 *                    number
+	 * @param plan        how the instructions, author and ingredients are read
+	 * @return a paginated list of Recipe objects that match the search term
+	 */
+	public Page<Recipe> searchRecipesByTerm(String term, PageOptions pageOptions, FetchPlan plan) {
+		return searchRecipesByTerm(term, pageOptions, plan, false);
+	}
+
+	/**
+	 * Searches for recipes that match a specified term and returns a paginated
+	 * result, reading the parts of each recipe as a fetch plan asks. Unless an
+	 * exact total is asked for, the total of a large database is estimated as
+	 * described in {@link #searchRecipeSummaries(String, PageOptions, boolean)}.
+	 *
+	 * @param term        the search term to filter recipes by
+	 * @param pageOptions options for pagination, including page size and page
+	 *                    number
+	 * @param plan        how the instructions, author and ingredients are read
+	 * @param exact       whether the matches must be counted exactly
+	 * @return a paginated list of Recipe objects that match the search term
+	 */
+	public Page<Recipe> searchRecipesByTerm(String term, PageOptions pageOptions, FetchPlan plan, boolean exact) {
+		Page<Recipe> page = pageReferences(SUMMARY_SEARCH_FILTER, term, exact, pageOptions);
+		applyPlan(page.getItems(), plan);
+		return page;
+	}
+
+	/**
+	 * Retrieves a paginated list of recipe summaries. The instructions of each
+	 * recipe are never read from the database. Only the rows of the page are
+	 * read, and the total is taken from the maintained recipe counter rather
+	 * than counted.
+	 *
+	 * @param pageOptions options for pagination, including page size and page
+	 *                    number
+	 * @return a paginated list of RecipeSummary objects
+	 */
+	public Page<RecipeSummary> getRecipeSummaries(PageOptions pageOptions) {
+		return readPage(SUMMARY_COLUMNS, 5, "", null, false, pageOptions, RecipeDAO::mapSummaryRow);
+	}
+
+	/**
+	 * Searches for recipes that match a specified term and returns a paginated
+	 * list of their summaries. The term is still matched against the
+	 * instructions, but the instructions are not returned. The total of a large
+	 * database is estimated.
+	 *
+	 * @param term        the search term to filter recipes by
+	 * @param pageOptions options for pagination, including page size and page
+	 *                    number
+	 * @return a paginated list of RecipeSummary objects
+	 */
+	public Page<RecipeSummary> searchRecipeSummaries(String term, PageOptions pageOptions) {
+		return searchRecipeSummaries(term, pageOptions, false);
+	}
+
+	/**
+	 * Searches for recipes that match a specified term and returns a paginated
+	 * list of their summaries. Only the rows of the page are read.
+	 *
+	 * When the page is the last one, its rows give the exact total. Otherwise
+	 * the matches are counted, except in a database holding more than
+	 * {@link #COUNT_SAMPLE_ROWS} recipes when no exact total is asked for:
+	 * there the matches among COUNT_SAMPLE_ROWS ids drawn across the whole id
+	 * range, so recipes of every age are sampled, are counted and scaled up to
+	 * the recipe counter, and the page is marked approximate.
+	 *
+	 * @param term        the search term to filter recipes by
+	 * @param pageOptions options for pagination, including page size and page
+	 *                    number
+	 * @param exact       whether the matches must be counted exactly
+	 * @return a paginated list of RecipeSummary objects
+	 */
+	public Page<RecipeSummary> searchRecipeSummaries(String term, PageOptions pageOptions, boolean exact) {
+		return readPage(SUMMARY_COLUMNS, 5, SUMMARY_SEARCH_FILTER, term, exact, pageOptions, RecipeDAO::mapSummaryRow);
+	}
+
+	/**
+	 * Counts every recipe from the maintained counters, without reading the
+	 * RECIPE table.
+	 *
+	 * @return the number of recipes across the shards
+	 */
+	public int countRecipes() {
+		try {
+			int count = 0;
+			for (List<Long> shard : ScatterGather.scatter(connectionUtil.getShardCount(), shard -> {
+				try (Connection connection = read(shard)) {
+					return List.of(readCount(connection, "SELECT " + RECIPE_ROW_COUNT));
+				}
+			})) {
+				count += shard.get(0);
+			}
+			return count;
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return 0;
+	}
+
+	/**
+	 * Counts the recipes of a chef from the maintained counters, without
+	 * reading the RECIPE table.
+	 *
+	 * @param chefId the id of the chef
+	 * @return the number of recipes of the chef across the shards, or 0 if
+	 *         there is no such chef
+	 */
+	public int countRecipes(int chefId) {
+		try {
+			int count = 0;
+			for (List<Long> shard : ScatterGather.scatter(connectionUtil.getShardCount(), shard -> {
+				try (Connection connection = read(shard);
+						PreparedStatement statement = connection.prepareStatement(SELECT_CHEF_RECIPE_COUNT)) {
+					statement.setInt(1, chefId);
+					ResultSet resultSet = statement.executeQuery();
+					return List.of(resultSet.next() ? resultSet.getLong(1) : 0L);
+				}
+			})) {
+				count += shard.get(0);
+			}
+			return count;
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return 0;
+	}
+
 	/**
 	 * TODO: Retrieves a specific recipe by its ID.
 	 * 
@@ -149,8 +516,8 @@ public class RecipeDAO {
 	 */
 
 	public Recipe getRecipeById(int id) {
-		String sql = "SELECT * FROM RECIPE WHERE id = ?";
-		try (Connection connection = connectionUtil.getConnection();
+		String sql = SELECT_RECIPE + " WHERE id = ?";
+		try (Connection connection = read(connectionUtil.shardForRecipe(id));
 				PreparedStatement statement = connection.prepareStatement(sql)) {
 			statement.setInt(1, id);
 			ResultSet resultSet = statement.executeQuery();
@@ -163,6 +530,209 @@ public class RecipeDAO {
 		return null;
 	}
 
+	/**
+	 * Retrieves a specific recipe by its ID, reading only the fields selected by
+	 * a sparse fieldset.
+	 *
+	 * @param id     the ID of the recipe to retrieve
+	 * @param fields the fields to read
+	 * @return the Recipe object holding the selected fields, or null if there is
+	 *         no recipe with the given ID
+	 */
+	public Recipe getRecipeById(int id, FieldSet.Projection<Recipe> fields) {
+		String sql = "SELECT " + fields.columns() + " FROM RECIPE WHERE id = ?";
+		try (Connection connection = read(connectionUtil.shardForRecipe(id));
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setInt(1, id);
+			ResultSet resultSet = statement.executeQuery();
+			if (resultSet.next()) {
+				Recipe recipe = fields.map(resultSet);
+				if (recipe.getAuthor() != null) {
+					recipe.setAuthor(chefDAO.getChefById(recipe.getAuthor().getId()));
+				}
+				return recipe;
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Retrieves the row of a specific recipe without resolving its author. The
+	 * author holds only the chef id; the full author is read with
+	 * {@link #getRecipeAuthor(int)}, which can run at the same time.
+	 *
+	 * @param id the ID of the recipe to retrieve
+	 * @return the Recipe object, or null if there is no recipe with the given ID
+	 */
+	public Recipe getRecipeRow(int id) {
+		FieldSet.Projection<Recipe> fields = FIELDS.all();
+		String sql = "SELECT " + fields.columns() + " FROM RECIPE WHERE id = ?";
+		try (Connection connection = read(connectionUtil.shardForRecipe(id));
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setInt(1, id);
+			ResultSet resultSet = statement.executeQuery();
+			if (resultSet.next()) {
+				return fields.map(resultSet);
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Retrieves the author of a specific recipe.
+	 *
+	 * @param id the ID of the recipe
+	 * @return the Chef who wrote the recipe, or null if there is no recipe with
+	 *         the given ID
+	 */
+	public Chef getRecipeAuthor(int id) {
+		return chefDAO.getChefByRecipeId(id);
+	}
+
+	/**
+	 * Retrieves the ingredients of a specific recipe.
+	 *
+	 * @param id the ID of the recipe
+	 * @return the ingredients of the recipe in the order they were added, which
+	 *         is empty if the recipe has none or does not exist
+	 */
+	public List<RecipeIngredient> getRecipeIngredients(int id) {
+		List<RecipeIngredient> ingredients = new ArrayList<>();
+		try (Connection connection = read(connectionUtil.shardForRecipe(id));
+				PreparedStatement statement = connection.prepareStatement(SELECT_RECIPE_INGREDIENTS)) {
+			statement.setInt(1, id);
+			ResultSet resultSet = statement.executeQuery();
+			while (resultSet.next()) {
+				ingredients.add(mapIngredientRow(resultSet));
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return ingredients;
+	}
+
+	/**
+	 * Retrieves the ingredients of several recipes. The ids are grouped by the
+	 * shard holding them and fetched in chunks of Batch.CHUNK_SIZE, one
+	 * statement per chunk.
+	 *
+	 * @param ids the ids of the recipes
+	 * @return the ingredients of each recipe that has any, in the order they
+	 *         were added, indexed by recipe id
+	 */
+	public Map<Integer, List<RecipeIngredient>> getRecipeIngredients(List<Integer> ids) {
+		Map<Integer, List<RecipeIngredient>> ingredients = new HashMap<>();
+		for (Map.Entry<Integer, List<Integer>> shard : groupByShard(ids, id -> id).entrySet()) {
+			try (Connection connection = read(shard.getKey());
+					PreparedStatement statement = connection.prepareStatement(SELECT_INGREDIENTS_OF_RECIPES)) {
+				for (List<Integer> chunk : Batch.chunks(shard.getValue(), Batch.CHUNK_SIZE)) {
+					statement.setArray(1, connection.createArrayOf("INTEGER", chunk.toArray()));
+					ResultSet resultSet = statement.executeQuery();
+					while (resultSet.next()) {
+						ingredients.computeIfAbsent(resultSet.getInt(5), key -> new ArrayList<>())
+								.add(mapIngredientRow(resultSet));
+					}
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return ingredients;
+	}
+
+	/**
+	 * Retrieves the instructions of several recipes. The ids are grouped by the
+	 * shard holding them and fetched in chunks of Batch.CHUNK_SIZE, one
+	 * statement per chunk.
+	 *
+	 * @param ids the ids of the recipes
+	 * @return the instructions of each recipe found, indexed by recipe id
+	 */
+	public Map<Integer, String> getRecipeInstructions(List<Integer> ids) {
+		Map<Integer, String> instructions = new HashMap<>();
+		for (Map.Entry<Integer, List<Integer>> shard : groupByShard(ids, id -> id).entrySet()) {
+			try (Connection connection = read(shard.getKey());
+					PreparedStatement statement = connection.prepareStatement(SELECT_INSTRUCTIONS_OF_RECIPES)) {
+				for (List<Integer> chunk : Batch.chunks(shard.getValue(), Batch.CHUNK_SIZE)) {
+					statement.setArray(1, connection.createArrayOf("INTEGER", chunk.toArray()));
+					ResultSet resultSet = statement.executeQuery();
+					while (resultSet.next()) {
+						instructions.put(resultSet.getInt(1), resultSet.getString(2));
+					}
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return instructions;
+	}
+
+	/**
+	 * Retrieves the ids of every recipe, across every shard.
+	 *
+	 * @return the ids of all recipes in ascending order
+	 */
+	public List<Integer> getRecipeIds() {
+		if (isSharded()) {
+			return scatterSorted("RECIPE", "id", 1, "", null, BY_ID, 0, set -> set.getInt(1));
+		}
+		List<Integer> ids = new ArrayList<>();
+		try (Connection connection = connectionUtil.getReadConnection();
+				PreparedStatement statement = connection.prepareStatement("SELECT id FROM RECIPE ORDER BY id")) {
+			ResultSet resultSet = statement.executeQuery();
+			while (resultSet.next()) {
+				ids.add(resultSet.getInt(1));
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return ids;
+	}
+
+	/**
+	 * Retrieves the recipes with the given ids. The ids are grouped by the shard
+	 * holding them and fetched in chunks of Batch.CHUNK_SIZE, one statement per
+	 * chunk, and the authors of all recipes are then resolved with a single
+	 * batch lookup.
+	 *
+	 * @param ids the ids of the recipes to retrieve
+	 * @return the recipes found, indexed by id
+	 */
+	public Map<Integer, Recipe> getRecipesByIds(List<Integer> ids) {
+		FieldSet.Projection<Recipe> fields = FIELDS.all();
+		String sql = "SELECT " + fields.columns() + " FROM RECIPE WHERE id = ANY(?)";
+		Map<Integer, Recipe> recipes = new HashMap<>();
+		for (Map.Entry<Integer, List<Integer>> shard : groupByShard(ids, id -> id).entrySet()) {
+			try (Connection connection = read(shard.getKey());
+					PreparedStatement statement = connection.prepareStatement(sql)) {
+				for (List<Integer> chunk : Batch.chunks(shard.getValue(), Batch.CHUNK_SIZE)) {
+					statement.setArray(1, connection.createArrayOf("INTEGER", chunk.toArray()));
+					ResultSet resultSet = statement.executeQuery();
+					while (resultSet.next()) {
+						Recipe recipe = fields.map(resultSet);
+						recipes.put(recipe.getId(), recipe);
+					}
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+
+		Set<Integer> authorIds = new LinkedHashSet<>();
+		for (Recipe recipe : recipes.values()) {
+			authorIds.add(recipe.getAuthor().getId());
+		}
+		Map<Integer, Chef> authors = chefDAO.getChefsByIds(new ArrayList<>(authorIds));
+		for (Recipe recipe : recipes.values()) {
+			recipe.setAuthor(authors.get(recipe.getAuthor().getId()));
+		}
+		return recipes;
+	}
+
 	/**
 	 * TODO: Creates a new recipe in the database.
 	 * 
@@ -172,7 +742,7 @@ public class RecipeDAO {
 
 	public int createRecipe(Recipe recipe) {
 		String sql = "INSERT INTO RECIPE (name, instructions, chef_id) VALUES (?, ?, ?)";
-		try (Connection connection = connectionUtil.getConnection();
+		try (Connection connection = connect(connectionUtil.shardForChef(recipe.getAuthor().getId()));
 				PreparedStatement statement = connection.prepareStatement(sql,
 						PreparedStatement.RETURN_GENERATED_KEYS)) {
 			statement.setString(1, recipe.getName());
@@ -180,6 +750,7 @@ public class RecipeDAO {
 			statement.setInt(3, recipe.getAuthor().getId());
 			int affectedRows = statement.executeUpdate();
 			if (affectedRows > 0) {
+				TableVersions.bump("RECIPE");
 				ResultSet generatedKeys = statement.getGeneratedKeys();
 				if (generatedKeys.next()) {
 					return generatedKeys.getInt(1);
@@ -194,49 +765,137 @@ public class RecipeDAO {
 	/**
 	 * TODO: Updates an existing recipe's instructions and chef_id in the database.
 	 * 
+	 * When the data is sharded, the recipe stays on the shard its id routes to,
+	 * so moving it to a chef whose recipes are placed on another shard is
+	 * refused, and the recipe is left unchanged.
+	 *
 	 * @param recipe the Recipe object with updated data
+	 * @return true if the recipe was updated, false if it does not exist, its
+	 *         chef change was refused or the update failed
 	 */
 
-	public void updateRecipe(Recipe recipe) {
-		String sql = "UPDATE RECIPE SET name = ?, instructions = ?, chef_id = ? WHERE id = ?";
-		try (Connection connection = connectionUtil.getConnection();
-				PreparedStatement statement = connection.prepareStatement(sql)) {
-			statement.setString(1, recipe.getName());
-			statement.setString(2, recipe.getInstructions());
-			statement.setInt(3, recipe.getAuthor().getId());
-			statement.setInt(4, recipe.getId());
-			statement.executeUpdate();
+	public boolean updateRecipe(Recipe recipe) {
+		try (Connection connection = connect(connectionUtil.shardForRecipe(recipe.getId()));
+				PreparedStatement statement = connection.prepareStatement(UPDATE_RECIPE)) {
+			bindUpdate(statement, recipe);
+			if (statement.executeUpdate() > 0) {
+				TableVersions.bump("RECIPE");
+				return true;
+			}
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
+		return false;
+	}
+
+	/**
+	 * Updates several recipes in one JDBC batch and one transaction per shard, so
+	 * on each shard either every update is written or none is.
+	 *
+	 * @param recipes the Recipe objects to update
+	 * @return the number of rows written for each recipe, in the order of the
+	 *         recipes: 0 for a recipe that does not exist or whose chef change
+	 *         was refused, as by {@link #updateRecipe(Recipe)}, and
+	 *         {@link Statement#EXECUTE_FAILED} for each recipe of a shard whose
+	 *         batch failed
+	 */
+	public int[] updateRecipes(List<Recipe> recipes) {
+		Map<Integer, Integer> written = new HashMap<>();
+		for (Map.Entry<Integer, List<Recipe>> shard : groupByShard(recipes, Recipe::getId).entrySet()) {
+			int[] counts = updateRecipes(shard.getKey(), shard.getValue());
+			for (int i = 0; i < counts.length; i++) {
+				written.put(shard.getValue().get(i).getId(), counts[i]);
+			}
+		}
+		int[] counts = new int[recipes.size()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = written.get(recipes.get(i).getId());
+		}
+		return counts;
+	}
+
+	/**
+	 * Updates recipes held by one shard in one JDBC batch and one transaction.
+	 *
+	 * @param shard   the shard holding the recipes
+	 * @param recipes the Recipe objects to update
+	 * @return the number of rows written for each recipe, or
+	 *         {@link Statement#EXECUTE_FAILED} for every recipe if the batch
+	 *         failed
+	 */
+	private int[] updateRecipes(int shard, List<Recipe> recipes) {
+		try (Connection connection = connect(shard);
+				PreparedStatement statement = connection.prepareStatement(UPDATE_RECIPE)) {
+			connection.setAutoCommit(false);
+			try {
+				for (Recipe recipe : recipes) {
+					bindUpdate(statement, recipe);
+					statement.addBatch();
+				}
+				int[] counts = statement.executeBatch();
+				connection.commit();
+				TableVersions.bump("RECIPE");
+				return counts;
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		int[] failed = new int[recipes.size()];
+		Arrays.fill(failed, Statement.EXECUTE_FAILED);
+		return failed;
+	}
+
+	/**
+	 * Binds a recipe to the parameters of UPDATE_RECIPE.
+	 */
+	private void bindUpdate(PreparedStatement statement, Recipe recipe) throws SQLException {
+		int chefId = recipe.getAuthor().getId();
+		statement.setString(1, recipe.getName());
+		statement.setString(2, recipe.getInstructions());
+		statement.setInt(3, chefId);
+		statement.setInt(4, recipe.getId());
+		statement.setBoolean(5, connectionUtil.shardForChef(chefId) == connectionUtil.shardForRecipe(recipe.getId()));
+		statement.setInt(6, chefId);
 	}
 
 	/**
 	 * TODO: Deletes a specific recipe from the database.
 	 * 
 	 * @param recipe the Recipe object to delete
+	 * @return true if the recipe was deleted, false if it does not exist or a
+	 *         delete failed
 	 */
 
-	public void deleteRecipe(Recipe recipe) {
+	public boolean deleteRecipe(Recipe recipe) {
+		boolean deleted = false;
 		// First delete from RECIPE_INGREDIENT table
 		String deleteRecipeIngredientSql = "DELETE FROM RECIPE_INGREDIENT WHERE recipe_id = ?";
-		try (Connection connection = connectionUtil.getConnection();
+		try (Connection connection = connect(connectionUtil.shardForRecipe(recipe.getId()));
 				PreparedStatement statement = connection.prepareStatement(deleteRecipeIngredientSql)) {
 			statement.setInt(1, recipe.getId());
 			statement.executeUpdate();
 		} catch (SQLException e) {
 			e.printStackTrace();
+			return false;
 		}
 
 		// Then delete from RECIPE table
 		String deleteRecipeSql = "DELETE FROM RECIPE WHERE id = ?";
-		try (Connection connection = connectionUtil.getConnection();
+		try (Connection connection = connect(connectionUtil.shardForRecipe(recipe.getId()));
 				PreparedStatement statement = connection.prepareStatement(deleteRecipeSql)) {
 			statement.setInt(1, recipe.getId());
-			statement.executeUpdate();
+			deleted = statement.executeUpdate() > 0;
 		} catch (SQLException e) {
 			e.printStackTrace();
+		} finally {
+			TableVersions.bump("RECIPE", "RECIPE_INGREDIENT");
 		}
+		return deleted;
 	}
 
 	// below are helper methods for your convenience
@@ -245,19 +904,58 @@ public class RecipeDAO {
 	 * Maps a single row from the ResultSet to a Recipe object.
 	 * This method extracts the recipe details such as ID, name, instructions,
 	 * and associated chef from the ResultSet and constructs a Recipe instance.
+	 * Columns are read by their position in the SELECT_RECIPE projection.
 	 *
 	 * @param set the ResultSet containing the recipe data
 	 * @return a Recipe object representing the mapped row
 	 * @throws SQLException if there is an error accessing the ResultSet
 	 */
 	private Recipe mapSingleRow(ResultSet set) throws SQLException {
-		int id = set.getInt("id");
-		String name = set.getString("name");
-		String instructions = set.getString("instructions");
-		Chef author = chefDAO.getChefById(set.getInt("chef_id"));
+		return mapRecipeRow(set, chefDAO::getChefById);
+	}
+
+	/**
+	 * Maps a single row of the SELECT_RECIPE projection to a Recipe object,
+	 * resolving its author with the given lookup. Package-visible so the row
+	 * mapping can be measured without the author lookup.
+	 *
+	 * @param set     the ResultSet positioned on a row
+	 * @param authors resolves the author of the recipe from its chef id
+	 * @return a Recipe object representing the mapped row
+	 * @throws SQLException if there is an error accessing the ResultSet
+	 */
+	static Recipe mapRecipeRow(ResultSet set, IntFunction<Chef> authors) throws SQLException {
+		int id = set.getInt(1);
+		String name = set.getString(2);
+		String instructions = set.getString(3);
+		Chef author = authors.apply(set.getInt(4));
 		return new Recipe(id, name, instructions, author);
 	}
 
+	/**
+	 * Maps a single row of the SELECT_RECIPE_INGREDIENTS projection to a
+	 * RecipeIngredient object.
+	 *
+	 * @param set the ResultSet containing the recipe ingredient data
+	 * @return a RecipeIngredient object representing the mapped row
+	 * @throws SQLException if there is an error accessing the ResultSet
+	 */
+	private RecipeIngredient mapIngredientRow(ResultSet set) throws SQLException {
+		return new RecipeIngredient(set.getInt(1), set.getString(2), set.getDouble(3), set.getString(4));
+	}
+
+	/**
+	 * Maps a single row of the SELECT_RECIPE_SUMMARY projection to a
+	 * RecipeSummary object. Package-visible so the row mapping can be measured.
+	 *
+	 * @param set the ResultSet containing the recipe summary data
+	 * @return a RecipeSummary object representing the mapped row
+	 * @throws SQLException if there is an error accessing the ResultSet
+	 */
+	static RecipeSummary mapSummaryRow(ResultSet set) throws SQLException {
+		return new RecipeSummary(set.getInt(1), set.getString(2), set.getInt(3), set.getString(4), set.getInt(5));
+	}
+
 	/**
 	 * Maps multiple rows from a ResultSet to a list of Recipe objects.
 	 * This method iterates through the ResultSet and calls mapSingleRow
@@ -275,6 +973,274 @@ public class RecipeDAO {
 		return recipes;
 	}
 
+	/**
+	 * Reads the id, name and author id of the recipes of one page of a listing
+	 * query from the RECIPE_SUMMARY read table. The author of each recipe holds
+	 * only the chef id.
+	 *
+	 * @param filter      the WHERE clause against the read table, or an empty
+	 *                    string
+	 * @param term        the search term bound to the filter, or null
+	 * @param pageOptions the PageOptions object containing pagination details
+	 * @return the requested page of recipes
+	 */
+	private Page<Recipe> pageReferences(String filter, String term, boolean exact, PageOptions pageOptions) {
+		FieldSet.Projection<Recipe> fields = FIELDS.select("id,name,author");
+		return readPage(fields.columns(), fields.names().size(), filter, term, exact, pageOptions, fields::map);
+	}
+
+	/**
+	 * Reads one page of the RECIPE_SUMMARY read table. Only the rows of the page
+	 * are read from each database, and the total comes from the maintained
+	 * recipe counters: unfiltered, a single database returns its counter with
+	 * the rows. A filtered page is counted as described in
+	 * {@link #searchRecipeSummaries(String, PageOptions, boolean)}.
+	 *
+	 * @param <T>         the representation of the recipes
+	 * @param columns     the mapped columns
+	 * @param columnCount the number of mapped columns
+	 * @param filter      the WHERE clause against the read table, or an empty
+	 *                    string
+	 * @param term        the search term bound to the filter, or null
+	 * @param exact       whether filtered matches must be counted exactly
+	 * @param pageOptions the PageOptions object containing pagination details
+	 * @param mapper      maps a row of the mapped columns
+	 * @return the requested page
+	 */
+	private <T> Page<T> readPage(String columns, int columnCount, String filter, String term, boolean exact,
+			PageOptions pageOptions, RowMapper<T> mapper) {
+		int offset = (pageOptions.getPageNumber() - 1) * pageOptions.getPageSize();
+		if (isSharded()) {
+			List<T> merged = scatterSorted(SUMMARY_TABLE, columns, columnCount, filter, term, pageOptions,
+					offset + pageOptions.getPageSize(), mapper);
+			List<T> items = sliceList(merged, offset, offset + pageOptions.getPageSize());
+			if (filter.isEmpty()) {
+				return toPage(items, pageOptions, countRecipes(), false);
+			}
+			if (isLastPage(items, pageOptions)) {
+				return toPage(items, pageOptions, 0, false);
+			}
+			try {
+				long total = 0;
+				boolean approximate = false;
+				for (List<Total> shard : ScatterGather.scatter(connectionUtil.getShardCount(), shard -> {
+					try (Connection connection = connectionUtil.getConnection(shard)) {
+						return List.of(countMatches(connection, filter, term, exact));
+					}
+				})) {
+					total += shard.get(0).rows;
+					approximate |= shard.get(0).approximate;
+				}
+				return toPage(items, pageOptions, total, approximate);
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+			return toPage(items, pageOptions, 0, false);
+		}
+
+		String select = filter.isEmpty()
+				? "SELECT " + columns + ", " + RECIPE_ROW_COUNT + " FROM " + SUMMARY_TABLE
+				: "SELECT " + columns + " FROM " + SUMMARY_TABLE + filter;
+		String sql = pageOptions.toSql(select, SORTABLE_COLUMNS) + PAGE_LIMIT;
+		try (Connection connection = connectionUtil.getReadConnection();
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			int index = 1;
+			if (term != null) {
+				statement.setString(index++, "%" + term + "%");
+				statement.setString(index++, "%" + term + "%");
+			}
+			statement.setInt(index++, pageOptions.getPageSize());
+			statement.setInt(index, offset);
+			ResultSet resultSet = statement.executeQuery();
+			List<T> items = new ArrayList<>();
+			long counted = 0;
+			while (resultSet.next()) {
+				items.add(mapper.map(resultSet));
+				if (filter.isEmpty()) {
+					counted = resultSet.getLong(columnCount + 1);
+				}
+			}
+			if (filter.isEmpty()) {
+				// a page past the end returns no row to carry the counter
+				return toPage(items, pageOptions, items.isEmpty() ? countRecipes() : counted, false);
+			}
+			if (isLastPage(items, pageOptions)) {
+				return toPage(items, pageOptions, 0, false);
+			}
+			Total total = countMatches(connection, filter, term, exact);
+			return toPage(items, pageOptions, total.rows, total.approximate);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return new Page<>(pageOptions.getPageNumber(), pageOptions.getPageSize(), 0, 0, new ArrayList<>());
+	}
+
+	/**
+	 * @param items       the rows read for a page
+	 * @param pageOptions the PageOptions object containing pagination details
+	 * @return true if the rows end before the page does, so that they give the
+	 *         total themselves
+	 */
+	private boolean isLastPage(List<?> items, PageOptions pageOptions) {
+		return items.size() < pageOptions.getPageSize() && (!items.isEmpty() || pageOptions.getPageNumber() <= 1);
+	}
+
+	/**
+	 * Counts the summaries of one database that match a filter. A database
+	 * holding more recipes than {@link #COUNT_SAMPLE_ROWS} is sampled unless an
+	 * exact count is asked for; the only filter counted is the search filter,
+	 * which the sample is matched against.
+	 *
+	 * @param connection a connection to the database
+	 * @param filter     the WHERE clause against the read table
+	 * @param term       the search term bound to the filter
+	 * @param exact      whether the matches must be counted exactly
+	 * @return the number of matches
+	 * @throws SQLException if there is an error counting
+	 */
+	private Total countMatches(Connection connection, String filter, String term, boolean exact)
+			throws SQLException {
+		long recipes = readCount(connection, "SELECT " + RECIPE_ROW_COUNT);
+		if (!exact && recipes > COUNT_SAMPLE_ROWS) {
+			long[] sample = countSampledMatches(connection, term);
+			if (sample[0] > 0) {
+				return new Total(Math.round(sample[1] * (double) recipes / sample[0]), true);
+			}
+		}
+		return new Total(readCount(connection, "SELECT COUNT(*) FROM " + SUMMARY_TABLE + filter, term), false);
+	}
+
+	/**
+	 * Counts the recipes of a sample that match a search. The sample draws one
+	 * id at random from each of COUNT_SAMPLE_ROWS equal slices of the id range,
+	 * so old and new recipes are sampled alike; ids of deleted recipes, or of
+	 * recipes another shard holds, are not found and are left out.
+	 *
+	 * @param connection a connection to the database
+	 * @param term       the search term
+	 * @return the number of sampled recipes found and the number of them that
+	 *         match
+	 * @throws SQLException if there is an error counting
+	 */
+	private long[] countSampledMatches(Connection connection, String term) throws SQLException {
+		long lowest;
+		long highest;
+		try (PreparedStatement statement = connection.prepareStatement(SELECT_ID_RANGE);
+				ResultSet range = statement.executeQuery()) {
+			if (!range.next() || range.getObject(1) == null) {
+				return new long[2];
+			}
+			lowest = range.getLong(1);
+			highest = range.getLong(2);
+		}
+		long span = highest - lowest + 1;
+		List<Integer> ids = new ArrayList<>(COUNT_SAMPLE_ROWS);
+		if (span <= COUNT_SAMPLE_ROWS) {
+			for (long id = lowest; id <= highest; id++) {
+				ids.add((int) id);
+			}
+		} else {
+			SplittableRandom random = new SplittableRandom(SAMPLE_SEED);
+			double slice = span / (double) COUNT_SAMPLE_ROWS;
+			for (int i = 0; i < COUNT_SAMPLE_ROWS; i++) {
+				long start = lowest + (long) (i * slice);
+				long end = lowest + (long) ((i + 1) * slice);
+				ids.add((int) (start + random.nextLong(end - start)));
+			}
+		}
+		try (PreparedStatement statement = connection.prepareStatement(COUNT_SAMPLED_MATCHES)) {
+			statement.setString(1, "%" + term + "%");
+			statement.setString(2, "%" + term + "%");
+			statement.setArray(3, connection.createArrayOf("INTEGER", ids.toArray()));
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() ? new long[] { resultSet.getLong(1), resultSet.getLong(2) } : new long[2];
+			}
+		}
+	}
+
+	/**
+	 * Runs a query returning a single count.
+	 *
+	 * @param connection a connection to the database
+	 * @param sql        the query
+	 * @param terms      the search terms bound to each pair of LIKE parameters
+	 * @return the count, or 0 if the query returned no row
+	 * @throws SQLException if there is an error running the query
+	 */
+	private long readCount(Connection connection, String sql, String... terms) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			for (int i = 0; i < terms.length; i++) {
+				statement.setString(2 * i + 1, "%" + terms[i] + "%");
+				statement.setString(2 * i + 2, "%" + terms[i] + "%");
+			}
+			ResultSet resultSet = statement.executeQuery();
+			return resultSet.next() ? resultSet.getLong(1) : 0;
+		}
+	}
+
+	/**
+	 * Reads the parts of recipes holding only their id, name and author id, as
+	 * a fetch plan asks. Eager parts are read with one batch lookup per part;
+	 * lazy parts are read the same way, the first time one recipe asks for
+	 * them.
+	 *
+	 * @param recipes the recipes of a page
+	 * @param plan    how the instructions, author and ingredients are read
+	 */
+	private void applyPlan(List<Recipe> recipes, FetchPlan plan) {
+		if (recipes.isEmpty()) {
+			return;
+		}
+		List<Integer> ids = new ArrayList<>(recipes.size());
+		Set<Integer> authorIds = new LinkedHashSet<>();
+		for (Recipe recipe : recipes) {
+			ids.add(recipe.getId());
+			authorIds.add(recipe.getAuthor().getId());
+		}
+
+		if (plan.getInstructions() == FetchPlan.Fetch.EAGER) {
+			Map<Integer, String> instructions = getRecipeInstructions(ids);
+			for (Recipe recipe : recipes) {
+				recipe.setInstructions(instructions.get(recipe.getId()));
+			}
+		} else if (plan.getInstructions() == FetchPlan.Fetch.LAZY) {
+			PageLoader<String> instructions = new PageLoader<>(ids, this::getRecipeInstructions);
+			for (Recipe recipe : recipes) {
+				int id = recipe.getId();
+				recipe.deferInstructions(() -> instructions.get(id));
+			}
+		}
+
+		if (plan.getAuthor() == FetchPlan.Fetch.EAGER) {
+			Map<Integer, Chef> authors = chefDAO.getChefsByIds(new ArrayList<>(authorIds));
+			for (Recipe recipe : recipes) {
+				recipe.setAuthor(authors.get(recipe.getAuthor().getId()));
+			}
+		} else if (plan.getAuthor() == FetchPlan.Fetch.LAZY) {
+			PageLoader<Chef> authors = new PageLoader<>(new ArrayList<>(authorIds), chefDAO::getChefsByIds);
+			for (Recipe recipe : recipes) {
+				int authorId = recipe.getAuthor().getId();
+				recipe.deferAuthor(() -> authors.get(authorId));
+			}
+		}
+
+		if (plan.getIngredients() == FetchPlan.Fetch.EAGER) {
+			Map<Integer, List<RecipeIngredient>> ingredients = getRecipeIngredients(ids);
+			for (Recipe recipe : recipes) {
+				recipe.setIngredients(ingredients.getOrDefault(recipe.getId(), new ArrayList<>()));
+			}
+		} else if (plan.getIngredients() == FetchPlan.Fetch.LAZY) {
+			PageLoader<List<RecipeIngredient>> ingredients = new PageLoader<>(ids, this::getRecipeIngredients);
+			for (Recipe recipe : recipes) {
+				int id = recipe.getId();
+				recipe.deferIngredients(() -> {
+					List<RecipeIngredient> found = ingredients.get(id);
+					return found == null ? new ArrayList<>() : found;
+				});
+			}
+		}
+	}
+
 	/**
 	 * Pages the results from a ResultSet into a Page object for the Recipe entity.
 	 * This method processes the ResultSet to retrieve recipes, then slices the list
@@ -288,25 +1254,212 @@ public class RecipeDAO {
 	 * @throws SQLException if there is an error accessing the ResultSet
 	 */
 	private Page<Recipe> pageResults(ResultSet set, PageOptions pageOptions) throws SQLException {
-		List<Recipe> recipes = mapRows(set);
+		return toPage(mapRows(set), pageOptions);
+	}
+
+	/**
+	 * @return true if the recipes are split across several shards
+	 */
+	private boolean isSharded() {
+		return connectionUtil.getShardCount() > 1;
+	}
+
+	/**
+	 * Opens a connection to a shard. With a single database every shard is the
+	 * primary, reached through getConnection().
+	 *
+	 * @param shard the index of the shard
+	 * @return an active connection to the shard
+	 */
+	private Connection connect(int shard) {
+		return isSharded() ? connectionUtil.getConnection(shard) : connectionUtil.getConnection();
+	}
+
+	/**
+	 * Opens a connection for reading from a shard. With a single database reads
+	 * may be served by a read replica, through getReadConnection().
+	 *
+	 * @param shard the index of the shard
+	 * @return an active connection for reading from the shard
+	 */
+	private Connection read(int shard) {
+		return isSharded() ? connectionUtil.getConnection(shard) : connectionUtil.getReadConnection();
+	}
+
+	/**
+	 * Groups items by the shard holding the recipe they refer to, keeping their
+	 * order within each shard.
+	 *
+	 * @param <T>      the type of items
+	 * @param items    the items to group
+	 * @param recipeId reads the recipe id of an item
+	 * @return the items of each shard, indexed by shard
+	 */
+	private <T> Map<Integer, List<T>> groupByShard(List<T> items, ToIntFunction<T> recipeId) {
+		Map<Integer, List<T>> shards = new TreeMap<>();
+		for (T item : items) {
+			int shard = connectionUtil.shardForRecipe(recipeId.applyAsInt(item));
+			shards.computeIfAbsent(shard, key -> new ArrayList<>()).add(item);
+		}
+		return shards;
+	}
+
+	/**
+	 * Runs a listing query against every shard and merges the sorted rows. Each
+	 * shard also selects the sort columns after the mapped columns, and the rows
+	 * are merged on their values.
+	 *
+	 * @param <T>         the representation of the recipes
+	 * @param table       the table read, RECIPE or RECIPE_SUMMARY
+	 * @param columns     the mapped columns
+	 * @param columnCount the number of mapped columns
+	 * @param filter      the WHERE clause, or an empty string
+	 * @param term        the search term bound to the filter, or null
+	 * @param pageOptions the sort of the listing
+	 * @param limit       the number of leading rows read from each shard, or 0
+	 *                    to read every row
+	 * @param mapper      maps a row of the mapped columns
+	 * @return every matching recipe across the shards, or the first limit of
+	 *         them, in sort order
+	 */
+	private <T> List<T> scatterSorted(String table, String columns, int columnCount, String filter, String term,
+			PageOptions pageOptions, int limit, RowMapper<T> mapper) {
+		Map<String, String> order = pageOptions.sortOrder(SORTABLE_COLUMNS);
+		String sql = pageOptions.toSql("SELECT " + columns + ", " + String.join(", ", order.keySet()) + " FROM " + table
+				+ filter, SORTABLE_COLUMNS) + (limit > 0 ? " LIMIT " + limit : "");
+		try {
+			return ScatterGather.merge(ScatterGather.scatter(connectionUtil.getShardCount(), shard -> {
+				try (Connection connection = connectionUtil.getConnection(shard);
+						PreparedStatement statement = connection.prepareStatement(sql)) {
+					if (term != null) {
+						statement.setString(1, "%" + term + "%");
+						statement.setString(2, "%" + term + "%");
+					}
+					ResultSet resultSet = statement.executeQuery();
+					List<ScatterGather.Row<T>> rows = new ArrayList<>();
+					while (resultSet.next()) {
+						Object[] keys = new Object[order.size()];
+						for (int i = 0; i < keys.length; i++) {
+							keys[i] = resultSet.getObject(columnCount + 1 + i);
+						}
+						rows.add(new ScatterGather.Row<>(mapper.map(resultSet), keys));
+					}
+					return rows;
+				}
+			}), order);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Maps the current row of a result set.
+	 *
+	 * @param <T> the representation of the row
+	 */
+	@FunctionalInterface
+	private interface RowMapper<T> {
+		T map(ResultSet set) throws SQLException;
+	}
+
+	/**
+	 * The number of rows matching a search in one database.
+	 */
+	private static final class Total {
+		private final long rows;
+		private final boolean approximate;
+
+		private Total(long rows, boolean approximate) {
+			this.rows = rows;
+			this.approximate = approximate;
+		}
+	}
+
+	/**
+	 * Reads one part of every recipe of a page the first time any of them asks
+	 * for it.
+	 *
+	 * @param <V> the part read
+	 */
+	private static final class PageLoader<V> {
+		private final List<Integer> keys;
+		private Function<List<Integer>, Map<Integer, V>> load;
+		private Map<Integer, V> loaded;
+
+		private PageLoader(List<Integer> keys, Function<List<Integer>, Map<Integer, V>> load) {
+			this.keys = keys;
+			this.load = load;
+		}
+
+		/**
+		 * @param key the key of a recipe's part, such as its id
+		 * @return the part, or null if none was found
+		 */
+		private synchronized V get(int key) {
+			if (loaded == null) {
+				loaded = load.apply(keys);
+				load = null;
+			}
+			return loaded.get(key);
+		}
+	}
+
+	/**
+	 * Slices a list of mapped recipes into the page requested.
+	 *
+	 * @param <T>         the representation of the recipes
+	 * @param recipes     every recipe matching the query, in order
+	 * @param pageOptions the PageOptions object containing pagination details
+	 * @return a Page object containing the requested slice
+	 */
+	private <T> Page<T> toPage(List<T> recipes, PageOptions pageOptions) {
 		int offset = (pageOptions.getPageNumber() - 1) * pageOptions.getPageSize();
 		int limit = Math.min(offset + pageOptions.getPageSize(), recipes.size());
-		List<Recipe> slicedList = sliceList(recipes, offset, limit);
+		List<T> slicedList = sliceList(recipes, offset, limit);
 		return new Page<>(pageOptions.getPageNumber(), pageOptions.getPageSize(),
 				(int) Math.ceil(recipes.size() / ((float) pageOptions.getPageSize())), recipes.size(), slicedList);
 	}
 
+	/**
+	 * Builds a page from rows read for it alone.
+	 *
+	 * @param <T>         the representation of the recipes
+	 * @param items       the recipes of the page
+	 * @param pageOptions the PageOptions object containing pagination details
+	 * @param total       the total number of recipes, counted or estimated;
+	 *                    ignored when the rows end before the page does
+	 * @param approximate whether the total is an estimate
+	 * @return a Page object containing the items
+	 */
+	private <T> Page<T> toPage(List<T> items, PageOptions pageOptions, long total, boolean approximate) {
+		int seen = items.isEmpty() ? 0 : (pageOptions.getPageNumber() - 1) * pageOptions.getPageSize() + items.size();
+		int totalElements;
+		if (isLastPage(items, pageOptions)) {
+			totalElements = seen;
+			approximate = false;
+		} else {
+			// a total below the rows already seen is stale or a poor estimate
+			totalElements = (int) Math.max(total, seen);
+		}
+		Page<T> page = new Page<>(pageOptions.getPageNumber(), pageOptions.getPageSize(),
+				(int) Math.ceil(totalElements / ((float) pageOptions.getPageSize())), totalElements, items);
+		page.setApproximate(approximate);
+		return page;
+	}
+
 	/**
 	 * Slices a list of Recipe objects from a specified start index to an end index.
 	 * This method creates a sublist of the provided list, which can be used for
 	 * pagination.
 	 *
+	 * @param <T>   the representation of the recipes
 	 * @param list  the list of Recipe objects to slice
 	 * @param start the starting index (inclusive)
 	 * @param end   the ending index (exclusive)
 	 * @return a sublist of Recipe objects from the specified range
 	 */
-	private List<Recipe> sliceList(List<Recipe> list, int start, int end) {
+	private <T> List<T> sliceList(List<T> list, int start, int end) {
 		if (start >= list.size()) {
 			return new ArrayList<>();
 		}
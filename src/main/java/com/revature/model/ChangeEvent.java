@@ -0,0 +1,138 @@
+package com.revature.model;
+
+import java.util.Objects;
+
+/**
+ The ChangeEvent class represents one write made to a recipe, chef or ingredient, as recorded in the change log. It stores the event's sequence number, the kind of entity and the operation, the id of the entity, when the write happened and the data written. The data of a delete is null, and the data of a chef never includes its email or password.
+
+ */
+public class ChangeEvent {
+
+    /** The operation of an event creating an entity. */
+    public static final String CREATE = "create";
+    /** The operation of an event updating an entity. */
+    public static final String UPDATE = "update";
+    /** The operation of an event deleting an entity. */
+    public static final String DELETE = "delete";
+
+    // fields
+
+    /** The position of the event in the change log, starting at 1. */
+    private long sequence;
+    /** The kind of entity written: "recipe", "chef" or "ingredient". */
+    private String entity;
+    /** The operation: "create", "update" or "delete". */
+    private String operation;
+    /** The unique identifier of the entity written. */
+    private int id;
+    /** When the event was recorded, in milliseconds since the epoch. */
+    private long timestamp;
+    /** The fields written, or null for a delete. */
+    private Object data;
+
+    // constructors
+    public ChangeEvent() {
+        // No-arg constructor
+    }
+
+    public ChangeEvent(long sequence, String entity, String operation, int id, long timestamp, Object data) {
+        this.sequence = sequence;
+        this.entity = entity;
+        this.operation = operation;
+        this.id = id;
+        this.timestamp = timestamp;
+        this.data = data;
+    }
+
+    // getters and setters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    public void setData(Object data) {
+        this.data = data;
+    }
+
+    /**
+     * Generates the hash code for this ChangeEvent object.
+     *
+     * @return the hash code of the change event
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(sequence, entity, operation, id, timestamp, data);
+    }
+
+    /**
+     * Compares this ChangeEvent object with another object for equality.
+     *
+     * @param obj the object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        ChangeEvent other = (ChangeEvent) obj;
+        return sequence == other.sequence && id == other.id && timestamp == other.timestamp
+                && Objects.equals(entity, other.entity) && Objects.equals(operation, other.operation)
+                && Objects.equals(data, other.data);
+    }
+
+    /**
+     * Returns a string representation of the ChangeEvent object.
+     *
+     * @return string representation of the ChangeEvent object
+     */
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+               "sequence=" + sequence +
+               ", entity='" + entity + '\'' +
+               ", operation='" + operation + '\'' +
+               ", id=" + id +
+               ", timestamp=" + timestamp +
+               ", data=" + data +
+               '}';
+    }
+}
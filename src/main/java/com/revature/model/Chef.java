@@ -102,9 +102,9 @@ public class Chef {
             return false;
         Chef chef = (Chef) obj;
         return id == chef.id &&
-                username.equals(chef.username) &&
-                email.equals(chef.email) &&
-                password.equals(chef.password) &&
+                Objects.equals(username, chef.username) &&
+                Objects.equals(email, chef.email) &&
+                Objects.equals(password, chef.password) &&
                 isAdmin == chef.isAdmin;
 
     }
@@ -1,6 +1,8 @@
 package com.revature.model;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  The Recipe class represents the domain object for a recipe. It stores the chef's basic information such as id, name, instructions, authors, and associated ingredients. This class provides getter and setter methods to access and modify the fields and overrides methods Object class methods.
@@ -20,6 +22,12 @@ public class Recipe {
     private String instructions;
     /** The author of the recipe, represented as a Chef object. */
     private Chef author;
+    /** Reads the instructions when they are first needed, or null once they are read. */
+    private transient Supplier<String> deferredInstructions;
+    /** Reads the author when it is first needed, or null once it is read. */
+    private transient Supplier<Chef> deferredAuthor;
+    /** Reads the ingredients when they are first needed, or null once they are read. */
+    private transient Supplier<List<RecipeIngredient>> deferredIngredients;
     /** Default constructor for creating an empty Recipe object. */
 	private List<RecipeIngredient> ingredients;
 
@@ -62,29 +70,94 @@ public class Recipe {
     }
 
     public String getInstructions() {
+        if (deferredInstructions != null) {
+            instructions = deferredInstructions.get();
+            deferredInstructions = null;
+        }
         return instructions;
     }
 
     public void setInstructions(String instructions) {
         this.instructions = instructions;
+        this.deferredInstructions = null;
+    }
+
+    /**
+     * Defers reading the instructions until they are first needed, typically
+     * when the recipe is serialized.
+     *
+     * @param source reads the instructions
+     */
+    public void deferInstructions(Supplier<String> source) {
+        this.instructions = null;
+        this.deferredInstructions = source;
     }
 
     public Chef getAuthor() {
+        if (deferredAuthor != null) {
+            author = deferredAuthor.get();
+            deferredAuthor = null;
+        }
         return author;
     }
 
     public void setAuthor(Chef author) {
         this.author = author;
+        this.deferredAuthor = null;
+    }
+
+    /**
+     * Defers reading the author until it is first needed.
+     *
+     * @param source reads the author
+     */
+    public void deferAuthor(Supplier<Chef> source) {
+        this.author = null;
+        this.deferredAuthor = source;
     }
 
     public List<RecipeIngredient> getIngredients() {
+        if (deferredIngredients != null) {
+            ingredients = deferredIngredients.get();
+            deferredIngredients = null;
+        }
 		return ingredients;
 	}
 
 	public void setIngredients(List<RecipeIngredient> ingredients) {
 		this.ingredients = ingredients;
+		this.deferredIngredients = null;
 	}
 
+    /**
+     * Defers reading the ingredients until they are first needed.
+     *
+     * @param source reads the ingredients
+     */
+    public void deferIngredients(Supplier<List<RecipeIngredient>> source) {
+        this.ingredients = null;
+        this.deferredIngredients = source;
+    }
+
+    /**
+     * Copies this recipe, its author and its list of ingredients. Parts not
+     * read yet are not read: the copy reads them from the same source when it
+     * first needs them, so the source must be safe to call from several
+     * threads.
+     *
+     * @return a recipe that can be modified without affecting this one
+     */
+    public Recipe copy() {
+        Recipe copy = new Recipe(id, name, instructions, author == null ? null
+                : new Chef(author.getId(), author.getUsername(), author.getEmail(), author.getPassword(),
+                        author.isAdmin()));
+        copy.ingredients = ingredients == null ? null : new ArrayList<>(ingredients);
+        copy.deferredInstructions = deferredInstructions;
+        copy.deferredAuthor = deferredAuthor;
+        copy.deferredIngredients = deferredIngredients;
+        return copy;
+    }
+
     /**
      * Generates the hash code for this Recipe object.
      *
@@ -121,10 +194,11 @@ public class Recipe {
      */
     @Override
     public String toString() {
+        Chef author = getAuthor();
         return "Recipe{" +
                "id=" + id +
                ", name='" + name + '\'' +
-               ", instructions='" + instructions + '\'' +
+               ", instructions='" + getInstructions() + '\'' +
                ", author=" + (author != null ? author.getUsername() : "Unknown") +
                '}';
     }
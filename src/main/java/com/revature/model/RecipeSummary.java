@@ -0,0 +1,118 @@
+package com.revature.model;
+
+import java.util.Objects;
+
+/**
+ The RecipeSummary class is the lightweight representation of a recipe returned by list and search endpoints. It stores only the recipe's id and name, the id and username of its author, and the number of ingredients it uses, so listings do not carry instructions or the author's email and password. The full Recipe is returned by the single recipe endpoint.
+
+ */
+public class RecipeSummary {
+
+    // fields
+
+    /** The unique identifier of the recipe. */
+    private int id;
+    /** The name of the recipe. */
+    private String name;
+    /** The unique identifier of the recipe's author. */
+    private int authorId;
+    /** The username of the recipe's author. */
+    private String authorUsername;
+    /** The number of ingredients the recipe uses. */
+    private int ingredientCount;
+
+    // constructors
+    public RecipeSummary() {
+        // No-arg constructor
+    }
+
+    public RecipeSummary(int id, String name, int authorId, String authorUsername, int ingredientCount) {
+        this.id = id;
+        this.name = name;
+        this.authorId = authorId;
+        this.authorUsername = authorUsername;
+        this.ingredientCount = ingredientCount;
+    }
+
+    // getters and setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(int authorId) {
+        this.authorId = authorId;
+    }
+
+    public String getAuthorUsername() {
+        return authorUsername;
+    }
+
+    public void setAuthorUsername(String authorUsername) {
+        this.authorUsername = authorUsername;
+    }
+
+    public int getIngredientCount() {
+        return ingredientCount;
+    }
+
+    public void setIngredientCount(int ingredientCount) {
+        this.ingredientCount = ingredientCount;
+    }
+
+    /**
+     * Generates the hash code for this RecipeSummary object.
+     *
+     * @return the hash code of the recipe summary
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, authorId, authorUsername, ingredientCount);
+    }
+
+    /**
+     * Compares this RecipeSummary object with another object for equality.
+     *
+     * @param obj the object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RecipeSummary other = (RecipeSummary) obj;
+        return id == other.id && authorId == other.authorId && ingredientCount == other.ingredientCount
+                && Objects.equals(name, other.name) && Objects.equals(authorUsername, other.authorUsername);
+    }
+
+    /**
+     * Returns a string representation of the RecipeSummary object.
+     *
+     * @return string representation of the RecipeSummary object
+     */
+    @Override
+    public String toString() {
+        return "RecipeSummary{" +
+               "id=" + id +
+               ", name='" + name + '\'' +
+               ", authorId=" + authorId +
+               ", authorUsername='" + authorUsername + '\'' +
+               ", ingredientCount=" + ingredientCount +
+               '}';
+    }
+}
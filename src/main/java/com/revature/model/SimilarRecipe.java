@@ -0,0 +1,94 @@
+package com.revature.model;
+
+import java.util.Objects;
+
+/**
+ The SimilarRecipe class is a recommendation returned by the similar recipes endpoint. It stores the recipe's id and name and the Jaccard similarity of its ingredient set to the ingredient set of the recipe the recommendations were made for, from 0 (no ingredient in common) to 1 (the same ingredients).
+
+ */
+public class SimilarRecipe {
+
+    // fields
+
+    /** The unique identifier of the recipe. */
+    private int id;
+    /** The name of the recipe. */
+    private String name;
+    /** The Jaccard similarity of the ingredient sets. */
+    private double similarity;
+
+    // constructors
+    public SimilarRecipe() {
+        // No-arg constructor
+    }
+
+    public SimilarRecipe(int id, String name, double similarity) {
+        this.id = id;
+        this.name = name;
+        this.similarity = similarity;
+    }
+
+    // getters and setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(double similarity) {
+        this.similarity = similarity;
+    }
+
+    /**
+     * Generates the hash code for this SimilarRecipe object.
+     *
+     * @return the hash code of the similar recipe
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, similarity);
+    }
+
+    /**
+     * Compares this SimilarRecipe object with another object for equality.
+     *
+     * @param obj the object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        SimilarRecipe other = (SimilarRecipe) obj;
+        return id == other.id && Double.compare(similarity, other.similarity) == 0
+                && Objects.equals(name, other.name);
+    }
+
+    /**
+     * Returns a string representation of the SimilarRecipe object.
+     *
+     * @return string representation of the SimilarRecipe object
+     */
+    @Override
+    public String toString() {
+        return "SimilarRecipe{" +
+               "id=" + id +
+               ", name='" + name + '\'' +
+               ", similarity=" + similarity +
+               '}';
+    }
+}
@@ -1,10 +1,16 @@
 package com.revature.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import com.revature.model.ChangeEvent;
 import com.revature.model.Chef;
 import com.revature.dao.ChefDAO;
+import com.revature.util.ChangeLog;
+import com.revature.util.DatabaseExecutor;
 import com.revature.util.Page;
 import com.revature.util.PageOptions;
 
@@ -20,6 +26,12 @@ public class ChefService {
     /** The data access object used for performing operations on Chef entities. */
     private ChefDAO chefDAO;
 
+    /** The executor running the asynchronous variants of the operations. */
+    private DatabaseExecutor executor;
+
+    /** The log recording every chef written. */
+    private ChangeLog changes;
+
     /**
      * Constructs a ChefService with the specified ChefDAO.
      *
@@ -29,7 +41,34 @@ public class ChefService {
      * @param chefDao the ChefDao to be used by this service for data access
      */
     public ChefService(ChefDAO chefDAO) {
+        this(chefDAO, DatabaseExecutor.shared());
+    }
+
+    /**
+     * Constructs a ChefService with the specified ChefDAO and the executor
+     * running its asynchronous operations. Its changes go to a log of its own
+     * kept in memory; pass a shared log for services to see each other's
+     * changes.
+     *
+     * @param chefDao  the ChefDao to be used by this service for data access
+     * @param executor the executor running the asynchronous operations
+     */
+    public ChefService(ChefDAO chefDAO, DatabaseExecutor executor) {
+        this(chefDAO, executor, ChangeLog.inMemory());
+    }
+
+    /**
+     * Constructs a ChefService with the specified ChefDAO, the executor running
+     * its asynchronous operations and the log recording its writes.
+     *
+     * @param chefDao  the ChefDao to be used by this service for data access
+     * @param executor the executor running the asynchronous operations
+     * @param changes  the log recording every chef written
+     */
+    public ChefService(ChefDAO chefDAO, DatabaseExecutor executor, ChangeLog changes) {
         this.chefDAO = chefDAO;
+        this.executor = executor;
+        this.changes = changes;
     }
 
     /**
@@ -48,7 +87,8 @@ public class ChefService {
      * TODO: Saves a Chef entity. If the Chef's ID is zero, a new Chef is created
      * and the `chef` parameter's ID is updated.
      * 
-     * Otherwise, updates the existing Chef.
+     * Otherwise, updates the existing Chef. The write is recorded in the change
+     * log.
      *
      * @param chef the Chef entity to be saved or updated
      */
@@ -57,12 +97,30 @@ public class ChefService {
             // Create new chef
             int newId = chefDAO.createChef(chef);
             chef.setId(newId);
+            if (newId != 0) {
+                changes.append("chef", ChangeEvent.CREATE, newId, changeData(chef));
+            }
         } else {
             // Update existing chef
-            chefDAO.updateChef(chef);
+            if (chefDAO.updateChef(chef)) {
+                changes.append("chef", ChangeEvent.UPDATE, chef.getId(), changeData(chef));
+            }
         }
     }
 
+    /**
+     * @param chef a chef written
+     * @return the fields of the chef recorded in the change log, leaving out its
+     *         email and password
+     */
+    private static Map<String, Object> changeData(Chef chef) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", chef.getId());
+        data.put("username", chef.getUsername());
+        data.put("admin", chef.isAdmin());
+        return data;
+    }
+
     /**
      * TODO: Searches for Chefs based on a search term.
      * If the term is null, retrieves all Chefs.
@@ -87,7 +145,9 @@ public class ChefService {
     public void deleteChef(int id) {
         Chef chef = chefDAO.getChefById(id);
         if (chef != null) {
-            chefDAO.deleteChef(chef);
+            if (chefDAO.deleteChef(chef)) {
+                changes.append("chef", ChangeEvent.DELETE, id, null);
+            }
         }
     }
 
@@ -109,4 +169,45 @@ public class ChefService {
             return chefDAO.searchChefsByTerm(term, pageOptions);
         }
     }
+
+    /**
+     * Finds a Chef by their unique identifier on the database executor.
+     *
+     * @param id the unique identifier of the chef to be found
+     * @return a future completed with the result of {@link #findChef(int)}
+     */
+    public CompletableFuture<Optional<Chef>> findChefAsync(int id) {
+        return executor.supply(() -> findChef(id));
+    }
+
+    /**
+     * Searches for chefs with pagination and sorting options on the database
+     * executor.
+     *
+     * @param term          the search term used to find chefs
+     * @param page          the page number to retrieve
+     * @param pageSize      the number of chefs per page
+     * @param sortBy        the field by which to sort the results
+     * @param sortDirection the direction of sorting (ascending or descending)
+     * @return a future completed with the result of
+     *         {@link #searchChefs(String, int, int, String, String)}
+     */
+    public CompletableFuture<Page<Chef>> searchChefsAsync(String term, int page, int pageSize, String sortBy,
+            String sortDirection) {
+        return executor.supply(() -> searchChefs(term, page, pageSize, sortBy, sortDirection));
+    }
+
+    /**
+     * Saves a Chef entity on the database executor.
+     *
+     * @param chef the Chef entity to be saved or updated
+     * @return a future completed with the saved chef once
+     *         {@link #saveChef(Chef)} has run
+     */
+    public CompletableFuture<Chef> saveChefAsync(Chef chef) {
+        return executor.supply(() -> {
+            saveChef(chef);
+            return chef;
+        });
+    }
 }
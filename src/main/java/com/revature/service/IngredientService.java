@@ -1,10 +1,18 @@
 package com.revature.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import com.revature.dao.IngredientDAO;
+import com.revature.model.ChangeEvent;
 import com.revature.model.Ingredient;
+import com.revature.util.Batch;
+import com.revature.util.ChangeLog;
+import com.revature.util.DatabaseExecutor;
+import com.revature.util.FieldSet;
 import com.revature.util.Page;
 import com.revature.util.PageOptions;
 
@@ -23,6 +31,12 @@ public class IngredientService {
      */
     private IngredientDAO ingredientDAO;
 
+    /** The executor running the asynchronous variants of the operations. */
+    private DatabaseExecutor executor;
+
+    /** The log recording every ingredient written. */
+    private ChangeLog changes;
+
     /**
      * Constructs an IngredientService with the specified IngredientDao.
      *
@@ -34,7 +48,37 @@ public class IngredientService {
      */
 
     public IngredientService(IngredientDAO ingredientDAO) {
+        this(ingredientDAO, DatabaseExecutor.shared());
+    }
+
+    /**
+     * Constructs an IngredientService with the specified IngredientDao and the
+     * executor running its asynchronous operations. Its changes go to a log of
+     * its own kept in memory; pass a shared log for services to see each
+     * other's changes.
+     *
+     * @param ingredientDao the IngredientDao to be used by this service for data
+     *                      access
+     * @param executor      the executor running the asynchronous operations
+     */
+    public IngredientService(IngredientDAO ingredientDAO, DatabaseExecutor executor) {
+        this(ingredientDAO, executor, ChangeLog.inMemory());
+    }
+
+    /**
+     * Constructs an IngredientService with the specified IngredientDao, the
+     * executor running its asynchronous operations and the log recording its
+     * writes.
+     *
+     * @param ingredientDao the IngredientDao to be used by this service for data
+     *                      access
+     * @param executor      the executor running the asynchronous operations
+     * @param changes       the log recording every ingredient written
+     */
+    public IngredientService(IngredientDAO ingredientDAO, DatabaseExecutor executor, ChangeLog changes) {
         this.ingredientDAO = ingredientDAO;
+        this.executor = executor;
+        this.changes = changes;
     }
 
     /**
@@ -49,6 +93,31 @@ public class IngredientService {
         return Optional.ofNullable(ingredient);
     }
 
+    /**
+     * Finds an Ingredient by its unique identifier, reading only the selected
+     * fields.
+     *
+     * @param id     the unique identifier of the Ingredient
+     * @param fields the fields to read
+     * @return an Optional containing the Ingredient if found, or an empty Optional
+     *         if not found
+     */
+    public Optional<Ingredient> findIngredient(int id, FieldSet.Projection<Ingredient> fields) {
+        return Optional.ofNullable(ingredientDAO.getIngredientById(id, fields));
+    }
+
+    /**
+     * Finds the ingredients with the given ids in one batch.
+     *
+     * @param ids the distinct ids of the ingredients, in the order they should be
+     *            returned
+     * @return a Batch holding the ingredients found in request order and the ids
+     *         that were not found
+     */
+    public Batch<Ingredient> findIngredients(List<Integer> ids) {
+        return Batch.of(ids, ingredientDAO.getIngredientsByIds(ids));
+    }
+
     /**
      * TODO: Searches for Ingredients based on a search term with pagination and
      * sorting options.
@@ -71,6 +140,45 @@ public class IngredientService {
         }
     }
 
+    /**
+     * Searches for Ingredients with pagination and sorting options, reading only
+     * the selected fields.
+     *
+     * @param term          the search term for filtering Ingredients by attributes
+     * @param page          the page number to retrieve
+     * @param pageSize      the number of results per page
+     * @param sortBy        the field to sort the results by
+     * @param sortDirection the direction of sorting (e.g., "asc" or "desc")
+     * @param fields        the fields to read
+     * @return a Page object containing the list of Ingredients matching the
+     *         criteria
+     */
+    public Page<Ingredient> searchIngredients(String term, int page, int pageSize, String sortBy,
+            String sortDirection, FieldSet.Projection<Ingredient> fields) {
+        PageOptions pageOptions = new PageOptions(page, pageSize, sortBy, sortDirection);
+        if (term == null || term.trim().isEmpty()) {
+            return ingredientDAO.getAllIngredients(pageOptions, fields);
+        } else {
+            return ingredientDAO.searchIngredients(term, pageOptions, fields);
+        }
+    }
+
+    /**
+     * Searches for Ingredients based on a search term, reading only the selected
+     * fields. If the term is null, retrieves all Ingredients.
+     *
+     * @param term   the search term used to find ingredients
+     * @param fields the fields to read
+     * @return a list of Ingredient objects that match the search term
+     */
+    public List<Ingredient> searchIngredients(String term, FieldSet.Projection<Ingredient> fields) {
+        if (term == null || term.trim().isEmpty()) {
+            return ingredientDAO.getAllIngredients(fields);
+        } else {
+            return ingredientDAO.searchIngredients(term, fields);
+        }
+    }
+
     /**
      * TODO: Searches for Ingredients based on a search term.
      * If the term is null, retrieves all Ingredients.
@@ -95,7 +203,9 @@ public class IngredientService {
     public void deleteIngredient(int id) {
         Ingredient ingredient = ingredientDAO.getIngredientById(id);
         if (ingredient != null) {
-            ingredientDAO.deleteIngredient(ingredient);
+            if (ingredientDAO.deleteIngredient(ingredient)) {
+                changes.append("ingredient", ChangeEvent.DELETE, id, null);
+            }
         }
     }
 
@@ -103,7 +213,8 @@ public class IngredientService {
      * TODO: Saves an Ingredient entity. If the Ingredient's ID is zero, a new
      * Ingredient is created and the `ingredient` parameter's ID is updated.
      * 
-     * Otherwise, updates the existing Ingredient.
+     * Otherwise, updates the existing Ingredient. The write is recorded in the
+     * change log.
      *
      * @param ingredient the Ingredient entity to be saved or updated
      */
@@ -112,9 +223,80 @@ public class IngredientService {
             // Create new ingredient
             int newId = ingredientDAO.createIngredient(ingredient);
             ingredient.setId(newId);
+            if (newId != 0) {
+                changes.append("ingredient", ChangeEvent.CREATE, newId, changeData(ingredient));
+            }
         } else {
             // Update existing ingredient
-            ingredientDAO.updateIngredient(ingredient);
+            if (ingredientDAO.updateIngredient(ingredient)) {
+                changes.append("ingredient", ChangeEvent.UPDATE, ingredient.getId(), changeData(ingredient));
+            }
         }
     }
+
+    /**
+     * @param ingredient an ingredient written
+     * @return the fields of the ingredient recorded in the change log
+     */
+    private static Map<String, Object> changeData(Ingredient ingredient) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", ingredient.getId());
+        data.put("name", ingredient.getName());
+        return data;
+    }
+
+    /**
+     * Finds an Ingredient by its unique identifier on the database executor.
+     *
+     * @param id the unique identifier of the Ingredient
+     * @return a future completed with the result of {@link #findIngredient(int)}
+     */
+    public CompletableFuture<Optional<Ingredient>> findIngredientAsync(int id) {
+        return executor.supply(() -> findIngredient(id));
+    }
+
+    /**
+     * Finds an Ingredient by its unique identifier on the database executor,
+     * reading only the selected fields.
+     *
+     * @param id     the unique identifier of the Ingredient
+     * @param fields the fields to read
+     * @return a future completed with the result of
+     *         {@link #findIngredient(int, FieldSet.Projection)}
+     */
+    public CompletableFuture<Optional<Ingredient>> findIngredientAsync(int id,
+            FieldSet.Projection<Ingredient> fields) {
+        return executor.supply(() -> findIngredient(id, fields));
+    }
+
+    /**
+     * Searches for Ingredients with pagination and sorting options on the
+     * database executor.
+     *
+     * @param term          the search term for filtering Ingredients by attributes
+     * @param page          the page number to retrieve
+     * @param pageSize      the number of results per page
+     * @param sortBy        the field to sort the results by
+     * @param sortDirection the direction of sorting (e.g., "asc" or "desc")
+     * @return a future completed with the result of
+     *         {@link #searchIngredients(String, int, int, String, String)}
+     */
+    public CompletableFuture<Page<Ingredient>> searchIngredientsAsync(String term, int page, int pageSize,
+            String sortBy, String sortDirection) {
+        return executor.supply(() -> searchIngredients(term, page, pageSize, sortBy, sortDirection));
+    }
+
+    /**
+     * Saves an Ingredient entity on the database executor.
+     *
+     * @param ingredient the Ingredient entity to be saved or updated
+     * @return a future completed with the saved ingredient once
+     *         {@link #saveIngredient(Ingredient)} has run
+     */
+    public CompletableFuture<Ingredient> saveIngredientAsync(Ingredient ingredient) {
+        return executor.supply(() -> {
+            saveIngredient(ingredient);
+            return ingredient;
+        });
+    }
 }
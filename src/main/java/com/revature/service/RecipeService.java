@@ -1,12 +1,43 @@
 package com.revature.service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import com.revature.dao.RecipeDAO;
+import com.revature.model.ChangeEvent;
+import com.revature.model.Chef;
 import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
+import com.revature.model.RecipeSummary;
+import com.revature.model.SimilarRecipe;
+import com.revature.util.Batch;
+import com.revature.util.CatalogSnapshot;
+import com.revature.util.ChangeLog;
+import com.revature.util.CompactRecipeStore;
+import com.revature.util.DatabaseExecutor;
+import com.revature.util.FetchPlan;
+import com.revature.util.FieldSet;
+import com.revature.util.Metrics;
 import com.revature.util.Page;
 import com.revature.util.PageOptions;
+import com.revature.util.RecipeSimilarityIndex;
+import com.revature.util.SingleFlight;
+import com.revature.util.WriteBehindBuffer;
 
 /**
  * The RecipeService class provides services related to Recipe objects,
@@ -17,9 +48,101 @@ import com.revature.util.PageOptions;
  */
 public class RecipeService {
 
+    /**
+     * The executor running the sub-fetches of a recipe detail. The sub-fetches
+     * never wait on other work, so giving them their own pool lets a detail
+     * lookup that itself runs on the shared executor block on them without
+     * starving that pool.
+     */
+    private static final DatabaseExecutor DETAIL_FETCHES = new DatabaseExecutor("recipeDetail",
+            DatabaseExecutor.DEFAULT_THREADS, DatabaseExecutor.DEFAULT_QUEUE_CAPACITY,
+            DatabaseExecutor.DEFAULT_TIMEOUT_MILLIS);
+
     /** The data access object used for performing operations on Recipe entities. */
     private RecipeDAO recipeDAO;
 
+    /** The executor running the asynchronous variants of the operations. */
+    private DatabaseExecutor executor;
+
+    /** The log recording every recipe written. */
+    private ChangeLog changes;
+
+    /**
+     * Collapses concurrent lookups of the same recipe id into one DAO call,
+     * handing each caller its own copy of the recipe.
+     */
+    private SingleFlight<Integer, Recipe> recipeLookups = new SingleFlight<>("recipe.find",
+            SingleFlight.DEFAULT_TIMEOUT_MILLIS, Recipe::copy);
+
+    /**
+     * Collapses concurrent identical page searches into one DAO call, handing
+     * each caller its own copy of the page and its recipes.
+     */
+    private SingleFlight<String, Page<Recipe>> pageLookups = new SingleFlight<>("recipe.search",
+            SingleFlight.DEFAULT_TIMEOUT_MILLIS, page -> copyPage(page, Recipe::copy));
+
+    /**
+     * The buffered recipe updates when write-behind is enabled, or null when
+     * updates are written immediately.
+     */
+    private WriteBehindBuffer<Integer, Recipe> pendingUpdates;
+
+    /**
+     * Collapses concurrent identical summary searches into one DAO call, handing
+     * each caller its own copy of the page and its summaries.
+     */
+    private SingleFlight<String, Page<RecipeSummary>> summaryLookups = new SingleFlight<>("recipe.summaries",
+            SingleFlight.DEFAULT_TIMEOUT_MILLIS, page -> copyPage(page, summary -> new RecipeSummary(summary.getId(),
+                    summary.getName(), summary.getAuthorId(), summary.getAuthorUsername(),
+                    summary.getIngredientCount())));
+
+    /**
+     * The snapshot serving recipe lookups by id until the database is warm, or
+     * null when lookups read the database.
+     */
+    private volatile CatalogSnapshot snapshot;
+
+    /** The subscription tracking the writes made since the snapshot was taken. */
+    private ChangeLog.Subscription snapshotChanges;
+
+    /** The recipes written since the snapshot was taken, read from the database. */
+    private final Set<Integer> changedSinceSnapshot = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The full authors of the recipes served from the snapshot, by chef id. The
+     * snapshot keeps authors without their email and password, so each is read
+     * from the database once; a chef written since releases the snapshot and
+     * these with it.
+     */
+    private final Map<Integer, Chef> snapshotAuthors = new ConcurrentHashMap<>();
+
+    /**
+     * The recipes found by id, with their authors and ingredients, kept current
+     * by following the change log. Their instructions are kept off the heap,
+     * compressed if the "recipe.cache.compressInstructions" system property is
+     * true.
+     */
+    private final CompactRecipeStore recipeCache = new CompactRecipeStore("recipe",
+            CompactRecipeStore.DEFAULT_MAX_RECIPES, Boolean.getBoolean("recipe.cache.compressInstructions"));
+
+    /** The subscription keeping the recipe cache current. */
+    private final ChangeLog.Subscription cacheInvalidation;
+
+    /** The ingredient sets of the recipes, for finding similar recipes. */
+    private final RecipeSimilarityIndex similarityIndex = new RecipeSimilarityIndex("recipe");
+
+    /** Whether every recipe has been read into the similarity index; guarded by the index. */
+    private boolean similarityIndexBuilt;
+
+    /** The recipes written since the similarity index read them. */
+    private final Set<Integer> staleSimilarities = ConcurrentHashMap.newKeySet();
+
+    /** The ingredients deleted since the similarity index read the recipes using them. */
+    private final Set<Integer> deletedIngredients = ConcurrentHashMap.newKeySet();
+
+    /** The subscription tracking the writes the similarity index has not read. */
+    private final ChangeLog.Subscription similarityTracking;
+
     /**
      * Constructs a RecipeService with the specified RecipeDao.
      *
@@ -29,38 +152,479 @@ public class RecipeService {
      * @param recipeDao the RecipeDao to be used by this service for data access
      */
     public RecipeService(RecipeDAO recipeDAO) {
+        this(recipeDAO, DatabaseExecutor.shared());
+    }
+
+    /**
+     * Constructs a RecipeService with the specified RecipeDao and the executor
+     * running its asynchronous operations. Its changes go to a log of its own
+     * kept in memory; pass a shared log for services to see each other's
+     * changes.
+     *
+     * @param recipeDao the RecipeDao to be used by this service for data access
+     * @param executor  the executor running the asynchronous operations
+     */
+    public RecipeService(RecipeDAO recipeDAO, DatabaseExecutor executor) {
+        this(recipeDAO, executor, ChangeLog.inMemory());
+    }
+
+    /**
+     * Constructs a RecipeService with the specified RecipeDao, the executor
+     * running its asynchronous operations and the log recording its writes.
+     *
+     * @param recipeDao the RecipeDao to be used by this service for data access
+     * @param executor  the executor running the asynchronous operations
+     * @param changes   the log recording every recipe written
+     */
+    public RecipeService(RecipeDAO recipeDAO, DatabaseExecutor executor, ChangeLog changes) {
         this.recipeDAO = recipeDAO;
+        this.executor = executor;
+        this.changes = changes;
+        this.cacheInvalidation = changes.subscribe(changes.lastSequence() + 1, this::invalidateCachedRecipes);
+        this.similarityTracking = changes.subscribe(changes.lastSequence() + 1, this::trackSimilarityChange);
     }
 
     /**
      * TODO: Finds a Recipe by its unique identifier.
+     * 
+     * The recipe row, its author and its ingredients are fetched concurrently,
+     * since each of them only needs the recipe id. If one of the fetches fails,
+     * the others are cancelled and the failure is thrown. The latency of each
+     * fetch is recorded under "recipe.detail.{row,author,ingredients}" and the
+     * latency of the whole lookup under "recipe.detail.total". Recipes found are
+     * cached in a compact form until they, their author or one of their
+     * ingredients is written.
      *
      * @param id the unique identifier of the recipe to be found
      * @return an Optional containing the found Recipe if present;
      *         an empty Optional if not found
      */
     public Optional<Recipe> findRecipe(int id) {
-        Recipe recipe = recipeDAO.getRecipeById(id);
-        return Optional.ofNullable(recipe);
+        Recipe recipe = fromSnapshot(id);
+        if (recipe == null) {
+            recipe = recipeCache.get(id);
+        }
+        if (recipe == null) {
+            long loadedAt = changes.lastSequence();
+            recipe = recipeLookups.execute(id, () -> loadRecipeDetail(id));
+            if (recipe != null) {
+                recipeCache.put(recipe, loadedAt);
+            }
+        }
+        return Optional.ofNullable(withPendingUpdate(recipe, null));
+    }
+
+    /**
+     * Removes the cached recipes a change log event may affect: the recipe
+     * written, or every recipe when a chef or ingredient is updated or deleted.
+     */
+    private void invalidateCachedRecipes(ChangeEvent event) {
+        if (event.getEntity().equals("recipe")) {
+            recipeCache.remove(event.getId(), event.getSequence());
+        } else if (!event.getOperation().equals(ChangeEvent.CREATE)) {
+            recipeCache.clear(event.getSequence());
+        }
+    }
+
+    /**
+     * Reads a recipe from the snapshot, unless it has been written since the
+     * snapshot was taken. The author is replaced by the full chef, as a lookup
+     * from the database returns it.
+     *
+     * @param id the unique identifier of the recipe
+     * @return the recipe as of the snapshot, or null if it must be read from the
+     *         database
+     */
+    private Recipe fromSnapshot(int id) {
+        CatalogSnapshot current = snapshot;
+        if (current == null || changedSinceSnapshot.contains(id)) {
+            return null;
+        }
+        Recipe recipe = current.findRecipe(id);
+        if (recipe == null) {
+            return null;
+        }
+        if (recipe.getAuthor() != null) {
+            Chef author = snapshotAuthors.get(recipe.getAuthor().getId());
+            if (author == null) {
+                author = recipeDAO.getRecipeAuthor(id);
+                if (author == null) {
+                    return null;
+                }
+                snapshotAuthors.put(author.getId(), author);
+            }
+            recipe.setAuthor(new Chef(author.getId(), author.getUsername(), author.getEmail(), author.getPassword(),
+                    author.isAdmin()));
+        }
+        Metrics.increment("recipe.snapshot.hits");
+        return recipe;
+    }
+
+    /**
+     * Serves recipe lookups by id from a snapshot of the catalog, so they do not
+     * wait on a cold database. The change log events recorded since the snapshot
+     * was taken are replayed and followed: recipes written since are read from
+     * the database, and a chef or ingredient updated or deleted since releases
+     * the snapshot, since the recipes would show its old data.
+     *
+     * The snapshot is refused if the change log no longer holds every event
+     * since it was taken, because the writes it missed cannot be known.
+     *
+     * @param snapshot the snapshot of the catalog
+     * @return true if the snapshot serves lookups, false if it was refused
+     */
+    public synchronized boolean useSnapshot(CatalogSnapshot snapshot) {
+        releaseSnapshot();
+        long last = changes.lastSequence();
+        if (snapshot.sequence() > last) {
+            return false;
+        }
+        if (snapshot.sequence() < last) {
+            List<ChangeEvent> next = changes.read(snapshot.sequence() + 1, 1);
+            if (next.isEmpty() || next.get(0).getSequence() != snapshot.sequence() + 1) {
+                return false;
+            }
+        }
+        changedSinceSnapshot.clear();
+        snapshotAuthors.clear();
+        snapshotChanges = changes.subscribe(snapshot.sequence() + 1, this::trackSnapshotChange);
+        this.snapshot = snapshot;
+        return true;
+    }
+
+    /**
+     * Reads every recipe of the snapshot from the database in the background,
+     * one chunk at a time on the executor, to warm the database before the
+     * snapshot is released.
+     *
+     * @return a future completed once the snapshot has been released
+     */
+    public CompletableFuture<Void> warmUp() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Void> warm = CompletableFuture.completedFuture(null);
+        for (List<Integer> chunk : Batch.chunks(current.recipeIds(), Batch.CHUNK_SIZE)) {
+            warm = warm.thenCompose(done -> executor.<Void>supply(() -> {
+                recipeDAO.getRecipesByIds(chunk);
+                recipeDAO.getRecipeIngredients(chunk);
+                return null;
+            }));
+        }
+        return warm.handle((done, error) -> {
+            if (error != null) {
+                Metrics.increment("recipe.snapshot.warmUpFailures");
+            }
+            Metrics.record("recipe.snapshot.warmUp", System.nanoTime() - start);
+            releaseSnapshot();
+            return null;
+        });
+    }
+
+    /** Stops serving lookups from the snapshot. */
+    public synchronized void releaseSnapshot() {
+        snapshot = null;
+        if (snapshotChanges != null) {
+            snapshotChanges.close();
+            snapshotChanges = null;
+        }
+        changedSinceSnapshot.clear();
+        snapshotAuthors.clear();
+    }
+
+    /**
+     * Writes a snapshot of every recipe with its author and ingredients,
+     * replacing the previous snapshot file. The change log sequence number is
+     * read first, so a write racing with the snapshot is replayed when it is
+     * used.
+     *
+     * @param file the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        flushUpdates();
+        long sequence = changes.lastSequence();
+        List<Integer> ids = recipeDAO.getRecipeIds();
+        Map<Integer, Recipe> recipes = new LinkedHashMap<>();
+        Map<Integer, List<RecipeIngredient>> ingredients = new LinkedHashMap<>();
+        for (List<Integer> chunk : Batch.chunks(ids, Batch.CHUNK_SIZE)) {
+            recipes.putAll(recipeDAO.getRecipesByIds(chunk));
+            ingredients.putAll(recipeDAO.getRecipeIngredients(chunk));
+        }
+        for (Recipe recipe : recipes.values()) {
+            recipe.setIngredients(ingredients.getOrDefault(recipe.getId(), List.of()));
+        }
+        CatalogSnapshot.write(file, sequence, recipes.values());
+    }
+
+    /**
+     * Receives the change log events recorded since the snapshot was taken. It
+     * runs under the log's lock, so it only drops the snapshot and leaves
+     * unsubscribing to the next release.
+     */
+    private void trackSnapshotChange(ChangeEvent event) {
+        if (snapshot == null) {
+            return;
+        }
+        if (event.getEntity().equals("recipe")) {
+            changedSinceSnapshot.add(event.getId());
+        } else if (!event.getOperation().equals(ChangeEvent.CREATE)) {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Assembles a recipe from its row, author and ingredients, fetched
+     * concurrently.
+     *
+     * @param id the unique identifier of the recipe
+     * @return the recipe with its author and ingredients, or null if not found
+     */
+    private Recipe loadRecipeDetail(int id) {
+        long start = System.nanoTime();
+        CompletableFuture<Recipe> row = fetchDetail("row", () -> recipeDAO.getRecipeRow(id));
+        CompletableFuture<Chef> author = fetchDetail("author", () -> recipeDAO.getRecipeAuthor(id));
+        CompletableFuture<List<RecipeIngredient>> ingredients = fetchDetail("ingredients",
+                () -> recipeDAO.getRecipeIngredients(id));
+        List<CompletableFuture<?>> fetches = List.of(row, author, ingredients);
+
+        // the first failure cancels the fetches still queued or running; waiting on
+        // the watchers rather than the fetches ensures the failure is recorded
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CompletableFuture<?>[] watchers = new CompletableFuture<?>[fetches.size()];
+        for (int i = 0; i < watchers.length; i++) {
+            watchers[i] = fetches.get(i).whenComplete((value, error) -> {
+                if (error != null && failure.compareAndSet(null, error)) {
+                    fetches.forEach(other -> other.cancel(false));
+                }
+            });
+        }
+        CompletableFuture.allOf(watchers).handle((value, error) -> null).join();
+        Metrics.record("recipe.detail.total", System.nanoTime() - start);
+
+        Throwable error = failure.get();
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error != null) {
+            throw new CompletionException(error);
+        }
+
+        Recipe recipe = row.join();
+        if (recipe != null) {
+            recipe.setAuthor(author.join());
+            recipe.setIngredients(ingredients.join());
+        }
+        return recipe;
+    }
+
+    /**
+     * Starts one sub-fetch of a recipe detail, recording its latency from
+     * submission to completion.
+     *
+     * @param <T>   the type of the fetched value
+     * @param name  the name of the sub-fetch in the latency metrics
+     * @param fetch the blocking fetch
+     * @return a future completed with the fetched value
+     */
+    private <T> CompletableFuture<T> fetchDetail(String name, Supplier<T> fetch) {
+        long start = System.nanoTime();
+        CompletableFuture<T> result = DETAIL_FETCHES.supply(fetch);
+        result.whenComplete((value, error) -> Metrics.record("recipe.detail." + name, System.nanoTime() - start));
+        return result;
+    }
+
+    /**
+     * Finds a Recipe by its unique identifier, reading only the selected fields.
+     *
+     * @param id     the unique identifier of the recipe to be found
+     * @param fields the fields to read
+     * @return an Optional containing the found Recipe if present;
+     *         an empty Optional if not found
+     */
+    public Optional<Recipe> findRecipe(int id, FieldSet.Projection<Recipe> fields) {
+        return Optional.ofNullable(withPendingUpdate(recipeDAO.getRecipeById(id, fields), fields));
+    }
+
+    /**
+     * Finds the recipes with the given ids in one batch.
+     *
+     * @param ids the distinct ids of the recipes, in the order they should be
+     *            returned
+     * @return a Batch holding the recipes found in request order and the ids
+     *         that were not found
+     */
+    public Batch<Recipe> findRecipes(List<Integer> ids) {
+        Map<Integer, Recipe> recipes = recipeDAO.getRecipesByIds(ids);
+        if (pendingUpdates != null) {
+            recipes.replaceAll((id, recipe) -> withPendingUpdate(recipe, null));
+        }
+        return Batch.of(ids, recipes);
     }
 
     /**
      * TODO: Saves a Recipe object to the data store. If the id is 0, create a new
      * Recipe and set the `recipe` id field to the updated id.
      * 
-     * Otherwise, updates the recipe's instructions and chef id.
+     * Otherwise, updates the recipe's instructions and chef id. When write-behind
+     * is enabled, the update is buffered and written with the next flush.
+     * 
+     * Each write is recorded in the change log once it reaches the database, so
+     * a buffered update is recorded when it is flushed.
      *
      * @param recipe the Recipe object to be saved
+     * @throws IllegalArgumentException if an update to be buffered has no author
      */
     public void saveRecipe(Recipe recipe) {
         if (recipe.getId() == 0) {
             // Create new recipe
             int newId = recipeDAO.createRecipe(recipe);
             recipe.setId(newId);
+            if (newId != 0) {
+                changes.append("recipe", ChangeEvent.CREATE, newId, changeData(recipe));
+            }
+        } else if (pendingUpdates != null) {
+            // an update without an author would only fail once it is flushed
+            if (recipe.getAuthor() == null) {
+                throw new IllegalArgumentException("A recipe must have an author");
+            }
+            // Buffer the update, replacing any pending update of the recipe
+            pendingUpdates.put(recipe.getId(), recipe);
         } else {
             // Update existing recipe
-            recipeDAO.updateRecipe(recipe);
+            if (recipeDAO.updateRecipe(recipe)) {
+                changes.append("recipe", ChangeEvent.UPDATE, recipe.getId(), changeData(recipe));
+            }
+        }
+    }
+
+    /**
+     * @return the log recording every recipe written by this service
+     */
+    public ChangeLog getChangeLog() {
+        return changes;
+    }
+
+    /**
+     * @param recipe a recipe written
+     * @return the fields of the recipe recorded in the change log, with its
+     *         author reduced to the author's id
+     */
+    private static Map<String, Object> changeData(Recipe recipe) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", recipe.getId());
+        data.put("name", recipe.getName());
+        data.put("instructions", recipe.getInstructions());
+        data.put("authorId", recipe.getAuthor() == null ? null : recipe.getAuthor().getId());
+        return data;
+    }
+
+    /**
+     * Enables write-behind for recipe updates. Updates saved for the same recipe
+     * are coalesced in memory and written in one JDBC batch every flush
+     * interval, or as soon as maxPending recipes have pending updates.
+     * 
+     * Lookups by id return pending updates, so clients read their own writes.
+     * Listings and searches read the database and see an update once it has been
+     * flushed. {@link #close()} must be called on shutdown to write the pending
+     * updates. An update the database keeps rejecting, such as one naming a chef
+     * that no longer exists, is dropped after a few flushes so it does not hold
+     * back the others; lookups then read the recipe from the database again.
+     * An update of a recipe deleted in the meantime is dropped, and only the
+     * updates written are recorded in the change log.
+     *
+     * @param flushIntervalMillis the time between two flushes
+     * @param maxPending          the number of recipes with pending updates that
+     *                            triggers a flush
+     */
+    public void enableWriteBehind(long flushIntervalMillis, int maxPending) {
+        pendingUpdates = new WriteBehindBuffer<>("recipe", recipes -> {
+            int[] written = recipeDAO.updateRecipes(recipes);
+            // a failed batch is retried, and its recipes recorded, once the retry writes them
+            if (Arrays.stream(written).anyMatch(count -> count == Statement.EXECUTE_FAILED)) {
+                throw new IllegalStateException("Failed to write " + recipes.size() + " recipe updates");
+            }
+            for (int i = 0; i < written.length; i++) {
+                if (written[i] > 0) {
+                    changes.append("recipe", ChangeEvent.UPDATE, recipes.get(i).getId(), changeData(recipes.get(i)));
+                }
+            }
+        }, flushIntervalMillis, maxPending);
+    }
+
+    /**
+     * Writes every pending recipe update. Does nothing unless write-behind is
+     * enabled.
+     */
+    public void flushUpdates() {
+        if (pendingUpdates != null) {
+            pendingUpdates.flush();
+        }
+    }
+
+    /**
+     * Stops write-behind, writing every pending recipe update, and stops
+     * following the change log.
+     */
+    public void close() {
+        if (pendingUpdates != null) {
+            pendingUpdates.close();
+        }
+        cacheInvalidation.close();
+        similarityTracking.close();
+        releaseSnapshot();
+    }
+
+    /**
+     * Copies a page for one of the callers sharing it.
+     *
+     * @param <T>  the type of the items
+     * @param page the shared page
+     * @param copy copies one item
+     * @return a page holding copies of the items
+     */
+    private static <T> Page<T> copyPage(Page<T> page, UnaryOperator<T> copy) {
+        List<T> items = new ArrayList<>(page.getItems().size());
+        for (T item : page.getItems()) {
+            items.add(copy.apply(item));
+        }
+        Page<T> copied = new Page<>(page.getPageNumber(), page.getPageSize(), page.getTotalPages(),
+                page.getTotalElements(), items);
+        copied.setApproximate(page.isApproximate());
+        return copied;
+    }
+
+    /**
+     * Applies the pending update of a recipe, if there is one, to a recipe read
+     * from the database. The fields written by an update (name, instructions and
+     * author) are taken from the pending update; the recipe read is not
+     * modified, since it may be shared with other callers.
+     *
+     * @param recipe the recipe read from the database, or null
+     * @param fields the fields the recipe holds, or null for every field
+     * @return the recipe as it will be once its pending update is written
+     */
+    private Recipe withPendingUpdate(Recipe recipe, FieldSet.Projection<Recipe> fields) {
+        Recipe pending = recipe == null || pendingUpdates == null ? null : pendingUpdates.get(recipe.getId());
+        if (pending == null) {
+            return recipe;
+        }
+        Recipe merged = new Recipe(recipe.getId(), recipe.getName(), recipe.getInstructions(), recipe.getAuthor());
+        merged.setIngredients(recipe.getIngredients());
+        if (fields == null || fields.includes("name")) {
+            merged.setName(pending.getName());
+        }
+        if (fields == null || fields.includes("instructions")) {
+            merged.setInstructions(pending.getInstructions());
         }
+        if (fields == null || fields.includes("author")) {
+            merged.setAuthor(pending.getAuthor());
+        }
+        return merged;
     }
 
     /**
@@ -76,12 +640,119 @@ public class RecipeService {
     public Page<Recipe> searchRecipes(String term, int page, int pageSize, String sortBy, String sortDirection) {
         PageOptions pageOptions = new PageOptions(page, pageSize, sortBy, sortDirection);
         if (term == null || term.trim().isEmpty()) {
-            return recipeDAO.getAllRecipes(pageOptions);
+            String key = SingleFlight.key("all", page, pageSize, sortBy, sortDirection);
+            return pageLookups.execute(key, () -> recipeDAO.getAllRecipes(pageOptions));
+        } else {
+            String key = SingleFlight.key("term", term, page, pageSize, sortBy, sortDirection);
+            return pageLookups.execute(key, () -> recipeDAO.searchRecipesByTerm(term, pageOptions));
+        }
+    }
+
+    /**
+     * Searches for recipes with pagination and sorting options, reading only the
+     * selected fields of each recipe.
+     *
+     * @param term          the search term used to find recipes
+     * @param page          the page number to retrieve
+     * @param pageSize      the number of recipes per page
+     * @param sortBy        the field by which to sort the results
+     * @param sortDirection the direction of sorting (ascending or descending)
+     * @param fields        the fields to read
+     * @return a Page containing the results of the search
+     */
+    public Page<Recipe> searchRecipes(String term, int page, int pageSize, String sortBy, String sortDirection,
+            FieldSet.Projection<Recipe> fields) {
+        PageOptions pageOptions = new PageOptions(page, pageSize, sortBy, sortDirection);
+        if (term == null || term.trim().isEmpty()) {
+            return recipeDAO.getAllRecipes(pageOptions, fields);
+        } else {
+            return recipeDAO.searchRecipesByTerm(term, pageOptions, fields);
+        }
+    }
+
+    /**
+     * Searches for recipes with pagination and sorting options, reading the
+     * instructions, author and ingredients of each recipe as a fetch plan asks.
+     * List views pass {@link FetchPlan#LIST}, which reads only the id, name and
+     * author id of each recipe. Like the other listings, pending write-behind
+     * updates are seen once they are flushed.
+     *
+     * @param term          the search term used to find recipes
+     * @param page          the page number to retrieve
+     * @param pageSize      the number of recipes per page
+     * @param sortBy        the field by which to sort the results
+     * @param sortDirection the direction of sorting (ascending or descending)
+     * @param plan          how the parts of each recipe are read
+     * @param exact         whether the total of a search must be counted
+     *                      exactly rather than estimated
+     * @return a Page containing the results of the search
+     */
+    public Page<Recipe> searchRecipes(String term, int page, int pageSize, String sortBy, String sortDirection,
+            FetchPlan plan, boolean exact) {
+        PageOptions pageOptions = new PageOptions(page, pageSize, sortBy, sortDirection);
+        if (term == null || term.trim().isEmpty()) {
+            String key = SingleFlight.key("all", page, pageSize, sortBy, sortDirection, plan);
+            return pageLookups.execute(key, () -> recipeDAO.getAllRecipes(pageOptions, plan));
         } else {
-            return recipeDAO.searchRecipesByTerm(term, pageOptions);
+            String key = SingleFlight.key("term", term, page, pageSize, sortBy, sortDirection, plan, exact);
+            return pageLookups.execute(key, () -> recipeDAO.searchRecipesByTerm(term, pageOptions, plan, exact));
         }
     }
 
+    /**
+     * Searches for recipes with pagination and sorting options, returning the
+     * lightweight summary of each recipe instead of the full object.
+     *
+     * @param term          the search term used to find recipes
+     * @param page          the page number to retrieve
+     * @param pageSize      the number of recipes per page
+     * @param sortBy        the field by which to sort the results
+     * @param sortDirection the direction of sorting (ascending or descending)
+     * @return a Page containing the summaries of the matching recipes
+     */
+    public Page<RecipeSummary> searchRecipeSummaries(String term, int page, int pageSize, String sortBy,
+            String sortDirection) {
+        return searchRecipeSummaries(term, page, pageSize, sortBy, sortDirection, false);
+    }
+
+    /**
+     * Searches for recipes with pagination and sorting options, returning the
+     * lightweight summary of each recipe. The total of a search over a large
+     * catalog is estimated, and the page marked approximate, unless an exact
+     * total is asked for; the total of an unfiltered listing is always exact.
+     *
+     * @param term          the search term used to find recipes
+     * @param page          the page number to retrieve
+     * @param pageSize      the number of recipes per page
+     * @param sortBy        the field by which to sort the results
+     * @param sortDirection the direction of sorting (ascending or descending)
+     * @param exact         whether the total of a search must be counted
+     *                      exactly rather than estimated
+     * @return a Page containing the summaries of the matching recipes
+     */
+    public Page<RecipeSummary> searchRecipeSummaries(String term, int page, int pageSize, String sortBy,
+            String sortDirection, boolean exact) {
+        PageOptions pageOptions = new PageOptions(page, pageSize, sortBy, sortDirection);
+        if (term == null || term.trim().isEmpty()) {
+            String key = SingleFlight.key("all", page, pageSize, sortBy, sortDirection);
+            return summaryLookups.execute(key, () -> recipeDAO.getRecipeSummaries(pageOptions));
+        } else {
+            String key = SingleFlight.key("term", term, page, pageSize, sortBy, sortDirection, exact);
+            return summaryLookups.execute(key, () -> recipeDAO.searchRecipeSummaries(term, pageOptions, exact));
+        }
+    }
+
+    /**
+     * Counts the recipes of a chef from the maintained per-chef counters,
+     * without reading the recipes.
+     *
+     * @param chefId the id of the chef
+     * @return the number of recipes the chef has written
+     */
+    public int countRecipesByChef(int chefId) {
+        return recipeDAO.countRecipes(chefId);
+    }
+
     /**
      * TODO: Searches for recipes based on a search term.
      *
@@ -102,9 +773,192 @@ public class RecipeService {
      * @param id the unique identifier of the recipe to be deleted
      */
     public void deleteRecipe(int id) {
+        if (pendingUpdates != null) {
+            pendingUpdates.remove(id);
+        }
         Recipe recipe = recipeDAO.getRecipeById(id);
         if (recipe != null) {
-            recipeDAO.deleteRecipe(recipe);
+            if (recipeDAO.deleteRecipe(recipe)) {
+                changes.append("recipe", ChangeEvent.DELETE, id, null);
+            }
+        }
+    }
+
+    /**
+     * Finds the recipes whose ingredients are most alike those of a recipe,
+     * ranked by the Jaccard similarity of their ingredient sets. Candidates are
+     * found through the MinHash buckets of a {@link RecipeSimilarityIndex}
+     * rather than by comparing the recipe with the whole catalog.
+     *
+     * The index reads every recipe on first use, unless
+     * {@link #buildSimilarityIndexAsync()} has already done so. It then follows
+     * the change log: the recipes saved or deleted since the last lookup, and
+     * the recipes using an ingredient deleted since, are read again before the
+     * next lookup is answered.
+     *
+     * @param id the unique identifier of the recipe
+     * @param k  the maximum number of recipes returned
+     * @return the similar recipes, from the most to the least similar, or an
+     *         empty Optional if the recipe does not exist
+     */
+    public Optional<List<SimilarRecipe>> findSimilarRecipes(int id, int k) {
+        refreshSimilarityIndex();
+        List<SimilarRecipe> similar = similarityIndex.similarTo(id, k);
+        if (similar.isEmpty()) {
+            // the index does not hold recipes without ingredients
+            return findRecipe(id).map(recipe -> similar);
+        }
+        List<Integer> ids = new ArrayList<>(similar.size());
+        similar.forEach(recipe -> ids.add(recipe.getId()));
+        Map<Integer, Recipe> recipes = recipeDAO.getRecipesByIds(ids);
+        List<SimilarRecipe> found = new ArrayList<>(similar.size());
+        for (SimilarRecipe recipe : similar) {
+            Recipe named = withPendingUpdate(recipes.get(recipe.getId()), null);
+            if (named != null) {
+                recipe.setName(named.getName());
+                found.add(recipe);
+            }
         }
+        return Optional.of(found);
+    }
+
+    /**
+     * Reads every recipe into the similarity index on the database executor, so
+     * the first similar recipes lookup does not wait for it.
+     *
+     * @return a future completed once the index is built
+     */
+    public CompletableFuture<Void> buildSimilarityIndexAsync() {
+        return executor.supply(() -> {
+            refreshSimilarityIndex();
+            return null;
+        });
+    }
+
+    /**
+     * Records the change log events that change the ingredient set of a recipe:
+     * the recipe written, or every recipe using an ingredient deleted.
+     */
+    private void trackSimilarityChange(ChangeEvent event) {
+        if (event.getEntity().equals("recipe")) {
+            staleSimilarities.add(event.getId());
+        } else if (event.getEntity().equals("ingredient") && event.getOperation().equals(ChangeEvent.DELETE)) {
+            deletedIngredients.add(event.getId());
+        }
+    }
+
+    /**
+     * Builds the similarity index if it has not been built, then reads again
+     * the recipes written since it last read them. Changes are recorded before
+     * the recipes are read, so a write racing with the read is read again by
+     * the next refresh.
+     */
+    private void refreshSimilarityIndex() {
+        synchronized (similarityIndex) {
+            if (!similarityIndexBuilt) {
+                long start = System.nanoTime();
+                staleSimilarities.clear();
+                deletedIngredients.clear();
+                readIngredientSets(recipeDAO.getRecipeIds());
+                similarityIndexBuilt = true;
+                Metrics.record("recipe.similarity.build", System.nanoTime() - start);
+            }
+            List<Integer> stale = new ArrayList<>();
+            for (Iterator<Integer> ingredients = deletedIngredients.iterator(); ingredients.hasNext();) {
+                stale.addAll(similarityIndex.recipesUsing(ingredients.next()));
+                ingredients.remove();
+            }
+            for (Iterator<Integer> recipes = staleSimilarities.iterator(); recipes.hasNext();) {
+                stale.add(recipes.next());
+                recipes.remove();
+            }
+            readIngredientSets(stale);
+        }
+    }
+
+    /**
+     * Reads the ingredient sets of recipes into the similarity index, one chunk
+     * at a time. Recipes without ingredients, or that no longer exist, are
+     * removed from it.
+     *
+     * @param ids the unique identifiers of the recipes
+     */
+    private void readIngredientSets(List<Integer> ids) {
+        for (List<Integer> chunk : Batch.chunks(ids, Batch.CHUNK_SIZE)) {
+            Map<Integer, List<RecipeIngredient>> ingredients = recipeDAO.getRecipeIngredients(chunk);
+            for (int id : chunk) {
+                List<Integer> ingredientIds = new ArrayList<>();
+                for (RecipeIngredient ingredient : ingredients.getOrDefault(id, List.of())) {
+                    ingredientIds.add(ingredient.getId());
+                }
+                similarityIndex.put(id, ingredientIds);
+            }
+        }
+    }
+
+    /**
+     * Finds a Recipe by its unique identifier on the database executor.
+     *
+     * @param id the unique identifier of the recipe to be found
+     * @return a future completed with the result of {@link #findRecipe(int)}
+     */
+    public CompletableFuture<Optional<Recipe>> findRecipeAsync(int id) {
+        return executor.supply(() -> findRecipe(id));
+    }
+
+    /**
+     * Finds a Recipe by its unique identifier on the database executor, reading
+     * only the selected fields.
+     *
+     * @param id     the unique identifier of the recipe to be found
+     * @param fields the fields to read
+     * @return a future completed with the result of
+     *         {@link #findRecipe(int, FieldSet.Projection)}
+     */
+    public CompletableFuture<Optional<Recipe>> findRecipeAsync(int id, FieldSet.Projection<Recipe> fields) {
+        return executor.supply(() -> findRecipe(id, fields));
+    }
+
+    /**
+     * Finds the recipes most alike a recipe on the database executor.
+     *
+     * @param id the unique identifier of the recipe
+     * @param k  the maximum number of recipes returned
+     * @return a future completed with the result of
+     *         {@link #findSimilarRecipes(int, int)}
+     */
+    public CompletableFuture<Optional<List<SimilarRecipe>>> findSimilarRecipesAsync(int id, int k) {
+        return executor.supply(() -> findSimilarRecipes(id, k));
+    }
+
+    /**
+     * Searches for recipes with pagination and sorting options on the database
+     * executor.
+     *
+     * @param term          the search term used to find recipes
+     * @param page          the page number to retrieve
+     * @param pageSize      the number of recipes per page
+     * @param sortBy        the field by which to sort the results
+     * @param sortDirection the direction of sorting (ascending or descending)
+     * @return a future completed with the result of
+     *         {@link #searchRecipes(String, int, int, String, String)}
+     */
+    public CompletableFuture<Page<Recipe>> searchRecipesAsync(String term, int page, int pageSize, String sortBy,
+            String sortDirection) {
+        return executor.supply(() -> searchRecipes(term, page, pageSize, sortBy, sortDirection));
+    }
+
+    /**
+     * Saves a Recipe object on the database executor.
+     *
+     * @param recipe the Recipe object to be saved
+     * @return a future completed with the saved recipe once
+     *         {@link #saveRecipe(Recipe)} has run
+     */
+    public CompletableFuture<Recipe> saveRecipeAsync(Recipe recipe) {
+        return executor.supply(() -> {
+            saveRecipe(recipe);
+            return recipe;
+        });
     }
 }
@@ -0,0 +1,95 @@
+package com.revature.util;
+
+import com.revature.util.ConcurrencyLimiter.Priority;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.ServiceUnavailableResponse;
+
+/**
+ * The AdmissionMiddleware class protects the server from overload by admitting
+ * requests through a ConcurrencyLimiter before they reach their endpoint.
+ *
+ * Each request is classified into a priority from its method and path: login
+ * and single recipe lookups are critical, listings and searches are sheddable,
+ * and everything else is normal. Requests that cannot be admitted are rejected
+ * with a 503 Service Unavailable status and a Retry-After header. The handle
+ * method is installed as a before handler and the complete method as an after
+ * handler, which releases the slot and reports the request's latency.
+ */
+public class AdmissionMiddleware implements Handler {
+
+    /** The context attribute holding the time a request was admitted. */
+    private static final String ADMITTED_AT = "admission.admittedAt";
+
+    /** The number of seconds clients are asked to wait before retrying. */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    /** The limiter deciding whether requests are admitted. */
+    private ConcurrencyLimiter limiter;
+
+    /**
+     * Constructs an AdmissionMiddleware with the specified limiter.
+     *
+     * @param limiter the limiter used to admit requests
+     */
+    public AdmissionMiddleware(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Admits the request, or rejects it with a 503 status if the server is at
+     * capacity for the request's priority.
+     *
+     * @param ctx the Javalin context representing the HTTP request and response
+     */
+    @Override
+    public void handle(Context ctx) {
+        // Event streams stay open indefinitely and would hold a slot for their whole life
+        if (ctx.path().equals("/metrics") || ctx.path().equals("/recipes/stream")) {
+            return;
+        }
+        if (!limiter.tryAcquire(priorityOf(ctx.method().name(), ctx.path()))) {
+            ctx.header("Retry-After", RETRY_AFTER_SECONDS);
+            throw new ServiceUnavailableResponse("Server is busy, please retry later");
+        }
+        ctx.attribute(ADMITTED_AT, System.nanoTime());
+    }
+
+    /**
+     * Releases the slot held by an admitted request and reports its latency to
+     * the limiter.
+     *
+     * @param ctx the Javalin context representing the HTTP request and response
+     */
+    public void complete(Context ctx) {
+        Long admittedAt = ctx.attribute(ADMITTED_AT);
+        if (admittedAt != null) {
+            ctx.attribute(ADMITTED_AT, null);
+            limiter.release(System.nanoTime() - admittedAt);
+        }
+    }
+
+    /**
+     * Classifies a request into a priority from its method and path.
+     *
+     * @param method the HTTP method of the request
+     * @param path   the path of the request
+     * @return the priority of the request
+     */
+    public static Priority priorityOf(String method, String path) {
+        if (method.equals("POST") && path.equals("/login")) {
+            return Priority.CRITICAL;
+        }
+        if (method.equals("GET") && path.matches("/recipes/\\d+")) {
+            return Priority.CRITICAL;
+        }
+        if (path.contains("/export")) {
+            return Priority.SHEDDABLE;
+        }
+        if (method.equals("GET") && (path.equals("/recipes") || path.equals("/ingredients"))) {
+            return Priority.SHEDDABLE;
+        }
+        return Priority.NORMAL;
+    }
+}
@@ -0,0 +1,80 @@
+package com.revature.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import io.javalin.http.Context;
+
+/**
+ * The AsyncHandlers class lets handlers respond from a CompletableFuture
+ * through {@code ctx.future(...)}, releasing the Jetty thread while the work
+ * runs.
+ *
+ * Javalin skips the after handlers of a request whose future fails, which
+ * would leave the AdmissionMiddleware slot of the request held. The future
+ * handed to Javalin therefore always completes normally: failures are turned
+ * into responses here instead of reaching the exception handlers. Timeouts
+ * respond with 504 Gateway Timeout, rejected work with 503 Service Unavailable
+ * and a Retry-After header, invalid arguments with 400 Bad Request, and any
+ * other failure with 500 Internal Server Error.
+ */
+public class AsyncHandlers {
+
+    private AsyncHandlers() {
+    }
+
+    /**
+     * Responds to a request once work completes.
+     *
+     * @param <T>       the type of the work's result
+     * @param ctx       the context of the request
+     * @param work      starts the work; called on the request thread
+     * @param onSuccess writes the response from the work's result
+     */
+    public static <T> void respond(Context ctx, Supplier<CompletableFuture<T>> work,
+            BiConsumer<Context, T> onSuccess) {
+        ctx.future(() -> work.get().handle((value, error) -> {
+            if (error == null) {
+                try {
+                    onSuccess.accept(ctx, value);
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            if (error != null) {
+                fail(ctx, error);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Writes the response for failed work.
+     *
+     * @param ctx   the context of the request
+     * @param error the failure
+     */
+    static void fail(Context ctx, Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof TimeoutException || error instanceof CancellationException) {
+            ctx.status(504).result("Request timed out");
+        } else if (error instanceof RejectedExecutionException) {
+            ctx.header("Retry-After", "1");
+            ctx.status(503).result("Server is busy, please retry later");
+        } else if (error instanceof IllegalArgumentException) {
+            ctx.status(400).result(String.valueOf(error.getMessage()));
+        } else {
+            error.printStackTrace();
+            ctx.status(500).result("Internal server error");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.revature.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The Batch class represents the result of resolving a list of ids in a single
+ * request. It holds the entities that were found, in the order their ids were
+ * requested, together with the ids that did not match any entity.
+ *
+ * The class also provides the helpers shared by the batch lookups of the DAOs:
+ * parsing an {@code ids=1,2,3} parameter and splitting the ids into chunks that
+ * are fetched with one statement each.
+ *
+ * @param <E> the type of entities in the batch
+ */
+public class Batch<E> {
+
+    /** The maximum number of ids a single request may resolve. */
+    public static final int MAX_IDS = 500;
+
+    /** The number of ids fetched by each statement. */
+    public static final int CHUNK_SIZE = 100;
+
+    // fields
+
+    /** The entities found, in request order. */
+    private List<E> items;
+    /** The requested ids that did not match any entity, in request order. */
+    private List<Integer> missing;
+
+    // constructors
+    public Batch() {
+
+    }
+
+    public Batch(List<E> items, List<Integer> missing) {
+        this.items = items;
+        this.missing = missing;
+    }
+
+    /**
+     * Builds a batch from the requested ids and the entities found for them.
+     *
+     * @param <E>   the type of entities in the batch
+     * @param ids   the requested ids, in request order
+     * @param found the entities found, indexed by id
+     * @return a batch holding the entities in request order and the ids that
+     *         were not found
+     */
+    public static <E> Batch<E> of(List<Integer> ids, Map<Integer, E> found) {
+        List<E> items = new ArrayList<>(found.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            E item = found.get(id);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new Batch<>(items, missing);
+    }
+
+    /**
+     * Parses a comma-separated list of ids. Repeated ids are kept once, at their
+     * first position.
+     *
+     * @param ids the ids parameter, such as "3,1,2"
+     * @return the distinct ids in request order
+     * @throws IllegalArgumentException if an id is not an integer or there are
+     *                                  more than MAX_IDS distinct ids
+     */
+    public static List<Integer> parseIds(String ids) {
+        Set<Integer> parsed = new LinkedHashSet<>();
+        for (String id : ids.split(",")) {
+            if (id.isBlank()) {
+                continue;
+            }
+            try {
+                parsed.add(Integer.valueOf(id.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid id: " + id.trim());
+            }
+        }
+        if (parsed.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids may be requested at once");
+        }
+        return new ArrayList<>(parsed);
+    }
+
+    /**
+     * Splits ids into consecutive chunks.
+     *
+     * @param ids       the ids to split
+     * @param chunkSize the maximum number of ids per chunk
+     * @return the chunks, as views of the given list
+     */
+    public static List<List<Integer>> chunks(List<Integer> ids, int chunkSize) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            chunks.add(ids.subList(start, Math.min(start + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+
+    // getters and setters
+    public List<E> getItems() {
+        return items;
+    }
+
+    public void setItems(List<E> items) {
+        this.items = items;
+    }
+
+    public List<Integer> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<Integer> missing) {
+        this.missing = missing;
+    }
+
+    /**
+     * Returns a hash code value for the Batch object.
+     *
+     * @return the hash code value for this Batch
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(items, missing);
+    }
+
+    /**
+     * Compares this Batch object to another object for equality.
+     *
+     * @param obj the object to be compared for equality with this Batch
+     * @return true if the specified object is equal to this Batch; false
+     *         otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        Batch<?> batch = (Batch<?>) obj;
+        return Objects.equals(items, batch.items) && Objects.equals(missing, batch.missing);
+    }
+}
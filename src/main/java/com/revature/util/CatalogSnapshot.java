@@ -0,0 +1,362 @@
+package com.revature.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.revature.model.Chef;
+import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
+
+/**
+ * The CatalogSnapshot class is a read-only copy of the recipe catalog in a
+ * compact binary file, memory-mapped on startup so recipes can be served before
+ * the database and its caches are warm.
+ *
+ * The file starts with a fixed header holding a magic number, the format
+ * version, the change log sequence number the snapshot is current as of, the
+ * size of each section and a CRC32 checksum of everything after the header.
+ * The sections are fixed-width records: the recipes sorted by id, the chefs
+ * that wrote them, the ingredients they use and the ingredient entries of every
+ * recipe, followed by a heap of the distinct strings. Records refer to chefs,
+ * ingredients and strings by index or offset, so a lookup is a binary search
+ * over the recipe ids and a handful of absolute reads, and nothing but the
+ * recipe asked for is decoded. Only the id, username and admin flag of a chef
+ * are kept; the authors read back have no email or password.
+ *
+ * A file with a different magic number or version, or whose checksum does not
+ * match, is rejected. Snapshots are written to a temporary file that replaces
+ * the previous snapshot in one atomic move.
+ */
+public final class CatalogSnapshot {
+
+    /** The magic number opening every snapshot file, "RCAT". */
+    public static final int MAGIC = 0x52434154;
+
+    /** The version of the file format, bumped on every incompatible change. */
+    public static final int VERSION = 2;
+
+    /** magic, version, sequence, createdAt, four counts, heap size, checksum */
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 * 4 + 4 + 8;
+
+    /** id, name, instructions, author index, first entry, entry count */
+    private static final int RECIPE_BYTES = 6 * 4;
+
+    /** id, username, admin */
+    private static final int CHEF_BYTES = 3 * 4;
+
+    /** id, name */
+    private static final int INGREDIENT_BYTES = 2 * 4;
+
+    /** ingredient index, unit, volume */
+    private static final int ENTRY_BYTES = 4 + 4 + 8;
+
+    /** The offset of a null string. */
+    private static final int NULL = -1;
+
+    private final MappedByteBuffer buffer;
+
+    /** The change log sequence number the snapshot is current as of. */
+    private final long sequence;
+
+    /** When the snapshot was written, in milliseconds since the epoch. */
+    private final long createdAt;
+
+    private final int recipeCount;
+
+    private final int recipes;
+
+    private final int chefs;
+
+    private final int ingredients;
+
+    private final int entries;
+
+    private final int heap;
+
+    private CatalogSnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported catalog snapshot version " + buffer.getInt(4));
+        }
+        this.sequence = buffer.getLong(8);
+        this.createdAt = buffer.getLong(16);
+        this.recipeCount = buffer.getInt(24);
+        int chefCount = buffer.getInt(28);
+        int ingredientCount = buffer.getInt(32);
+        int entryCount = buffer.getInt(36);
+        int heapBytes = buffer.getInt(40);
+        long checksum = buffer.getLong(44);
+
+        this.recipes = HEADER_BYTES;
+        this.chefs = recipes + recipeCount * RECIPE_BYTES;
+        this.ingredients = chefs + chefCount * CHEF_BYTES;
+        this.entries = ingredients + ingredientCount * INGREDIENT_BYTES;
+        this.heap = entries + entryCount * ENTRY_BYTES;
+        if ((long) heap + heapBytes != buffer.capacity()) {
+            throw new IOException("Truncated catalog snapshot");
+        }
+        if (checksum(buffer) != checksum) {
+            throw new IOException("Catalog snapshot checksum mismatch");
+        }
+    }
+
+    /**
+     * @return the snapshot file used by Main, set by the "catalog.snapshot"
+     *         system property, ./h2/catalog.snapshot by default
+     */
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("catalog.snapshot", "./h2/catalog.snapshot"));
+    }
+
+    /**
+     * Memory-maps a snapshot file and verifies its version and checksum.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read, or is not a valid
+     *                     snapshot of the current version
+     */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            return new CatalogSnapshot(buffer);
+        }
+    }
+
+    /**
+     * Writes a snapshot of recipes, replacing the previous snapshot file.
+     *
+     * @param file     the snapshot file
+     * @param sequence the change log sequence number the recipes are current as
+     *                 of
+     * @param catalog  the recipes with their authors and ingredients
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, long sequence, Collection<Recipe> catalog) throws IOException {
+        List<Recipe> sorted = new ArrayList<>(catalog);
+        sorted.sort(Comparator.comparingInt(Recipe::getId));
+
+        Map<Integer, Integer> chefIndexes = new LinkedHashMap<>();
+        List<Chef> chefList = new ArrayList<>();
+        Map<Integer, Integer> ingredientIndexes = new LinkedHashMap<>();
+        List<RecipeIngredient> ingredientList = new ArrayList<>();
+        int entryCount = 0;
+        for (Recipe recipe : sorted) {
+            Chef author = recipe.getAuthor();
+            if (author != null && chefIndexes.putIfAbsent(author.getId(), chefList.size()) == null) {
+                chefList.add(author);
+            }
+            List<RecipeIngredient> used = recipe.getIngredients() == null ? List.of() : recipe.getIngredients();
+            for (RecipeIngredient ingredient : used) {
+                if (ingredientIndexes.putIfAbsent(ingredient.getId(), ingredientList.size()) == null) {
+                    ingredientList.add(ingredient);
+                }
+            }
+            entryCount += used.size();
+        }
+
+        StringHeap strings = new StringHeap();
+        ByteBuffer records = ByteBuffer.allocate(sorted.size() * RECIPE_BYTES + chefList.size() * CHEF_BYTES
+                + ingredientList.size() * INGREDIENT_BYTES + entryCount * ENTRY_BYTES);
+        int entry = 0;
+        for (Recipe recipe : sorted) {
+            List<RecipeIngredient> used = recipe.getIngredients() == null ? List.of() : recipe.getIngredients();
+            records.putInt(recipe.getId()).putInt(strings.add(recipe.getName()))
+                    .putInt(strings.add(recipe.getInstructions()))
+                    .putInt(recipe.getAuthor() == null ? NULL : chefIndexes.get(recipe.getAuthor().getId()))
+                    .putInt(entry).putInt(used.size());
+            entry += used.size();
+        }
+        for (Chef chef : chefList) {
+            records.putInt(chef.getId()).putInt(strings.add(chef.getUsername())).putInt(chef.isAdmin() ? 1 : 0);
+        }
+        for (RecipeIngredient ingredient : ingredientList) {
+            records.putInt(ingredient.getId()).putInt(strings.add(ingredient.getName()));
+        }
+        for (Recipe recipe : sorted) {
+            if (recipe.getIngredients() != null) {
+                for (RecipeIngredient ingredient : recipe.getIngredients()) {
+                    records.putInt(ingredientIndexes.get(ingredient.getId())).putInt(strings.add(ingredient.getUnit()))
+                            .putDouble(ingredient.getVolume());
+                }
+            }
+        }
+        byte[] heapBytes = strings.toByteArray();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(sequence).putLong(System.currentTimeMillis())
+                .putInt(sorted.size()).putInt(chefList.size()).putInt(ingredientList.size()).putInt(entryCount)
+                .putInt(heapBytes.length);
+        CRC32 crc = new CRC32();
+        crc.update(records.array());
+        crc.update(heapBytes);
+        header.putLong(crc.getValue());
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer[] sections = { header.flip(), records.flip(), ByteBuffer.wrap(heapBytes) };
+                while (sections[2].hasRemaining()) {
+                    channel.write(sections);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return the change log sequence number the snapshot is current as of
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return when the snapshot was written, in milliseconds since the epoch
+     */
+    public long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return the number of recipes in the snapshot
+     */
+    public int recipeCount() {
+        return recipeCount;
+    }
+
+    /**
+     * @return the ids of every recipe in the snapshot, in ascending order
+     */
+    public List<Integer> recipeIds() {
+        List<Integer> ids = new ArrayList<>(recipeCount);
+        for (int i = 0; i < recipeCount; i++) {
+            ids.add(buffer.getInt(recipes + i * RECIPE_BYTES));
+        }
+        return ids;
+    }
+
+    /**
+     * Reads a recipe with its author and ingredients. The instructions are only
+     * decoded once they are read.
+     *
+     * @param id the unique identifier of the recipe
+     * @return a new Recipe object, or null if the snapshot does not hold it
+     */
+    public Recipe findRecipe(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return null;
+        }
+        int record = recipes + index * RECIPE_BYTES;
+        int author = buffer.getInt(record + 12);
+        Recipe recipe = new Recipe(id, string(buffer.getInt(record + 4)), null, author == NULL ? null : chef(author));
+        int instructions = buffer.getInt(record + 8);
+        recipe.deferInstructions(() -> string(instructions));
+
+        int first = buffer.getInt(record + 16);
+        int count = buffer.getInt(record + 20);
+        List<RecipeIngredient> used = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            int entry = entries + i * ENTRY_BYTES;
+            int ingredient = ingredients + buffer.getInt(entry) * INGREDIENT_BYTES;
+            used.add(new RecipeIngredient(buffer.getInt(ingredient), string(buffer.getInt(ingredient + 4)),
+                    buffer.getDouble(entry + 8), string(buffer.getInt(entry + 4))));
+        }
+        recipe.setIngredients(used);
+        return recipe;
+    }
+
+    /** Binary search over the sorted recipe ids. */
+    private int indexOf(int id) {
+        int low = 0;
+        int high = recipeCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int candidate = buffer.getInt(recipes + middle * RECIPE_BYTES);
+            if (candidate < id) {
+                low = middle + 1;
+            } else if (candidate > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private Chef chef(int index) {
+        int record = chefs + index * CHEF_BYTES;
+        return new Chef(buffer.getInt(record), string(buffer.getInt(record + 4)), null, null,
+                buffer.getInt(record + 8) != 0);
+    }
+
+    private String string(int offset) {
+        if (offset == NULL) {
+            return null;
+        }
+        int length = buffer.getInt(heap + offset);
+        byte[] bytes = new byte[length];
+        buffer.get(heap + offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES));
+        return crc.getValue();
+    }
+
+    /** The string heap being written, storing each distinct string once. */
+    private static final class StringHeap {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        /** @return the offset of the string, or NULL for a null string */
+        private int add(String value) {
+            if (value == null) {
+                return NULL;
+            }
+            return offsets.computeIfAbsent(value, key -> {
+                int offset = bytes.size();
+                byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+                bytes.writeBytes(ByteBuffer.allocate(4).putInt(encoded.length).array());
+                bytes.writeBytes(encoded);
+                return offset;
+            });
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.revature.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.model.ChangeEvent;
+
+/**
+ * The ChangeLog class is an ordered, append-only log of the writes made
+ * through the services, so caches and search indexes can follow changes
+ * incrementally instead of being rebuilt.
+ *
+ * Each event is given the next sequence number and written as a JSON record
+ * to the current segment, a memory-mapped file of a fixed size named after the
+ * sequence number of its first event. A record is its length followed by its
+ * bytes; the length is written last, so a record cut short by a crash reads as
+ * the end of the segment. When a record does not fit, a new segment is
+ * started, and the oldest segments beyond the retention limit are deleted.
+ * Opening a log recovers the events of its existing segments and continues
+ * their sequence.
+ *
+ * Subscribers first receive every retained event from the sequence number
+ * they ask for and then every new event, in order and without gaps. New events
+ * are delivered on the appending thread while the log is locked, so listeners
+ * must return quickly, handing slow work off to their own queue.
+ *
+ * A log can also be kept in memory only, with the same segments held on the
+ * heap; such a log starts empty and is lost when the process exits. It is what
+ * the services use unless they are given a log, so nothing is written to disk
+ * by accident.
+ *
+ * Appends, subscribers and segments of the shared log are published through
+ * the Metrics registry under the prefix "changeLog".
+ */
+public class ChangeLog implements AutoCloseable {
+
+    /** The size of each segment file. */
+    public static final int DEFAULT_SEGMENT_BYTES = 1 << 20;
+
+    /** The number of segments kept before the oldest is deleted. */
+    public static final int DEFAULT_MAX_SEGMENTS = 8;
+
+    /** The suffix of segment files. */
+    private static final String SUFFIX = ".log";
+
+    /** The size of the length prefix of a record. */
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** The directory holding the segment files, or null if the log is kept in memory. */
+    private final Path directory;
+
+    /** The size of each segment file. */
+    private final int segmentBytes;
+
+    /** The number of segments kept. */
+    private final int maxSegments;
+
+    /** The retained segments, oldest first; the last one is written to. */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /** The listeners receiving new events. */
+    private final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    /** The sequence number of the latest event, or 0 if there is none. */
+    private long lastSequence;
+
+    /**
+     * Opens the change log in the given directory with the default segment
+     * size and retention.
+     *
+     * @param directory the directory holding the segment files
+     */
+    public ChangeLog(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * Opens the change log in the given directory, recovering the events of
+     * its existing segments.
+     *
+     * @param directory    the directory holding the segment files
+     * @param segmentBytes the size of each segment file
+     * @param maxSegments  the number of segments kept
+     */
+    public ChangeLog(Path directory, int segmentBytes, int maxSegments) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(path -> path.toString().endsWith(SUFFIX)).sorted().toList()) {
+                    Segment segment = new Segment(file, firstSequenceOf(file), segmentBytes);
+                    segments.add(segment);
+                    lastSequence = Math.max(lastSequence, segment.lastSequence);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Registers the metrics of the log under the prefix "changeLog". Only the
+     * shared log publishes them, so a log opened elsewhere, such as in a test,
+     * does not take them over.
+     */
+    private void publishMetrics() {
+        Metrics.gauge("changeLog.lastSequence", this::lastSequence);
+        Metrics.gauge("changeLog.subscribers", listeners::size);
+        Metrics.gauge("changeLog.segments", () -> {
+            synchronized (this) {
+                return segments.size();
+            }
+        });
+    }
+
+    /**
+     * Creates a log kept in memory, with the given segment size and retention.
+     */
+    private ChangeLog(int segmentBytes, int maxSegments) {
+        this.directory = null;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Creates an empty log kept in memory, with the default segment size and
+     * retention. Its events are lost when the process exits, and it does not
+     * publish metrics.
+     *
+     * @return the log
+     */
+    public static ChangeLog inMemory() {
+        return new ChangeLog(DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * @return the change log shared by the services, kept in the directory set
+     *         by the "changelog.dir" system property, ./h2/changelog by default
+     */
+    public static ChangeLog shared() {
+        return Shared.LOG;
+    }
+
+    /** Opens the shared log on first use. */
+    private static final class Shared {
+        private static final ChangeLog LOG = new ChangeLog(Paths.get(System.getProperty("changelog.dir",
+                "./h2/changelog")));
+
+        static {
+            LOG.publishMetrics();
+        }
+    }
+
+    /**
+     * Appends an event to the log and delivers it to the subscribers.
+     *
+     * @param entity    the kind of entity written
+     * @param operation the operation, one of the ChangeEvent constants
+     * @param id        the unique identifier of the entity
+     * @param data      the fields written, or null
+     * @return the event appended
+     */
+    public synchronized ChangeEvent append(String entity, String operation, int id, Object data) {
+        ChangeEvent event = new ChangeEvent(lastSequence + 1, entity, operation, id, System.currentTimeMillis(),
+                data);
+        byte[] record;
+        try {
+            record = MAPPER.writeValueAsBytes(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (record.length + LENGTH_BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Change event of " + record.length + " bytes exceeds the segment size");
+        }
+        if (segments.isEmpty() || !segments.get(segments.size() - 1).append(record, event.getSequence())) {
+            roll(event.getSequence()).append(record, event.getSequence());
+        }
+        lastSequence = event.getSequence();
+        if (directory != null) {
+            Metrics.increment("changeLog.appended");
+        }
+
+        for (Consumer<ChangeEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Reads retained events in order.
+     *
+     * @param fromSequence the sequence number of the first event to read; events
+     *                     older than the retained ones are skipped
+     * @param max          the maximum number of events to read
+     * @return up to max events with a sequence number of at least fromSequence
+     */
+    public synchronized List<ChangeEvent> read(long fromSequence, int max) {
+        List<ChangeEvent> events = new ArrayList<>();
+        for (int i = 0; i < segments.size() && events.size() < max; i++) {
+            Segment segment = segments.get(i);
+            boolean hasLater = i + 1 < segments.size() && segments.get(i + 1).firstSequence <= fromSequence;
+            if (!hasLater) {
+                segment.read(fromSequence, max, events);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Subscribes to the log. The listener first receives every retained event
+     * from the given sequence number, then every new event as it is appended.
+     *
+     * @param fromSequence the sequence number of the first event to receive;
+     *                     lastSequence() + 1 receives only new events
+     * @param listener     the listener receiving the events
+     * @return the subscription, closed to stop receiving events
+     */
+    public synchronized Subscription subscribe(long fromSequence, Consumer<ChangeEvent> listener) {
+        long next = fromSequence;
+        List<ChangeEvent> batch;
+        while (!(batch = read(next, 256)).isEmpty()) {
+            batch.forEach(listener);
+            next = batch.get(batch.size() - 1).getSequence() + 1;
+        }
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * @return the sequence number of the latest event, or 0 if there is none
+     */
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    /** Forces the segments to storage and stops delivering events. */
+    @Override
+    public synchronized void close() {
+        listeners.clear();
+        for (Segment segment : segments) {
+            if (segment.buffer instanceof MappedByteBuffer mapped) {
+                mapped.force();
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment and deletes the oldest segments beyond the
+     * retention limit.
+     *
+     * @param firstSequence the sequence number of the segment's first event
+     * @return the new segment
+     */
+    private Segment roll(long firstSequence) {
+        try {
+            Segment segment = directory == null ? new Segment(firstSequence, segmentBytes)
+                    : new Segment(directory.resolve(String.format("%020d", firstSequence) + SUFFIX), firstSequence,
+                            segmentBytes);
+            segments.add(segment);
+            while (segments.size() > maxSegments) {
+                Path file = segments.remove(0).file;
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * A subscription to the log.
+     */
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+
+        /** Stops delivering events to the listener. */
+        @Override
+        void close();
+    }
+
+    /** One memory-mapped segment file, or one heap segment of a log kept in memory. */
+    private static final class Segment {
+
+        /** The segment file, or null if the segment is kept in memory. */
+        private final Path file;
+
+        /** The sequence number of the segment's first event. */
+        private final long firstSequence;
+
+        private final ByteBuffer buffer;
+
+        /** The sequence number of the segment's last event. */
+        private long lastSequence;
+
+        /** The offset at which the next record is written. */
+        private int end;
+
+        private Segment(Path file, long firstSequence, int size) throws IOException {
+            this.file = file;
+            this.firstSequence = firstSequence;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+            }
+            this.lastSequence = firstSequence - 1;
+            recover();
+        }
+
+        private Segment(long firstSequence, int size) {
+            this.file = null;
+            this.firstSequence = firstSequence;
+            this.buffer = ByteBuffer.allocate(size);
+            this.lastSequence = firstSequence - 1;
+        }
+
+        /** Finds the end of the records already in the segment. */
+        private void recover() {
+            List<ChangeEvent> events = new ArrayList<>();
+            read(0, Integer.MAX_VALUE, events);
+            if (!events.isEmpty()) {
+                lastSequence = events.get(events.size() - 1).getSequence();
+            }
+        }
+
+        /**
+         * Writes a record if it fits.
+         *
+         * @return false if the segment is full
+         */
+        private boolean append(byte[] record, long sequence) {
+            if (end + LENGTH_BYTES + record.length > buffer.capacity()) {
+                return false;
+            }
+            buffer.put(end + LENGTH_BYTES, record);
+            buffer.putInt(end, record.length);
+            end += LENGTH_BYTES + record.length;
+            lastSequence = sequence;
+            return true;
+        }
+
+        /**
+         * Reads the segment's events from a sequence number, stopping at the
+         * first empty or unreadable record, which marks the end of the segment.
+         * The sequence numbers of a segment are consecutive, so the records
+         * before fromSequence are skipped without being parsed.
+         */
+        private void read(long fromSequence, int max, List<ChangeEvent> events) {
+            long skip = fromSequence - firstSequence;
+            int offset = 0;
+            while (events.size() < max && offset + LENGTH_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + LENGTH_BYTES + length > buffer.capacity()) {
+                    break;
+                }
+                if (skip-- > 0) {
+                    offset += LENGTH_BYTES + length;
+                    continue;
+                }
+                byte[] record = new byte[length];
+                buffer.get(offset + LENGTH_BYTES, record);
+                ChangeEvent event;
+                try {
+                    event = MAPPER.readValue(record, ChangeEvent.class);
+                } catch (IOException e) {
+                    break;
+                }
+                offset += LENGTH_BYTES + length;
+                if (event.getSequence() >= fromSequence) {
+                    events.add(event);
+                }
+            }
+            end = Math.max(end, offset);
+        }
+    }
+}
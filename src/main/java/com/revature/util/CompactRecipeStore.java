@@ -0,0 +1,413 @@
+package com.revature.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.revature.model.Chef;
+import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
+
+/**
+ * The CompactRecipeStore class holds recipes with their authors and
+ * ingredients in a compact form, for caches that keep many recipes in memory.
+ *
+ * A Recipe object graph carries a copy of its author and a list of
+ * RecipeIngredient objects, each with its own name and unit strings. The store
+ * instead keeps one interned copy of each chef, each ingredient name and each
+ * unit, and gives every recipe a single entry holding its name, the handle of
+ * its instructions, the index of its author and primitive arrays of ingredient
+ * ids, volumes and unit codes. The instructions, by far the largest field, are
+ * kept outside the heap in an OffHeapTextStore and only decoded when a recipe
+ * read from the store is serialized or its instructions are otherwise read. Entries are found through an open-addressing table keyed by the
+ * primitive recipe id, so no boxed keys or map nodes are allocated. Recipes
+ * read from the store are new objects rebuilt from the entry, so callers may
+ * modify them freely.
+ *
+ * The table doubles as recipes are added, up to twice the maximum number of
+ * recipes. When the store is full, adding a recipe evicts another one, chosen
+ * by a cursor sweeping the table. The store is kept current by the change log:
+ * removing or clearing records the sequence number of the change, and a recipe
+ * loaded before that sequence number is not stored, since it may predate the
+ * change.
+ *
+ * Hits, misses and size are published through the Metrics registry under the
+ * prefix "compactStore.{name}".
+ */
+public class CompactRecipeStore {
+
+    /** The default maximum number of recipes held by a store. */
+    public static final int DEFAULT_MAX_RECIPES = 100_000;
+
+    /** The key of an empty slot; recipe ids start at 1. */
+    private static final int EMPTY = 0;
+
+    /** The author index of a recipe without an author. */
+    private static final int NO_AUTHOR = -1;
+
+    private static final int[] NO_IDS = new int[0];
+
+    private static final double[] NO_VOLUMES = new double[0];
+
+    private static final short[] NO_UNITS = new short[0];
+
+    /** The number of slots of a new table. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The maximum number of recipes held. */
+    private final int maxRecipes;
+
+    /** The number of slots the table grows to when the store is full. */
+    private final int maxCapacity;
+
+    /** The recipe id of each slot, or EMPTY. */
+    private int[] keys;
+
+    /** The entry of each slot. */
+    private Entry[] entries;
+
+    /** The number of recipes held. */
+    private int size;
+
+    /** The slot at which the next eviction starts looking. */
+    private int evictionCursor;
+
+    /** The sequence number of the latest change removed from the store. */
+    private long invalidatedAt;
+
+    /** The interned chefs, indexed by the author index of the entries. */
+    private final List<Chef> chefs = new ArrayList<>();
+
+    /** The index of each interned chef, by chef id. */
+    private final Map<Integer, Integer> chefIndexes = new HashMap<>();
+
+    /** The interned units, indexed by unit code. */
+    private final List<String> units = new ArrayList<>();
+
+    /** The code of each interned unit. */
+    private final Map<String, Short> unitCodes = new HashMap<>();
+
+    /** The interned name of each ingredient, by ingredient id. */
+    private final Map<Integer, String> ingredientNames = new HashMap<>();
+
+    /** The instructions of the recipes held. */
+    private final OffHeapTextStore instructions;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs an empty store keeping the instructions uncompressed.
+     *
+     * @param name       the name used as the metrics prefix
+     * @param maxRecipes the maximum number of recipes to hold
+     */
+    public CompactRecipeStore(String name, int maxRecipes) {
+        this(name, maxRecipes, false);
+    }
+
+    /**
+     * Constructs an empty store and registers its metrics.
+     *
+     * @param name                 the name used as the metrics prefix
+     * @param maxRecipes           the maximum number of recipes to hold
+     * @param compressInstructions whether long instructions are compressed
+     */
+    public CompactRecipeStore(String name, int maxRecipes, boolean compressInstructions) {
+        this.maxRecipes = maxRecipes;
+        this.instructions = new OffHeapTextStore(name + ".instructions", OffHeapTextStore.DEFAULT_SLAB_BYTES,
+                compressInstructions);
+        this.maxCapacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(2, maxRecipes) * 2 - 1) << 1);
+        this.keys = new int[INITIAL_CAPACITY];
+        this.entries = new Entry[INITIAL_CAPACITY];
+        String prefix = "compactStore." + name;
+        Metrics.gauge(prefix + ".hits", hits::sum);
+        Metrics.gauge(prefix + ".misses", misses::sum);
+        Metrics.gauge(prefix + ".size", this::size);
+    }
+
+    /**
+     * Reads a recipe.
+     *
+     * @param id the unique identifier of the recipe
+     * @return a new Recipe object with its author and ingredients, or null if
+     *         the store does not hold it
+     */
+    public synchronized Recipe get(int id) {
+        int slot = find(id);
+        if (slot < 0) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return materialize(id, entries[slot]);
+    }
+
+    /**
+     * Stores a recipe, unless a change removed from the store since it was
+     * loaded may have affected it.
+     *
+     * @param recipe   the recipe with its author and ingredients
+     * @param loadedAt the change log sequence number read before the recipe was
+     *                 loaded
+     * @return true if the recipe was stored
+     */
+    public synchronized boolean put(Recipe recipe, long loadedAt) {
+        if (recipe.getId() == EMPTY || loadedAt < invalidatedAt) {
+            return false;
+        }
+        Entry entry = compact(recipe);
+        if (entry == null) {
+            return false;
+        }
+        int slot = find(recipe.getId());
+        if (slot < 0) {
+            if (size >= maxRecipes) {
+                evict();
+            } else if ((size + 1) * 2 > keys.length && keys.length < maxCapacity) {
+                resize(keys.length * 2);
+            }
+            slot = insertionSlot(recipe.getId());
+            keys[slot] = recipe.getId();
+            size++;
+        }
+        if (entries[slot] != null) {
+            instructions.free(entries[slot].instructions);
+        }
+        entries[slot] = entry;
+        return true;
+    }
+
+    /**
+     * Removes a recipe that has been written.
+     *
+     * @param id       the unique identifier of the recipe
+     * @param sequence the change log sequence number of the write
+     */
+    public synchronized void remove(int id, long sequence) {
+        invalidatedAt = Math.max(invalidatedAt, sequence);
+        int slot = find(id);
+        if (slot >= 0) {
+            delete(slot);
+        }
+    }
+
+    /**
+     * Removes every recipe, after a change that may affect any of them.
+     *
+     * @param sequence the change log sequence number of the change
+     */
+    public synchronized void clear(long sequence) {
+        invalidatedAt = Math.max(invalidatedAt, sequence);
+        keys = new int[INITIAL_CAPACITY];
+        entries = new Entry[INITIAL_CAPACITY];
+        evictionCursor = 0;
+        instructions.clear();
+        size = 0;
+        chefs.clear();
+        chefIndexes.clear();
+        units.clear();
+        unitCodes.clear();
+        ingredientNames.clear();
+    }
+
+    /**
+     * @return the number of recipes held
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Builds the entry of a recipe, interning its author, ingredient names and
+     * units.
+     *
+     * @return the entry, or null if the unit dictionary is full
+     */
+    private Entry compact(Recipe recipe) {
+        int author = NO_AUTHOR;
+        Chef chef = recipe.getAuthor();
+        if (chef != null) {
+            Integer index = chefIndexes.get(chef.getId());
+            if (index == null) {
+                index = chefs.size();
+                chefs.add(copy(chef));
+                chefIndexes.put(chef.getId(), index);
+            } else if (!chef.equals(chefs.get(index))) {
+                chefs.set(index, copy(chef));
+            }
+            author = index;
+        }
+
+        List<RecipeIngredient> ingredients = recipe.getIngredients();
+        if (ingredients == null) {
+            return new Entry(recipe.getName(), instructions.put(recipe.getInstructions()), author, null, null, null);
+        }
+        if (ingredients.isEmpty()) {
+            return new Entry(recipe.getName(), instructions.put(recipe.getInstructions()), author, NO_IDS,
+                    NO_VOLUMES, NO_UNITS);
+        }
+        int[] ids = new int[ingredients.size()];
+        double[] volumes = new double[ingredients.size()];
+        short[] codes = new short[ingredients.size()];
+        for (int i = 0; i < ids.length; i++) {
+            RecipeIngredient ingredient = ingredients.get(i);
+            Short code = unitCode(ingredient.getUnit());
+            if (code == null) {
+                return null;
+            }
+            ids[i] = ingredient.getId();
+            volumes[i] = ingredient.getVolume();
+            codes[i] = code;
+            ingredientNames.merge(ingredient.getId(), ingredient.getName(),
+                    (interned, name) -> interned.equals(name) ? interned : name);
+        }
+        return new Entry(recipe.getName(), instructions.put(recipe.getInstructions()), author, ids, volumes, codes);
+    }
+
+    /**
+     * @return the code of a unit, interning it if needed, or null if the
+     *         dictionary is full
+     */
+    private Short unitCode(String unit) {
+        Short code = unitCodes.get(unit);
+        if (code == null) {
+            if (units.size() > Short.MAX_VALUE) {
+                return null;
+            }
+            code = (short) units.size();
+            units.add(unit);
+            unitCodes.put(unit, code);
+        }
+        return code;
+    }
+
+    private Recipe materialize(int id, Entry entry) {
+        Recipe recipe = new Recipe(id, entry.name, null,
+                entry.author == NO_AUTHOR ? null : copy(chefs.get(entry.author)));
+        recipe.deferInstructions(instructions.view(entry.instructions));
+        if (entry.ingredientIds != null) {
+            List<RecipeIngredient> ingredients = new ArrayList<>(entry.ingredientIds.length);
+            for (int i = 0; i < entry.ingredientIds.length; i++) {
+                int ingredientId = entry.ingredientIds[i];
+                ingredients.add(new RecipeIngredient(ingredientId, ingredientNames.get(ingredientId),
+                        entry.volumes[i], units.get(entry.units[i])));
+            }
+            recipe.setIngredients(ingredients);
+        }
+        return recipe;
+    }
+
+    private static Chef copy(Chef chef) {
+        return new Chef(chef.getId(), chef.getUsername(), chef.getEmail(), chef.getPassword(), chef.isAdmin());
+    }
+
+    /** @return the slot holding a recipe id, or -1 */
+    private int find(int id) {
+        int mask = keys.length - 1;
+        for (int slot = mix(id) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** @return the empty slot a new recipe id is stored in */
+    private int insertionSlot(int id) {
+        int mask = keys.length - 1;
+        int slot = mix(id) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Moves every entry to a larger table. */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Entry[] oldEntries = entries;
+        keys = new int[capacity];
+        entries = new Entry[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = insertionSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                entries[slot] = oldEntries[i];
+            }
+        }
+        evictionCursor = 0;
+    }
+
+    /** Evicts the first recipe found from the cursor onwards. */
+    private void evict() {
+        int mask = keys.length - 1;
+        evictionCursor &= mask;
+        while (keys[evictionCursor] == EMPTY) {
+            evictionCursor = (evictionCursor + 1) & mask;
+        }
+        delete(evictionCursor);
+        evictionCursor = (evictionCursor + 1) & mask;
+    }
+
+    /**
+     * Empties a slot, shifting back the entries of the same probe sequence so
+     * lookups never stop at the hole.
+     */
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        instructions.free(entries[slot].instructions);
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = mix(keys[next]) & mask;
+            // move the entry back unless its home lies cyclically after the hole
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                entries[hole] = entries[next];
+                hole = next;
+            }
+        }
+        keys[hole] = EMPTY;
+        entries[hole] = null;
+        size--;
+    }
+
+    /** Spreads sequential ids across the table. */
+    private static int mix(int id) {
+        int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /** The compact form of one recipe. */
+    private static final class Entry {
+
+        private final String name;
+
+        /** The handle of the instructions in the off-heap store. */
+        private final int instructions;
+
+        /** The index of the interned author, or NO_AUTHOR. */
+        private final int author;
+
+        /** The ids of the ingredients in order, or null if they were not loaded. */
+        private final int[] ingredientIds;
+
+        private final double[] volumes;
+
+        /** The unit code of each ingredient. */
+        private final short[] units;
+
+        private Entry(String name, int instructions, int author, int[] ingredientIds, double[] volumes,
+                short[] units) {
+            this.name = name;
+            this.instructions = instructions;
+            this.author = author;
+            this.ingredientIds = ingredientIds;
+            this.volumes = volumes;
+            this.units = units;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.revature.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ConcurrencyLimiter class caps the number of requests processed at once
+ * using an additive-increase/multiplicative-decrease (AIMD) limit driven by
+ * observed latency. Every completed request reports its latency: a request
+ * slower than the target latency shrinks the limit multiplicatively, while a
+ * fast request completed under load grows it by one. The limit shrinks at most
+ * once per target latency, so a burst of slow requests all started under the
+ * old limit counts as one signal rather than one per request.
+ *
+ * Requests are admitted according to their Priority. Each priority may only use
+ * a share of the current limit, so low priority work is shed first as the limit
+ * shrinks. Critical requests that find the limit exhausted may wait briefly for
+ * a slot instead of being rejected outright.
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * The priority of a request, along with the share of the limit requests of
+     * that priority may occupy.
+     */
+    public enum Priority {
+        /** Requests that must be protected, such as login and single lookups. */
+        CRITICAL(1.0),
+        /** Ordinary requests. */
+        NORMAL(0.9),
+        /** Expensive requests, such as searches and bulk listings, shed first. */
+        SHEDDABLE(0.7);
+
+        /** The fraction of the current limit available to this priority. */
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    /** The smallest the limit is allowed to shrink to. */
+    private final int minLimit;
+
+    /** The largest the limit is allowed to grow to. */
+    private final int maxLimit;
+
+    /** Latency, in nanoseconds, above which the limit is decreased. */
+    private final long targetLatencyNanos;
+
+    /** Time, in nanoseconds, a critical request may wait for a free slot. */
+    private final long maxWaitNanos;
+
+    /** The current concurrency limit. */
+    private double limit;
+
+    /** The number of requests currently admitted. */
+    private int inFlight;
+
+    /** The number of critical requests currently waiting for a slot. */
+    private int waiting;
+
+    /** When the limit last shrank, in System.nanoTime() terms. */
+    private long lastDecreaseNanos;
+
+    /** The number of requests rejected since startup. */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs a ConcurrencyLimiter and registers its metrics under the
+     * prefix "admission", unless another limiter registered them first.
+     *
+     * @param initialLimit        the starting concurrency limit
+     * @param minLimit            the smallest allowed limit
+     * @param maxLimit            the largest allowed limit
+     * @param targetLatencyMillis the latency above which the limit shrinks
+     * @param maxWaitMillis       how long a critical request may wait for a slot
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis,
+            long maxWaitMillis) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.lastDecreaseNanos = System.nanoTime() - targetLatencyNanos;
+        Metrics.gaugeIfAbsent("admission.limit", this::getLimit);
+        Metrics.gaugeIfAbsent("admission.inFlight", this::getInFlight);
+        Metrics.gaugeIfAbsent("admission.criticalWaiting", this::getQueueDepth);
+        Metrics.gaugeIfAbsent("admission.rejected", rejected::sum);
+    }
+
+    /**
+     * Attempts to admit a request of the given priority.
+     *
+     * @param priority the priority of the request
+     * @return true if the request was admitted and must later call
+     *         {@link #release(long)}; false if it should be shed
+     */
+    public synchronized boolean tryAcquire(Priority priority) {
+        if (inFlight < capacityFor(priority)) {
+            inFlight++;
+            return true;
+        }
+        if (priority == Priority.CRITICAL && maxWaitNanos > 0) {
+            long deadline = System.nanoTime() + maxWaitNanos;
+            waiting++;
+            try {
+                while (inFlight >= capacityFor(priority)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting--;
+            }
+            if (inFlight < capacityFor(priority)) {
+                inFlight++;
+                return true;
+            }
+        }
+        rejected.increment();
+        Metrics.increment("admission.rejected." + priority.name().toLowerCase());
+        return false;
+    }
+
+    /**
+     * Releases a slot acquired by {@link #tryAcquire(Priority)} and adjusts the
+     * limit based on the observed latency.
+     *
+     * @param latencyNanos the time the request took, in nanoseconds
+     */
+    public synchronized void release(long latencyNanos) {
+        if (latencyNanos > targetLatencyNanos) {
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                limit = Math.max(minLimit, limit * 0.9);
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlight >= limit * 0.8) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * @return the current concurrency limit, rounded down
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the number of requests currently admitted
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return the number of critical requests waiting for a slot
+     */
+    public synchronized int getQueueDepth() {
+        return waiting;
+    }
+
+    /**
+     * @return the number of requests rejected since startup
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private int capacityFor(Priority priority) {
+        return Math.max(1, (int) (limit * priority.share));
+    }
+}
@@ -1,42 +1,348 @@
 package com.revature.util;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.h2.jdbcx.JdbcDataSource;
 
 /**
-This class provides autility methods and configuration for managing database connections for an H2 database. It uses a JdbcDataSource connection pool to manage connections efficiently.
+This class provides autility methods and configuration for managing database connections for an H2 database. Physical connections are opened through a JdbcDataSource and kept in a pool once they are closed by the caller, so they can be reused by later calls instead of opening a new database session each time.
 
-You do not need to edit this class.
+Each pooled connection also caches the statements prepared on it, keyed by SQL text, so hot statements such as `SELECT id, name, instructions, chef_id FROM RECIPE WHERE id = ?` are parsed and planned once per connection. Statement cache hits, misses and evictions are published through the Metrics registry under the prefix "statementCache".
+
+The data may be split across several H2 databases, called shards, by setting the "db.shards" system property. Shard 0 is the primary database `jdbc:h2:./h2/db` and shard i is `jdbc:h2:./h2/db-shard{i}`; each shard has its own pool. RECIPE and RECIPE_INGREDIENT rows are placed on the shard chosen by hashing the recipe's chef id, while the small CHEF and INGREDIENT tables are replicated to every shard so recipes can be joined with them locally. Recipe ids are allocated by each shard from its own residue class, so the shard holding a recipe can be derived from its id alone. A recipe therefore keeps its shard for life, and can only be given to another chef whose recipes are placed on the same shard. With the default of one shard every call reaches the primary, exactly as before sharding was introduced.
+
+Reads may also be served by read replicas of the primary, set up with the "db.replicas" system property; replica i is `jdbc:h2:./h2/db-replica{i}` and is kept in sync by a ReplicationFeed every "db.replicationMillis" milliseconds. getConnection() is the write data source and getReadConnection() the read one. A read goes to a replica, taken in turn, only if the replica is at most "db.maxStalenessMillis" behind the primary and has copied the last write of the current ReadSession, so a client always reads its own writes; otherwise it goes to the primary. Replicas stand in for the primary only; with several shards, each shard serves its own recipe reads. Reads routed to replicas and to the primary are counted through the Metrics registry under "readRouting.replica" and "readRouting.primary".
 
  */
 public class ConnectionUtil {
 
+	/** The maximum number of idle connections kept in the pool. */
+	public static final int MAX_IDLE_CONNECTIONS = 16;
+
+	/** The maximum number of statements cached per connection. */
+	public static final int STATEMENT_CACHE_SIZE = 64;
+
+	/** The number of statements served from a connection's cache. */
+	static final LongAdder STATEMENT_HITS = new LongAdder();
+
+	/** The number of statements that had to be prepared. */
+	static final LongAdder STATEMENT_MISSES = new LongAdder();
+
+	/** The number of statements evicted from a connection's cache. */
+	static final LongAdder STATEMENT_EVICTIONS = new LongAdder();
+
+	/** The default bound on how far behind the primary a replica may be read from. */
+	public static final long DEFAULT_MAX_STALENESS_MILLIS = 1000;
+
+	/** The default interval between replica syncs. */
+	public static final long DEFAULT_REPLICATION_MILLIS = 100;
+
+	/** Runs the replica syncs of every ConnectionUtil. */
+	private static final ScheduledExecutorService REPLICATION = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "replication");
+		thread.setDaemon(true);
+		return thread;
+	});
+
     // fields
 	private static String url = "jdbc:h2:./h2/db;";
 	private static String username = "sa";
 	private static String password = "";
-	private static JdbcDataSource pool = new JdbcDataSource();
+
+	/** The pools of the configured shards, shared by every default ConnectionUtil. */
+	private static final Shard[] DEFAULT_SHARDS = open(shardUrls(Integer.getInteger("db.shards", 1)));
+
+	/** The pools of the read replicas of the configured primary, shared by every default ConnectionUtil. */
+	private static final Shard[] DEFAULT_REPLICAS = open(replicaUrls(Integer.getInteger("db.replicas", 0)));
+
+	/** The feeds keeping the default replicas in sync. */
+	private static final ReplicationFeed[] DEFAULT_FEEDS = feeds(DEFAULT_SHARDS[0], DEFAULT_REPLICAS,
+			Long.getLong("db.replicationMillis", DEFAULT_REPLICATION_MILLIS));
+
+	/** The pools of the shards this ConnectionUtil connects to. */
+	private final Shard[] shards;
+
+	/** The pools of the read replicas of the primary. */
+	private final Shard[] replicas;
+
+	/** The feeds keeping each replica in sync. */
+	private final ReplicationFeed[] feeds;
+
+	/** The bound on how far behind the primary a replica may be read from. */
+	private final long maxStalenessMillis;
+
+	/** The replica the next read starts looking at. */
+	private final AtomicInteger nextReplica = new AtomicInteger();
 
 	/**
-	 * static initialization block to establish credentials for DataSoure Pool
+	 * static initialization block to publish the pool metrics
 	 */
 	static {
-		pool.setURL(url);
-		pool.setUser(username);
-		pool.setPassword(password);
+		Metrics.gauge("statementCache.hits", STATEMENT_HITS::sum);
+		Metrics.gauge("statementCache.misses", STATEMENT_MISSES::sum);
+		Metrics.gauge("statementCache.evictions", STATEMENT_EVICTIONS::sum);
+		Metrics.gauge("statementCache.hitRatio", () -> {
+			long hits = STATEMENT_HITS.sum();
+			long total = hits + STATEMENT_MISSES.sum();
+			return total == 0 ? 0.0 : (double) hits / total;
+		});
+		Metrics.gauge("connectionPool.idle", () -> {
+			int idle = 0;
+			for (Shard shard : DEFAULT_SHARDS) {
+				idle += shard.idleCount.get();
+			}
+			return idle;
+		});
+	}
+
+	/**
+	 * Constructs a ConnectionUtil connecting to the configured shards.
+	 */
+	public ConnectionUtil() {
+		this.shards = DEFAULT_SHARDS;
+		this.replicas = DEFAULT_REPLICAS;
+		this.feeds = DEFAULT_FEEDS;
+		// writes older than the retention are no longer tracked by ReadSession
+		this.maxStalenessMillis = Math.min(Long.getLong("db.maxStalenessMillis", DEFAULT_MAX_STALENESS_MILLIS),
+				ReadSession.RETENTION_MILLIS);
+	}
+
+	/**
+	 * Constructs a ConnectionUtil connecting to the given databases, with its
+	 * own pools. The first database is the primary.
+	 *
+	 * @param urls the JDBC URLs of the shards, in shard order
+	 */
+	public ConnectionUtil(List<String> urls) {
+		this(urls, List.of(), DEFAULT_MAX_STALENESS_MILLIS, 0);
+	}
+
+	/**
+	 * Constructs a ConnectionUtil connecting to the given databases and read
+	 * replicas of the primary, with its own pools.
+	 *
+	 * @param urls                the JDBC URLs of the shards, in shard order
+	 * @param replicaUrls         the JDBC URLs of the read replicas
+	 * @param maxStalenessMillis  how far behind the primary a replica may be
+	 *                            read from
+	 * @param replicationMillis   the interval between replica syncs, or 0 to
+	 *                            sync only through syncReplicas()
+	 */
+	public ConnectionUtil(List<String> urls, List<String> replicaUrls, long maxStalenessMillis,
+			long replicationMillis) {
+		this.shards = open(urls);
+		this.replicas = open(replicaUrls);
+		this.feeds = feeds(shards[0], replicas, replicationMillis);
+		this.maxStalenessMillis = Math.min(maxStalenessMillis, ReadSession.RETENTION_MILLIS);
 	}
 
 	/**
-	 * @return an active connection to the database
+	 * @return an active connection to the primary database; closing it returns it to the pool
 	 */
 	public Connection getConnection() {
-		try {
-			return pool.getConnection();
-		} catch (SQLException e) {
-			e.printStackTrace();
+		return getConnection(0);
+	}
+
+	/**
+	 * @param shard the index of the shard
+	 * @return an active connection to the shard; closing it returns it to the pool
+	 */
+	public Connection getConnection(int shard) {
+		return shards[shard].getConnection();
+	}
+
+	/**
+	 * Opens a connection for reading from the primary. The connection is to a
+	 * read replica if one is within the staleness bound and has copied the
+	 * current session's last write, and to the primary otherwise. It must not
+	 * be written to.
+	 *
+	 * @return an active connection for reading; closing it returns it to the pool
+	 */
+	public Connection getReadConnection() {
+		long required = ReadSession.requiredPosition();
+		int start = nextReplica.getAndIncrement();
+		for (int i = 0; i < replicas.length; i++) {
+			int replica = Math.floorMod(start + i, replicas.length);
+			ReplicationFeed feed = feeds[replica];
+			if (feed.appliedPosition() >= required && feed.stalenessMillis() <= maxStalenessMillis) {
+				Metrics.increment("readRouting.replica");
+				return replicas[replica].getConnection();
+			}
 		}
+		Metrics.increment("readRouting.primary");
+		return getConnection(0);
+	}
+
+	/**
+	 * @return the number of read replicas of the primary
+	 */
+	public int getReplicaCount() {
+		return replicas.length;
+	}
+
+	/**
+	 * @param replica the index of the replica
+	 * @return an active connection to the replica, for setting up its schema
+	 */
+	Connection getReplicaConnection(int replica) {
+		return replicas[replica].getConnection();
+	}
 
-		return null;
+	/**
+	 * Brings every read replica up to date with the primary now.
+	 *
+	 * @return true if every replica was synced
+	 */
+	public boolean syncReplicas() {
+		boolean synced = true;
+		for (ReplicationFeed feed : feeds) {
+			synced &= feed.sync();
+		}
+		return synced;
+	}
+
+	/**
+	 * @return the number of shards the data is split across
+	 */
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * @param chefId the id of a recipe's author
+	 * @return the shard new recipes of the chef are placed on
+	 */
+	public int shardForChef(int chefId) {
+		// spread consecutive ids, which Integer.hashCode would map round-robin
+		return Math.floorMod(chefId * 0x9E3779B1, shards.length);
+	}
+
+	/**
+	 * @param recipeId the id of a recipe
+	 * @return the shard holding the recipe
+	 */
+	public int shardForRecipe(int recipeId) {
+		return Math.floorMod(recipeId - 1, shards.length);
+	}
+
+	/**
+	 * @param count the number of shards
+	 * @return the JDBC URLs of the shards
+	 */
+	private static List<String> shardUrls(int count) {
+		List<String> urls = new ArrayList<>();
+		urls.add(url);
+		for (int i = 1; i < count; i++) {
+			urls.add(url.replace("/db;", "/db-shard" + i + ";"));
+		}
+		return urls;
+	}
+
+	/**
+	 * @param count the number of read replicas
+	 * @return the JDBC URLs of the replicas
+	 */
+	private static List<String> replicaUrls(int count) {
+		List<String> urls = new ArrayList<>();
+		for (int i = 1; i <= count; i++) {
+			urls.add(url.replace("/db;", "/db-replica" + i + ";"));
+		}
+		return urls;
+	}
+
+	/**
+	 * Creates a feed for each replica, scheduled to sync at the given interval.
+	 *
+	 * @param primary           the pool of the primary
+	 * @param replicas          the pools of the replicas
+	 * @param replicationMillis the interval between syncs, or 0 not to schedule them
+	 * @return a feed for each replica
+	 */
+	private static ReplicationFeed[] feeds(Shard primary, Shard[] replicas, long replicationMillis) {
+		ReplicationFeed[] feeds = new ReplicationFeed[replicas.length];
+		for (int i = 0; i < feeds.length; i++) {
+			Shard replica = replicas[i];
+			feeds[i] = new ReplicationFeed("replica" + (i + 1), primary::getConnection, replica::getConnection);
+			if (replicationMillis > 0) {
+				ReplicationFeed feed = feeds[i];
+				REPLICATION.scheduleWithFixedDelay(feed::sync, replicationMillis, replicationMillis,
+						TimeUnit.MILLISECONDS);
+			}
+		}
+		return feeds;
+	}
+
+	/**
+	 * @param urls the JDBC URLs of the shards
+	 * @return a pool for each shard
+	 */
+	private static Shard[] open(List<String> urls) {
+		Shard[] shards = new Shard[urls.size()];
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new Shard(urls.get(i));
+		}
+		return shards;
+	}
+
+	/** The pool of connections to one shard. */
+	private static final class Shard {
+
+		private final JdbcDataSource pool = new JdbcDataSource();
+
+		/** The idle connections, most recently returned first. */
+		private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+
+		/** The number of connections in the idle deque. */
+		private final AtomicInteger idleCount = new AtomicInteger();
+
+		private Shard(String url) {
+			pool.setURL(url);
+			pool.setUser(username);
+			pool.setPassword(password);
+		}
+
+		private Connection getConnection() {
+			PooledConnection pooled;
+			while ((pooled = idle.pollFirst()) != null) {
+				idleCount.decrementAndGet();
+				if (pooled.isUsable()) {
+					return pooled.lease();
+				}
+				pooled.discard();
+			}
+
+			try {
+				return new PooledConnection(pool.getConnection(), STATEMENT_CACHE_SIZE, this::release).lease();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+
+			return null;
+		}
+
+		/**
+		 * Takes a connection back into the pool, or discards it if the pool is full.
+		 *
+		 * @param pooled the connection being returned
+		 */
+		private void release(PooledConnection pooled) {
+			if (pooled.isUsable() && idleCount.incrementAndGet() <= MAX_IDLE_CONNECTIONS) {
+				idle.offerFirst(pooled);
+			} else {
+				if (pooled.isUsable()) {
+					idleCount.decrementAndGet();
+				}
+				pooled.discard();
+			}
+		}
 	}
 }
@@ -1,46 +1,116 @@
 package com.revature.util;
 
-import java.io.InputStream;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Scanner;
+import java.sql.Statement;
 
 /**
-The DBUtil class is a utility designed to handle database setup and reset operations by reading SQL commands from a file and executing them. This can be useful in scenarios where you need to reinitialize the database with a specific schema and data set.
+The DBUtil class is a utility designed to handle database setup and reset operations. The schema and seed data are applied by the SchemaMigrator from versioned SQL scripts, starting with the `sqlScript.sql` file.
 
-You do not need to edit this class.
+RUN_SQL wipes the database and rebuilds it from scratch, which is what the tests rely on. MIGRATE only applies the scripts that have not been applied yet and preserves existing data, which is what a production start should use.
+
+When the data is split across several shards, every shard is migrated with the same scripts, so the replicated CHEF and INGREDIENT tables start out identical. RUN_SQL then keeps each seeded recipe only on the shard its id routes to, and every start sets each shard's recipe ids to advance by the number of shards from the shard's own residue, so new ids keep routing to the shard that allocated them. Changing the number of shards of an existing database requires a reset.
+
+Read replicas are reset or migrated with the same scripts and then synced with the primary, so they serve the new data as soon as setup returns.
 
  */
 public class DBUtil {
-	
-	/** A mutable text object that will contain the contents of a file once initialized. */
-	private static StringBuilder sqlScript = new StringBuilder();
-	private static InputStream inputStream =  DBUtil.class.getResourceAsStream("/sqlScript.sql");
-	
 
 	/**
-	 * static initialization block to initialize the `sqlScript` field with the content within the `sqlScript.sql` file. Any lines starting with comment syntax are ignored.
+	 * This method resets and re-initializes the database by first dropping all existing objects (tables, views, procedures, etc.) and then applying every migration, starting with the `sqlScript.sql` file.
+	 */
+	public static void RUN_SQL() {
+		RUN_SQL(new ConnectionUtil());
+	}
+
+	/**
+	 * Resets and re-initializes every shard of the given databases.
+	 *
+	 * @param connectionUtil the databases to reset
 	 */
-	static {
-			Scanner sc = new Scanner(inputStream);
-			while (sc.hasNextLine()) {
-				String nextLine = sc.nextLine();
-				if (!nextLine.startsWith("--")) {
-					sqlScript.append(nextLine + " ");
+	public static void RUN_SQL(ConnectionUtil connectionUtil) {
+		try {
+			for (int shard = 0; shard < connectionUtil.getShardCount(); shard++) {
+				try (Connection conn = connectionUtil.getConnection(shard)) {
+					conn.prepareStatement("DROP ALL OBJECTS").executeUpdate();
+					SchemaMigrator.migrate(conn);
+					if (connectionUtil.getShardCount() > 1) {
+						keepOwnRecipes(conn, shard, connectionUtil.getShardCount());
+						allocateRecipeIds(conn, shard, connectionUtil.getShardCount());
+					}
+				}
+			}
+			for (int replica = 0; replica < connectionUtil.getReplicaCount(); replica++) {
+				try (Connection conn = connectionUtil.getReplicaConnection(replica)) {
+					conn.prepareStatement("DROP ALL OBJECTS").executeUpdate();
+					SchemaMigrator.migrate(conn);
 				}
 			}
-			sc.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		} finally {
+			TableVersions.bumpAll();
+			connectionUtil.syncReplicas();
+		}
 	}
 
 	/**
-	 * This method resets and re-initializes the database by first dropping all existing objects (tables, views, procedures, etc.) and then executing the SQL script with the `sqlScript.sql` file.
+	 * This method brings the database schema up to date without dropping anything, applying only the migrations that have not been recorded as applied yet.
 	 */
-	public static void RUN_SQL() {
-		try(Connection conn = new ConnectionUtil().getConnection()) {
-			conn.prepareStatement("DROP ALL OBJECTS").executeUpdate();
-			conn.prepareStatement(sqlScript.toString()).executeUpdate();
+	public static void MIGRATE() {
+		MIGRATE(new ConnectionUtil());
+	}
+
+	/**
+	 * Brings the schema of every shard of the given databases up to date.
+	 *
+	 * @param connectionUtil the databases to migrate
+	 */
+	public static void MIGRATE(ConnectionUtil connectionUtil) {
+		try {
+			for (int shard = 0; shard < connectionUtil.getShardCount(); shard++) {
+				try (Connection conn = connectionUtil.getConnection(shard)) {
+					SchemaMigrator.migrate(conn);
+					if (connectionUtil.getShardCount() > 1) {
+						allocateRecipeIds(conn, shard, connectionUtil.getShardCount());
+					}
+				}
+			}
+			for (int replica = 0; replica < connectionUtil.getReplicaCount(); replica++) {
+				try (Connection conn = connectionUtil.getReplicaConnection(replica)) {
+					SchemaMigrator.migrate(conn);
+				}
+			}
+			connectionUtil.syncReplicas();
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Deletes the seeded recipes, and their ingredients, that route to another shard.
+	 */
+	private static void keepOwnRecipes(Connection conn, int shard, int shardCount) throws SQLException {
+		String foreign = "SELECT id FROM RECIPE WHERE MOD(id - 1, " + shardCount + ") <> " + shard;
+		try (Statement statement = conn.createStatement()) {
+			statement.executeUpdate("DELETE FROM RECIPE_INGREDIENT WHERE recipe_id IN (" + foreign + ")");
+			statement.executeUpdate("DELETE FROM RECIPE WHERE MOD(id - 1, " + shardCount + ") <> " + shard);
+		}
+	}
+
+	/**
+	 * Makes the shard allocate recipe ids congruent to shard + 1 modulo the number of shards, starting above the
+	 * largest id it holds.
+	 */
+	private static void allocateRecipeIds(Connection conn, int shard, int shardCount) throws SQLException {
+		try (Statement statement = conn.createStatement()) {
+			ResultSet max = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM RECIPE");
+			max.next();
+			int next = max.getInt(1) + 1;
+			next += Math.floorMod(shard + 1 - next, shardCount);
+			statement.execute("ALTER TABLE RECIPE ALTER COLUMN id SET INCREMENT BY " + shardCount);
+			statement.execute("ALTER TABLE RECIPE ALTER COLUMN id RESTART WITH " + next);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.revature.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The DatabaseExecutor class runs blocking JDBC work on a dedicated, bounded
+ * pool of threads and exposes it as CompletableFutures, so request threads do
+ * not have to wait on the database and independent queries can run
+ * concurrently.
+ *
+ * The pool has a fixed number of threads and a bounded queue. Work submitted
+ * while the queue is full is not run; its future fails with a
+ * RejectedExecutionException. Every future fails with a TimeoutException if it
+ * has not completed within the executor's timeout. A future that times out or
+ * is cancelled before its work has started never runs that work; work that
+ * has already started runs to completion, since interrupting a thread inside
+ * the JDBC driver could close the connection, and its result is discarded.
+ *
+ * Work runs in the ReadSession of the thread that submitted it, so reads it
+ * makes still see that session's own writes.
+ *
+ * Active threads, queued tasks, rejections and timeouts are published through
+ * the Metrics registry under the prefix "databaseExecutor.{name}".
+ */
+public class DatabaseExecutor {
+
+    /** The number of threads in the shared executor. */
+    public static final int DEFAULT_THREADS = ConnectionUtil.MAX_IDLE_CONNECTIONS;
+
+    /** The number of tasks the shared executor queues before rejecting work. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    /** The time after which futures of the shared executor fail. */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    /** The executor shared by the services. */
+    private static final DatabaseExecutor SHARED = new DatabaseExecutor("shared", DEFAULT_THREADS,
+            DEFAULT_QUEUE_CAPACITY, DEFAULT_TIMEOUT_MILLIS);
+
+    /** The pool running the work. */
+    private final ThreadPoolExecutor pool;
+
+    /** The time after which futures fail, in milliseconds. */
+    private final long timeoutMillis;
+
+    /** The number of tasks rejected because the queue was full. */
+    private final LongAdder rejected = new LongAdder();
+
+    /** The number of futures that timed out. */
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * Constructs a DatabaseExecutor.
+     *
+     * @param name          the name of the executor's threads and metrics
+     * @param threads       the number of threads running work
+     * @param queueCapacity the number of tasks queued before work is rejected
+     * @param timeoutMillis the time after which futures fail
+     */
+    public DatabaseExecutor(String name, int threads, int queueCapacity, long timeoutMillis) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "db-" + name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timeoutMillis = timeoutMillis;
+
+        String prefix = "databaseExecutor." + name;
+        Metrics.gauge(prefix + ".active", pool::getActiveCount);
+        Metrics.gauge(prefix + ".queued", () -> pool.getQueue().size());
+        Metrics.gauge(prefix + ".rejected", rejected::sum);
+        Metrics.gauge(prefix + ".timeouts", timeouts::sum);
+    }
+
+    /**
+     * @return the executor shared by the services
+     */
+    public static DatabaseExecutor shared() {
+        return SHARED;
+    }
+
+    /**
+     * Runs work on the executor.
+     *
+     * @param <T>  the type of the work's result
+     * @param work the blocking work to run
+     * @return a future completed with the work's result, or failed with the
+     *         work's exception, a RejectedExecutionException if the queue is
+     *         full, or a TimeoutException if the work takes too long
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Supplier<T> inSession = ReadSession.propagate(work);
+        Future<?> task;
+        try {
+            task = pool.submit(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(inSession.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                timeouts.increment();
+            }
+            if (error != null) {
+                task.cancel(false);
+            }
+        });
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs work without a result on the executor.
+     *
+     * @param work the blocking work to run
+     * @return a future completed when the work has run, failed as described for
+     *         {@link #supply(Supplier)}
+     */
+    public CompletableFuture<Void> run(Runnable work) {
+        return supply(() -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,341 @@
+package com.revature.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.eclipse.jetty.server.Request;
+
+import com.revature.model.ChangeEvent;
+
+import io.javalin.http.sse.SseClient;
+
+/**
+ * The EventBroadcaster class pushes the events of a ChangeLog to clients
+ * connected through Server-Sent Events, so they learn about changes as they
+ * happen instead of polling.
+ *
+ * The broadcaster subscribes to the log once. Each new event that passes its
+ * filter is handed to a single fan-out thread, which offers it to the bounded
+ * buffer of every client, and a small pool of sender threads drains the
+ * buffers that have events. Idle clients hold neither a request thread nor a
+ * sender thread, so a broadcaster can keep tens of thousands of streams open.
+ * A client whose buffer is full is too slow to keep up and is disconnected; it
+ * can reconnect and resume. So is a client that stops reading altogether: a
+ * send blocked on it for longer than the send timeout has its connection
+ * aborted, which fails the write and frees the sender thread for the other
+ * clients.
+ *
+ * Each event is sent with its change log sequence number as its id, so a
+ * reconnecting client's Last-Event-ID header resumes the stream after the last
+ * event it received, replayed from the log. A client resuming from an event
+ * that is no longer retained first receives a "reset" event, telling it to
+ * reload its state. A comment is sent to every client each heartbeat interval
+ * to keep idle connections open through proxies and detect dead ones.
+ *
+ * Connected clients, events sent and slow or stalled clients disconnected are
+ * published through the Metrics registry under the prefix "sse.{name}".
+ */
+public class EventBroadcaster implements AutoCloseable {
+
+    /** The number of events buffered per client before it is disconnected. */
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    /** The time a send may block before its client is disconnected. */
+    public static final long DEFAULT_SEND_TIMEOUT_MILLIS = 10_000;
+
+    /** The time between two heartbeats. */
+    public static final long HEARTBEAT_MILLIS = 15_000;
+
+    /** The number of threads sending events to clients. */
+    private static final int SENDER_THREADS = 4;
+
+    /** The number of events replayed per read of the log. */
+    private static final int REPLAY_BATCH = 256;
+
+    /** The name of the metrics. */
+    private final String name;
+
+    /** The log the events come from. */
+    private final ChangeLog log;
+
+    /** The events sent to clients. */
+    private final Predicate<ChangeEvent> filter;
+
+    /** The number of events buffered per client. */
+    private final int bufferSize;
+
+    /** The time a send may block before its client is disconnected. */
+    private final long sendTimeoutMillis;
+
+    /** The connected clients. */
+    private final Map<SseClient, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    /** Offers each new event to every client, in order. */
+    private final ExecutorService fanOut;
+
+    /** Sends buffered events to clients. */
+    private final ExecutorService senders;
+
+    /** Sends the heartbeats. */
+    private final ScheduledExecutorService heartbeats;
+
+    /** The subscription to the log. */
+    private final ChangeLog.Subscription subscription;
+
+    /**
+     * Constructs an EventBroadcaster following the new events of a log, with the
+     * default send timeout.
+     *
+     * @param name       the name of the broadcaster's threads and metrics
+     * @param log        the log the events come from
+     * @param filter     selects the events sent to clients
+     * @param bufferSize the number of events buffered per client
+     */
+    public EventBroadcaster(String name, ChangeLog log, Predicate<ChangeEvent> filter, int bufferSize) {
+        this(name, log, filter, bufferSize, DEFAULT_SEND_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs an EventBroadcaster following the new events of a log.
+     *
+     * @param name              the name of the broadcaster's threads and metrics
+     * @param log               the log the events come from
+     * @param filter            selects the events sent to clients
+     * @param bufferSize        the number of events buffered per client
+     * @param sendTimeoutMillis the time a send may block before its client is
+     *                          disconnected
+     */
+    public EventBroadcaster(String name, ChangeLog log, Predicate<ChangeEvent> filter, int bufferSize,
+            long sendTimeoutMillis) {
+        this.name = name;
+        this.log = log;
+        this.filter = filter;
+        this.bufferSize = bufferSize;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.fanOut = Executors.newSingleThreadExecutor(daemon("sse-" + name + "-fanout"));
+        this.senders = Executors.newFixedThreadPool(SENDER_THREADS, daemon("sse-" + name + "-sender"));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("sse-" + name + "-heartbeat"));
+        heartbeats.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        long stallCheckMillis = Math.max(1, sendTimeoutMillis / 2);
+        heartbeats.scheduleAtFixedRate(this::disconnectStalledClients, stallCheckMillis, stallCheckMillis,
+                TimeUnit.MILLISECONDS);
+        this.subscription = log.subscribe(log.lastSequence() + 1, this::publish);
+
+        String prefix = "sse." + name;
+        Metrics.gauge(prefix + ".clients", subscribers::size);
+    }
+
+    /**
+     * Keeps a client's stream open and starts sending it events. If the client
+     * sent a Last-Event-ID header, the events after it are replayed first.
+     *
+     * @param client the client that connected
+     */
+    public void connect(SseClient client) {
+        client.keepAlive();
+        Subscriber subscriber = new Subscriber(client);
+        subscribers.put(client, subscriber);
+        client.onClose(() -> subscribers.remove(client));
+
+        Long lastEventId = parseLastEventId(client.ctx().header("Last-Event-ID"));
+        if (lastEventId != null) {
+            replay(subscriber, lastEventId);
+        }
+        subscriber.ready();
+    }
+
+    /**
+     * @return the number of connected clients
+     */
+    public int clientCount() {
+        return subscribers.size();
+    }
+
+    /** Stops following the log and disconnects every client. */
+    @Override
+    public void close() {
+        subscription.close();
+        heartbeats.shutdownNow();
+        fanOut.shutdownNow();
+        subscribers.keySet().forEach(SseClient::close);
+        senders.shutdownNow();
+    }
+
+    /**
+     * Sends a resuming client the retained events after the last one it
+     * received. Events published meanwhile wait in its buffer.
+     */
+    private void replay(Subscriber subscriber, long lastEventId) {
+        List<ChangeEvent> oldest = log.read(0, 1);
+        if (!oldest.isEmpty() && oldest.get(0).getSequence() > lastEventId + 1) {
+            subscriber.client.sendEvent("reset", "Events after " + lastEventId + " are no longer available",
+                    String.valueOf(lastEventId));
+        }
+        long next = lastEventId + 1;
+        List<ChangeEvent> batch;
+        while (!subscriber.client.terminated() && !(batch = log.read(next, REPLAY_BATCH)).isEmpty()) {
+            for (ChangeEvent event : batch) {
+                if (filter.test(event)) {
+                    subscriber.send(event);
+                }
+            }
+            next = batch.get(batch.size() - 1).getSequence() + 1;
+        }
+    }
+
+    /** Receives a new event from the log, on the appending thread. */
+    private void publish(ChangeEvent event) {
+        if (filter.test(event)) {
+            fanOut.execute(() -> subscribers.values().forEach(subscriber -> subscriber.offer(event)));
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers.values()) {
+            senders.execute(subscriber::sendHeartbeat);
+        }
+    }
+
+    /**
+     * Disconnects the clients a send has been blocked on for longer than the
+     * send timeout. Their connection is aborted rather than closed, since only
+     * an abort fails the blocked write.
+     */
+    private void disconnectStalledClients() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.stalled(now) && subscribers.remove(subscriber.client) != null) {
+                Metrics.increment("sse." + name + ".stalledClientsDisconnected");
+                Request request = Request.getBaseRequest(subscriber.client.ctx().req());
+                if (request != null) {
+                    request.getHttpChannel().abort(new TimeoutException("Send blocked for over "
+                            + sendTimeoutMillis + " ms"));
+                } else {
+                    subscriber.client.close();
+                }
+            }
+        }
+    }
+
+    private static Long parseLastEventId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger number = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** A connected client and its buffer of events not sent yet. */
+    private final class Subscriber {
+
+        private final SseClient client;
+
+        private final BlockingQueue<ChangeEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        /** Set while a drain of the buffer is scheduled or running. */
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+
+        /** The sequence number of the last event sent. */
+        private long lastSent;
+
+        /** The time the send in progress started, or 0 if no send is in progress. */
+        private volatile long sendStarted;
+
+        private Subscriber(SseClient client) {
+            this.client = client;
+        }
+
+        /** Buffers an event, disconnecting the client if its buffer is full. */
+        private void offer(ChangeEvent event) {
+            if (!buffer.offer(event)) {
+                Metrics.increment("sse." + name + ".slowClientsDisconnected");
+                subscribers.remove(client);
+                senders.execute(client::close);
+                return;
+            }
+            scheduleDrain();
+        }
+
+        /** Allows buffered events to be sent once the replay is over. */
+        private void ready() {
+            draining.set(false);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            ChangeEvent event;
+            while ((event = buffer.poll()) != null) {
+                if (event.getSequence() > lastSent) {
+                    send(event);
+                }
+            }
+            draining.set(false);
+            scheduleDrain();
+        }
+
+        private synchronized void send(ChangeEvent event) {
+            if (client.terminated()) {
+                return;
+            }
+            sendStarted = System.currentTimeMillis();
+            try {
+                client.sendEvent(event.getOperation(), event, String.valueOf(event.getSequence()));
+            } finally {
+                sendStarted = 0;
+            }
+            lastSent = event.getSequence();
+            Metrics.increment("sse." + name + ".sent");
+        }
+
+        private synchronized void sendHeartbeat() {
+            if (!client.terminated()) {
+                sendStarted = System.currentTimeMillis();
+                try {
+                    client.sendComment("heartbeat");
+                } finally {
+                    sendStarted = 0;
+                }
+            }
+        }
+
+        /**
+         * @param now the current time
+         * @return true if a send has been blocked on the client for longer than
+         *         the send timeout
+         */
+        private boolean stalled(long now) {
+            long started = sendStarted;
+            return started != 0 && now - started > sendTimeoutMillis;
+        }
+    }
+}
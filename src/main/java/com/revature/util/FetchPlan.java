@@ -0,0 +1,139 @@
+package com.revature.util;
+
+import java.util.Locale;
+
+/**
+ * The FetchPlan class tells RecipeDAO which parts of a recipe to read along
+ * with its id and name. The instructions, the author and the ingredients are
+ * each fetched in one of three ways:
+ *
+ * <ul>
+ * <li>EAGER parts are read before the recipes are returned.</li>
+ * <li>LAZY parts are read the first time a getter asks for them. The parts of a
+ * whole page of recipes are then read at once, so touching the same part of
+ * every recipe still costs a single query.</li>
+ * <li>SKIP parts are never read. Skipped instructions and ingredients are null,
+ * and a skipped author is a Chef holding only its id.</li>
+ * </ul>
+ *
+ * Whatever the plan, the parts are only read for the recipes of the requested
+ * page, never for every row matching the query.
+ */
+public final class FetchPlan {
+
+    /** How a part of a recipe is fetched. */
+    public enum Fetch {
+        EAGER, LAZY, SKIP
+    }
+
+    /** The name of the instructions part in a fetch parameter. */
+    public static final String INSTRUCTIONS = "instructions";
+
+    /** The name of the author part in a fetch parameter. */
+    public static final String AUTHOR = "author";
+
+    /** The name of the ingredients part in a fetch parameter. */
+    public static final String INGREDIENTS = "ingredients";
+
+    /**
+     * The plan matching the full Recipe listings: the instructions and the
+     * author are read, the ingredients are not.
+     */
+    public static final FetchPlan DETAIL = new FetchPlan(Fetch.EAGER, Fetch.EAGER, Fetch.SKIP);
+
+    /** The plan of list views, which read only the id, name and author id. */
+    public static final FetchPlan LIST = new FetchPlan(Fetch.SKIP, Fetch.SKIP, Fetch.SKIP);
+
+    /** The plan reading every part only when it is asked for. */
+    public static final FetchPlan LAZY = new FetchPlan(Fetch.LAZY, Fetch.LAZY, Fetch.LAZY);
+
+    private final Fetch instructions;
+    private final Fetch author;
+    private final Fetch ingredients;
+
+    /**
+     * Constructs a FetchPlan.
+     *
+     * @param instructions how the instructions are fetched
+     * @param author       how the author is fetched
+     * @param ingredients  how the ingredients are fetched
+     */
+    public FetchPlan(Fetch instructions, Fetch author, Fetch ingredients) {
+        this.instructions = instructions;
+        this.author = author;
+        this.ingredients = ingredients;
+    }
+
+    /**
+     * Parses a fetch parameter such as "author,ingredients". The parts listed
+     * are fetched eagerly and the others are skipped, since a response must not
+     * trigger lazy reads while it is written. Names are matched
+     * case-insensitively and may be listed in any order or repeated.
+     *
+     * @param parts a comma-separated list of part names, or null or blank for
+     *              the LIST plan
+     * @return the plan
+     * @throws IllegalArgumentException if a name is not a part of a recipe
+     */
+    public static FetchPlan parse(String parts) {
+        if (parts == null || parts.isBlank()) {
+            return LIST;
+        }
+        Fetch instructions = Fetch.SKIP;
+        Fetch author = Fetch.SKIP;
+        Fetch ingredients = Fetch.SKIP;
+        for (String part : parts.split(",")) {
+            switch (part.trim().toLowerCase(Locale.ROOT)) {
+                case INSTRUCTIONS -> instructions = Fetch.EAGER;
+                case AUTHOR -> author = Fetch.EAGER;
+                case INGREDIENTS -> ingredients = Fetch.EAGER;
+                default -> throw new IllegalArgumentException("Unknown fetch part: " + part.trim());
+            }
+        }
+        return new FetchPlan(instructions, author, ingredients);
+    }
+
+    /**
+     * @return how the instructions are fetched
+     */
+    public Fetch getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * @return how the author is fetched
+     */
+    public Fetch getAuthor() {
+        return author;
+    }
+
+    /**
+     * @return how the ingredients are fetched
+     */
+    public Fetch getIngredients() {
+        return ingredients;
+    }
+
+    @Override
+    public int hashCode() {
+        return (instructions.hashCode() * 31 + author.hashCode()) * 31 + ingredients.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        FetchPlan plan = (FetchPlan) obj;
+        return instructions == plan.instructions && author == plan.author && ingredients == plan.ingredients;
+    }
+
+    /**
+     * @return the plan as "instructions=EAGER,author=EAGER,ingredients=SKIP",
+     *         usable in cache keys
+     */
+    @Override
+    public String toString() {
+        return INSTRUCTIONS + "=" + instructions + "," + AUTHOR + "=" + author + "," + INGREDIENTS + "="
+                + ingredients;
+    }
+}
@@ -0,0 +1,236 @@
+package com.revature.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The FieldSet class describes the fields of an entity that clients may select
+ * with a sparse fieldset ({@code fields=id,name}). Each field is registered
+ * with the database column it is read from, a reader that copies the column
+ * into the entity, and a getter used when writing the field to JSON.
+ *
+ * A selection is compiled once into a Projection holding the SQL column list,
+ * the readers in column order and the getters in output order. Projections are
+ * cached by the normalized field combination, so requests only parse the
+ * parameter and look the projection up; no reflection is involved in mapping
+ * rows or in building the JSON output. Since the cache key is the combination
+ * of registered fields, the cache can never hold more entries than there are
+ * combinations.
+ *
+ * @param <T> the type of entity described
+ */
+public class FieldSet<T> {
+
+    /**
+     * Copies one column of the current row into an entity.
+     *
+     * @param <T> the type of entity read into
+     */
+    @FunctionalInterface
+    public interface ColumnReader<T> {
+        void read(T target, ResultSet set, int column) throws SQLException;
+    }
+
+    /** A registered field. */
+    private static final class Field<T> {
+        private final String name;
+        private final String column;
+        private final Function<T, Object> getter;
+        private final ColumnReader<T> reader;
+
+        private Field(String name, String column, Function<T, Object> getter, ColumnReader<T> reader) {
+            this.name = name;
+            this.column = column;
+            this.getter = getter;
+            this.reader = reader;
+        }
+    }
+
+    /** Creates an empty entity to read a row into. */
+    private final Supplier<T> factory;
+
+    /** The registered fields in declaration order, indexed by lower-case name. */
+    private final Map<String, Field<T>> fields = new LinkedHashMap<>();
+
+    /** The compiled projections, indexed by normalized field combination. */
+    private final Map<String, Projection<T>> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an empty FieldSet. Fields are added with
+     * {@link #field(String, String, Function, ColumnReader)}.
+     *
+     * @param name    the name under which the number of compiled projections is
+     *                published as the gauge "fieldSet.{name}.compiled"
+     * @param factory creates an empty entity to read a row into
+     */
+    public FieldSet(String name, Supplier<T> factory) {
+        this.factory = factory;
+        Metrics.gauge("fieldSet." + name + ".compiled", compiled::size);
+    }
+
+    /**
+     * Registers a field. Fields must all be registered before the first
+     * projection is compiled.
+     *
+     * @param name   the name of the field in JSON output and in the fields
+     *               parameter
+     * @param column the database column the field is read from
+     * @param getter reads the field from an entity for JSON output
+     * @param reader copies the column into an entity
+     * @return this FieldSet
+     */
+    public FieldSet<T> field(String name, String column, Function<T, Object> getter, ColumnReader<T> reader) {
+        fields.put(name.toLowerCase(Locale.ROOT), new Field<>(name, column, getter, reader));
+        return this;
+    }
+
+    /**
+     * @return the projection of every registered field, in declaration order
+     */
+    public Projection<T> all() {
+        return compiled.computeIfAbsent("*", key -> new Projection<>(factory, new ArrayList<>(fields.values())));
+    }
+
+    /**
+     * Compiles, or looks up, the projection of a fields parameter. Names are
+     * matched case-insensitively and may be listed in any order or repeated.
+     *
+     * @param fields a comma-separated list of field names, or null or blank for
+     *               every field
+     * @return the projection of the selected fields, in declaration order
+     * @throws IllegalArgumentException if a name is not a registered field
+     */
+    public Projection<T> select(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return all();
+        }
+        Set<String> names = new TreeSet<>();
+        for (String name : fields.split(",")) {
+            String normalized = name.trim().toLowerCase(Locale.ROOT);
+            if (!this.fields.containsKey(normalized)) {
+                throw new IllegalArgumentException("Unknown field: " + name.trim());
+            }
+            names.add(normalized);
+        }
+        if (names.size() == this.fields.size()) {
+            return all();
+        }
+        return compiled.computeIfAbsent(String.join(",", names), key -> {
+            List<Field<T>> selected = new ArrayList<>();
+            for (Map.Entry<String, Field<T>> entry : this.fields.entrySet()) {
+                if (names.contains(entry.getKey())) {
+                    selected.add(entry.getValue());
+                }
+            }
+            return new Projection<>(factory, selected);
+        });
+    }
+
+    /**
+     * A compiled selection of fields.
+     *
+     * @param <T> the type of entity projected
+     */
+    public static final class Projection<T> {
+        private final Supplier<T> factory;
+        private final List<Field<T>> fields;
+        private final String columns;
+        private final Set<String> names;
+
+        private Projection(Supplier<T> factory, List<Field<T>> fields) {
+            this.factory = factory;
+            this.fields = fields;
+            List<String> columns = new ArrayList<>();
+            Set<String> names = new TreeSet<>();
+            for (Field<T> field : fields) {
+                columns.add(field.column);
+                names.add(field.name);
+            }
+            this.columns = String.join(", ", columns);
+            this.names = Collections.unmodifiableSet(names);
+        }
+
+        /**
+         * @return the SQL column list of the selected fields, such as "id, name"
+         */
+        public String columns() {
+            return columns;
+        }
+
+        /**
+         * @return the names of the selected fields
+         */
+        public Set<String> names() {
+            return names;
+        }
+
+        /**
+         * @param name the name of a field
+         * @return true if the field is selected
+         */
+        public boolean includes(String name) {
+            return names.contains(name);
+        }
+
+        /**
+         * Reads the current row of a result set produced by a query selecting
+         * {@link #columns()}. Fields that are not selected keep their default
+         * values.
+         *
+         * @param set the result set positioned on a row
+         * @return a new entity holding the selected fields
+         * @throws SQLException if there is an error accessing the ResultSet
+         */
+        public T map(ResultSet set) throws SQLException {
+            T target = factory.get();
+            for (int i = 0; i < fields.size(); i++) {
+                fields.get(i).reader.read(target, set, i + 1);
+            }
+            return target;
+        }
+
+        /**
+         * @param item the entity to write
+         * @return the selected fields of the entity, in declaration order
+         */
+        public Map<String, Object> toJson(T item) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            for (Field<T> field : fields) {
+                json.put(field.name, field.getter.apply(item));
+            }
+            return json;
+        }
+
+        /**
+         * @param items the entities to write
+         * @return the selected fields of each entity
+         */
+        public List<Map<String, Object>> toJson(List<T> items) {
+            List<Map<String, Object>> json = new ArrayList<>(items.size());
+            for (T item : items) {
+                json.add(toJson(item));
+            }
+            return json;
+        }
+
+        /**
+         * @param page the page of entities to write
+         * @return the same page holding the selected fields of each entity
+         */
+        public Page<Map<String, Object>> toJson(Page<T> page) {
+            return new Page<>(page.getPageNumber(), page.getPageSize(), page.getTotalPages(),
+                    page.getTotalElements(), toJson(page.getItems()));
+        }
+    }
+}
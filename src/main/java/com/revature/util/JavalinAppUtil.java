@@ -3,6 +3,9 @@ import com.revature.controller.RecipeController;
 
 import io.javalin.Javalin;
 
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
 import com.revature.controller.AuthenticationController;
 import com.revature.controller.IngredientController;
 
@@ -19,6 +22,13 @@ import com.revature.controller.IngredientController;
 
 public class JavalinAppUtil {
 
+    /**
+     * The number of Jetty threads serving requests. Requests arriving while
+     * every thread is busy wait in the pool's queue, whose depth is published
+     * as "admission.queueDepth".
+     */
+    private static final int MAX_THREADS = 250;
+
     /**
      * The RecipeController for handling recipe-related routes.
      */
@@ -37,6 +47,13 @@ public class JavalinAppUtil {
 
     private IngredientController ingredientController;
 
+    /**
+     * The AdmissionMiddleware for shedding load when the server is at capacity.
+     */
+
+    private AdmissionMiddleware admissionMiddleware = new AdmissionMiddleware(
+            new ConcurrencyLimiter(64, 8, 512, 500, 100));
+
     /**
      * Constructs a JavalinAppUtil with the specified controllers.
      *
@@ -59,7 +76,11 @@ public class JavalinAppUtil {
      */
 	
     public Javalin getApp() {
+        // a pool of platform threads, rather than Javalin's virtual threads, so requests queue visibly
+        QueuedThreadPool threadPool = new QueuedThreadPool(MAX_THREADS, 8, 60_000);
+        threadPool.setName("JettyServerThreadPool");
         Javalin app = Javalin.create(config -> {
+            config.jetty.server(() -> new Server(threadPool));
             config.plugins.enableCors(cors -> {
                 cors.add(it -> {
                     it.anyHost();
@@ -70,11 +91,26 @@ public class JavalinAppUtil {
             
         });
 
+        // Admit requests through the adaptive concurrency limiter
+        app.before(admissionMiddleware);
+        app.after(admissionMiddleware::complete);
+        Metrics.gaugeIfAbsent("admission.queueDepth", threadPool::getQueueSize);
+
+        // Identify the client's session so its reads follow its own writes
+        app.before(ctx -> ReadSession.enter(ctx.header("Authorization")));
+        app.after(ctx -> ReadSession.exit());
+
         // Configure routes for each controller
         recipeController.configureRoutes(app);
         authenticationController.configureRoutes(app);
         ingredientController.configureRoutes(app);
 
+        // Reject invalid options, such as unknown sort columns, before they reach the database
+        app.exception(IllegalArgumentException.class, (e, ctx) -> ctx.status(400).result(e.getMessage()));
+
+        // Expose the in-process metrics registry
+        app.get("/metrics", ctx -> ctx.json(Metrics.snapshot()));
+
         app.before("/recipes/*", new AdminMiddleware("DELETE"));
         app.before("/ingredients/*", new AdminMiddleware("UPDATE", "CREATE", "DELETE"));
 
@@ -0,0 +1,96 @@
+package com.revature.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The Metrics class is a small in-process registry of named counters and
+ * gauges. Components such as caches and limiters register their figures here,
+ * and JavalinAppUtil exposes a point-in-time snapshot of every registered value
+ * through the GET /metrics route.
+ *
+ * Counters are backed by LongAdder so they can be incremented from many request
+ * threads without contention. Gauges are suppliers that are only evaluated when
+ * a snapshot is taken. Latencies are recorded as a pair of counters holding the
+ * number of samples and their total duration, from which the mean follows.
+ */
+public class Metrics {
+
+    /** The registered counters, indexed by metric name. */
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /** The registered gauges, indexed by metric name. */
+    private static final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Retrieves the counter with the given name, creating it if necessary.
+     *
+     * @param name the name of the counter
+     * @return the counter registered under the given name
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Increments the counter with the given name by one.
+     *
+     * @param name the name of the counter
+     */
+    public static void increment(String name) {
+        counter(name).increment();
+    }
+
+    /**
+     * Records one latency sample under the given name, adding it to the counters
+     * "{name}.count" and "{name}.micros".
+     *
+     * @param name  the name of the latency
+     * @param nanos the duration of the sample, in nanoseconds
+     */
+    public static void record(String name, long nanos) {
+        counter(name + ".count").increment();
+        counter(name + ".micros").add(nanos / 1000);
+    }
+
+    /**
+     * Registers a gauge under the given name. A gauge registered under an
+     * existing name replaces the previous one.
+     *
+     * @param name     the name of the gauge
+     * @param supplier the supplier evaluated whenever a snapshot is taken
+     */
+    public static void gauge(String name, Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Registers a gauge under the given name unless one is registered already,
+     * so a component created several times under one name keeps publishing the
+     * first instance rather than whichever was created last.
+     *
+     * @param name     the name of the gauge
+     * @param supplier the supplier evaluated whenever a snapshot is taken
+     */
+    public static void gaugeIfAbsent(String name, Supplier<? extends Number> supplier) {
+        gauges.putIfAbsent(name, supplier);
+    }
+
+    /**
+     * Takes a snapshot of every registered counter and gauge.
+     *
+     * @return a map of metric names to their current values, sorted by name
+     */
+    public static Map<String, Number> snapshot() {
+        Map<String, Number> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> snapshot.put(name, gauge.get()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,333 @@
+package com.revature.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The OffHeapTextStore class keeps large strings outside the Java heap, so a
+ * cache holding many of them does not fill the old generation and lengthen
+ * garbage collection pauses.
+ *
+ * Texts are encoded as UTF-8 and appended to slabs, direct ByteBuffers of a
+ * fixed size; a text larger than a slab gets a slab of its own. A text is
+ * referred to by an int handle indexing a table of primitive arrays that holds
+ * its slab, offset and lengths. When compression is enabled, texts of at least
+ * COMPRESSION_THRESHOLD bytes are compressed with the fastest Deflater level
+ * and kept compressed if that saves space.
+ *
+ * Slabs are never written twice: a freed text only reduces the live bytes of
+ * its slab. Once a full slab is less than a quarter live, its live texts are
+ * copied to the current slab and the slab is dropped, so its direct memory is
+ * released when the garbage collector reclaims it. A reader holding a view of
+ * a text therefore keeps reading the bytes it was given, even if the text is
+ * freed or moved meanwhile.
+ *
+ * Allocated and live bytes are published through the Metrics registry under
+ * the prefix "offHeapText.{name}".
+ */
+public class OffHeapTextStore {
+
+    /** The default size of a slab. */
+    public static final int DEFAULT_SLAB_BYTES = 1 << 20;
+
+    /** The size from which texts are compressed when compression is enabled. */
+    public static final int COMPRESSION_THRESHOLD = 512;
+
+    /** The handle of a null text. */
+    public static final int NULL = -1;
+
+    /** The size of a regular slab. */
+    private final int slabBytes;
+
+    /** Whether large texts are compressed. */
+    private final boolean compress;
+
+    /** The slabs, indexed by slab number; dropped slabs are null. */
+    private final List<Slab> slabs = new ArrayList<>();
+
+    /** The slab texts are appended to. */
+    private Slab current;
+
+    /** The slab number of each handle, or -1 for a free handle. */
+    private int[] slabOf = new int[16];
+
+    /** The offset of each text in its slab. */
+    private int[] offsetOf = new int[16];
+
+    /** The number of bytes stored for each text. */
+    private int[] storedLength = new int[16];
+
+    /** The UTF-8 length of each text, or -1 if it is stored uncompressed. */
+    private int[] rawLength = new int[16];
+
+    /** The free handles, reused before new ones. */
+    private int[] freeHandles = new int[16];
+
+    private int freeCount;
+
+    /** The number of handles ever allocated. */
+    private int handleCount;
+
+    /** The total size of the slabs held. */
+    private long allocatedBytes;
+
+    /** The total size of the texts held. */
+    private long liveBytes;
+
+    /**
+     * Constructs an empty store and registers its metrics.
+     *
+     * @param name      the name used as the metrics prefix
+     * @param slabBytes the size of a slab
+     * @param compress  whether texts of at least COMPRESSION_THRESHOLD bytes are
+     *                  compressed
+     */
+    public OffHeapTextStore(String name, int slabBytes, boolean compress) {
+        this.slabBytes = slabBytes;
+        this.compress = compress;
+        String prefix = "offHeapText." + name;
+        Metrics.gauge(prefix + ".allocatedBytes", this::allocatedBytes);
+        Metrics.gauge(prefix + ".liveBytes", this::liveBytes);
+    }
+
+    /**
+     * Stores a text.
+     *
+     * @param text the text, or null
+     * @return the handle of the text, or NULL for a null text
+     */
+    public int put(String text) {
+        if (text == null) {
+            return NULL;
+        }
+        // encode and compress outside the lock
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = encoded;
+        int raw = -1;
+        if (compress && encoded.length >= COMPRESSION_THRESHOLD) {
+            byte[] compressed = deflate(encoded);
+            if (compressed != null) {
+                stored = compressed;
+                raw = encoded.length;
+            }
+        }
+        synchronized (this) {
+            int handle = freeCount > 0 ? freeHandles[--freeCount] : newHandle();
+            place(handle, stored, raw);
+            return handle;
+        }
+    }
+
+    /**
+     * Reads a text.
+     *
+     * @param handle the handle of the text
+     * @return the text, or null for the NULL handle
+     */
+    public String get(int handle) {
+        return handle == NULL ? null : view(handle).get();
+    }
+
+    /**
+     * Captures a text without decoding it. The view decodes the text each time
+     * it is read and stays readable after the text is freed.
+     *
+     * @param handle the handle of the text
+     * @return a supplier of the text
+     */
+    public Supplier<String> view(int handle) {
+        if (handle == NULL) {
+            return () -> null;
+        }
+        ByteBuffer bytes;
+        int raw;
+        synchronized (this) {
+            Slab slab = slabs.get(slabOf[handle]);
+            bytes = slab.buffer.asReadOnlyBuffer().slice(offsetOf[handle], storedLength[handle]);
+            raw = rawLength[handle];
+        }
+        return () -> decode(bytes.duplicate(), raw);
+    }
+
+    /**
+     * Frees a text. Views of it taken before stay readable.
+     *
+     * @param handle the handle of the text, or NULL
+     */
+    public synchronized void free(int handle) {
+        if (handle == NULL || slabOf[handle] < 0) {
+            return;
+        }
+        Slab slab = slabs.get(slabOf[handle]);
+        slab.live -= storedLength[handle];
+        liveBytes -= storedLength[handle];
+        slabOf[handle] = -1;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+
+        if (slab != current && slab.live < slab.buffer.capacity() / 4) {
+            relocate(slab);
+        }
+    }
+
+    /** Frees every text and drops every slab. */
+    public synchronized void clear() {
+        slabs.clear();
+        current = null;
+        Arrays.fill(slabOf, 0, handleCount, -1);
+        freeCount = 0;
+        for (int handle = handleCount - 1; handle >= 0; handle--) {
+            if (freeCount == freeHandles.length) {
+                freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+            }
+            freeHandles[freeCount++] = handle;
+        }
+        allocatedBytes = 0;
+        liveBytes = 0;
+    }
+
+    /**
+     * @return the total size of the slabs held outside the heap
+     */
+    public synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the total size of the texts held, as stored
+     */
+    public synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+    /** Copies stored bytes to a slab with room for them and records them under a handle. */
+    private void place(int handle, byte[] stored, int raw) {
+        Slab slab;
+        if (stored.length > slabBytes) {
+            slab = addSlab(stored.length);
+        } else {
+            if (current == null || current.buffer.remaining() < stored.length) {
+                Slab full = current;
+                current = addSlab(slabBytes);
+                if (full != null && full.live < full.buffer.capacity() / 4) {
+                    relocate(full);
+                }
+            }
+            slab = current;
+        }
+        int offset = slab.buffer.position();
+        slab.buffer.put(stored);
+        slab.live += stored.length;
+        liveBytes += stored.length;
+        slabOf[handle] = slab.number;
+        offsetOf[handle] = offset;
+        storedLength[handle] = stored.length;
+        rawLength[handle] = raw;
+    }
+
+    /** Moves the live texts of a full slab to the current slab and drops it. */
+    private void relocate(Slab slab) {
+        slabs.set(slab.number, null);
+        allocatedBytes -= slab.buffer.capacity();
+        liveBytes -= slab.live;
+        // collect the handles first, since the slab's number may be reused by a new slab
+        int[] moved = new int[handleCount];
+        int count = 0;
+        for (int handle = 0; handle < handleCount; handle++) {
+            if (slabOf[handle] == slab.number) {
+                moved[count++] = handle;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int handle = moved[i];
+            byte[] stored = new byte[storedLength[handle]];
+            slab.buffer.get(offsetOf[handle], stored);
+            place(handle, stored, rawLength[handle]);
+        }
+    }
+
+    private Slab addSlab(int size) {
+        int number = slabs.indexOf(null);
+        if (number < 0) {
+            number = slabs.size();
+            slabs.add(null);
+        }
+        Slab slab = new Slab(number, ByteBuffer.allocateDirect(size));
+        slabs.set(number, slab);
+        allocatedBytes += size;
+        return slab;
+    }
+
+    private int newHandle() {
+        if (handleCount == slabOf.length) {
+            int capacity = handleCount * 2;
+            slabOf = Arrays.copyOf(slabOf, capacity);
+            offsetOf = Arrays.copyOf(offsetOf, capacity);
+            storedLength = Arrays.copyOf(storedLength, capacity);
+            rawLength = Arrays.copyOf(rawLength, capacity);
+        }
+        return handleCount++;
+    }
+
+    /** @return the compressed bytes, or null if compressing saves nothing */
+    private static byte[] deflate(byte[] encoded) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(encoded);
+            deflater.finish();
+            byte[] compressed = new byte[encoded.length];
+            int length = deflater.deflate(compressed);
+            return deflater.finished() && length < encoded.length ? Arrays.copyOf(compressed, length) : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String decode(ByteBuffer stored, int raw) {
+        if (raw < 0) {
+            byte[] bytes = new byte[stored.remaining()];
+            stored.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(stored);
+            byte[] bytes = new byte[raw];
+            int length = 0;
+            while (length < raw && !inflater.finished()) {
+                length += inflater.inflate(bytes, length, raw - length);
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt off-heap text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /** A slab of texts. */
+    private static final class Slab {
+
+        private final int number;
+
+        /** The slab's memory; its position is where the next text is appended. */
+        private final ByteBuffer buffer;
+
+        /** The number of bytes of live texts in the slab. */
+        private int live;
+
+        private Slab(int number, ByteBuffer buffer) {
+            this.number = number;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.revature.util;
 import java.util.List;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * The Page class represents a paginated collection of items, along with 
  * metadata that facilitates a fluid paging experience for users. This 
@@ -13,6 +15,9 @@ import java.util.Objects;
  * hashCode methods, which are essential for comparing Page objects 
  * and storing them in collections.
  *
+ * The totals of a search may be estimated rather than counted; such a page
+ * is marked approximate, and only then is the flag written to JSON.
+ *
  * You do not need to edit this class.
  * 
  * @param <E> the type of elements in the page
@@ -32,6 +37,9 @@ public class Page<E> {
     private int totalElements;
     /** The total number of elements across all pages. */
     private List<E> items;
+    /** Whether totalPages and totalElements are estimates. */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean approximate;
 
     // constructors
     public Page() {
@@ -87,6 +95,14 @@ public class Page<E> {
         this.items = items;
     }
 
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    public void setApproximate(boolean approximate) {
+        this.approximate = approximate;
+    }
+
     /**
      * Returns a hash code value for the Page object.
      *
@@ -94,7 +110,7 @@ public class Page<E> {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(pageNumber, pageSize, totalPages, totalElements, items);
+        return Objects.hash(pageNumber, pageSize, totalPages, totalElements, items, approximate);
     }
 
     /**
@@ -117,6 +133,7 @@ public class Page<E> {
                pageSize == page.pageSize &&
                totalPages == page.totalPages &&
                totalElements == page.totalElements &&
+               approximate == page.approximate &&
                Objects.equals(items, page.items);
     }
 }
\ No newline at end of file
@@ -1,13 +1,43 @@
 package com.revature.util;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * The PageOptions class is a Plain Old Java Object (POJO) that encapsulates the information necessary for creating paginated results. This class packages various options for pagination, such as the page number, page size, sorting criteria, and sorting direction. By encapsulating these options, the class allows for cleaner and more maintainable code by avoiding the need to pass multiple individual parameters to methods that support paging.
  * 
- * You do not need to edit this class.
+ * The sort options are compiled into an ORDER BY clause by
+ * {@link #toSql(String, Set)}. Sorting may use several comma-separated
+ * columns (for example "name,chef_id" with a direction of "asc,desc"), every
+ * column is validated against the calling entity's whitelist, and "id" is
+ * appended as a tie-breaker so paging is stable. Each statement and sort is
+ * compiled once and cached, so repeated requests skip validation and the
+ * database always sees the same statement text for the same sort and can
+ * reuse its plan.
  * 
  */
 public class PageOptions {
 
+    /** The column appended to every sort as a tie-breaker. */
+    private static final String TIE_BREAKER = "id";
+
+    /** The most statements and sorts kept compiled; any others are rebuilt on each call. */
+    private static final int MAX_COMPILED = 1_024;
+
+    /** Compiled SQL, indexed by the statement and sort options it was compiled from. */
+    private static final Map<CompiledSort, String> compiledSql = new ConcurrentHashMap<>();
+
+    /** Compiled SQL strings, indexed by their own text, so equal sorts share one instance. */
+    private static final Map<String, String> statements = new ConcurrentHashMap<>();
+
+    /** The statement and sort options a compiled statement was built from. */
+    private record CompiledSort(String baseSql, Set<String> sortableColumns, String sortBy, String sortDirection) {
+    }
+
     // fields
 
     /** The current page number. */
@@ -67,4 +97,90 @@ public class PageOptions {
     public void setSortDirection(String sortDirection) {
         this.sortDirection = sortDirection;
     }
+
+    /**
+     * Compiles the sort options into an ORDER BY clause appended to the given
+     * statement. The result is cached by statement and sort options, so a
+     * repeated sort is returned without being validated or built again, and the
+     * same sort always yields the same String instance.
+     *
+     * @param baseSql         the statement to append the ORDER BY clause to
+     * @param sortableColumns the lower-case columns the entity may be sorted by
+     * @return the statement with its ORDER BY clause
+     * @throws IllegalArgumentException if a column is not in the whitelist or a
+     *                                  direction is neither "asc" nor "desc"
+     */
+    public String toSql(String baseSql, Set<String> sortableColumns) {
+        CompiledSort key = new CompiledSort(baseSql, sortableColumns, sortBy, sortDirection);
+        String sql = compiledSql.get(key);
+        if (sql == null) {
+            sql = baseSql + " ORDER BY " + normalizeSort(sortableColumns);
+            sql = statements.computeIfAbsent(sql, text -> text);
+            if (compiledSql.size() < MAX_COMPILED) {
+                compiledSql.putIfAbsent(key, sql);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Validates the sort options and renders them as the body of an ORDER BY
+     * clause, such as "name ASC, id ASC".
+     */
+    private String normalizeSort(Set<String> sortableColumns) {
+        StringBuilder clause = new StringBuilder();
+        for (Map.Entry<String, String> entry : sortOrder(sortableColumns).entrySet()) {
+            if (clause.length() > 0) {
+                clause.append(", ");
+            }
+            clause.append(entry.getKey()).append(' ').append(entry.getValue());
+        }
+        return clause.toString();
+    }
+
+    /**
+     * Validates the sort options and returns the columns of the ORDER BY clause
+     * compiled by {@link #toSql(String, Set)}, including the tie-breaker, so
+     * rows sorted by several queries can be merged in the same order.
+     *
+     * @param sortableColumns the lower-case columns the entity may be sorted by
+     * @return the sort columns in order, mapped to "ASC" or "DESC"
+     * @throws IllegalArgumentException if a column is not in the whitelist or a
+     *                                  direction is neither "asc" nor "desc"
+     */
+    public Map<String, String> sortOrder(Set<String> sortableColumns) {
+        List<String> columns = split(sortBy);
+        List<String> directions = split(sortDirection);
+        if (directions.size() > 1 && directions.size() != columns.size()) {
+            throw new IllegalArgumentException("Expected one sort direction per sort column");
+        }
+
+        Map<String, String> sort = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i);
+            if (!sortableColumns.contains(column)) {
+                throw new IllegalArgumentException("Cannot sort by " + column);
+            }
+            String direction = directions.isEmpty() ? "asc" : directions.get(directions.size() == 1 ? 0 : i);
+            if (!direction.equals("asc") && !direction.equals("desc")) {
+                throw new IllegalArgumentException("Invalid sort direction " + direction);
+            }
+            sort.putIfAbsent(column, direction.toUpperCase());
+        }
+        sort.putIfAbsent(TIE_BREAKER, "ASC");
+        return sort;
+    }
+
+    /** Splits a comma-separated option into trimmed, lower-case parts. */
+    private static List<String> split(String option) {
+        List<String> parts = new ArrayList<>();
+        if (option != null) {
+            for (String part : option.split(",")) {
+                if (!part.trim().isEmpty()) {
+                    parts.add(part.trim().toLowerCase());
+                }
+            }
+        }
+        return parts;
+    }
 }
@@ -0,0 +1,260 @@
+package com.revature.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The PooledConnection class wraps a physical database connection held by the
+ * ConnectionUtil pool, together with a bounded, least-recently-used cache of the
+ * statements prepared on it.
+ *
+ * Callers receive a proxy for each lease. Closing the proxy returns the
+ * connection to the pool instead of closing it, and preparing a statement whose
+ * SQL text was prepared before on this connection returns the cached statement
+ * instead of parsing and planning it again. A cached statement is handed to one
+ * caller at a time: preparing the same SQL again while it is still open gives a
+ * fresh statement, closed physically with its proxy, so the two never share
+ * result sets. Closing a cached statement closes the result sets it handed out
+ * and clears its parameters and batch; the statement itself is physically
+ * closed when it is evicted or when the connection itself is discarded.
+ * Closing the connection proxy closes the statements it handed out.
+ */
+class PooledConnection {
+
+    /** The physical connection to the database. */
+    private final Connection physical;
+
+    /** The cached statements in access order, indexed by SQL text and key mode. */
+    private final Map<String, PreparedStatement> statements;
+
+    /** The cached statements handed out and not yet closed by their caller. */
+    private final Set<PreparedStatement> leased = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** The callback that takes this connection back into the pool. */
+    private final Consumer<PooledConnection> release;
+
+    /**
+     * Constructs a PooledConnection.
+     *
+     * @param physical           the physical connection to wrap
+     * @param statementCacheSize the maximum number of statements to cache
+     * @param release            the callback returning the connection to the
+     *                           pool
+     */
+    PooledConnection(Connection physical, int statementCacheSize, Consumer<PooledConnection> release) {
+        this.physical = physical;
+        this.release = release;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > statementCacheSize) {
+                    ConnectionUtil.STATEMENT_EVICTIONS.increment();
+                    // a leased statement is closed when its caller closes it
+                    if (!leased.contains(eldest.getValue())) {
+                        closeQuietly(eldest.getValue());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Leases the connection to a caller.
+     *
+     * @return a Connection proxy whose close method returns this connection to
+     *         the pool
+     */
+    Connection lease() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new LeaseHandler());
+    }
+
+    /**
+     * @return true if the physical connection can still be used
+     */
+    boolean isUsable() {
+        try {
+            return !physical.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /** Closes every cached statement and the physical connection. */
+    void discard() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        closeQuietly(physical);
+    }
+
+    /**
+     * @return the cached statement of the SQL text, or a new one if it is not
+     *         cached or already leased; a new statement is cached unless the
+     *         cached one is leased
+     */
+    private PreparedStatement prepare(String key, String sql, int autoGeneratedKeys) throws SQLException {
+        PreparedStatement statement = statements.get(key);
+        if (statement != null && !statement.isClosed()) {
+            if (leased.add(statement)) {
+                ConnectionUtil.STATEMENT_HITS.increment();
+                return statement;
+            }
+            ConnectionUtil.STATEMENT_MISSES.increment();
+            return physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        ConnectionUtil.STATEMENT_MISSES.increment();
+        statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(key, statement);
+        leased.add(statement);
+        return statement;
+    }
+
+    /**
+     * Takes back a statement whose caller closed it, closing it physically
+     * unless it is still cached.
+     *
+     * @param key       the SQL text and key mode of the statement
+     * @param statement the statement closed
+     * @throws SQLException if the statement could not be reset or closed
+     */
+    private void release(String key, PreparedStatement statement) throws SQLException {
+        if (leased.remove(statement) && statements.get(key) == statement) {
+            statement.clearParameters();
+            statement.clearBatch();
+        } else {
+            statement.close();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Handles calls on the Connection proxy given to one caller. */
+    private class LeaseHandler implements InvocationHandler {
+        private boolean closed;
+        /** The statements handed out during the lease, closed with the connection. */
+        private final List<PreparedStatement> handedOut = new ArrayList<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        for (PreparedStatement statement : handedOut) {
+                            statement.close();
+                        }
+                        if (!physical.getAutoCommit()) {
+                            physical.rollback();
+                            physical.setAutoCommit(true);
+                        }
+                        release.accept(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            if (method.getName().equals("prepareStatement") && args.length <= 2 && args[0] instanceof String
+                    && (args.length == 1 || args[1] instanceof Integer)) {
+                int autoGeneratedKeys = args.length == 1 ? java.sql.Statement.NO_GENERATED_KEYS : (Integer) args[1];
+                String key = autoGeneratedKeys + ":" + args[0];
+                PreparedStatement statement = prepare(key, (String) args[0], autoGeneratedKeys);
+                PreparedStatement handed = (PreparedStatement) Proxy.newProxyInstance(
+                        PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                        new StatementHandler(key, statement, (Connection) proxy));
+                handedOut.add(handed);
+                return handed;
+            }
+            return PooledConnection.invoke(physical, method, args);
+        }
+    }
+
+    /** Handles calls on a statement handed out during one lease. */
+    private class StatementHandler implements InvocationHandler {
+        private final String key;
+        private final PreparedStatement statement;
+        private final Connection connection;
+        /** The result sets handed out during the lease, closed with the statement. */
+        private final List<ResultSet> resultSets = new ArrayList<>();
+        private boolean closed;
+
+        private StatementHandler(String key, PreparedStatement statement, Connection connection) {
+            this.key = key;
+            this.statement = statement;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        for (ResultSet resultSet : resultSets) {
+                            resultSet.close();
+                        }
+                        resultSets.clear();
+                        release(key, statement);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement has been closed");
+                    }
+                    Object result = PooledConnection.invoke(statement, method, args);
+                    if (result instanceof ResultSet) {
+                        resultSets.add((ResultSet) result);
+                    }
+                    return result;
+            }
+        }
+    }
+}
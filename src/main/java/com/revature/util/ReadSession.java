@@ -0,0 +1,125 @@
+package com.revature.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The ReadSession class identifies the client on whose behalf the current
+ * thread reads and writes, so reads that follow a client's own write can be
+ * kept off read replicas that have not copied that write yet.
+ *
+ * A session is keyed by the client's Authorization token and is entered for
+ * each request by a before-handler; requests without a token have no session,
+ * and their reads may be served by any replica within the staleness bound.
+ * DatabaseExecutor carries the session of the submitting thread over to the
+ * thread running the work.
+ *
+ * The position of each session's last write, as counted by TableVersions, is
+ * kept for RETENTION_MILLIS. Replicas lagging further than that are never read
+ * from, so older writes are known to have been copied.
+ */
+public final class ReadSession {
+
+    /** The time a session's last write is remembered for. */
+    public static final long RETENTION_MILLIS = 60_000;
+
+    /** The number of remembered sessions above which expired ones are swept. */
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    /** The session of the current thread, or null. */
+    private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+    /** The last write of each session that wrote recently. */
+    private static final Map<String, Write> lastWrites = new ConcurrentHashMap<>();
+
+    private ReadSession() {
+    }
+
+    /** The position of a session's last write and when it happened. */
+    private record Write(long position, long nanos) {
+    }
+
+    /**
+     * Makes the given session the current thread's session.
+     *
+     * @param key the session key, or null for no session
+     */
+    public static void enter(String key) {
+        if (key == null || key.isBlank()) {
+            current.remove();
+        } else {
+            current.set(key);
+        }
+    }
+
+    /** Leaves the current thread's session. */
+    public static void exit() {
+        current.remove();
+    }
+
+    /**
+     * @return the current thread's session key, or null
+     */
+    public static String current() {
+        return current.get();
+    }
+
+    /**
+     * Wraps work so it runs in the session of the calling thread, whichever
+     * thread it runs on.
+     *
+     * @param <T>  the type of the result
+     * @param work the work to run
+     * @return the work, running in the caller's session
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        String key = current.get();
+        if (key == null) {
+            return work;
+        }
+        return () -> {
+            String previous = current.get();
+            current.set(key);
+            try {
+                return work.get();
+            } finally {
+                enter(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the write position a replica must have copied for the current
+     *         session to read its own writes from it, or 0 if there is none
+     */
+    public static long requiredPosition() {
+        String key = current.get();
+        Write write = key == null ? null : lastWrites.get(key);
+        if (write == null || elapsedMillis(write) > RETENTION_MILLIS) {
+            return 0;
+        }
+        return write.position();
+    }
+
+    /**
+     * Records a write of the current session.
+     *
+     * @param position the write position after the write
+     */
+    static void recordWrite(long position) {
+        String key = current.get();
+        if (key == null) {
+            return;
+        }
+        Write write = new Write(position, System.nanoTime());
+        lastWrites.merge(key, write, (old, latest) -> old.position() > latest.position() ? old : latest);
+        if (lastWrites.size() > SWEEP_THRESHOLD) {
+            lastWrites.values().removeIf(old -> elapsedMillis(old) > RETENTION_MILLIS);
+        }
+    }
+
+    private static long elapsedMillis(Write write) {
+        return (System.nanoTime() - write.nanos()) / 1_000_000;
+    }
+}
@@ -0,0 +1,497 @@
+package com.revature.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.revature.model.SimilarRecipe;
+
+/**
+ * The RecipeSimilarityIndex class finds the recipes whose ingredient sets are
+ * most alike, measured by their Jaccard similarity: the number of ingredients
+ * two recipes share divided by the number of ingredients either of them uses.
+ *
+ * Comparing a recipe with every other one costs a pass over the catalog. The
+ * index instead gives each recipe a MinHash signature of {@value #HASHES}
+ * values, the smallest hash of its ingredient ids under each of as many hash
+ * functions; two recipes agree on any one value with a probability equal to
+ * their similarity. The signature is cut into {@value #BANDS} bands of
+ * {@value #ROWS} values, and each band is hashed into a bucket, so recipes
+ * sharing a bucket agree on a whole band. A lookup takes the recipes sharing
+ * at least one bucket with the recipe as candidates and ranks them by their
+ * exact similarity. Recipes sharing a third of their ingredients are found
+ * with a probability of 98%, a quarter with 87%, and recipes with nothing in
+ * common are never read. Ingredient sets are small, so the bands are short
+ * enough to catch such loose matches.
+ *
+ * A lookup reads at most {@value #MAX_CANDIDATES} bucket entries, shared out
+ * among the recipe's buckets from the smallest to the largest: each bucket
+ * gets an equal part of what is left, so a bucket crowded with recipes using
+ * the same few common ingredients cannot crowd out the other bands, and the
+ * entries the small buckets leave unread go to the larger ones. The exact
+ * similarity is computed for at most {@value #MAX_SCORED} candidates, those
+ * sharing the most bands with the recipe first, since the more bands two
+ * recipes share the more alike they are likely to be.
+ *
+ * The index holds the sorted ingredient ids of each recipe, in an
+ * open-addressing table keyed by the primitive recipe id, and the recipe ids
+ * of each bucket, in a table keyed by the band hash. Recipes without
+ * ingredients are not held, since they are like no other recipe.
+ *
+ * The size of the index is published through the Metrics registry as
+ * "similarity.{name}.size", and each lookup is timed as
+ * "similarity.{name}.lookup". The size gauge is registered once per process,
+ * by the first index of a name, since an application holds a single index of
+ * each name.
+ */
+public class RecipeSimilarityIndex {
+
+    /** The number of bands a signature is cut into. */
+    public static final int BANDS = 32;
+
+    /** The number of signature values in a band. */
+    public static final int ROWS = 2;
+
+    /** The number of values of a signature. */
+    public static final int HASHES = BANDS * ROWS;
+
+    /**
+     * The maximum number of bucket entries read by a lookup, which bounds its
+     * cost when many recipes share the same few ingredients.
+     */
+    public static final int MAX_CANDIDATES = 5_000;
+
+    /** The maximum number of candidates whose exact similarity a lookup computes. */
+    public static final int MAX_SCORED = 1_000;
+
+    /** The seed of each hash function; fixed, so band hashes are reproducible. */
+    private static final long[] SEEDS = new SplittableRandom(0x5EED_1DEAL).longs(HASHES).toArray();
+
+    /** The key of an empty recipe slot; recipe ids start at 1. */
+    private static final int EMPTY = 0;
+
+    /** The key of an empty bucket slot; band hashes are never 0. */
+    private static final long EMPTY_BUCKET = 0;
+
+    /** The number of slots of a new table. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Orders recommendations from the least to the most similar. */
+    private static final Comparator<SimilarRecipe> LEAST_SIMILAR_FIRST = Comparator
+            .comparingDouble(SimilarRecipe::getSimilarity)
+            .thenComparing(SimilarRecipe::getId, Comparator.reverseOrder());
+
+    /** The names whose size gauge is registered. */
+    private static final Set<String> PUBLISHED = ConcurrentHashMap.newKeySet();
+
+    private final String prefix;
+
+    /** The recipe id of each recipe slot, or EMPTY. */
+    private int[] recipeKeys = new int[INITIAL_CAPACITY];
+
+    /** The sorted ingredient ids of the recipe of each slot. */
+    private int[][] ingredientSets = new int[INITIAL_CAPACITY][];
+
+    /** The number of recipes held. */
+    private int size;
+
+    /** The band hash of each bucket slot, or EMPTY_BUCKET. */
+    private long[] bucketKeys = new long[INITIAL_CAPACITY];
+
+    /** The recipe ids of each bucket, in the first bucketSizes[slot] elements. */
+    private int[][] bucketRecipes = new int[INITIAL_CAPACITY][];
+
+    private int[] bucketSizes = new int[INITIAL_CAPACITY];
+
+    /** The number of buckets held. */
+    private int buckets;
+
+    /**
+     * Constructs an empty RecipeSimilarityIndex.
+     *
+     * @param name the name the index is published under in the Metrics registry
+     */
+    public RecipeSimilarityIndex(String name) {
+        this.prefix = "similarity." + name;
+        if (PUBLISHED.add(prefix)) {
+            Metrics.gauge(prefix + ".size", this::size);
+        }
+    }
+
+    /**
+     * Stores or replaces the ingredients of a recipe. A recipe without
+     * ingredients is removed.
+     *
+     * @param recipeId      the unique identifier of the recipe
+     * @param ingredientIds the ids of the ingredients it uses
+     */
+    public synchronized void put(int recipeId, Collection<Integer> ingredientIds) {
+        int[] ingredients = ingredientIds.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        int slot = findRecipe(recipeId);
+        if (slot >= 0) {
+            if (Arrays.equals(ingredientSets[slot], ingredients)) {
+                return;
+            }
+            remove(recipeId);
+        }
+        if (ingredients.length == 0) {
+            return;
+        }
+        if ((size + 1) * 2 > recipeKeys.length) {
+            resizeRecipes(recipeKeys.length * 2);
+        }
+        slot = recipeSlot(recipeId);
+        recipeKeys[slot] = recipeId;
+        ingredientSets[slot] = ingredients;
+        size++;
+        int[] signature = signature(ingredients);
+        for (int band = 0; band < BANDS; band++) {
+            addToBucket(bandHash(signature, band), recipeId);
+        }
+    }
+
+    /**
+     * Removes a recipe.
+     *
+     * @param recipeId the unique identifier of the recipe
+     */
+    public synchronized void remove(int recipeId) {
+        int slot = findRecipe(recipeId);
+        if (slot < 0) {
+            return;
+        }
+        int[] signature = signature(ingredientSets[slot]);
+        for (int band = 0; band < BANDS; band++) {
+            removeFromBucket(bandHash(signature, band), recipeId);
+        }
+        deleteRecipe(slot);
+    }
+
+    /**
+     * Finds the recipes using an ingredient. This reads every recipe held, and
+     * is meant for the rare changes of an ingredient that affect the recipes
+     * using it.
+     *
+     * @param ingredientId the unique identifier of the ingredient
+     * @return the ids of the recipes using it
+     */
+    public synchronized List<Integer> recipesUsing(int ingredientId) {
+        List<Integer> recipes = new ArrayList<>();
+        for (int slot = 0; slot < recipeKeys.length; slot++) {
+            if (recipeKeys[slot] != EMPTY && Arrays.binarySearch(ingredientSets[slot], ingredientId) >= 0) {
+                recipes.add(recipeKeys[slot]);
+            }
+        }
+        return recipes;
+    }
+
+    /**
+     * Finds the recipes most alike a recipe.
+     *
+     * @param recipeId the unique identifier of the recipe
+     * @param k        the maximum number of recipes returned
+     * @return up to k other recipes sharing at least one ingredient with the
+     *         recipe, from the most to the least similar and by id among equally
+     *         similar recipes, with their similarity but without their name; an
+     *         empty list if the recipe is not held
+     */
+    public synchronized List<SimilarRecipe> similarTo(int recipeId, int k) {
+        long start = System.nanoTime();
+        int slot = findRecipe(recipeId);
+        if (slot < 0 || k <= 0) {
+            return new ArrayList<>();
+        }
+        int[] ingredients = ingredientSets[slot];
+        int[] signature = signature(ingredients);
+        // the recipe's buckets, by size and then slot, packed as size << 32 | slot
+        long[] bySize = new long[BANDS];
+        int shared = 0;
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = findBucket(bandHash(signature, band));
+            if (bucket >= 0) {
+                bySize[shared++] = (long) bucketSizes[bucket] << 32 | bucket;
+            }
+        }
+        Arrays.sort(bySize, 0, shared);
+
+        int[] candidates = new int[INITIAL_CAPACITY];
+        int count = 0;
+        int unread = MAX_CANDIDATES;
+        for (int b = 0; b < shared; b++) {
+            int bucket = (int) bySize[b];
+            int quota = Math.min(bucketSizes[bucket], unread / (shared - b));
+            unread -= quota;
+            for (int i = 0; i < quota; i++) {
+                int candidate = bucketRecipes[bucket][i];
+                if (candidate == recipeId) {
+                    continue;
+                }
+                if (count == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, Math.min(count * 2, MAX_CANDIDATES));
+                }
+                candidates[count++] = candidate;
+            }
+        }
+
+        // a recipe sharing several bands with the recipe is read once per band;
+        // the candidates are ranked by the bands they share, packed as
+        // (BANDS - bands) << 32 | id so the most shared come first
+        Arrays.sort(candidates, 0, count);
+        long[] byBands = new long[count];
+        int distinct = 0;
+        for (int i = 0, bands = 1; i < count; i++, bands++) {
+            if (i + 1 == count || candidates[i + 1] != candidates[i]) {
+                byBands[distinct++] = (long) (BANDS - bands) << 32 | candidates[i];
+                bands = 0;
+            }
+        }
+        Arrays.sort(byBands, 0, distinct);
+
+        PriorityQueue<SimilarRecipe> best = new PriorityQueue<>(LEAST_SIMILAR_FIRST);
+        for (int i = 0; i < Math.min(distinct, MAX_SCORED); i++) {
+            int candidate = (int) byBands[i];
+            double similarity = jaccard(ingredients, ingredientSets[findRecipe(candidate)]);
+            if (similarity > 0) {
+                best.add(new SimilarRecipe(candidate, null, similarity));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+        List<SimilarRecipe> similar = new ArrayList<>(best);
+        similar.sort(LEAST_SIMILAR_FIRST.reversed());
+        Metrics.record(prefix + ".lookup", System.nanoTime() - start);
+        return similar;
+    }
+
+    /**
+     * Removes every recipe.
+     */
+    public synchronized void clear() {
+        recipeKeys = new int[INITIAL_CAPACITY];
+        ingredientSets = new int[INITIAL_CAPACITY][];
+        size = 0;
+        bucketKeys = new long[INITIAL_CAPACITY];
+        bucketRecipes = new int[INITIAL_CAPACITY][];
+        bucketSizes = new int[INITIAL_CAPACITY];
+        buckets = 0;
+    }
+
+    /**
+     * @return the number of recipes held
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param a sorted ingredient ids
+     * @param b sorted ingredient ids
+     * @return the number of ids in both divided by the number of ids in either
+     */
+    private static double jaccard(int[] a, int[] b) {
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+
+    /** @return the smallest hash of the ingredient ids under each hash function */
+    private static int[] signature(int[] ingredients) {
+        int[] signature = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            int min = Integer.MAX_VALUE;
+            for (int ingredient : ingredients) {
+                min = Math.min(min, (int) (mix(ingredient ^ SEEDS[i]) >>> 32));
+            }
+            signature[i] = min;
+        }
+        return signature;
+    }
+
+    /** @return the hash of one band of a signature, which is never EMPTY_BUCKET */
+    private static long bandHash(int[] signature, int band) {
+        long hash = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            hash = mix(hash * 31 + signature[i]);
+        }
+        return hash == EMPTY_BUCKET ? 1 : hash;
+    }
+
+    /** The finalizer of MurmurHash3, spreading every input bit over the output. */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    private void addToBucket(long hash, int recipeId) {
+        int slot = findBucket(hash);
+        if (slot < 0) {
+            if ((buckets + 1) * 2 > bucketKeys.length) {
+                resizeBuckets(bucketKeys.length * 2);
+            }
+            slot = bucketSlot(hash);
+            bucketKeys[slot] = hash;
+            bucketRecipes[slot] = new int[2];
+            buckets++;
+        }
+        if (bucketSizes[slot] == bucketRecipes[slot].length) {
+            bucketRecipes[slot] = Arrays.copyOf(bucketRecipes[slot], bucketSizes[slot] * 2);
+        }
+        bucketRecipes[slot][bucketSizes[slot]++] = recipeId;
+    }
+
+    private void removeFromBucket(long hash, int recipeId) {
+        int slot = findBucket(hash);
+        if (slot < 0) {
+            return;
+        }
+        int[] recipes = bucketRecipes[slot];
+        for (int i = 0; i < bucketSizes[slot]; i++) {
+            if (recipes[i] == recipeId) {
+                recipes[i] = recipes[--bucketSizes[slot]];
+                break;
+            }
+        }
+        if (bucketSizes[slot] == 0) {
+            deleteBucket(slot);
+        }
+    }
+
+    /** @return the slot holding a recipe id, or -1 */
+    private int findRecipe(int id) {
+        int mask = recipeKeys.length - 1;
+        for (int slot = spread(id) & mask; recipeKeys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (recipeKeys[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** @return the empty slot a new recipe id is stored in */
+    private int recipeSlot(int id) {
+        int mask = recipeKeys.length - 1;
+        int slot = spread(id) & mask;
+        while (recipeKeys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Moves every recipe to a larger table. */
+    private void resizeRecipes(int capacity) {
+        int[] oldKeys = recipeKeys;
+        int[][] oldSets = ingredientSets;
+        recipeKeys = new int[capacity];
+        ingredientSets = new int[capacity][];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = recipeSlot(oldKeys[i]);
+                recipeKeys[slot] = oldKeys[i];
+                ingredientSets[slot] = oldSets[i];
+            }
+        }
+    }
+
+    /**
+     * Empties a recipe slot, shifting back the recipes of the same probe
+     * sequence so lookups never stop at the hole.
+     */
+    private void deleteRecipe(int slot) {
+        int mask = recipeKeys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; recipeKeys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = spread(recipeKeys[next]) & mask;
+            // move the recipe back unless its home lies cyclically after the hole
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                recipeKeys[hole] = recipeKeys[next];
+                ingredientSets[hole] = ingredientSets[next];
+                hole = next;
+            }
+        }
+        recipeKeys[hole] = EMPTY;
+        ingredientSets[hole] = null;
+        size--;
+    }
+
+    /** @return the slot holding a band hash, or -1 */
+    private int findBucket(long hash) {
+        int mask = bucketKeys.length - 1;
+        for (int slot = (int) hash & mask; bucketKeys[slot] != EMPTY_BUCKET; slot = (slot + 1) & mask) {
+            if (bucketKeys[slot] == hash) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** @return the empty slot a new band hash is stored in */
+    private int bucketSlot(long hash) {
+        int mask = bucketKeys.length - 1;
+        int slot = (int) hash & mask;
+        while (bucketKeys[slot] != EMPTY_BUCKET) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Moves every bucket to a larger table. */
+    private void resizeBuckets(int capacity) {
+        long[] oldKeys = bucketKeys;
+        int[][] oldRecipes = bucketRecipes;
+        int[] oldSizes = bucketSizes;
+        bucketKeys = new long[capacity];
+        bucketRecipes = new int[capacity][];
+        bucketSizes = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_BUCKET) {
+                int slot = bucketSlot(oldKeys[i]);
+                bucketKeys[slot] = oldKeys[i];
+                bucketRecipes[slot] = oldRecipes[i];
+                bucketSizes[slot] = oldSizes[i];
+            }
+        }
+    }
+
+    /** Empties a bucket slot, shifting back the buckets of the same probe sequence. */
+    private void deleteBucket(int slot) {
+        int mask = bucketKeys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; bucketKeys[next] != EMPTY_BUCKET; next = (next + 1) & mask) {
+            int home = (int) bucketKeys[next] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                bucketKeys[hole] = bucketKeys[next];
+                bucketRecipes[hole] = bucketRecipes[next];
+                bucketSizes[hole] = bucketSizes[next];
+                hole = next;
+            }
+        }
+        bucketKeys[hole] = EMPTY_BUCKET;
+        bucketRecipes[hole] = null;
+        bucketSizes[hole] = 0;
+        buckets--;
+    }
+
+    /** Spreads sequential ids across the table. */
+    private static int spread(int id) {
+        int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
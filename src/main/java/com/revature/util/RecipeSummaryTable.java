@@ -0,0 +1,146 @@
+package com.revature.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The RecipeSummaryTable class rebuilds and checks the RECIPE_SUMMARY read
+ * table, which holds what recipe listings show: the recipe's id and name, its
+ * author's id and username and its ingredient count. The table is created by
+ * the V4 migration and kept current by the {@link RecipeSummaryTrigger}; these
+ * operations are for repairing it after writes that bypassed the triggers,
+ * such as a restore of the source tables, and for verifying that it holds
+ * exactly what the source tables imply.
+ *
+ * Each shard holds the summaries of its own recipes. Read replicas derive
+ * theirs through the same triggers as they copy the source tables, and are
+ * rebuilt and checked along with the shards.
+ */
+public final class RecipeSummaryTable {
+
+    /** The summaries the source tables imply, in the column order of RECIPE_SUMMARY. */
+    private static final String EXPECTED_ROWS = "SELECT RECIPE.id, RECIPE.name, RECIPE.chef_id, CHEF.username, "
+            + "(SELECT COUNT(*) FROM RECIPE_INGREDIENT WHERE RECIPE_INGREDIENT.recipe_id = RECIPE.id) "
+            + "FROM RECIPE LEFT JOIN CHEF ON CHEF.id = RECIPE.chef_id";
+
+    /** The expected summaries that are missing from the table or differ from it. */
+    private static final String MISMATCHED_ROWS = "SELECT expected.*, RECIPE_SUMMARY.id, RECIPE_SUMMARY.name, "
+            + "RECIPE_SUMMARY.chef_id, RECIPE_SUMMARY.chef_username, RECIPE_SUMMARY.ingredient_count "
+            + "FROM (" + EXPECTED_ROWS + ") AS expected (id, name, chef_id, chef_username, ingredient_count) "
+            + "LEFT JOIN RECIPE_SUMMARY ON RECIPE_SUMMARY.id = expected.id "
+            + "WHERE RECIPE_SUMMARY.id IS NULL OR RECIPE_SUMMARY.name IS DISTINCT FROM expected.name "
+            + "OR RECIPE_SUMMARY.chef_id IS DISTINCT FROM expected.chef_id "
+            + "OR RECIPE_SUMMARY.chef_username IS DISTINCT FROM expected.chef_username "
+            + "OR RECIPE_SUMMARY.ingredient_count <> expected.ingredient_count ORDER BY expected.id";
+
+    /** The summaries of recipes that no longer exist. */
+    private static final String ORPHANED_ROWS = "SELECT id FROM RECIPE_SUMMARY "
+            + "WHERE NOT EXISTS (SELECT 1 FROM RECIPE WHERE RECIPE.id = RECIPE_SUMMARY.id) ORDER BY id";
+
+    private RecipeSummaryTable() {
+    }
+
+    /**
+     * Rebuilds the summaries of every shard and read replica from the source
+     * tables. Each database is rebuilt in one transaction, so readers see
+     * either the old or the new summaries.
+     *
+     * @param connectionUtil the databases to rebuild
+     * @return the number of summaries written to the shards
+     * @throws SQLException if a rebuild fails; that database is rolled back
+     */
+    public static int rebuild(ConnectionUtil connectionUtil) throws SQLException {
+        int rows = 0;
+        for (int shard = 0; shard < connectionUtil.getShardCount(); shard++) {
+            try (Connection connection = connectionUtil.getConnection(shard)) {
+                rows += rebuild(connection);
+            }
+        }
+        for (int replica = 0; replica < connectionUtil.getReplicaCount(); replica++) {
+            try (Connection connection = connectionUtil.getReplicaConnection(replica)) {
+                rebuild(connection);
+            }
+        }
+        TableVersions.bump("RECIPE_SUMMARY");
+        return rows;
+    }
+
+    /**
+     * Compares the summaries of every shard and read replica with the
+     * summaries their source tables imply.
+     *
+     * @param connectionUtil the databases to check
+     * @return a description of every missing, differing or orphaned summary,
+     *         which is empty if the table is consistent
+     * @throws SQLException if the check cannot be run
+     */
+    public static List<String> check(ConnectionUtil connectionUtil) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        for (int shard = 0; shard < connectionUtil.getShardCount(); shard++) {
+            try (Connection connection = connectionUtil.getConnection(shard)) {
+                check(connection, "shard " + shard, problems);
+            }
+        }
+        for (int replica = 0; replica < connectionUtil.getReplicaCount(); replica++) {
+            try (Connection connection = connectionUtil.getReplicaConnection(replica)) {
+                check(connection, "replica " + replica, problems);
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Adds the problems of one database's summaries.
+     *
+     * @param connection the database to check
+     * @param database   the name of the database in the descriptions
+     * @param problems   the descriptions of the problems found
+     */
+    private static void check(Connection connection, String database, List<String> problems) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            String prefix = database + ": recipe ";
+            ResultSet mismatched = statement.executeQuery(MISMATCHED_ROWS);
+            while (mismatched.next()) {
+                String expected = describe(mismatched, 2);
+                problems.add(prefix + mismatched.getInt(1) + (mismatched.getObject(6) == null
+                        ? " has no summary, expected " + expected
+                        : " has summary " + describe(mismatched, 7) + ", expected " + expected));
+            }
+            ResultSet orphaned = statement.executeQuery(ORPHANED_ROWS);
+            while (orphaned.next()) {
+                problems.add(prefix + orphaned.getInt(1) + " no longer exists but has a summary");
+            }
+        }
+    }
+
+    private static int rebuild(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM RECIPE_SUMMARY");
+            int rows = statement.executeUpdate("INSERT INTO RECIPE_SUMMARY "
+                    + "(id, name, chef_id, chef_username, ingredient_count) " + EXPECTED_ROWS);
+            connection.commit();
+            return rows;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @param row    a row of MISMATCHED_ROWS
+     * @param column the column of the name in the summary to describe
+     * @return the summary as "'carrot soup' by 1 'JoeCool' with 1 ingredients"
+     */
+    private static String describe(ResultSet row, int column) throws SQLException {
+        return "'" + row.getString(column) + "' by " + row.getObject(column + 1) + " '" + row.getString(column + 2)
+                + "' with " + row.getInt(column + 3) + " ingredients";
+    }
+}
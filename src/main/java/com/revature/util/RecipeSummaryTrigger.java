@@ -0,0 +1,112 @@
+package com.revature.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import org.h2.api.Trigger;
+
+/**
+ * The RecipeSummaryTrigger class keeps the RECIPE_SUMMARY read table in step
+ * with the tables it is derived from. H2 runs it for every row written to
+ * RECIPE, CHEF and RECIPE_INGREDIENT, in the transaction of the write, so a
+ * summary is never visible out of step with its recipe, whichever DAO or
+ * service made the write.
+ *
+ * Rows are handed over as arrays in table column order, so the column
+ * positions below must match the CREATE TABLE statements of the baseline
+ * schema.
+ */
+public class RecipeSummaryTrigger implements Trigger {
+
+    /** The positions of RECIPE.id, RECIPE.name and RECIPE.chef_id. */
+    private static final int RECIPE_ID = 0, RECIPE_NAME = 1, RECIPE_CHEF = 3;
+
+    /** The positions of CHEF.id and CHEF.username. */
+    private static final int CHEF_ID = 0, CHEF_USERNAME = 1;
+
+    /** The position of RECIPE_INGREDIENT.recipe_id. */
+    private static final int INGREDIENT_RECIPE = 1;
+
+    private static final String INSERT_SUMMARY = "INSERT INTO RECIPE_SUMMARY "
+            + "(id, name, chef_id, chef_username, ingredient_count) VALUES (?, ?, ?, "
+            + "(SELECT username FROM CHEF WHERE id = ?), "
+            + "(SELECT COUNT(*) FROM RECIPE_INGREDIENT WHERE recipe_id = ?))";
+
+    private static final String UPDATE_SUMMARY = "UPDATE RECIPE_SUMMARY SET id = ?, name = ?, chef_id = ?, "
+            + "chef_username = (SELECT username FROM CHEF WHERE id = ?) WHERE id = ?";
+
+    private static final String DELETE_SUMMARY = "DELETE FROM RECIPE_SUMMARY WHERE id = ?";
+
+    private static final String UPDATE_USERNAME = "UPDATE RECIPE_SUMMARY SET chef_username = ? WHERE chef_id = ?";
+
+    private static final String ADD_INGREDIENTS = "UPDATE RECIPE_SUMMARY SET ingredient_count = ingredient_count + ? "
+            + "WHERE id = ?";
+
+    /** The table the trigger is attached to. */
+    private String table;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+            int type) {
+        this.table = tableName;
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        switch (table) {
+            case "RECIPE" -> recipeWritten(conn, oldRow, newRow);
+            case "CHEF" -> chefWritten(conn, oldRow, newRow);
+            case "RECIPE_INGREDIENT" -> ingredientWritten(conn, oldRow, newRow);
+            default -> throw new SQLException("RecipeSummaryTrigger cannot be attached to " + table);
+        }
+    }
+
+    private static void recipeWritten(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (oldRow == null) {
+            execute(conn, INSERT_SUMMARY, newRow[RECIPE_ID], newRow[RECIPE_NAME], newRow[RECIPE_CHEF],
+                    newRow[RECIPE_CHEF], newRow[RECIPE_ID]);
+        } else if (newRow == null) {
+            execute(conn, DELETE_SUMMARY, oldRow[RECIPE_ID]);
+        } else if (!Objects.equals(oldRow[RECIPE_ID], newRow[RECIPE_ID])
+                || !Objects.equals(oldRow[RECIPE_NAME], newRow[RECIPE_NAME])
+                || !Objects.equals(oldRow[RECIPE_CHEF], newRow[RECIPE_CHEF])) {
+            // updates of the instructions alone leave the summary as it is
+            execute(conn, UPDATE_SUMMARY, newRow[RECIPE_ID], newRow[RECIPE_NAME], newRow[RECIPE_CHEF],
+                    newRow[RECIPE_CHEF], oldRow[RECIPE_ID]);
+        }
+    }
+
+    private static void chefWritten(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (newRow == null) {
+            // the summaries of a deleted chef's recipes keep the id, as RECIPE does
+            execute(conn, UPDATE_USERNAME, null, oldRow[CHEF_ID]);
+        } else if (oldRow == null || !Objects.equals(oldRow[CHEF_USERNAME], newRow[CHEF_USERNAME])) {
+            execute(conn, UPDATE_USERNAME, newRow[CHEF_USERNAME], newRow[CHEF_ID]);
+        }
+    }
+
+    private static void ingredientWritten(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        Object from = oldRow == null ? null : oldRow[INGREDIENT_RECIPE];
+        Object to = newRow == null ? null : newRow[INGREDIENT_RECIPE];
+        if (Objects.equals(from, to)) {
+            return;
+        }
+        if (from != null) {
+            execute(conn, ADD_INGREDIENTS, -1, from);
+        }
+        if (to != null) {
+            execute(conn, ADD_INGREDIENTS, 1, to);
+        }
+    }
+
+    private static void execute(Connection conn, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.revature.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The ReplicationFeed class keeps a read replica in sync with the primary
+ * database. It stands in for the log shipping of a real replica: each sync
+ * notes the current write position from TableVersions and, if anything was
+ * written since the last sync, brings the replicated tables whose version
+ * changed up to date with a consistent snapshot of the primary, in one
+ * transaction.
+ *
+ * A changed table is compared with the replica row by row, by id, and only
+ * the rows that differ are written: rows new or changed on the primary are
+ * merged, parents before children, and rows gone from it are deleted,
+ * children before parents. The replica's triggers thus fire for the rows
+ * written since the last sync rather than for the whole catalog.
+ *
+ * Because the position is read before the snapshot is taken, the replica holds
+ * every write bumped before its applied position, and it is at most as stale
+ * as the time since that snapshot. A failed sync, such as one racing a schema
+ * reset, leaves the replica as it was, is logged, and is retried by the next
+ * sync.
+ *
+ * The replica's lag and the number of syncs, failures and rows written are
+ * published through the Metrics registry under the prefix "replication.{name}".
+ */
+public class ReplicationFeed {
+
+    /** The tables copied to the replica, parents before children; each is keyed by its id column. */
+    static final List<String> TABLES = List.of("CHEF", "INGREDIENT", "RECIPE", "RECIPE_INGREDIENT");
+
+    /** Opens connections to the primary. */
+    private final Supplier<Connection> primary;
+
+    /** Opens connections to the replica. */
+    private final Supplier<Connection> replica;
+
+    /** The write position the replica has copied, or -1 before the first sync. */
+    private volatile long appliedPosition = -1;
+
+    /** The version of each table the replica has copied; tables not yet copied are missing. */
+    private final Map<String, Long> appliedVersions = new HashMap<>();
+
+    /** When the snapshot of the primary the replica holds was taken. */
+    private volatile long snapshotNanos = System.nanoTime();
+
+    /** The number of syncs that copied data. */
+    private final LongAdder syncs = new LongAdder();
+
+    /** The number of syncs that failed. */
+    private final LongAdder failures = new LongAdder();
+
+    /** The number of rows merged into or deleted from the replica. */
+    private final LongAdder rowsWritten = new LongAdder();
+
+    /**
+     * Constructs a ReplicationFeed.
+     *
+     * @param name    the name of the feed's metrics
+     * @param primary opens connections to the primary
+     * @param replica opens connections to the replica
+     */
+    public ReplicationFeed(String name, Supplier<Connection> primary, Supplier<Connection> replica) {
+        this.primary = primary;
+        this.replica = replica;
+
+        String prefix = "replication." + name;
+        Metrics.gauge(prefix + ".lagMillis", this::stalenessMillis);
+        Metrics.gauge(prefix + ".syncs", syncs::sum);
+        Metrics.gauge(prefix + ".failures", failures::sum);
+        Metrics.gauge(prefix + ".rowsWritten", rowsWritten::sum);
+    }
+
+    /**
+     * @return the write position the replica has copied
+     */
+    public long appliedPosition() {
+        return appliedPosition;
+    }
+
+    /**
+     * @return how far the replica may be behind the primary, in milliseconds;
+     *         0 if nothing was written since its snapshot
+     */
+    public long stalenessMillis() {
+        if (appliedPosition == TableVersions.position()) {
+            return 0;
+        }
+        return (System.nanoTime() - snapshotNanos) / 1_000_000;
+    }
+
+    /**
+     * @return the number of rows merged into or deleted from the replica
+     */
+    public long rowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    /**
+     * Brings the replica up to date with the primary if anything was written
+     * since the last sync.
+     *
+     * @return true if the replica is now current as of the start of the sync
+     */
+    public synchronized boolean sync() {
+        long position = TableVersions.position();
+        long started = System.nanoTime();
+        if (position == appliedPosition) {
+            snapshotNanos = started;
+            return true;
+        }
+        // versions are read before the snapshot, like the position
+        Map<String, Long> versions = new HashMap<>();
+        List<String> changed = new ArrayList<>();
+        for (String table : TABLES) {
+            versions.put(table, TableVersions.current(table));
+            if (!versions.get(table).equals(appliedVersions.get(table))) {
+                changed.add(table);
+            }
+        }
+        try (Connection source = primary.get(); Connection target = replica.get()) {
+            source.setAutoCommit(false);
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            target.setAutoCommit(false);
+            try {
+                long written = copy(source, target, changed);
+                target.commit();
+                source.commit();
+                rowsWritten.add(written);
+            } catch (SQLException e) {
+                target.rollback();
+                throw e;
+            } finally {
+                source.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            }
+            appliedPosition = position;
+            appliedVersions.putAll(versions);
+            snapshotNanos = started;
+            syncs.increment();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            failures.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the rows of the changed tables that differ between the primary
+     * and the replica to the replica.
+     *
+     * @param source  a connection to the primary
+     * @param target  a connection to the replica
+     * @param changed the tables to compare, parents before children
+     * @return the number of rows written
+     */
+    private static long copy(Connection source, Connection target, List<String> changed) throws SQLException {
+        long written = 0;
+        Map<String, Set<Object>> gone = new HashMap<>();
+        for (String table : changed) {
+            Map<Object, List<Object>> held = readRows(target, table);
+            try (Statement select = source.createStatement();
+                    ResultSet rows = select.executeQuery("SELECT * FROM " + table)) {
+                List<String> columns = columnNames(rows);
+                int id = columns.indexOf("ID");
+                String sql = "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (ID) VALUES ("
+                        + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+                try (PreparedStatement merge = target.prepareStatement(sql)) {
+                    while (rows.next()) {
+                        List<Object> row = rowValues(rows, columns.size());
+                        if (!row.equals(held.remove(row.get(id)))) {
+                            for (int column = 0; column < row.size(); column++) {
+                                merge.setObject(column + 1, row.get(column));
+                            }
+                            merge.addBatch();
+                            written++;
+                        }
+                    }
+                    merge.executeBatch();
+                }
+            }
+            gone.put(table, held.keySet());
+        }
+        for (int i = changed.size() - 1; i >= 0; i--) {
+            String table = changed.get(i);
+            try (PreparedStatement delete = target.prepareStatement("DELETE FROM " + table + " WHERE ID = ?")) {
+                for (Object id : gone.get(table)) {
+                    delete.setObject(1, id);
+                    delete.addBatch();
+                    written++;
+                }
+                delete.executeBatch();
+            }
+        }
+        return written;
+    }
+
+    /** @return the rows of a replica table, indexed by id */
+    private static Map<Object, List<Object>> readRows(Connection target, String table) throws SQLException {
+        Map<Object, List<Object>> held = new HashMap<>();
+        try (Statement select = target.createStatement();
+                ResultSet rows = select.executeQuery("SELECT * FROM " + table)) {
+            List<String> columns = columnNames(rows);
+            int id = columns.indexOf("ID");
+            while (rows.next()) {
+                List<Object> row = rowValues(rows, columns.size());
+                held.put(row.get(id), row);
+            }
+        }
+        return held;
+    }
+
+    private static List<String> columnNames(ResultSet rows) throws SQLException {
+        ResultSetMetaData meta = rows.getMetaData();
+        List<String> columns = new ArrayList<>();
+        for (int column = 1; column <= meta.getColumnCount(); column++) {
+            columns.add(meta.getColumnName(column));
+        }
+        return columns;
+    }
+
+    private static List<Object> rowValues(ResultSet rows, int columns) throws SQLException {
+        List<Object> row = new ArrayList<>(columns);
+        for (int column = 1; column <= columns; column++) {
+            row.add(rows.getObject(column));
+        }
+        return row;
+    }
+}
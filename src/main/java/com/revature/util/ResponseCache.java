@@ -0,0 +1,157 @@
+package com.revature.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ResponseCache class is a bounded, least-recently-used cache of serialized
+ * response bodies. Entries are keyed by route plus normalized query parameters
+ * and are stamped with the versions of the tables the response was built from;
+ * an entry whose stamp no longer matches the current TableVersions stamp is
+ * treated as a miss and evicted.
+ *
+ * Hits, misses and the hit ratio are published through the Metrics registry
+ * under the prefix "cache.{name}".
+ */
+public class ResponseCache {
+
+    /** The default maximum number of entries held by a cache. */
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+
+    /** The tables whose contents the cached responses are derived from. */
+    private final String[] tables;
+
+    /** The cached entries in access order, eldest first. */
+    private final Map<String, Entry> entries;
+
+    /** The number of lookups that were served from the cache. */
+    private final LongAdder hits;
+
+    /** The number of lookups that were not served from the cache. */
+    private final LongAdder misses;
+
+    /**
+     * Constructs a ResponseCache and registers its metrics, unless a cache of
+     * the same name registered them first.
+     *
+     * @param name       the name used as the metrics prefix
+     * @param maxEntries the maximum number of entries to retain
+     * @param tables     the tables whose versions invalidate cached entries
+     */
+    public ResponseCache(String name, int maxEntries, String... tables) {
+        this.tables = tables;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        Metrics.gaugeIfAbsent("cache." + name + ".hits", hits::sum);
+        Metrics.gaugeIfAbsent("cache." + name + ".misses", misses::sum);
+        Metrics.gaugeIfAbsent("cache." + name + ".hitRatio", this::hitRatio);
+        Metrics.gaugeIfAbsent("cache." + name + ".size", this::size);
+    }
+
+    /**
+     * Builds a cache key from a route and its query parameters. Null
+     * parameters are normalized to the empty string.
+     *
+     * @param route  the route being cached
+     * @param params the query parameters that shape the response, in a fixed
+     *               order
+     * @return the cache key
+     */
+    public static String key(String route, Object... params) {
+        StringBuilder key = new StringBuilder(route);
+        for (Object param : params) {
+            key.append('|').append(param == null ? "" : param);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Captures the current version stamp of the cached tables. Callers should
+     * take the stamp before querying so that a write racing with the query
+     * leaves the resulting entry already stale.
+     *
+     * @return the current version stamp
+     */
+    public long stamp() {
+        return TableVersions.stamp(tables);
+    }
+
+    /**
+     * Retrieves a cached response body if present and still current.
+     *
+     * @param key the cache key
+     * @return the cached response body, or null on a miss
+     */
+    public byte[] get(String key) {
+        long stamp = stamp();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.stamp == stamp) {
+                hits.increment();
+                return entry.body;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a response body in the cache.
+     *
+     * @param key   the cache key
+     * @param stamp the version stamp captured before the response was built
+     * @param body  the serialized response body
+     */
+    public void put(String key, long stamp, byte[] body) {
+        synchronized (entries) {
+            entries.put(key, new Entry(stamp, body));
+        }
+    }
+
+    /** Removes every entry from the cache. */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the number of entries currently held
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the fraction of lookups served from the cache, or 0 if there
+     *         have been no lookups
+     */
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /** A cached response body together with the stamp it was built against. */
+    private static class Entry {
+        private final long stamp;
+        private final byte[] body;
+
+        private Entry(long stamp, byte[] body) {
+            this.stamp = stamp;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.revature.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Objects;
+
+import org.h2.api.Trigger;
+
+/**
+ * The RowCountTrigger class maintains the TABLE_ROW_COUNT and CHEF_RECIPE_COUNT
+ * counters. H2 runs it for every row inserted into or deleted from CHEF,
+ * INGREDIENT and RECIPE, and for every recipe update, in the transaction of
+ * the write, so a counter always agrees with the rows its reader can see. The
+ * recipe counter of a chef is created and dropped with the chef.
+ *
+ * Every insert and delete of a table updates the same counter row, so writers
+ * to one table serialize on it until they commit. The DAOs write in short
+ * autocommit transactions, which keeps that wait short.
+ */
+public class RowCountTrigger implements Trigger {
+
+    /** The position of RECIPE.chef_id in a recipe row. */
+    private static final int RECIPE_CHEF = 3;
+
+    private static final String ADD_ROWS = "UPDATE TABLE_ROW_COUNT SET row_count = row_count + ? "
+            + "WHERE table_name = ?";
+
+    private static final String ADD_RECIPES = "UPDATE CHEF_RECIPE_COUNT SET recipe_count = recipe_count + ? "
+            + "WHERE chef_id = ?";
+
+    private static final String INSERT_CHEF_COUNT = "INSERT INTO CHEF_RECIPE_COUNT (chef_id, recipe_count) "
+            + "VALUES (?, 0)";
+
+    private static final String DELETE_CHEF_COUNT = "DELETE FROM CHEF_RECIPE_COUNT WHERE chef_id = ?";
+
+    /** The position of CHEF.id in a chef row. */
+    private static final int CHEF_ID = 0;
+
+    /** The table the trigger is attached to. */
+    private String table;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+            int type) {
+        this.table = tableName;
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (oldRow == null || newRow == null) {
+            execute(conn, ADD_ROWS, oldRow == null ? 1 : -1, table);
+        }
+        if (table.equals("CHEF")) {
+            if (oldRow == null) {
+                execute(conn, INSERT_CHEF_COUNT, newRow[CHEF_ID]);
+            } else {
+                execute(conn, DELETE_CHEF_COUNT, oldRow[CHEF_ID]);
+            }
+        } else if (table.equals("RECIPE")) {
+            Object from = oldRow == null ? null : oldRow[RECIPE_CHEF];
+            Object to = newRow == null ? null : newRow[RECIPE_CHEF];
+            if (!Objects.equals(from, to)) {
+                addRecipes(conn, from, -1);
+                addRecipes(conn, to, 1);
+            }
+        }
+    }
+
+    private static void addRecipes(Connection conn, Object chefId, int delta) throws SQLException {
+        if (chefId != null) {
+            execute(conn, ADD_RECIPES, delta, chefId);
+        }
+    }
+
+    private static void execute(Connection conn, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.revature.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The ScatterGather class runs a query against every shard at the same time
+ * and merges the sorted rows the shards return into one sorted list, so a
+ * listing spread across shards is returned in the same order a single database
+ * would have returned it.
+ *
+ * Each shard sorts its own rows with the ORDER BY clause compiled by
+ * PageOptions and also returns the values of the sort columns with each row.
+ * The rows are then merged with a k-way merge on those values, comparing them
+ * the way H2 does by default: numbers numerically, strings by their UTF-16 code
+ * units, and NULL before any other value.
+ *
+ * The shard queries run on their own DatabaseExecutor, since a scatter may
+ * itself run on the shared executor and wait for them.
+ */
+public class ScatterGather {
+
+    /** The executor running the shard queries. */
+    private static final DatabaseExecutor SHARD_QUERIES = new DatabaseExecutor("scatter",
+            DatabaseExecutor.DEFAULT_THREADS, DatabaseExecutor.DEFAULT_QUEUE_CAPACITY,
+            DatabaseExecutor.DEFAULT_TIMEOUT_MILLIS);
+
+    private ScatterGather() {
+    }
+
+    /**
+     * Queries one shard.
+     *
+     * @param <T> the type of rows returned
+     */
+    @FunctionalInterface
+    public interface ShardQuery<T> {
+        List<T> query(int shard) throws SQLException;
+    }
+
+    /**
+     * A row returned by a shard, with the values of its sort columns in sort
+     * order.
+     *
+     * @param <T> the type of the mapped row
+     */
+    public static final class Row<T> {
+        private final T item;
+        private final Object[] keys;
+
+        public Row(T item, Object[] keys) {
+            this.item = item;
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Runs a query against every shard concurrently.
+     *
+     * @param <T>    the type of rows returned
+     * @param shards the number of shards
+     * @param query  the query, given the index of the shard to run against
+     * @return the rows of each shard, in shard order
+     * @throws SQLException if the query failed on any shard
+     */
+    public static <T> List<List<T>> scatter(int shards, ShardQuery<T> query) throws SQLException {
+        List<CompletableFuture<List<T>>> results = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            int index = shard;
+            results.add(SHARD_QUERIES.supply(() -> {
+                try {
+                    return query.query(index);
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }));
+        }
+        List<List<T>> rows = new ArrayList<>(shards);
+        try {
+            for (CompletableFuture<List<T>> result : results) {
+                rows.add(result.join());
+            }
+        } catch (CompletionException e) {
+            results.forEach(result -> result.cancel(false));
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Shard query failed", e.getCause());
+        }
+        return rows;
+    }
+
+    /**
+     * Merges rows that each shard returned sorted into one sorted list.
+     *
+     * @param <T>    the type of the mapped rows
+     * @param shards the sorted rows of each shard
+     * @param order  the sort columns in order, mapped to "ASC" or "DESC", as
+     *               returned by {@link PageOptions#sortOrder(java.util.Set)}
+     * @return the mapped rows of every shard, in sort order
+     */
+    public static <T> List<T> merge(List<List<Row<T>>> shards, Map<String, String> order) {
+        Comparator<Object[]> byKeys = keyComparator(order);
+        // each cursor is {shard, position}, ordered by the keys of the row it points at
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, shards.size()),
+                (a, b) -> byKeys.compare(shards.get(a[0]).get(a[1]).keys, shards.get(b[0]).get(b[1]).keys));
+        int total = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            total += shards.get(shard).size();
+            if (!shards.get(shard).isEmpty()) {
+                cursors.add(new int[] { shard, 0 });
+            }
+        }
+        List<T> merged = new ArrayList<>(total);
+        while (!cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            List<Row<T>> rows = shards.get(cursor[0]);
+            merged.add(rows.get(cursor[1]).item);
+            if (++cursor[1] < rows.size()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @param order the sort columns in order, mapped to "ASC" or "DESC"
+     * @return a comparator of sort key arrays following the given order
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparator<Object[]> keyComparator(Map<String, String> order) {
+        boolean[] descending = new boolean[order.size()];
+        int i = 0;
+        for (String direction : order.values()) {
+            descending[i++] = direction.equals("DESC");
+        }
+        Comparator<Object> nullsLow = Comparator.nullsFirst((a, b) -> ((Comparable) a).compareTo(b));
+        return (a, b) -> {
+            for (int key = 0; key < descending.length; key++) {
+                int comparison = nullsLow.compare(a[key], b[key]);
+                if (comparison != 0) {
+                    return descending[key] ? -comparison : comparison;
+                }
+            }
+            return 0;
+        };
+    }
+}
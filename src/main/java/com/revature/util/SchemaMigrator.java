@@ -0,0 +1,204 @@
+package com.revature.util;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.zip.CRC32;
+
+/**
+ * The SchemaMigrator class brings the database schema up to date by applying
+ * versioned SQL scripts from the classpath. Applied versions are recorded in the
+ * SCHEMA_VERSION table, so on every start only the scripts that have not been
+ * applied yet are executed and existing data is left untouched.
+ *
+ * Each script is split into individual statements, which are executed as a
+ * single JDBC batch followed by the SCHEMA_VERSION row recording it. H2
+ * commits every DDL statement as it runs, so a script that fails part way is
+ * not undone: its data changes since the last DDL statement are rolled back,
+ * but the tables and indexes it already created stay, and the migration is not
+ * recorded. Such a database has to be repaired, or restored from a backup,
+ * before the migration is run again. A script applied earlier whose content
+ * has since changed stops the migration, as the schema it describes is no
+ * longer the schema the database has. A database created before versioning was introduced (one that
+ * already contains the CHEF table but no SCHEMA_VERSION table) is baselined:
+ * the first migration is recorded as applied without being executed.
+ */
+public class SchemaMigrator {
+
+    /**
+     * The known migrations in ascending version order. Each entry holds the
+     * version, a short description and the classpath location of the script.
+     */
+    private static final String[][] MIGRATIONS = {
+            { "1", "baseline schema and seed data", "/sqlScript.sql" },
+            { "2", "secondary indexes", "/migrations/V2__secondary_indexes.sql" },
+            { "3", "sort tie-breaker indexes", "/migrations/V3__sort_tie_breaker_indexes.sql" },
+            { "4", "recipe summary read table", "/migrations/V4__recipe_summary.sql" },
+            { "5", "row counters", "/migrations/V5__row_counters.sql" },
+            { "6", "recipe summary chef deletes", "/migrations/V6__recipe_summary_chef_deletes.sql" },
+    };
+
+    /** The statement creating the table that records applied migrations. */
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS SCHEMA_VERSION ("
+            + "version INT PRIMARY KEY, description VARCHAR(200) NOT NULL, checksum BIGINT NOT NULL, "
+            + "applied_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Applies every migration that has not yet been recorded in the
+     * SCHEMA_VERSION table.
+     *
+     * @param connection the connection to migrate
+     * @return the number of migrations applied
+     * @throws SQLException          if a migration fails; the statements it ran
+     *                               before a DDL statement are not undone
+     * @throws IllegalStateException if a migration already applied has changed
+     *                               since it was applied
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        boolean legacyDatabase = !tableExists(connection, "SCHEMA_VERSION") && tableExists(connection, "CHEF");
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREATE_VERSION_TABLE);
+        }
+        Map<Integer, Long> applied = appliedVersions(connection);
+
+        int count = 0;
+        for (String[] migration : MIGRATIONS) {
+            int version = Integer.parseInt(migration[0]);
+            String script = readScript(migration[2]);
+            long checksum = checksum(script);
+            if (applied.containsKey(version)) {
+                if (applied.get(version) != checksum) {
+                    throw new IllegalStateException("Migration V" + version + " (" + migration[1]
+                            + ") has changed since it was applied; restore the script or repair SCHEMA_VERSION");
+                }
+                continue;
+            }
+            if (legacyDatabase && version == 1) {
+                record(connection, version, migration[1], checksum);
+                continue;
+            }
+            apply(connection, version, migration[1], script, checksum);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Splits a script into individual statements on semicolons that are not
+     * inside a quoted string. Line comments, whether on a line of their own or
+     * after a statement, are dropped, along with any semicolon in them.
+     *
+     * @param script the script to split
+     * @return the statements in the script, without their terminating
+     *         semicolons
+     */
+    public static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuote = false;
+        for (String line : script.split("\\R")) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (!inQuote && c == '-' && line.startsWith("--", i)) {
+                    break;
+                }
+                if (c == '\'') {
+                    inQuote = !inQuote;
+                }
+                if (c == ';' && !inQuote) {
+                    addStatement(statements, current);
+                } else {
+                    current.append(c);
+                }
+            }
+            current.append(' ');
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    private static void apply(Connection connection, int version, String description, String script,
+            long checksum) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : splitStatements(script)) {
+                statement.addBatch(sql);
+            }
+            statement.executeBatch();
+            record(connection, version, description, checksum);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void record(Connection connection, int version, String description, long checksum)
+            throws SQLException {
+        String sql = "INSERT INTO SCHEMA_VERSION (version, description, checksum) VALUES (?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, version);
+            statement.setString(2, description);
+            statement.setLong(3, checksum);
+            statement.executeUpdate();
+        }
+    }
+
+    private static Map<Integer, Long> appliedVersions(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT version, checksum FROM SCHEMA_VERSION")) {
+            while (resultSet.next()) {
+                applied.put(resultSet.getInt(1), resultSet.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getTables(null, null, table, new String[] { "TABLE" })) {
+            return resultSet.next();
+        }
+    }
+
+    private static String readScript(String location) {
+        InputStream inputStream = SchemaMigrator.class.getResourceAsStream(location);
+        if (inputStream == null) {
+            throw new IllegalStateException("Migration script not found: " + location);
+        }
+        try (Scanner sc = new Scanner(inputStream, StandardCharsets.UTF_8)) {
+            return sc.useDelimiter("\\A").hasNext() ? sc.next() : "";
+        }
+    }
+
+    private static long checksum(String script) {
+        CRC32 crc = new CRC32();
+        crc.update(script.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
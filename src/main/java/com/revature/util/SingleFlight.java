@@ -0,0 +1,167 @@
+package com.revature.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * The SingleFlight class collapses concurrent identical lookups into a single
+ * in-flight call. The first caller for a key runs the loader; callers that
+ * arrive with the same key while that call is still running wait for it and
+ * share its result (or its exception) instead of issuing their own.
+ *
+ * Every caller receives its own copy of the shared result, made by the copy
+ * function given at construction, so callers that modify what they get back
+ * (or resolve parts of it lazily) do not race each other on one instance.
+ *
+ * Waiters give up after a per-key timeout and run the loader themselves, so a
+ * stuck call can delay but never block its followers indefinitely. Executions,
+ * collapsed calls and timeouts are published through the Metrics registry
+ * under the prefix "singleflight.{name}".
+ *
+ * @param <K> the type of the lookup key
+ * @param <V> the type of the looked up value
+ */
+public class SingleFlight<K, V> {
+
+    /** The default time, in milliseconds, a waiter waits for an in-flight call. */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    /** The calls currently in flight, indexed by key. */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /** The time, in milliseconds, a waiter waits for an in-flight call. */
+    private final long timeoutMillis;
+
+    /** Copies the shared result for each caller. */
+    private final UnaryOperator<V> copy;
+
+    /** The number of calls that actually ran the loader as leader. */
+    private final LongAdder executions = new LongAdder();
+
+    /** The number of calls that joined another caller's in-flight call. */
+    private final LongAdder collapsed = new LongAdder();
+
+    /** The number of waiters that timed out and ran the loader themselves. */
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * Constructs a SingleFlight and registers its metrics.
+     *
+     * @param name          the name used as the metrics prefix
+     * @param timeoutMillis the time, in milliseconds, a waiter waits for an
+     *                      in-flight call before loading on its own
+     */
+    public SingleFlight(String name, long timeoutMillis) {
+        this(name, timeoutMillis, UnaryOperator.identity());
+    }
+
+    /**
+     * Constructs a SingleFlight handing each caller its own copy of the shared
+     * result, and registers its metrics unless a SingleFlight of the same name
+     * registered them first.
+     *
+     * @param name          the name used as the metrics prefix
+     * @param timeoutMillis the time, in milliseconds, a waiter waits for an
+     *                      in-flight call before loading on its own
+     * @param copy          copies a non-null result for one caller
+     */
+    public SingleFlight(String name, long timeoutMillis, UnaryOperator<V> copy) {
+        this.timeoutMillis = timeoutMillis;
+        this.copy = copy;
+        Metrics.gaugeIfAbsent("singleflight." + name + ".executions", executions::sum);
+        Metrics.gaugeIfAbsent("singleflight." + name + ".collapsed", collapsed::sum);
+        Metrics.gaugeIfAbsent("singleflight." + name + ".timeouts", timeouts::sum);
+        Metrics.gaugeIfAbsent("singleflight." + name + ".inFlight", inFlight::size);
+    }
+
+    /**
+     * Runs the loader for the given key, or joins the call already in flight
+     * for that key.
+     *
+     * @param key    the lookup key
+     * @param loader the loader that produces the value for the key
+     * @return the value produced by the loader
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing == null) {
+            executions.increment();
+            try {
+                V value = loader.get();
+                call.complete(value);
+                return copyOf(value);
+            } catch (RuntimeException | Error e) {
+                call.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, call);
+            }
+        }
+
+        collapsed.increment();
+        try {
+            return copyOf(existing.get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Builds a lookup key from the parts of a request, such as the route and its
+     * parameters. A null part is written as an empty string.
+     *
+     * @param parts the parts of the request
+     * @return the key
+     */
+    public static String key(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                key.append('|');
+            }
+            key.append(parts[i] == null ? "" : parts[i]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * @param value the shared result
+     * @return the caller's copy of the result, or null if the result is null
+     */
+    private V copyOf(V value) {
+        return value == null ? null : copy.apply(value);
+    }
+
+    /**
+     * @return the number of calls that joined another caller's in-flight call
+     */
+    public long getCollapsedCount() {
+        return collapsed.sum();
+    }
+
+    /**
+     * @return the number of calls that ran the loader as leader
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+}
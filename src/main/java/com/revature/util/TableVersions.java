@@ -0,0 +1,89 @@
+package com.revature.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The TableVersions class tracks a monotonically increasing version number for
+ * each database table. The DAOs bump the version of every table they modify, so
+ * anything derived from table contents (such as cached responses) can detect
+ * that it is stale by comparing the version it was built against with the
+ * current one.
+ *
+ * Every bump also advances a single write position shared by all tables. A
+ * read replica that has copied the primary as of some position holds every
+ * write bumped before it, and the current ReadSession remembers the position
+ * of its own last write.
+ */
+public class TableVersions {
+
+    /** The current version of each table, indexed by upper-case table name. */
+    private static final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /** A version shared by all tables, bumped when the whole database is reset. */
+    private static final AtomicLong epoch = new AtomicLong();
+
+    /** The number of writes bumped so far, across all tables. */
+    private static final AtomicLong position = new AtomicLong();
+
+    private TableVersions() {
+    }
+
+    /**
+     * Retrieves the current version of a table.
+     *
+     * @param table the name of the table
+     * @return the current version of the table
+     */
+    public static long current(String table) {
+        return epoch.get() + versionOf(table).get();
+    }
+
+    /**
+     * Bumps the version of each of the given tables.
+     *
+     * @param tables the names of the tables that were modified
+     */
+    public static void bump(String... tables) {
+        for (String table : tables) {
+            versionOf(table).incrementAndGet();
+        }
+        ReadSession.recordWrite(position.incrementAndGet());
+    }
+
+    /**
+     * Bumps the version of every table, including tables that have not been
+     * seen yet. Used when the database is dropped and re-created.
+     */
+    public static void bumpAll() {
+        epoch.incrementAndGet();
+        position.incrementAndGet();
+    }
+
+    /**
+     * @return the position of the latest write, which only ever increases
+     */
+    public static long position() {
+        return position.get();
+    }
+
+    /**
+     * Computes a combined stamp for a group of tables. Because versions only
+     * ever increase, the stamp changes whenever any of the tables changes.
+     *
+     * @param tables the names of the tables
+     * @return the combined version stamp of the tables
+     */
+    public static long stamp(String... tables) {
+        long stamp = epoch.get();
+        for (String table : tables) {
+            stamp += versionOf(table).get();
+        }
+        return stamp;
+    }
+
+    private static AtomicLong versionOf(String table) {
+        return versions.computeIfAbsent(table.toUpperCase(), key -> new AtomicLong());
+    }
+}
@@ -0,0 +1,277 @@
+package com.revature.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The WriteBehindBuffer class holds pending writes in memory and hands them to
+ * a flusher in batches, instead of writing each one as it arrives. Writes are
+ * coalesced by key: a write replaces any pending write for the same key, so a
+ * row saved many times between two flushes is written once.
+ *
+ * The buffer is flushed every flush interval, as soon as it holds the maximum
+ * number of pending writes, and when it is closed. A write stays pending, and
+ * visible through {@link #get(Object)}, until the flusher has stored it, which
+ * lets callers serve their own writes before they reach the database.
+ *
+ * If the flusher throws, each write of the batch is handed to it again on its
+ * own, so one write the database rejects does not hold back the others. A
+ * write that still fails stays pending and is retried by the next flush; once
+ * it has failed on its own in maxAttempts flushes in a row it is dropped and
+ * handed to the dead letter handler instead. Note that an outage longer than
+ * maxAttempts flush intervals drops the writes pending during it as well.
+ *
+ * The number of pending writes, coalesced writes, flushed writes, failed
+ * flushes and dropped writes are published through the Metrics registry under
+ * the prefix "writeBehind.{name}".
+ *
+ * @param <K> the type of keys writes are coalesced by
+ * @param <V> the type of values written
+ */
+public class WriteBehindBuffer<K, V> implements AutoCloseable {
+
+    /** The default time between two scheduled flushes. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    /** The default number of pending writes that triggers a flush. */
+    public static final int DEFAULT_MAX_PENDING = 500;
+
+    /** The default number of flushes in a row a write may fail in before it is dropped. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** The pending writes, indexed by key. */
+    private final Map<K, V> pending = new ConcurrentHashMap<>();
+
+    /** Stores a batch of writes. */
+    private final Consumer<List<V>> flusher;
+
+    /** The number of pending writes that triggers a flush. */
+    private final int maxPending;
+
+    /** The number of flushes in a row a write may fail in before it is dropped. */
+    private final int maxAttempts;
+
+    /** Receives each write dropped after failing, with the last failure. */
+    private final BiConsumer<V, RuntimeException> deadLetters;
+
+    /** The number of flushes in a row each pending write has failed in, indexed by key. */
+    private final Map<K, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+    /** Whether a size-triggered flush is waiting to run on the scheduler. */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /** Runs the scheduled and size-triggered flushes. */
+    private final ScheduledExecutorService scheduler;
+
+    /** The number of writes that replaced a pending write. */
+    private final LongAdder coalesced = new LongAdder();
+
+    /** The number of writes handed to the flusher successfully. */
+    private final LongAdder flushed = new LongAdder();
+
+    /** The number of flushes that failed. */
+    private final LongAdder failures = new LongAdder();
+
+    /** The number of writes dropped after failing in maxAttempts flushes. */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructs a WriteBehindBuffer and starts its flush schedule. Its
+     * metrics are registered unless a buffer of the same name registered them
+     * first.
+     *
+     * @param name                the name of the buffer's thread and metrics
+     * @param flusher             stores a batch of writes, throwing if they
+     *                            could not be stored
+     * @param flushIntervalMillis the time between two scheduled flushes
+     * @param maxPending          the number of pending writes that triggers a
+     *                            flush
+     */
+    public WriteBehindBuffer(String name, Consumer<List<V>> flusher, long flushIntervalMillis, int maxPending) {
+        this(name, flusher, flushIntervalMillis, maxPending, DEFAULT_MAX_ATTEMPTS, (value, e) -> e.printStackTrace());
+    }
+
+    /**
+     * Constructs a WriteBehindBuffer and starts its flush schedule. Its
+     * metrics are registered unless a buffer of the same name registered them
+     * first.
+     *
+     * @param name                the name of the buffer's thread and metrics
+     * @param flusher             stores a batch of writes, throwing if they
+     *                            could not be stored
+     * @param flushIntervalMillis the time between two scheduled flushes
+     * @param maxPending          the number of pending writes that triggers a
+     *                            flush
+     * @param maxAttempts         the number of flushes in a row a write may
+     *                            fail in before it is dropped
+     * @param deadLetters         receives each dropped write with the failure
+     *                            that dropped it
+     */
+    public WriteBehindBuffer(String name, Consumer<List<V>> flusher, long flushIntervalMillis, int maxPending,
+            int maxAttempts, BiConsumer<V, RuntimeException> deadLetters) {
+        this.flusher = flusher;
+        this.maxPending = maxPending;
+        this.maxAttempts = maxAttempts;
+        this.deadLetters = deadLetters;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+
+        String prefix = "writeBehind." + name;
+        Metrics.gaugeIfAbsent(prefix + ".pending", pending::size);
+        Metrics.gaugeIfAbsent(prefix + ".coalesced", coalesced::sum);
+        Metrics.gaugeIfAbsent(prefix + ".flushed", flushed::sum);
+        Metrics.gaugeIfAbsent(prefix + ".failures", failures::sum);
+        Metrics.gaugeIfAbsent(prefix + ".dropped", dropped::sum);
+    }
+
+    /**
+     * Buffers a write, replacing any pending write for the same key.
+     *
+     * @param key   the key of the write
+     * @param value the value to write
+     */
+    public void put(K key, V value) {
+        if (pending.put(key, value) != null) {
+            coalesced.increment();
+        }
+        // a new write gets a fresh set of attempts
+        failedAttempts.remove(key);
+        if (pending.size() >= maxPending && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * @param key the key of a write
+     * @return the pending write for the key, or null if there is none
+     */
+    public V get(K key) {
+        return pending.get(key);
+    }
+
+    /**
+     * Discards the pending write for a key, such as when its row is deleted.
+     *
+     * @param key the key of the write
+     */
+    public void remove(K key) {
+        pending.remove(key);
+        failedAttempts.remove(key);
+    }
+
+    /**
+     * @return the number of pending writes
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Hands every pending write to the flusher in one batch. Writes buffered
+     * for a key while the batch is being stored stay pending. If the batch
+     * fails, each of its writes is handed to the flusher on its own.
+     *
+     * @throws RuntimeException if a write could not be stored; the writes that
+     *                          were stored are no longer pending
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<K, V> batch = new LinkedHashMap<>(pending);
+        try {
+            flusher.accept(new ArrayList<>(batch.values()));
+        } catch (RuntimeException e) {
+            failures.increment();
+            if (batch.size() == 1) {
+                Map.Entry<K, V> write = batch.entrySet().iterator().next();
+                failed(write.getKey(), write.getValue(), e);
+                throw e;
+            }
+            flushEach(batch);
+            return;
+        }
+        batch.forEach(this::stored);
+        flushed.add(batch.size());
+    }
+
+    /**
+     * Hands the writes of a failed batch to the flusher one at a time.
+     *
+     * @param batch the writes of the failed batch
+     * @throws RuntimeException the last failure, if a write could not be stored
+     */
+    private void flushEach(Map<K, V> batch) {
+        RuntimeException failure = null;
+        for (Map.Entry<K, V> write : batch.entrySet()) {
+            try {
+                flusher.accept(List.of(write.getValue()));
+                stored(write.getKey(), write.getValue());
+                flushed.increment();
+            } catch (RuntimeException e) {
+                failed(write.getKey(), write.getValue(), e);
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Removes a stored write, unless it was replaced while being stored. */
+    private void stored(K key, V value) {
+        if (pending.remove(key, value)) {
+            failedAttempts.remove(key);
+        }
+    }
+
+    /** Counts a failure of a write, dropping the write after maxAttempts. */
+    private void failed(K key, V value, RuntimeException e) {
+        if (failedAttempts.merge(key, 1, Integer::sum) >= maxAttempts && pending.remove(key, value)) {
+            failedAttempts.remove(key);
+            dropped.increment();
+            deadLetters.accept(value, e);
+        }
+    }
+
+    /**
+     * Stops the flush schedule and flushes every pending write.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /** Flushes on the scheduler, leaving failed batches for the next flush. */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
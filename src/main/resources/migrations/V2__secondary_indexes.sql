@@ -0,0 +1,14 @@
+-- Secondary indexes for the DAO access paths.
+-- The primary keys and UNIQUE constraints already cover lookups by id, CHEF.username and INGREDIENT.name.
+
+-- Recipe listings are sorted by name, with id as the tie-breaker.
+CREATE INDEX IF NOT EXISTS IDX_RECIPE_NAME ON RECIPE(name, id);
+
+-- Recipes written by a chef, sorted by name.
+CREATE INDEX IF NOT EXISTS IDX_RECIPE_CHEF ON RECIPE(chef_id, name);
+
+-- The ingredient rows of a recipe, used by ingredient fetches and recipe deletes.
+CREATE INDEX IF NOT EXISTS IDX_RECIPE_INGREDIENT_RECIPE ON RECIPE_INGREDIENT(recipe_id, ingredient_id);
+
+-- The recipe rows using an ingredient, used by ingredient deletes.
+CREATE INDEX IF NOT EXISTS IDX_RECIPE_INGREDIENT_INGREDIENT ON RECIPE_INGREDIENT(ingredient_id, recipe_id);
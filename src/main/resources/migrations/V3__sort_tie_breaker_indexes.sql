@@ -0,0 +1,6 @@
+-- Paged listings are sorted with id appended as a tie-breaker, so the default sort of each
+-- table needs an index on (sort column, id) to be read in index order.
+
+CREATE INDEX IF NOT EXISTS IDX_CHEF_USERNAME ON CHEF(username, id);
+
+CREATE INDEX IF NOT EXISTS IDX_INGREDIENT_NAME ON INGREDIENT(name, id);
@@ -0,0 +1,33 @@
+-- A denormalized read table holding what recipe listings show: the recipe, its author's
+-- username and its ingredient count, so listings read one narrow table instead of joining
+-- RECIPE, CHEF and RECIPE_INGREDIENT on every request.
+--
+-- The table is maintained by the row triggers below, which run in the transaction of every
+-- write to the source tables. RecipeSummaryTable rebuilds and checks it.
+
+CREATE TABLE IF NOT EXISTS RECIPE_SUMMARY (
+	id INT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    chef_id INT,
+    chef_username VARCHAR(50),
+    ingredient_count INT NOT NULL
+);
+
+INSERT INTO RECIPE_SUMMARY (id, name, chef_id, chef_username, ingredient_count)
+SELECT RECIPE.id, RECIPE.name, RECIPE.chef_id, CHEF.username,
+    (SELECT COUNT(*) FROM RECIPE_INGREDIENT WHERE RECIPE_INGREDIENT.recipe_id = RECIPE.id)
+FROM RECIPE LEFT JOIN CHEF ON CHEF.id = RECIPE.chef_id;
+
+-- Listings are sorted with id appended as a tie-breaker; a username change updates the rows of a chef.
+CREATE INDEX IF NOT EXISTS IDX_RECIPE_SUMMARY_NAME ON RECIPE_SUMMARY(name, id);
+
+CREATE INDEX IF NOT EXISTS IDX_RECIPE_SUMMARY_CHEF ON RECIPE_SUMMARY(chef_id, id);
+
+CREATE TRIGGER IF NOT EXISTS TRG_RECIPE_SUMMARY_RECIPE AFTER INSERT, UPDATE, DELETE ON RECIPE
+FOR EACH ROW CALL 'com.revature.util.RecipeSummaryTrigger';
+
+CREATE TRIGGER IF NOT EXISTS TRG_RECIPE_SUMMARY_CHEF AFTER UPDATE ON CHEF
+FOR EACH ROW CALL 'com.revature.util.RecipeSummaryTrigger';
+
+CREATE TRIGGER IF NOT EXISTS TRG_RECIPE_SUMMARY_INGREDIENT AFTER INSERT, UPDATE, DELETE ON RECIPE_INGREDIENT
+FOR EACH ROW CALL 'com.revature.util.RecipeSummaryTrigger';
@@ -0,0 +1,32 @@
+-- Counters of the rows of each table and of the recipes of each chef, so paged listings can
+-- report their totals without counting the table on every request.
+--
+-- The counters are maintained by the row triggers below, which run in the transaction of every
+-- insert and delete. On a sharded database each shard counts its own rows.
+
+CREATE TABLE IF NOT EXISTS TABLE_ROW_COUNT (
+	table_name VARCHAR(50) PRIMARY KEY,
+    row_count BIGINT NOT NULL
+);
+
+INSERT INTO TABLE_ROW_COUNT (table_name, row_count)
+SELECT 'CHEF', COUNT(*) FROM CHEF
+UNION ALL SELECT 'INGREDIENT', COUNT(*) FROM INGREDIENT
+UNION ALL SELECT 'RECIPE', COUNT(*) FROM RECIPE;
+
+CREATE TABLE IF NOT EXISTS CHEF_RECIPE_COUNT (
+	chef_id INT PRIMARY KEY,
+    recipe_count BIGINT NOT NULL
+);
+
+INSERT INTO CHEF_RECIPE_COUNT (chef_id, recipe_count)
+SELECT CHEF.id, (SELECT COUNT(*) FROM RECIPE WHERE RECIPE.chef_id = CHEF.id) FROM CHEF;
+
+CREATE TRIGGER IF NOT EXISTS TRG_ROW_COUNT_CHEF AFTER INSERT, DELETE ON CHEF
+FOR EACH ROW CALL 'com.revature.util.RowCountTrigger';
+
+CREATE TRIGGER IF NOT EXISTS TRG_ROW_COUNT_INGREDIENT AFTER INSERT, DELETE ON INGREDIENT
+FOR EACH ROW CALL 'com.revature.util.RowCountTrigger';
+
+CREATE TRIGGER IF NOT EXISTS TRG_ROW_COUNT_RECIPE AFTER INSERT, UPDATE, DELETE ON RECIPE
+FOR EACH ROW CALL 'com.revature.util.RowCountTrigger';
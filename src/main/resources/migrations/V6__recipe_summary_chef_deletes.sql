@@ -0,0 +1,9 @@
+-- The CHEF trigger of the recipe summaries now follows inserts and deletes as well as updates.
+-- A deleted chef's summaries keep the chef id but lose the username, as the LEFT JOIN checked by
+-- RecipeSummaryTable implies, and an inserted chef's username is set on any summary naming the
+-- chef's id, so the summaries stay right when the foreign key does not hold, as after a restore.
+
+DROP TRIGGER IF EXISTS TRG_RECIPE_SUMMARY_CHEF;
+
+CREATE TRIGGER IF NOT EXISTS TRG_RECIPE_SUMMARY_CHEF AFTER INSERT, UPDATE, DELETE ON CHEF
+FOR EACH ROW CALL 'com.revature.util.RecipeSummaryTrigger';
@@ -0,0 +1,118 @@
+package com.revature.dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.revature.model.Recipe;
+import com.revature.model.RecipeSummary;
+import com.revature.util.SchemaMigrator;
+
+/**
+ * Compares mapping recipe rows by column label from {@code SELECT *} with
+ * RecipeDAO's own mapping of its explicit projections by column index,
+ * including the summary projection that leaves out the instructions. The
+ * benchmark lives in the DAO's package to call its package-visible row
+ * mappers, so it measures the code the DAO runs.
+ *
+ * The author lookup RecipeDAO performs per row is left out so only the cost of
+ * reading the result set is measured. This is not a unit test; run it with
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main RowMappingBenchmark
+ * </pre>
+ *
+ * Add {@code -p rows=10000} for a quick run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    @Param({ "1000000" })
+    public int rows;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUpDatabase() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:row_mapping;DB_CLOSE_DELAY=-1", "sa", "");
+        SchemaMigrator.migrate(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO RECIPE (name, instructions, chef_id) SELECT 'recipe' || X, "
+                    + "REPEAT('Stir the pot and simmer gently. ', 16), MOD(X, 4) + 1 FROM SYSTEM_RANGE(1, " + rows
+                    + ")");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownDatabase() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Recipe> selectStarByLabel() throws SQLException {
+        List<Recipe> recipes = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet set = statement.executeQuery("SELECT * FROM RECIPE")) {
+            while (set.next()) {
+                Recipe recipe = new Recipe(set.getInt("id"), set.getString("name"), set.getString("instructions"),
+                        null);
+                set.getInt("chef_id");
+                recipes.add(recipe);
+            }
+        }
+        return recipes;
+    }
+
+    @Benchmark
+    public List<Recipe> projectionByIndex() throws SQLException {
+        List<Recipe> recipes = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet set = statement.executeQuery("SELECT id, name, instructions, chef_id FROM RECIPE")) {
+            while (set.next()) {
+                recipes.add(RecipeDAO.mapRecipeRow(set, authorId -> null));
+            }
+        }
+        return recipes;
+    }
+
+    @Benchmark
+    public List<RecipeSummary> summaryByIndex() throws SQLException {
+        List<RecipeSummary> summaries = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet set = statement.executeQuery(
+                        "SELECT id, name, chef_id, chef_username, ingredient_count FROM RECIPE_SUMMARY")) {
+            while (set.next()) {
+                summaries.add(RecipeDAO.mapSummaryRow(set));
+            }
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,49 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.Batch;
+
+public class BatchTest {
+
+    @Test
+    void idsAreParsedInOrderWithoutRepeats() {
+        assertEquals(List.of(3, 1, 2), Batch.parseIds("3, 1,,2,3"));
+    }
+
+    @Test
+    void invalidIdsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Batch.parseIds("1,two"));
+        StringBuilder tooMany = new StringBuilder();
+        for (int id = 0; id <= Batch.MAX_IDS; id++) {
+            tooMany.append(id).append(',');
+        }
+        assertThrows(IllegalArgumentException.class, () -> Batch.parseIds(tooMany.toString()));
+    }
+
+    @Test
+    void batchKeepsRequestOrderAndReportsMissingIds() {
+        Batch<String> batch = Batch.of(List.of(5, 7, 1), Map.of(1, "one", 5, "five"));
+        assertEquals(List.of("five", "one"), batch.getItems());
+        assertEquals(List.of(7), batch.getMissing());
+    }
+
+    @Test
+    void idsAreSplitIntoChunks() {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 250; id++) {
+            ids.add(id);
+        }
+        List<List<Integer>> chunks = Batch.chunks(ids, 100);
+        assertEquals(3, chunks.size());
+        assertEquals(50, chunks.get(2).size());
+        assertEquals(201, chunks.get(2).get(0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.revature.model.Chef;
+import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
+import com.revature.util.CatalogSnapshot;
+
+public class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private static Recipe recipe(int id, String name, Chef author, RecipeIngredient... ingredients) {
+        Recipe recipe = new Recipe(id, name, "Cook the " + name, author);
+        recipe.setIngredients(List.of(ingredients));
+        return recipe;
+    }
+
+    /** RecipeIngredient does not define equality, so ingredients are compared by their fields. */
+    private static List<String> describe(List<RecipeIngredient> ingredients) {
+        return ingredients.stream()
+                .map(ingredient -> ingredient.getId() + " " + ingredient.getName() + " " + ingredient.getVolume() + " "
+                        + ingredient.getUnit())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void recipesAreReadBackWithTheirAuthorsAndIngredients() throws IOException {
+        Chef trevin = new Chef(1, "ChefTrevin", "trevin@chefmail.com", "trevature", true);
+        Chef jon = new Chef(2, "ChefJon", "jon@chefmail.com", "jonathan", false);
+        Recipe soup = recipe(9, "bean soup", trevin, new RecipeIngredient(3, "bean", 2.0, "cups"),
+                new RecipeIngredient(5, "salt", 0.5, "tsp"));
+        Recipe stew = recipe(4, "bean stew", jon, new RecipeIngredient(3, "bean", 3.0, "cups"));
+        Recipe toast = recipe(6, "toast", trevin);
+        Path file = directory.resolve("catalog.snapshot");
+
+        CatalogSnapshot.write(file, 42, List.of(soup, stew, toast));
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+
+        assertEquals(42, snapshot.sequence());
+        assertEquals(List.of(4, 6, 9), snapshot.recipeIds(), () -> "Recipes should be indexed by id");
+        assertEquals(soup, snapshot.findRecipe(9));
+        assertEquals(describe(soup.getIngredients()), describe(snapshot.findRecipe(9).getIngredients()));
+        assertEquals(new Chef(2, "ChefJon", null, null, false), snapshot.findRecipe(4).getAuthor(),
+                () -> "Authors should be kept without their email and password");
+        assertFalse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("trevature"),
+                () -> "Passwords should not be written to the snapshot");
+        assertEquals(List.of(), snapshot.findRecipe(6).getIngredients());
+        assertNull(snapshot.findRecipe(5), () -> "A recipe missing from the snapshot should not be found");
+    }
+
+    @Test
+    void corruptOrIncompatibleSnapshotsAreRejected() throws IOException {
+        Path file = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(file, 1, List.of(recipe(1, "toast", null)));
+        byte[] valid = Files.readAllBytes(file);
+
+        byte[] corrupt = valid.clone();
+        corrupt[corrupt.length - 1] ^= 1;
+        Files.write(file, corrupt);
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(file),
+                () -> "A snapshot that fails its checksum should be rejected");
+
+        byte[] newer = valid.clone();
+        ByteBuffer.wrap(newer).putInt(4, CatalogSnapshot.VERSION + 1);
+        Files.write(file, newer);
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(file),
+                () -> "A snapshot of another format version should be rejected");
+
+        Files.write(file, valid);
+        assertEquals("toast", CatalogSnapshot.open(file).findRecipe(1).getName());
+    }
+}
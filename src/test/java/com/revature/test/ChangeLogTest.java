@@ -0,0 +1,102 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.revature.model.ChangeEvent;
+import com.revature.util.ChangeLog;
+
+public class ChangeLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<Long> sequences(List<ChangeEvent> events) {
+        return events.stream().map(ChangeEvent::getSequence).collect(Collectors.toList());
+    }
+
+    @Test
+    void eventsAreNumberedAndReadInOrder() {
+        ChangeLog log = new ChangeLog(directory);
+        log.append("recipe", ChangeEvent.CREATE, 6, Map.of("name", "bean soup"));
+        log.append("recipe", ChangeEvent.UPDATE, 6, Map.of("name", "black bean soup"));
+        log.append("recipe", ChangeEvent.DELETE, 6, null);
+
+        List<ChangeEvent> events = log.read(2, 10);
+        assertEquals(List.of(2L, 3L), sequences(events));
+        assertEquals(Map.of("name", "black bean soup"), events.get(0).getData());
+        assertEquals(ChangeEvent.DELETE, events.get(1).getOperation());
+    }
+
+    @Test
+    void reopenedLogRecoversItsEventsAndContinuesTheSequence() {
+        ChangeLog log = new ChangeLog(directory);
+        log.append("ingredient", ChangeEvent.CREATE, 7, Map.of("name", "bean"));
+        log.close();
+
+        ChangeLog reopened = new ChangeLog(directory);
+        assertEquals(1, reopened.lastSequence(), () -> "The reopened log should recover its events");
+        assertEquals(2, reopened.append("ingredient", ChangeEvent.DELETE, 7, null).getSequence());
+        assertEquals(List.of(1L, 2L), sequences(reopened.read(0, 10)));
+    }
+
+    @Test
+    void fullSegmentsRollOverAndOldOnesAreDropped() throws Exception {
+        ChangeLog log = new ChangeLog(directory, 512, 3);
+        for (int id = 1; id <= 40; id++) {
+            log.append("recipe", ChangeEvent.UPDATE, id, Map.of("name", "recipe " + id));
+        }
+        long files;
+        try (var list = Files.list(directory)) {
+            files = list.count();
+        }
+        assertEquals(3, files, () -> "Only the retained segments should be kept on disk");
+
+        List<ChangeEvent> retained = log.read(0, 100);
+        long first = retained.get(0).getSequence();
+        assertTrue(first > 1, () -> "The oldest events should have been dropped");
+        assertEquals(LongStream.rangeClosed(first, 40).boxed().collect(Collectors.toList()), sequences(retained),
+                () -> "The retained events should be consecutive across segments");
+    }
+
+    @Test
+    void subscribersReplayFromAnOffsetThenReceiveNewEvents() {
+        ChangeLog log = new ChangeLog(directory);
+        log.append("chef", ChangeEvent.CREATE, 5, null);
+        log.append("chef", ChangeEvent.UPDATE, 5, null);
+
+        List<ChangeEvent> received = new ArrayList<>();
+        ChangeLog.Subscription subscription = log.subscribe(2, received::add);
+        log.append("chef", ChangeEvent.DELETE, 5, null);
+        subscription.close();
+        log.append("chef", ChangeEvent.CREATE, 6, null);
+
+        assertEquals(List.of(2L, 3L), sequences(received),
+                () -> "The subscriber should replay from its offset, then follow until it unsubscribes");
+    }
+
+    @Test
+    void logsKeptInMemoryAreReadAndFollowedLikeFiles() {
+        ChangeLog log = ChangeLog.inMemory();
+        List<ChangeEvent> received = new ArrayList<>();
+        log.subscribe(1, received::add);
+        log.append("recipe", ChangeEvent.CREATE, 6, Map.of("name", "bean soup"));
+        log.append("recipe", ChangeEvent.DELETE, 6, null);
+
+        assertEquals(List.of(1L, 2L), sequences(log.read(0, 10)));
+        assertEquals(List.of(1L, 2L), sequences(received));
+        log.close();
+        assertEquals(0, ChangeLog.inMemory().lastSequence(), () -> "Each log kept in memory should start empty");
+    }
+}
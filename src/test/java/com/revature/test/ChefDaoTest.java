@@ -77,11 +77,11 @@ public class ChefDaoTest {
     public void testGetAllChefs() throws Exception {
         // Arrange
         when(resultSet.next()).thenReturn(true, true, false);
-        when(resultSet.getInt("id")).thenReturn(1, 2);
-        when(resultSet.getString("username")).thenReturn("chef1", "chef2");
-        when(resultSet.getString("email")).thenReturn("chef1@test.com", "chef2@test.com");
-        when(resultSet.getString("password")).thenReturn("pass1", "pass2");
-        when(resultSet.getBoolean("isAdmin")).thenReturn(false, false);
+        when(resultSet.getInt(1)).thenReturn(1, 2);
+        when(resultSet.getString(2)).thenReturn("chef1", "chef2");
+        when(resultSet.getString(3)).thenReturn("chef1@test.com", "chef2@test.com");
+        when(resultSet.getString(4)).thenReturn("pass1", "pass2");
+        when(resultSet.getBoolean(5)).thenReturn(false, false);
 
         // Act
         List<Chef> chefs = chefDAO.getAllChefs();
@@ -99,11 +99,11 @@ public class ChefDaoTest {
     public void testGetChefById() throws Exception {
         // Arrange
         when(resultSet.next()).thenReturn(true);
-        when(resultSet.getInt("id")).thenReturn(1);
-        when(resultSet.getString("username")).thenReturn("testChef");
-        when(resultSet.getString("email")).thenReturn("test@chef.com");
-        when(resultSet.getString("password")).thenReturn("password123");
-        when(resultSet.getBoolean("is_admin")).thenReturn(false);
+        when(resultSet.getInt(1)).thenReturn(1);
+        when(resultSet.getString(2)).thenReturn("testChef");
+        when(resultSet.getString(3)).thenReturn("test@chef.com");
+        when(resultSet.getString(4)).thenReturn("password123");
+        when(resultSet.getBoolean(5)).thenReturn(false);
 
         // Act
         Chef chef = chefDAO.getChefById(1);
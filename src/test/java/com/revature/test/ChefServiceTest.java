@@ -5,7 +5,6 @@ import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -82,7 +81,7 @@ class ChefServiceTest {
     @Test
     void deleteChef() {
         when(chefDao.getChefById(1)).thenReturn(MOCKS.get(0));
-        doNothing().when(chefDao).deleteChef(any(Chef.class));
+        when(chefDao.deleteChef(any(Chef.class))).thenReturn(true);
         ArgumentCaptor<Chef> chefCaptor = ArgumentCaptor.forClass(Chef.class);
         chefService.deleteChef(1);
         verify(chefDao).deleteChef(chefCaptor.capture());
@@ -0,0 +1,89 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.revature.model.Chef;
+import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
+import com.revature.util.CompactRecipeStore;
+
+public class CompactRecipeStoreTest {
+
+    private static final Chef TREVIN = new Chef(1, "ChefTrevin", "trevin@chefmail.com", "trevature", true);
+
+    private static Recipe recipe(int id) {
+        Recipe recipe = new Recipe(id, "recipe " + id, "Cook recipe " + id, TREVIN);
+        recipe.setIngredients(List.of(new RecipeIngredient(3, "bean", id, "cups"),
+                new RecipeIngredient(5, "salt", 0.5, "tsp")));
+        return recipe;
+    }
+
+    @Test
+    void recipesAreRebuiltFromTheirCompactForm() {
+        CompactRecipeStore store = new CompactRecipeStore("test", 10);
+        store.put(recipe(7), 0);
+
+        Recipe found = store.get(7);
+        assertEquals(recipe(7), found);
+        assertEquals("Cook recipe 7", found.getInstructions());
+        assertEquals(TREVIN, found.getAuthor());
+        assertNotSame(store.get(7).getAuthor(), found.getAuthor(), () -> "Every read should get its own objects");
+        RecipeIngredient bean = found.getIngredients().get(0);
+        assertEquals(List.of(3, "bean", 7.0, "cups"),
+                List.of(bean.getId(), bean.getName(), bean.getVolume(), bean.getUnit()));
+        assertEquals(2, found.getIngredients().size());
+        assertNull(store.get(8));
+    }
+
+    @Test
+    void offHeapInstructionsAreDecodedWhenSerialized() throws Exception {
+        CompactRecipeStore store = new CompactRecipeStore("test", 10, true);
+        Recipe stew = recipe(7);
+        stew.setInstructions("Stir the pot and simmer gently. ".repeat(64));
+        store.put(stew, 0);
+
+        String json = new ObjectMapper().writeValueAsString(store.get(7));
+        assertTrue(json.contains("\"instructions\":\"" + stew.getInstructions() + "\""), () -> json);
+    }
+
+    @Test
+    void removalsKeepTheOtherRecipesReachableAndBlockStaleLoads() {
+        CompactRecipeStore store = new CompactRecipeStore("test", 1000);
+        for (int id = 1; id <= 500; id++) {
+            store.put(recipe(id), 0);
+        }
+        for (int id = 1; id <= 500; id += 2) {
+            store.remove(id, 10);
+        }
+        assertEquals(250, store.size());
+        for (int id = 1; id <= 500; id++) {
+            int recipeId = id;
+            assertEquals(id % 2 == 0, store.get(id) != null, () -> "Recipe " + recipeId + " has the wrong presence");
+        }
+
+        assertFalse(store.put(recipe(1), 9), () -> "A recipe loaded before a removal may be stale");
+        store.put(recipe(1), 10);
+        assertNotNull(store.get(1));
+    }
+
+    @Test
+    void fullStoresEvictToStayBounded() {
+        CompactRecipeStore store = new CompactRecipeStore("test", 100);
+        for (int id = 1; id <= 1000; id++) {
+            store.put(recipe(id), 0);
+        }
+        assertEquals(100, store.size());
+        assertNotNull(store.get(1000), () -> "The latest recipe should be held");
+    }
+}
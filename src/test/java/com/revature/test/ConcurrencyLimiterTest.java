@@ -0,0 +1,65 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.AdmissionMiddleware;
+import com.revature.util.ConcurrencyLimiter;
+import com.revature.util.ConcurrencyLimiter.Priority;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    void sheddableRequestsAreRejectedBeforeCriticalOnes() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 10, 1000, 0);
+        for (int i = 0; i < 7; i++) {
+            assertTrue(limiter.tryAcquire(Priority.SHEDDABLE));
+        }
+        assertFalse(limiter.tryAcquire(Priority.SHEDDABLE), () -> "Sheddable requests should stop at their share");
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL), () -> "Critical requests should still be admitted");
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void slowRequestsShrinkTheLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(20, 2, 100, 10, 0);
+        limiter.tryAcquire(Priority.NORMAL);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(18, limiter.getLimit(), () -> "A slow request should decrease the limit multiplicatively");
+    }
+
+    @Test
+    void aBurstOfSlowRequestsShrinksTheLimitOnce() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(64, 8, 512, 60_000, 0);
+        for (int i = 0; i < 64; i++) {
+            limiter.tryAcquire(Priority.NORMAL);
+        }
+        for (int i = 0; i < 64; i++) {
+            limiter.release(TimeUnit.MINUTES.toNanos(2));
+        }
+        assertEquals(57, limiter.getLimit(), () -> "Slow requests within one latency window should count once");
+    }
+
+    @Test
+    void fastRequestsUnderLoadGrowTheLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 100, 1000, 0);
+        limiter.tryAcquire(Priority.CRITICAL);
+        limiter.tryAcquire(Priority.CRITICAL);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(3, limiter.getLimit(), () -> "A fast request at the limit should increase it additively");
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void routesAreClassifiedByPriority() {
+        assertEquals(Priority.CRITICAL, AdmissionMiddleware.priorityOf("GET", "/recipes/3"));
+        assertEquals(Priority.CRITICAL, AdmissionMiddleware.priorityOf("POST", "/login"));
+        assertEquals(Priority.SHEDDABLE, AdmissionMiddleware.priorityOf("GET", "/recipes"));
+        assertEquals(Priority.NORMAL, AdmissionMiddleware.priorityOf("PUT", "/recipes/3"));
+    }
+}
@@ -1,13 +1,20 @@
 package com.revature.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import org.junit.jupiter.api.Test;
 
 import com.revature.util.ConnectionUtil;
+import com.revature.util.Metrics;
 
 class ConnectionTest {
 
@@ -18,5 +25,79 @@ class ConnectionTest {
 		connection.close();
 	}
 
-}
+	@Test
+	void statementsAreReusedAcrossLeases() throws SQLException {
+		String sql = "SELECT 1 WHERE ? = ?";
+		try (Connection connection = new ConnectionUtil().getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setInt(1, 1);
+			statement.setInt(2, 1);
+			statement.executeQuery();
+		}
+		long hitsBefore = Metrics.snapshot().get("statementCache.hits").longValue();
+		try (Connection connection = new ConnectionUtil().getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setInt(1, 1);
+			statement.setInt(2, 1);
+			assertTrue(statement.executeQuery().next(), () -> "A cached statement should still execute");
+		}
+		assertEquals(hitsBefore + 1, Metrics.snapshot().get("statementCache.hits").longValue(),
+				() -> "The second lease should reuse the statement prepared by the first");
+	}
+
+	@Test
+	void closingACachedStatementClosesItsResultSets() throws SQLException {
+		ResultSet resultSet;
+		try (Connection connection = new ConnectionUtil().getConnection();
+				PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+			resultSet = statement.executeQuery();
+			assertFalse(resultSet.isClosed());
+		}
+		assertTrue(resultSet.isClosed(), () -> "A result set should not outlive its statement's lease");
+	}
 
+	@Test
+	void statementsPreparedTwiceInOneLeaseAreIndependent() throws SQLException {
+		try (Connection connection = new ConnectionUtil().getConnection();
+				PreparedStatement first = connection.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 2)");
+				PreparedStatement second = connection.prepareStatement("SELECT X FROM SYSTEM_RANGE(1, 2)")) {
+			ResultSet firstRows = first.executeQuery();
+			assertTrue(firstRows.next());
+			assertTrue(second.executeQuery().next());
+			assertTrue(firstRows.next(), () -> "Running the second statement should not close the first one's rows");
+			assertEquals(2, firstRows.getInt(1));
+		}
+	}
+
+	@Test
+	void closedStatementsCannotBeUsed() throws SQLException {
+		try (Connection connection = new ConnectionUtil().getConnection()) {
+			PreparedStatement statement = connection.prepareStatement("SELECT 1");
+			statement.close();
+			assertThrows(SQLException.class, statement::executeQuery);
+		}
+	}
+
+	@Test
+	void batchesDoNotOutliveTheirLease() throws SQLException {
+		String sql = "SELECT 1 WHERE ? = 1";
+		try (Connection connection = new ConnectionUtil().getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setInt(1, 1);
+			statement.addBatch();
+		}
+		try (Connection connection = new ConnectionUtil().getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			assertEquals(0, statement.executeBatch().length, () -> "A batch left by an earlier lease should be cleared");
+		}
+	}
+
+	@Test
+	void returnedConnectionCannotBeUsed() throws SQLException {
+		Connection connection = new ConnectionUtil().getConnection();
+		connection.close();
+		assertTrue(connection.isClosed());
+		assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+	}
+
+}
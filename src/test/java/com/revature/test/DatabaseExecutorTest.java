@@ -0,0 +1,76 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.DatabaseExecutor;
+
+public class DatabaseExecutorTest {
+
+    @Test
+    void completesWithTheResultOfTheWork() throws Exception {
+        DatabaseExecutor executor = new DatabaseExecutor("test.result", 2, 4, 5000);
+        assertEquals("recipe", executor.supply(() -> "recipe").get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> executor.supply(() -> {
+            throw new IllegalArgumentException("boom");
+        }).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+    }
+
+    @Test
+    void rejectsWorkWhenTheQueueIsFull() throws Exception {
+        DatabaseExecutor executor = new DatabaseExecutor("test.rejected", 1, 1, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            executor.run(() -> {
+                started.countDown();
+                await(release);
+            });
+            started.await(5, TimeUnit.SECONDS);
+            executor.supply(() -> "queued");
+            CompletableFuture<String> rejected = executor.supply(() -> "rejected");
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> rejected.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void timedOutWorkThatHasNotStartedIsSkipped() throws Exception {
+        DatabaseExecutor executor = new DatabaseExecutor("test.timeout", 1, 4, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Void> blocker = executor.run(() -> await(release));
+        CompletableFuture<Integer> waiting = executor.supply(runs::incrementAndGet);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        release.countDown();
+        assertThrows(ExecutionException.class, () -> blocker.get(5, TimeUnit.SECONDS));
+        // the worker is free again once this runs, so the skipped work would have run by now
+        assertEquals("after", executor.supply(() -> "after").get(5, TimeUnit.SECONDS));
+        assertEquals(0, runs.get(), () -> "Work whose future timed out in the queue should not run");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
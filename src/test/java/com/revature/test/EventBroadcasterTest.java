@@ -0,0 +1,187 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.revature.model.ChangeEvent;
+import com.revature.util.ChangeLog;
+import com.revature.util.EventBroadcaster;
+import com.revature.util.Metrics;
+
+import io.javalin.Javalin;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+public class EventBroadcasterTest {
+
+    @TempDir
+    Path directory;
+
+    private ChangeLog log;
+
+    private EventBroadcaster broadcaster;
+
+    private Javalin app;
+
+    private final OkHttpClient client = new OkHttpClient.Builder().readTimeout(5, TimeUnit.SECONDS).build();
+
+    @BeforeEach
+    void start() {
+        log = new ChangeLog(directory);
+        log.append("recipe", ChangeEvent.CREATE, 1, Map.of("name", "bean soup"));
+        log.append("chef", ChangeEvent.CREATE, 2, null);
+        log.append("recipe", ChangeEvent.UPDATE, 1, Map.of("name", "black bean soup"));
+        broadcaster = new EventBroadcaster("test", log, event -> event.getEntity().equals("recipe"),
+                EventBroadcaster.DEFAULT_BUFFER_SIZE);
+        app = Javalin.create().sse("/stream", broadcaster::connect).start(0);
+    }
+
+    @AfterEach
+    void stop() {
+        broadcaster.close();
+        app.close();
+        log.close();
+    }
+
+    private Response open(String lastEventId) throws IOException {
+        Request.Builder request = new Request.Builder().url("http://localhost:" + app.port() + "/stream")
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return client.newCall(request.build()).execute();
+    }
+
+    /** Reads the event and id lines of the next events, skipping data and comments. */
+    private static List<String> nextEvents(BufferedSource source, int count) throws IOException {
+        List<String> events = new ArrayList<>();
+        String event = null;
+        String id = null;
+        while (events.size() < count) {
+            String line = source.readUtf8LineStrict();
+            if (line.startsWith("event: ")) {
+                event = line.substring("event: ".length());
+            } else if (line.startsWith("id: ")) {
+                id = line.substring("id: ".length());
+            } else if (line.isEmpty() && event != null) {
+                events.add(event + " " + id);
+                event = null;
+            }
+        }
+        return events;
+    }
+
+    private void awaitClients(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (broadcaster.clientCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, broadcaster.clientCount());
+    }
+
+    private static void awaitMetric(String name) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Metrics.snapshot().get(name) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void newEventsArePushedToConnectedClients() throws Exception {
+        try (Response response = open(null)) {
+            awaitClients(1);
+            log.append("chef", ChangeEvent.UPDATE, 2, null);
+            log.append("recipe", ChangeEvent.DELETE, 1, null);
+
+            assertEquals(List.of("delete 5"), nextEvents(response.body().source(), 1),
+                    () -> "Only new events passing the filter should be pushed, with their sequence as id");
+        }
+    }
+
+    @Test
+    void reconnectingClientsResumeAfterTheirLastEventId() throws Exception {
+        try (Response response = open("1")) {
+            awaitClients(1);
+            log.append("recipe", ChangeEvent.DELETE, 1, null);
+
+            assertEquals(List.of("update 3", "delete 4"), nextEvents(response.body().source(), 2),
+                    () -> "The missed events should be replayed before the new ones");
+        }
+    }
+
+    @Test
+    void clientsResumingFromDroppedEventsAreToldToReset() throws Exception {
+        ChangeLog small = new ChangeLog(directory.resolve("small"), 512, 2);
+        for (int id = 1; id <= 40; id++) {
+            small.append("recipe", ChangeEvent.UPDATE, id, Map.of("name", "recipe " + id));
+        }
+        try (EventBroadcaster resetting = new EventBroadcaster("reset", small, event -> true, 4)) {
+            broadcaster.close();
+            app.close();
+            broadcaster = resetting;
+            app = Javalin.create().sse("/stream", resetting::connect).start(0);
+
+            try (Response response = open("1")) {
+                assertEquals("reset 1", nextEvents(response.body().source(), 1).get(0),
+                        () -> "A client that missed dropped events should be told to reload its state");
+            }
+        }
+    }
+
+    @Test
+    void clientsThatStopReadingAreDisconnected() throws Exception {
+        try (EventBroadcaster stalling = new EventBroadcaster("stall", log, event -> true, 4096, 1000)) {
+            broadcaster.close();
+            app.close();
+            broadcaster = stalling;
+            app = Javalin.create().sse("/stream", stalling::connect).start(0);
+
+            try (Socket stalled = new Socket()) {
+                // a small receive window, never read, blocks the sends once the server's buffers are full
+                stalled.setReceiveBufferSize(1024);
+                stalled.connect(new InetSocketAddress("localhost", app.port()));
+                stalled.getOutputStream().write(("GET /stream HTTP/1.1\r\nHost: localhost\r\n"
+                        + "Accept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                awaitClients(1);
+
+                try (Response response = open(null)) {
+                    awaitClients(2);
+                    // read on a thread of its own, so the client keeps up while the events are appended
+                    FutureTask<List<String>> received = new FutureTask<>(
+                            () -> nextEvents(response.body().source(), 301));
+                    new Thread(received, "sse-reader").start();
+                    String instructions = "stir ".repeat(4000);
+                    for (int id = 1; id <= 300; id++) {
+                        log.append("recipe", ChangeEvent.UPDATE, id, Map.of("instructions", instructions));
+                    }
+                    awaitClients(1);
+                    // the client is removed just before the disconnect is counted
+                    awaitMetric("sse.stall.stalledClientsDisconnected");
+                    assertEquals(1, Metrics.snapshot().get("sse.stall.stalledClientsDisconnected").longValue(),
+                            () -> "Only the client that stopped reading should be disconnected");
+
+                    log.append("recipe", ChangeEvent.DELETE, 1, null);
+                    assertEquals("delete 304", received.get(10, TimeUnit.SECONDS).get(300),
+                            () -> "The client still reading should receive every event");
+                }
+            }
+        }
+    }
+}
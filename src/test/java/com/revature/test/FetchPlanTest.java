@@ -0,0 +1,95 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.revature.dao.ChefDAO;
+import com.revature.dao.RecipeDAO;
+import com.revature.model.Recipe;
+import com.revature.util.ConnectionUtil;
+import com.revature.util.DBUtil;
+import com.revature.util.FetchPlan;
+import com.revature.util.Page;
+import com.revature.util.PageOptions;
+
+public class FetchPlanTest {
+
+    private ChefDAO chefDao;
+    private RecipeDAO recipeDao;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionUtil database = new ConnectionUtil(List.of("jdbc:h2:mem:fetchplan;DB_CLOSE_DELAY=-1"));
+        DBUtil.RUN_SQL(database);
+        chefDao = spy(new ChefDAO(database));
+        recipeDao = spy(new RecipeDAO(chefDao, null, database));
+    }
+
+    @Test
+    void listViewsReadOnlyTheIdNameAndAuthorId() {
+        Page<Recipe> page = recipeDao.getAllRecipes(new PageOptions(1, 2, "id", "asc"), FetchPlan.LIST);
+
+        assertEquals(5, page.getTotalElements());
+        Recipe potato = page.getItems().get(1);
+        assertEquals("potato soup", potato.getName());
+        assertEquals(2, potato.getAuthor().getId());
+        assertNull(potato.getAuthor().getUsername());
+        assertNull(potato.getInstructions());
+        assertNull(potato.getIngredients());
+        verify(chefDao, never()).getChefsByIds(anyList());
+        verify(chefDao, never()).getChefById(anyInt());
+        verify(recipeDao, never()).getRecipeInstructions(anyList());
+    }
+
+    @Test
+    void eagerPartsAreReadForThePageOnly() {
+        FetchPlan plan = FetchPlan.parse("ingredients, Author,instructions");
+        Page<Recipe> page = recipeDao.searchRecipesByTerm("lemon", new PageOptions(1, 10, "id", "asc"), plan);
+
+        Recipe lemon = page.getItems().get(0);
+        assertEquals("Put lemon and rice in water.  Boil.  Maybe salt.", lemon.getInstructions());
+        assertEquals("ChefTrevin", lemon.getAuthor().getUsername());
+        assertEquals(List.of("lemon", "rice"),
+                lemon.getIngredients().stream().map(ingredient -> ingredient.getName()).collect(Collectors.toList()));
+        verify(recipeDao).getRecipeInstructions(List.of(4));
+        verify(chefDao).getChefsByIds(List.of(4));
+        verify(chefDao, never()).getChefById(anyInt());
+    }
+
+    @Test
+    void lazyPartsAreReadForTheWholePageOnFirstUse() {
+        Page<Recipe> page = recipeDao.getAllRecipes(new PageOptions(1, 10, "id", "asc"), FetchPlan.LAZY);
+        verify(chefDao, never()).getChefsByIds(anyList());
+        verify(recipeDao, never()).getRecipeInstructions(anyList());
+
+        List<String> authors = page.getItems().stream().map(recipe -> recipe.getAuthor().getUsername())
+                .collect(Collectors.toList());
+        assertEquals(List.of("JoeCool", "CharlieBrown", "CharlieBrown", "ChefTrevin", "ChefTrevin"), authors);
+        verify(chefDao, times(1)).getChefsByIds(anyList());
+
+        assertEquals("Put stone in water.  Boil.  Maybe salt.", page.getItems().get(4).getInstructions());
+        assertEquals("Put carrot in water.  Boil.  Maybe salt.", page.getItems().get(0).getInstructions());
+        verify(recipeDao, times(1)).getRecipeInstructions(anyList());
+        assertTrue(page.getItems().get(4).getIngredients().isEmpty(), () -> "Stone soup has no ingredients");
+    }
+
+    @Test
+    void unknownPartsAreRejected() {
+        assertEquals(FetchPlan.LIST, FetchPlan.parse(" "));
+        assertThrows(IllegalArgumentException.class, () -> FetchPlan.parse("author,password"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.dao.RecipeDAO;
+import com.revature.model.Recipe;
+import com.revature.util.FieldSet;
+
+public class FieldSetTest {
+
+    @Test
+    void selectionsAreNormalizedAndCached() {
+        FieldSet.Projection<Recipe> projection = RecipeDAO.FIELDS.select("name, ID");
+        assertSame(projection, RecipeDAO.FIELDS.select("id,name,id"),
+                () -> "The same combination should share one compiled projection");
+        assertEquals("id, name", projection.columns(), () -> "Columns should follow declaration order");
+        assertSame(RecipeDAO.FIELDS.all(), RecipeDAO.FIELDS.select("author,instructions,name,id"));
+        assertSame(RecipeDAO.FIELDS.all(), RecipeDAO.FIELDS.select(null));
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RecipeDAO.FIELDS.select("name,password"));
+    }
+
+    @Test
+    void onlySelectedFieldsAreReadAndWritten() throws SQLException {
+        FieldSet.Projection<Recipe> projection = RecipeDAO.FIELDS.select("instructions,id");
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:field_set", "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE RECIPE (id INT, name VARCHAR(100), instructions TEXT, chef_id INT)");
+            statement.executeUpdate("INSERT INTO RECIPE VALUES (7, 'stew', 'Simmer.', 1)");
+            try (ResultSet set = statement.executeQuery("SELECT " + projection.columns() + " FROM RECIPE")) {
+                set.next();
+                Recipe recipe = projection.map(set);
+                assertEquals(7, recipe.getId());
+                assertEquals("Simmer.", recipe.getInstructions());
+                assertNull(recipe.getName(), () -> "Fields that were not selected should keep their defaults");
+                assertEquals(List.of(Map.of("id", 7, "instructions", "Simmer.")),
+                        projection.toJson(List.of(recipe)));
+                assertEquals(List.of("id", "instructions"), List.copyOf(projection.toJson(recipe).keySet()));
+            }
+        }
+    }
+}
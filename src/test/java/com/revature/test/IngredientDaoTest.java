@@ -4,6 +4,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -55,6 +56,18 @@ public class IngredientDaoTest {
                                                 + ingredientList.get(0) + " Actual: " + ingredient);
         }
 
+        @Test
+        void readManyAcrossChunksTest() {
+                List<Integer> ids = new ArrayList<>();
+                for (int id = 250; id > 0; id--) {
+                        ids.add(id);
+                }
+                Map<Integer, Ingredient> ingredients = ingredientDao.getIngredientsByIds(ids);
+                assertEquals(ingredientList.size(), ingredients.size(),
+                                () -> "Every existing ingredient should be found whatever chunk it is in");
+                assertEquals(ingredientList.get(5), ingredients.get(6));
+        }
+
         @Test
         void deleteIngredientTest() throws SQLException {
                 Ingredient ingredient = ingredientDao.getIngredientById(1);
@@ -40,6 +40,24 @@ public class IngredientIntegrationTest {
         });
     }
 
+    @Test
+    void testGetIngredientWithFields() {
+        JavalinTest.test(app, (server, client) -> {
+            assertEquals("{\"name\":\"carrot\"}", client.get("/ingredients/1?fields=name").body().string());
+            assertEquals("{\"pageNumber\":1,\"pageSize\":2,\"totalPages\":3,\"totalElements\":6,"
+                    + "\"items\":[{\"id\":1},{\"id\":2}]}",
+                    client.get("/ingredients?fields=id&page=1&pageSize=2&sortBy=id").body().string());
+        });
+    }
+
+    @Test
+    void testGetIngredientsByIds() {
+        JavalinTest.test(app, (server, client) -> {
+            assertEquals("{\"items\":[{\"id\":4,\"name\":\"lemon\"},{\"id\":2,\"name\":\"potato\"}],"
+                    + "\"missing\":[40]}", client.get("/ingredients?ids=4,40,2").body().string());
+        });
+    }
+
     @Test
     void testGetIngredientNotFound() {
         JavalinTest.test(app, (server, client) -> {
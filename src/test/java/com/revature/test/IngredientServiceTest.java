@@ -3,7 +3,6 @@ package com.revature.test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -76,7 +75,7 @@ public class IngredientServiceTest {
     void updateIngredient() {
         Ingredient existingIngredient = new Ingredient(42, "new ingredient");
         ArgumentCaptor<Ingredient> ingredientCaptor = ArgumentCaptor.forClass(Ingredient.class);
-        doNothing().when(ingredientDao).updateIngredient(any(Ingredient.class));
+        when(ingredientDao.updateIngredient(any(Ingredient.class))).thenReturn(true);
         ingredientService.saveIngredient(existingIngredient);
         verify(ingredientDao).updateIngredient(ingredientCaptor.capture());
         Ingredient captureIngredient = ingredientCaptor.getValue();
@@ -86,7 +85,7 @@ public class IngredientServiceTest {
     @Test
     void delteIngredient() throws SQLException {
         when(ingredientDao.getIngredientById(1)).thenReturn(MOCKS.get(0));
-        doNothing().when(ingredientDao).deleteIngredient(any(Ingredient.class));
+        when(ingredientDao.deleteIngredient(any(Ingredient.class))).thenReturn(true);
         ArgumentCaptor<Ingredient> ingredientCaptor = ArgumentCaptor.forClass(Ingredient.class);
         ingredientService.deleteIngredient(1);
         verify(ingredientDao).deleteIngredient(ingredientCaptor.capture());
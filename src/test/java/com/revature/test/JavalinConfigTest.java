@@ -1,7 +1,10 @@
 package com.revature.test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.sql.SQLException;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -16,8 +19,11 @@ import com.revature.service.ChefService;
 import com.revature.service.IngredientService;
 import com.revature.service.RecipeService;
 import com.revature.util.AdminMiddleware;
+import com.revature.util.ChangeLog;
 import com.revature.util.ConnectionUtil;
+import com.revature.util.DatabaseExecutor;
 import com.revature.util.JavalinAppUtil;
+import com.revature.util.Metrics;
 import io.javalin.Javalin;
 
 class JavalinConfigTest {
@@ -32,24 +38,32 @@ class JavalinConfigTest {
 	private IngredientDAO ingredientDao;
 	private IngredientService ingredientService;
 	private IngredientController ingredientController;
+	private ChangeLog changes;
 
 	@BeforeEach
 	void setUpTestsData() throws SQLException {
+		changes = ChangeLog.inMemory();
 
 		chefDao = new ChefDAO(new ConnectionUtil());
-		chefService = new ChefService(chefDao);
+		chefService = new ChefService(chefDao, DatabaseExecutor.shared(), changes);
 		authService = new AuthenticationService(chefService);
 		authController = new AuthenticationController(chefService, authService);
 
 		ingredientDao = new IngredientDAO(new ConnectionUtil());
-		ingredientService = new IngredientService(ingredientDao);
+		ingredientService = new IngredientService(ingredientDao, DatabaseExecutor.shared(), changes);
 		ingredientController = new IngredientController(ingredientService);
 
 		recipeDao = new RecipeDAO(chefDao, ingredientDao, new ConnectionUtil());
-		recipeService = new RecipeService(recipeDao);
+		recipeService = new RecipeService(recipeDao, DatabaseExecutor.shared(), changes);
 		recipeController = new RecipeController(recipeService, authService);
 	}
 
+	@AfterEach
+	void tearDownTestsData() {
+		recipeService.close();
+		changes.close();
+	}
+
 	@Test
 	void test() {
 		Javalin app = new JavalinAppUtil(recipeController, authController, ingredientController).getApp();
@@ -57,4 +71,11 @@ class JavalinConfigTest {
 		app.stop();
 	}
 
+	@Test
+	void jettyQueueDepthIsPublished() {
+		new JavalinAppUtil(recipeController, authController, ingredientController).getApp();
+		assertEquals(0, Metrics.snapshot().get("admission.queueDepth").intValue(),
+				() -> "The Jetty thread pool's queue should be published");
+	}
+
 }
\ No newline at end of file
@@ -26,7 +26,9 @@ import com.revature.service.ChefService;
 import com.revature.service.IngredientService;
 import com.revature.service.RecipeService;
 import com.revature.util.AdminMiddleware;
+import com.revature.util.ChangeLog;
 import com.revature.util.ConnectionUtil;
+import com.revature.util.DatabaseExecutor;
 import com.revature.util.DBUtil;
 import com.revature.util.JavalinAppUtil;
 
@@ -56,16 +58,18 @@ class LoginIntegrationTest {
 	private JavalinAppUtil appUtil;
 	private Javalin app;
 	private OkHttpClient client;
+	private ChangeLog changes;
 
 	@BeforeEach
 	void setUpTestsData() throws SQLException {
 		DBUtil.RUN_SQL();
+		changes = ChangeLog.inMemory();
 		chefDAO = new ChefDAO(new ConnectionUtil());
 		ingredientDAO = new IngredientDAO(new ConnectionUtil());
 		recipeDAO = new RecipeDAO(chefDAO, ingredientDAO, new ConnectionUtil());
-		recipeService = new RecipeService(recipeDAO);
-		ingredientService = new IngredientService(ingredientDAO);
-		chefService = new ChefService(chefDAO);
+		recipeService = new RecipeService(recipeDAO, DatabaseExecutor.shared(), changes);
+		ingredientService = new IngredientService(ingredientDAO, DatabaseExecutor.shared(), changes);
+		chefService = new ChefService(chefDAO, DatabaseExecutor.shared(), changes);
 		adminMiddleware = new AdminMiddleware(null);
 		authService = new AuthenticationService(chefService);
 		authController = new AuthenticationController(chefService, authService);
@@ -82,6 +86,8 @@ class LoginIntegrationTest {
 	void tearDownTestsData() {
 
 		app.close();
+		recipeService.close();
+		changes.close();
 
 	}
 
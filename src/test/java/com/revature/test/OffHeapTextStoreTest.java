@@ -0,0 +1,71 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.OffHeapTextStore;
+
+public class OffHeapTextStoreTest {
+
+    @Test
+    void textsAreReadBackFromOffHeapSlabs() {
+        OffHeapTextStore store = new OffHeapTextStore("test", 64, false);
+        int soup = store.put("Simmer the beans \u2615 for an hour");
+        int empty = store.put("");
+        int large = store.put("x".repeat(200));
+
+        assertEquals("Simmer the beans \u2615 for an hour", store.get(soup));
+        assertEquals("", store.get(empty));
+        assertEquals("x".repeat(200), store.get(large), () -> "Texts larger than a slab should get their own");
+        assertEquals(OffHeapTextStore.NULL, store.put(null));
+        assertNull(store.get(OffHeapTextStore.NULL));
+    }
+
+    @Test
+    void longTextsAreCompressedWhenEnabled() {
+        String instructions = "Stir the pot and simmer gently. ".repeat(64);
+        OffHeapTextStore plain = new OffHeapTextStore("plain", OffHeapTextStore.DEFAULT_SLAB_BYTES, false);
+        OffHeapTextStore compressed = new OffHeapTextStore("compressed", OffHeapTextStore.DEFAULT_SLAB_BYTES, true);
+
+        plain.put(instructions);
+        int handle = compressed.put(instructions);
+
+        assertEquals(instructions, compressed.get(handle));
+        assertTrue(compressed.liveBytes() * 4 < plain.liveBytes(),
+                () -> "Repetitive instructions should compress well");
+    }
+
+    @Test
+    void freedSlabsAreDroppedWhileViewsStayReadable() {
+        OffHeapTextStore store = new OffHeapTextStore("test", 1024, false);
+        List<Integer> handles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            handles.add(store.put(String.format("recipe %03d ", i).repeat(10)));
+        }
+        long allocated = store.allocatedBytes();
+        Supplier<String> view = store.view(handles.get(0));
+
+        // free all but every tenth text, leaving the full slabs mostly dead
+        for (int i = 0; i < handles.size(); i++) {
+            if (i % 10 != 0) {
+                store.free(handles.get(i));
+            }
+        }
+
+        assertTrue(store.allocatedBytes() < allocated, () -> "Mostly dead slabs should be dropped");
+        for (int i = 0; i < handles.size(); i += 10) {
+            assertEquals(String.format("recipe %03d ", i).repeat(10), store.get(handles.get(i)),
+                    () -> "Live texts should survive being moved");
+        }
+        store.free(handles.get(0));
+        assertEquals(String.format("recipe %03d ", 0).repeat(10), view.get(),
+                () -> "A view should stay readable after its text is freed");
+    }
+}
@@ -0,0 +1,52 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.PageOptions;
+
+public class PageOptionsTest {
+    private static final Set<String> COLUMNS = Set.of("id", "name", "chef_id");
+
+    @Test
+    void singleColumnSortGetsIdTieBreaker() {
+        PageOptions pageOptions = new PageOptions(1, 10, "Name", "DESC");
+        assertEquals("SELECT * FROM RECIPE ORDER BY name DESC, id ASC",
+                pageOptions.toSql("SELECT * FROM RECIPE", COLUMNS));
+    }
+
+    @Test
+    void multiColumnSortUsesOneDirectionPerColumn() {
+        PageOptions pageOptions = new PageOptions(1, 10, "chef_id, name, id", "desc, asc, desc");
+        assertEquals("SELECT * FROM RECIPE ORDER BY chef_id DESC, name ASC, id DESC",
+                pageOptions.toSql("SELECT * FROM RECIPE", COLUMNS));
+    }
+
+    @Test
+    void missingSortFallsBackToId() {
+        assertEquals("SELECT * FROM RECIPE ORDER BY id ASC",
+                new PageOptions(1, 10).toSql("SELECT * FROM RECIPE", COLUMNS));
+    }
+
+    @Test
+    void equivalentSortsShareOneStatement() {
+        String first = new PageOptions(1, 10, "name", "asc").toSql("SELECT * FROM RECIPE", COLUMNS);
+        String second = new PageOptions(2, 5, " NAME ", "ASC").toSql("SELECT * FROM RECIPE", COLUMNS);
+        assertSame(first, second, () -> "Equivalent sorts should map to the same cached statement");
+    }
+
+    @Test
+    void invalidSortsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PageOptions(1, 10, "name; DROP TABLE RECIPE", "asc").toSql("SELECT * FROM RECIPE", COLUMNS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PageOptions(1, 10, "name", "sideways").toSql("SELECT * FROM RECIPE", COLUMNS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PageOptions(1, 10, "name,id", "asc,desc,asc").toSql("SELECT * FROM RECIPE", COLUMNS));
+    }
+}
@@ -0,0 +1,234 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.revature.dao.ChefDAO;
+import com.revature.dao.IngredientDAO;
+import com.revature.dao.RecipeDAO;
+import com.revature.model.Chef;
+import com.revature.model.Ingredient;
+import com.revature.model.Recipe;
+import com.revature.util.ConnectionUtil;
+import com.revature.util.FetchPlan;
+import com.revature.util.PageOptions;
+import com.revature.util.SchemaMigrator;
+
+/**
+ * Runs EXPLAIN for every statement the DAOs, the recipe summary trigger and
+ * the row count trigger issue against a migrated database holding enough rows for the planner to
+ * prefer indexes, and fails if any statement scans a table larger than the
+ * threshold.
+ */
+public class QueryPlanTest {
+    private static final int ROW_THRESHOLD = 1000;
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* PUBLIC\\.(\\w+)\\.tableScan \\*/");
+
+    /** The statements that may be explained: queries and data changes. */
+    private static final Pattern EXPLAINABLE = Pattern.compile("^(SELECT|INSERT|UPDATE|DELETE|MERGE)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Every statement issued by ChefDAO, IngredientDAO, RecipeDAO,
+     * RecipeSummaryTrigger and RowCountTrigger, recorded by the database while
+     * the DAOs run a workload calling each of their methods.
+     */
+    private static final List<String> DAO_STATEMENTS = new ArrayList<>();
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUpLargeDatabase() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:query_plans;DB_CLOSE_DELAY=-1", "sa", "");
+        SchemaMigrator.migrate(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO CHEF (username, email, password, isAdmin) "
+                    + "SELECT 'chef' || X, 'chef' || X || '@mail.com', 'pw', false FROM SYSTEM_RANGE(1, 2000)");
+            statement.executeUpdate("INSERT INTO INGREDIENT (name) SELECT 'ingredient' || X FROM SYSTEM_RANGE(1, 2000)");
+            statement.executeUpdate("INSERT INTO RECIPE (name, instructions, chef_id) "
+                    + "SELECT 'recipe' || X, 'Boil.', MOD(X, 2000) + 1 FROM SYSTEM_RANGE(1, 5000)");
+            statement.executeUpdate("INSERT INTO RECIPE_INGREDIENT (recipe_id, ingredient_id, vol, unit) "
+                    + "SELECT MOD(X, 5000) + 1, MOD(X, 2000) + 1, 1, 'cups' FROM SYSTEM_RANGE(1, 10000)");
+            statement.execute("ANALYZE");
+            statement.execute("SET QUERY_STATISTICS_MAX_ENTRIES 10000");
+            statement.execute("SET QUERY_STATISTICS TRUE");
+        }
+        runDaoWorkload(new ConnectionUtil(List.of("jdbc:h2:mem:query_plans;DB_CLOSE_DELAY=-1")));
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS")) {
+                while (resultSet.next()) {
+                    String sql = resultSet.getString(1).trim();
+                    if (EXPLAINABLE.matcher(sql).find() && !sql.contains("QUERY_STATISTICS")) {
+                        DAO_STATEMENTS.add(sql);
+                    }
+                }
+            }
+            // turning the statistics off also clears them
+            statement.execute("SET QUERY_STATISTICS FALSE");
+        }
+    }
+
+    /**
+     * Calls every method of the DAOs, so that each statement they and the
+     * triggers issue is run at least once.
+     */
+    private static void runDaoWorkload(ConnectionUtil database) throws SQLException {
+        ChefDAO chefDao = new ChefDAO(database);
+        IngredientDAO ingredientDao = new IngredientDAO(database);
+        RecipeDAO recipeDao = new RecipeDAO(chefDao, ingredientDao, database);
+        PageOptions byUsername = new PageOptions(2, 10, "username", "asc");
+        PageOptions byName = new PageOptions(2, 10, "name", "asc");
+
+        chefDao.getAllChefs();
+        chefDao.getAllChefs(byUsername);
+        chefDao.getChefById(1);
+        chefDao.getChefByRecipeId(1);
+        chefDao.getChefsByIds(List.of(1, 2));
+        chefDao.searchChefsByTerm("chef1");
+        chefDao.searchChefsByTerm("chef1", byUsername);
+        Chef chef = chefDao.getChefById(chefDao.createChef(new Chef("planned", "planned@mail.com", "pw", false)));
+        chef.setUsername("replanned");
+        chefDao.updateChef(chef);
+
+        ingredientDao.getIngredientById(1);
+        ingredientDao.getIngredientById(1, IngredientDAO.FIELDS.select("name"));
+        ingredientDao.getIngredientsByIds(List.of(1, 2));
+        ingredientDao.getAllIngredients();
+        ingredientDao.getAllIngredients(byName);
+        ingredientDao.searchIngredients("ingredient1");
+        ingredientDao.searchIngredients("ingredient1", byName);
+        Ingredient ingredient = new Ingredient(0, "planned");
+        ingredient.setId(ingredientDao.createIngredient(ingredient));
+        ingredient.setName("replanned");
+        ingredientDao.updateIngredient(ingredient);
+
+        recipeDao.getAllRecipes();
+        recipeDao.getAllRecipes(byName);
+        recipeDao.getAllRecipes(byName, RecipeDAO.FIELDS.select("name"));
+        recipeDao.getAllRecipes(byName, FetchPlan.DETAIL).getItems().forEach(Recipe::getIngredients);
+        recipeDao.getAllRecipes(byName, FetchPlan.LAZY).getItems().forEach(QueryPlanTest::readParts);
+        recipeDao.searchRecipesByTerm("recipe1");
+        recipeDao.searchRecipesByTerm("recipe1", byName);
+        recipeDao.searchRecipesByTerm("recipe1", byName, RecipeDAO.FIELDS.select("name"));
+        recipeDao.searchRecipesByTerm("recipe1", byName, FetchPlan.LIST);
+        recipeDao.searchRecipesByTerm("recipe1", byName, FetchPlan.LIST, true);
+        recipeDao.getRecipeSummaries(byName);
+        recipeDao.searchRecipeSummaries("recipe1", byName);
+        recipeDao.searchRecipeSummaries("recipe1", byName, true);
+        // a catalog counted above COUNT_SAMPLE_ROWS has its search totals estimated from a sample
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE TABLE_ROW_COUNT SET row_count = row_count + " + RecipeDAO.COUNT_SAMPLE_ROWS
+                    + " WHERE table_name = 'RECIPE'");
+            recipeDao.searchRecipeSummaries("recipe1", byName);
+            statement.executeUpdate("UPDATE TABLE_ROW_COUNT SET row_count = row_count - " + RecipeDAO.COUNT_SAMPLE_ROWS
+                    + " WHERE table_name = 'RECIPE'");
+        }
+        recipeDao.countRecipes();
+        recipeDao.countRecipes(1);
+        recipeDao.getRecipeById(1);
+        recipeDao.getRecipeById(1, RecipeDAO.FIELDS.select("name"));
+        recipeDao.getRecipeRow(1);
+        recipeDao.getRecipeAuthor(1);
+        recipeDao.getRecipeIngredients(1);
+        recipeDao.getRecipeIngredients(List.of(1, 2));
+        recipeDao.getRecipeInstructions(List.of(1, 2));
+        recipeDao.getRecipeIds();
+        recipeDao.getRecipesByIds(List.of(1, 2));
+        Recipe recipe = recipeDao.getRecipeById(recipeDao.createRecipe(new Recipe(0, "planned", "Plan.", chef)));
+        recipe.setName("replanned");
+        recipeDao.updateRecipe(recipe);
+        recipeDao.updateRecipes(List.of(recipe));
+        // no DAO adds ingredients to a recipe, but the summary trigger counts them
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO RECIPE_INGREDIENT (recipe_id, ingredient_id, vol, unit) VALUES ("
+                    + recipe.getId() + ", " + ingredient.getId() + ", 1, 'cups')");
+        }
+        recipeDao.deleteRecipe(recipe);
+
+        ingredientDao.deleteIngredient(ingredient);
+        chefDao.deleteChef(chef);
+    }
+
+    private static void readParts(Recipe recipe) {
+        recipe.getInstructions();
+        recipe.getAuthor();
+        recipe.getIngredients();
+    }
+
+    @AfterAll
+    static void tearDownDatabase() throws SQLException {
+        connection.close();
+    }
+
+    private static long rowCount(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static String explain(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    @Test
+    void workloadRecordsTheDaoAndTriggerStatements() {
+        assertTrue(DAO_STATEMENTS.size() > 40, () -> "Too few statements recorded: " + DAO_STATEMENTS);
+        assertTrue(DAO_STATEMENTS.contains("DELETE FROM CHEF_RECIPE_COUNT WHERE chef_id = ?")
+                && DAO_STATEMENTS.stream().anyMatch(sql -> sql.contains("SET ingredient_count")),
+                () -> "Statements run by triggers should be recorded: " + DAO_STATEMENTS);
+    }
+
+    @Test
+    void noDaoStatementScansALargeTable() throws SQLException {
+        List<String> violations = new ArrayList<>();
+        for (String sql : DAO_STATEMENTS) {
+            // substring searches (LIKE '%term%') cannot be answered from a B-tree index
+            if (sql.contains(" LIKE ")) {
+                continue;
+            }
+            Matcher matcher = TABLE_SCAN.matcher(explain(sql));
+            while (matcher.find()) {
+                if (rowCount(matcher.group(1)) > ROW_THRESHOLD) {
+                    violations.add(matcher.group(1) + ": " + sql);
+                }
+            }
+        }
+        assertTrue(violations.isEmpty(), () -> "Full table scans found: " + violations);
+    }
+
+    @Test
+    void estimatedSearchTotalsReadOnlyTheSample() throws SQLException {
+        String sql = DAO_STATEMENTS.stream().filter(statement -> statement.contains("ANY(?)")
+                && statement.contains(" LIKE ")).findFirst().orElseThrow();
+        String plan = explain(sql);
+        assertTrue(!TABLE_SCAN.matcher(plan).find() && plan.contains("PRIMARY_KEY"),
+                () -> "The sampled recipes should be read by primary key: " + plan);
+    }
+
+    @Test
+    void recipeListingIsIndexSorted() throws SQLException {
+        String plan = explain("SELECT id, name, chef_id FROM RECIPE ORDER BY name ASC, id ASC");
+        assertTrue(plan.contains("IDX_RECIPE_NAME") && plan.contains("index sorted"),
+                () -> "Recipe listings should be read in index order: " + plan);
+    }
+}
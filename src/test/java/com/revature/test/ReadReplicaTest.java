@@ -0,0 +1,92 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.revature.dao.IngredientDAO;
+import com.revature.model.Ingredient;
+import com.revature.util.ConnectionUtil;
+import com.revature.util.DBUtil;
+import com.revature.util.DatabaseExecutor;
+import com.revature.util.ReadSession;
+import com.revature.util.ReplicationFeed;
+
+public class ReadReplicaTest {
+
+    private static ConnectionUtil replicated(String name, long maxStalenessMillis) {
+        ConnectionUtil connectionUtil = new ConnectionUtil(List.of("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1"),
+                List.of("jdbc:h2:mem:" + name + "_replica;DB_CLOSE_DELAY=-1"), maxStalenessMillis, 0);
+        DBUtil.RUN_SQL(connectionUtil);
+        return connectionUtil;
+    }
+
+    @AfterEach
+    void leaveSession() {
+        ReadSession.exit();
+    }
+
+    @Test
+    void sessionsReadTheirOwnWritesBeforeTheReplicaCatchesUp() {
+        ConnectionUtil connectionUtil = replicated("sticky", 60_000);
+        IngredientDAO ingredientDao = new IngredientDAO(connectionUtil);
+
+        ReadSession.enter("writer");
+        int id = ingredientDao.createIngredient(new Ingredient("bean"));
+        assertNotNull(ingredientDao.getIngredientById(id), () -> "The writer should read its own write");
+        DatabaseExecutor executor = new DatabaseExecutor("test.sticky", 1, 4, 2000);
+        assertNotNull(executor.supply(() -> ingredientDao.getIngredientById(id)).join(),
+                () -> "The writer's session should follow its work onto the executor");
+
+        ReadSession.enter("reader");
+        assertNull(ingredientDao.getIngredientById(id),
+                () -> "Other sessions may read the replica while it is within the staleness bound");
+
+        connectionUtil.syncReplicas();
+        assertEquals("bean", ingredientDao.getIngredientById(id).getName(),
+                () -> "The replica should serve the write once it has been copied");
+    }
+
+    @Test
+    void replicasBeyondTheStalenessBoundAreNotRead() throws InterruptedException {
+        ConnectionUtil connectionUtil = replicated("stale", 0);
+        IngredientDAO ingredientDao = new IngredientDAO(connectionUtil);
+        assertEquals(6, ingredientDao.getAllIngredients().size(), () -> "A synced replica should be read");
+
+        int id = ingredientDao.createIngredient(new Ingredient("bean"));
+        Thread.sleep(5);
+        assertNotNull(ingredientDao.getIngredientById(id),
+                () -> "Reads should fall back to the primary when the replica is too far behind");
+    }
+
+    @Test
+    void syncsWriteOnlyTheRowsThatChanged() {
+        ConnectionUtil primary = new ConnectionUtil(List.of("jdbc:h2:mem:changed;DB_CLOSE_DELAY=-1"));
+        ConnectionUtil replica = new ConnectionUtil(List.of("jdbc:h2:mem:changed_replica;DB_CLOSE_DELAY=-1"));
+        DBUtil.RUN_SQL(primary);
+        DBUtil.RUN_SQL(replica);
+        ReplicationFeed feed = new ReplicationFeed("test", primary::getConnection, replica::getConnection);
+        assertTrue(feed.sync());
+        assertEquals(0, feed.rowsWritten(), () -> "A replica holding the same rows should not be written");
+
+        IngredientDAO primaryIngredients = new IngredientDAO(primary);
+        int id = primaryIngredients.createIngredient(new Ingredient("bean"));
+        primaryIngredients.updateIngredient(new Ingredient(1, "baby carrot"));
+        assertTrue(feed.sync());
+        assertEquals(2, feed.rowsWritten());
+
+        primaryIngredients.deleteIngredient(new Ingredient(id, "bean"));
+        assertTrue(feed.sync());
+        assertEquals(3, feed.rowsWritten());
+        IngredientDAO replicaIngredients = new IngredientDAO(replica);
+        assertEquals("baby carrot", replicaIngredients.getIngredientById(1).getName());
+        assertNull(replicaIngredients.getIngredientById(id));
+        assertEquals(6, replicaIngredients.getAllIngredients().size());
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 
 import com.revature.controller.RecipeController;
 import com.revature.model.Recipe;
+import com.revature.model.RecipeSummary;
 import com.revature.service.AuthenticationService;
 import com.revature.service.RecipeService;
 import com.revature.util.Page;
@@ -28,6 +29,7 @@ public class RecipeControllerTest {
 
         Context ctx = mock(Context.class);
         when(ctx.queryParam("term")).thenReturn("Cheese");
+        when(ctx.queryParam("view")).thenReturn("detail");
         when(ctx.status(200)).thenReturn(ctx);
         when(ctx.json(any())).thenReturn(ctx);
 
@@ -49,6 +51,7 @@ public class RecipeControllerTest {
 
         Context ctx = mock(Context.class);
         when(ctx.queryParam("term")).thenReturn(null);
+        when(ctx.queryParam("view")).thenReturn("detail");
         when(ctx.status(200)).thenReturn(ctx);
         when(ctx.json(any())).thenReturn(ctx);
 
@@ -63,8 +66,8 @@ public class RecipeControllerTest {
     public void testGetRecipesWithNoResults() throws Exception {
         RecipeService recipeService = mock(RecipeService.class);
         AuthenticationService authService = mock(AuthenticationService.class);
-        Page<Recipe> emptyPage = new Page<>(1, 10, 0, 0, Collections.emptyList());
-        when(recipeService.searchRecipes("Nonexistent Recipe", 1, 10, "name", "asc")).thenReturn(emptyPage);
+        Page<RecipeSummary> emptyPage = new Page<>(1, 10, 0, 0, Collections.emptyList());
+        when(recipeService.searchRecipeSummaries("Nonexistent Recipe", 1, 10, "name", "asc")).thenReturn(emptyPage);
 
         Context ctx = mock(Context.class);
         when(ctx.queryParam("term")).thenReturn("Nonexistent Recipe");
@@ -77,4 +80,25 @@ public class RecipeControllerTest {
         verify(ctx).status(404);
         verify(ctx).result("No recipes found");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetRecipesReturnsSummariesByDefault() throws Exception {
+        RecipeService recipeService = mock(RecipeService.class);
+        AuthenticationService authService = mock(AuthenticationService.class);
+        List<RecipeSummary> summaries = Collections.singletonList(new RecipeSummary(1, "Apple Pie", 2, "Baker", 3));
+        Page<RecipeSummary> mockPage = new Page<>(1, 10, 1, 1, summaries);
+        when(recipeService.searchRecipeSummaries("", 1, 10, "name", "asc")).thenReturn(mockPage);
+
+        Context ctx = mock(Context.class);
+        when(ctx.queryParam("term")).thenReturn(null);
+        when(ctx.status(200)).thenReturn(ctx);
+        when(ctx.json(any())).thenReturn(ctx);
+
+        Handler getRecipesHandler = new RecipeController(recipeService, authService).fetchAllRecipes;
+        getRecipesHandler.handle(ctx);
+
+        verify(ctx).status(200);
+        verify(ctx).json(mockPage);
+        verify(recipeService, never()).searchRecipes(any(), anyInt(), anyInt(), any(), any());
+    }
+}
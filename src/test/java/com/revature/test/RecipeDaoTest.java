@@ -20,6 +20,7 @@ import org.mockito.MockitoAnnotations;
 
 import com.revature.model.Chef;
 import com.revature.model.Recipe;
+import com.revature.model.RecipeSummary;
 import com.revature.dao.ChefDAO;
 import com.revature.dao.IngredientDAO;
 import com.revature.dao.RecipeDAO;
@@ -65,6 +66,7 @@ class RecipeDaoTest {
 
         // Set up mock behavior
         when(connectionUtil.getConnection()).thenReturn(connection);
+        when(connectionUtil.getReadConnection()).thenReturn(connection);
         when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
         when(connection.prepareStatement(anyString(), anyInt())).thenReturn(preparedStatement);
 
@@ -76,10 +78,10 @@ class RecipeDaoTest {
         Recipe expectedRecipe = recipeList.get(0);
         when(preparedStatement.executeQuery()).thenReturn(resultSet);
         when(resultSet.next()).thenReturn(true);
-        when(resultSet.getInt("id")).thenReturn(expectedRecipe.getId());
-        when(resultSet.getString("name")).thenReturn(expectedRecipe.getName());
-        when(resultSet.getString("instructions")).thenReturn(expectedRecipe.getInstructions());
-        when(resultSet.getInt("chef_id")).thenReturn(expectedRecipe.getAuthor().getId());
+        when(resultSet.getInt(1)).thenReturn(expectedRecipe.getId());
+        when(resultSet.getString(2)).thenReturn(expectedRecipe.getName());
+        when(resultSet.getString(3)).thenReturn(expectedRecipe.getInstructions());
+        when(resultSet.getInt(4)).thenReturn(expectedRecipe.getAuthor().getId());
         when(chefDao.getChefById(anyInt())).thenReturn(expectedRecipe.getAuthor());
 
         // Act
@@ -100,12 +102,12 @@ class RecipeDaoTest {
                 .thenReturn(true)
                 .thenReturn(false);
 
-        when(resultSet.getInt("id")).thenReturn(1, 2);
-        when(resultSet.getString("name")).thenReturn("carrot soup", "potato soup");
-        when(resultSet.getString("instructions"))
+        when(resultSet.getInt(1)).thenReturn(1, 2);
+        when(resultSet.getString(2)).thenReturn("carrot soup", "potato soup");
+        when(resultSet.getString(3))
                 .thenReturn("Put carrot in water. Boil. Maybe salt.",
                         "Put potato in water. Boil. Maybe salt.");
-        when(resultSet.getInt("chef_id")).thenReturn(1, 2);
+        when(resultSet.getInt(4)).thenReturn(1, 2);
 
         when(chefDao.getChefById(1)).thenReturn(chefList.get(0));
         when(chefDao.getChefById(2)).thenReturn(chefList.get(1));
@@ -154,6 +156,16 @@ class RecipeDaoTest {
         verify(preparedStatement).setInt(4, recipeToUpdate.getId());
     }
 
+    @Test
+    void updateRecipe_Missing() throws SQLException {
+        // Arrange
+        when(preparedStatement.executeUpdate()).thenReturn(0);
+
+        // Act and Assert
+        assertFalse(recipeDao.updateRecipe(recipeList.get(0)), () -> "No row was updated");
+        assertFalse(recipeDao.deleteRecipe(recipeList.get(0)), () -> "No row was deleted");
+    }
+
     @Test
     void deleteRecipe_Success() throws SQLException {
         // Arrange
@@ -177,12 +189,12 @@ class RecipeDaoTest {
                 .thenReturn(true)
                 .thenReturn(true)
                 .thenReturn(false);
-        when(resultSet.getInt("id")).thenReturn(1, 2);
-        when(resultSet.getString("name")).thenReturn("carrot soup", "potato soup");
-        when(resultSet.getString("instructions"))
+        when(resultSet.getInt(1)).thenReturn(1, 2);
+        when(resultSet.getString(2)).thenReturn("carrot soup", "potato soup");
+        when(resultSet.getString(3))
                 .thenReturn("Put carrot in water. Boil. Maybe salt.",
                         "Put potato in water. Boil. Maybe salt.");
-        when(resultSet.getInt("author_id")).thenReturn(1, 2);
+        when(resultSet.getInt(4)).thenReturn(1, 2);
         when(chefDao.getChefById(1)).thenReturn(chefList.get(0));
         when(chefDao.getChefById(2)).thenReturn(chefList.get(1));
 
@@ -203,12 +215,12 @@ class RecipeDaoTest {
                 .thenReturn(true)
                 .thenReturn(true)
                 .thenReturn(false);
-        when(resultSet.getInt("id")).thenReturn(1, 2);
-        when(resultSet.getString("name")).thenReturn("carrot soup", "potato soup");
-        when(resultSet.getString("instructions"))
+        when(resultSet.getInt(1)).thenReturn(1, 2);
+        when(resultSet.getString(2)).thenReturn("carrot soup", "potato soup");
+        when(resultSet.getString(3))
                 .thenReturn("Put carrot in water. Boil. Maybe salt.",
                         "Put potato in water. Boil. Maybe salt.");
-        when(resultSet.getInt("chef_id")).thenReturn(1, 2);
+        when(resultSet.getInt(4)).thenReturn(1, 2);
         when(chefDao.getChefById(1)).thenReturn(chefList.get(0));
         when(chefDao.getChefById(2)).thenReturn(chefList.get(1));
 
@@ -219,4 +231,29 @@ class RecipeDaoTest {
         assertEquals(2, recipePage.getItems().size());
         assertEquals(2, recipePage.getPageSize());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getRecipeSummaries_OmitsInstructions() throws SQLException {
+        // Arrange
+        PageOptions pageable = new PageOptions(1, 2);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next())
+                .thenReturn(true)
+                .thenReturn(true)
+                .thenReturn(false);
+        when(resultSet.getInt(1)).thenReturn(1, 2);
+        when(resultSet.getString(2)).thenReturn("carrot soup", "potato soup");
+        when(resultSet.getInt(3)).thenReturn(1, 2);
+        when(resultSet.getString(4)).thenReturn("JoeCool", "CharlieBrown");
+        when(resultSet.getInt(5)).thenReturn(1, 3);
+
+        // Act
+        Page<RecipeSummary> recipePage = recipeDao.getRecipeSummaries(pageable);
+
+        // Assert
+        assertEquals(List.of(new RecipeSummary(1, "carrot soup", 1, "JoeCool", 1),
+                new RecipeSummary(2, "potato soup", 2, "CharlieBrown", 3)), recipePage.getItems());
+        verify(connection).prepareStatement(argThat((String sql) -> !sql.contains("instructions")));
+        verify(chefDao, never()).getChefById(anyInt());
+    }
+}
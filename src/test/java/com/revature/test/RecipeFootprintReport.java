@@ -0,0 +1,92 @@
+package com.revature.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.revature.model.Chef;
+import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
+import com.revature.util.CompactRecipeStore;
+
+/**
+ * Reports the heap held by a catalog of recipes kept as Recipe object graphs,
+ * as RecipeDAO builds them, and kept in a CompactRecipeStore.
+ *
+ * Every recipe has an author among 1,000 chefs and five ingredients among 500,
+ * measured in one of eight units. As with rows read through JDBC, each recipe
+ * gets its own copies of the author and of the ingredient strings. The
+ * instructions are left out of both, since they take the same space in each.
+ * This is not a unit test; run it with
+ *
+ * <pre>
+ * mvn test-compile
+ * java -Xmx6g -cp target/test-classes:target/classes com.revature.test.RecipeFootprintReport [recipes]
+ * </pre>
+ *
+ * The number of recipes defaults to 1,000,000.
+ */
+public class RecipeFootprintReport {
+
+    private static final String[] UNITS = { "cups", "tbsp", "tsp", "g", "kg", "ml", "l", "pieces" };
+
+    private static final int INGREDIENTS_PER_RECIPE = 5;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long graphBytes = measure(() -> {
+            List<Recipe> recipes = new ArrayList<>(count);
+            for (int id = 1; id <= count; id++) {
+                recipes.add(recipe(id));
+            }
+            return recipes;
+        });
+        long compactBytes = measure(() -> {
+            CompactRecipeStore store = new CompactRecipeStore("footprint", count);
+            for (int id = 1; id <= count; id++) {
+                store.put(recipe(id), 0);
+            }
+            return store;
+        });
+
+        System.out.printf("%,d recipes%n", count);
+        System.out.printf("object graph:  %,15d bytes  %6.1f bytes/recipe%n", graphBytes, (double) graphBytes / count);
+        System.out.printf("compact store: %,15d bytes  %6.1f bytes/recipe%n", compactBytes,
+                (double) compactBytes / count);
+        System.out.printf("saved:         %14.1f%%%n", 100.0 * (graphBytes - compactBytes) / graphBytes);
+    }
+
+    /** Builds a recipe the way RecipeDAO does, with its own strings and author. */
+    private static Recipe recipe(int id) {
+        int chef = id % 1000 + 1;
+        Recipe recipe = new Recipe(id, "recipe " + id, null,
+                new Chef(chef, "chef" + chef, "chef" + chef + "@chefmail.com", "password" + chef, false));
+        List<RecipeIngredient> ingredients = new ArrayList<>();
+        for (int i = 0; i < INGREDIENTS_PER_RECIPE; i++) {
+            int ingredient = (id * 7 + i * 101) % 500 + 1;
+            ingredients.add(new RecipeIngredient(ingredient, "ingredient " + ingredient, 1.5 * (i + 1),
+                    new String(UNITS[(id + i) % UNITS.length])));
+        }
+        recipe.setIngredients(ingredients);
+        return recipe;
+    }
+
+    /** @return the heap retained by the value built, measured after full collections */
+    private static long measure(Supplier<Object> build) {
+        long before = usedHeap();
+        Object retained = build.get();
+        long after = usedHeap();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -19,6 +19,8 @@ import com.revature.controller.IngredientController;
 import com.revature.controller.RecipeController;
 import com.revature.model.Chef;
 import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
+import com.revature.model.RecipeSummary;
 import com.revature.dao.ChefDAO;
 import com.revature.dao.IngredientDAO;
 import com.revature.dao.RecipeDAO;
@@ -27,9 +29,12 @@ import com.revature.service.ChefService;
 import com.revature.service.IngredientService;
 import com.revature.service.RecipeService;
 import com.revature.util.AdminMiddleware;
+import com.revature.util.ChangeLog;
 import com.revature.util.ConnectionUtil;
 import com.revature.util.DBUtil;
+import com.revature.util.DatabaseExecutor;
 import com.revature.util.JavalinAppUtil;
+import com.revature.util.Batch;
 import com.revature.util.Page;
 
 import io.javalin.Javalin;
@@ -62,10 +67,12 @@ class RecipeIntegrationTest {
 	private String token;
 	private Javalin app;
 	private OkHttpClient client;
+	private ChangeLog changes;
 
 	@BeforeEach
 	void setUpTestsData() throws SQLException, IOException {
 		DBUtil.RUN_SQL();
+		changes = ChangeLog.inMemory();
 		recipeList.clear();
 		chefList.addAll(Arrays.asList(
 				new Chef(1, "JoeCool", "snoopy@null.com", "redbarron", false),
@@ -84,13 +91,13 @@ class RecipeIntegrationTest {
 
 		chefDao = new ChefDAO(new ConnectionUtil());
 		recipeDao = new RecipeDAO(chefDao, ingredientDao, new ConnectionUtil());
-		recipeService = new RecipeService(recipeDao);
-		chefService = new ChefService(chefDao);
+		recipeService = new RecipeService(recipeDao, DatabaseExecutor.shared(), changes);
+		chefService = new ChefService(chefDao, DatabaseExecutor.shared(), changes);
 		authService = new AuthenticationService(chefService);
 		recipeController = new RecipeController(recipeService, authService);
 		authController = new AuthenticationController(chefService, authService);
 		ingredientDao = new IngredientDAO(new ConnectionUtil());
-		ingredientService = new IngredientService(ingredientDao);
+		ingredientService = new IngredientService(ingredientDao, DatabaseExecutor.shared(), changes);
 		ingredientController = new IngredientController(ingredientService);
 		appUtil = new JavalinAppUtil(recipeController, authController, ingredientController);
 		app = appUtil.getApp();
@@ -111,6 +118,8 @@ class RecipeIntegrationTest {
 	@AfterEach
 	void tearDownTestsData() {
 		app.close();
+		recipeService.close();
+		changes.close();
 	}
 
 	@Test
@@ -120,8 +129,10 @@ class RecipeIntegrationTest {
 		Response response = client.newCall(request).execute();
 		assertEquals(200, response.code(),
 				"Should return with a success status code.  Expected: 200 Actual: " + response.code());
-		assertEquals(new JavalinJackson().toJsonString(recipeList.get(1), Recipe.class),
-				response.body().string(), "Single recipe should be returned a json");
+		Recipe expected = recipeList.get(1);
+		expected.setIngredients(List.of(new RecipeIngredient(2, "potato", 2.0, "cups")));
+		assertEquals(new JavalinJackson().toJsonString(expected, Recipe.class),
+				response.body().string(), "Single recipe should be returned a json with its ingredients");
 	}
 
 	@Test
@@ -188,7 +199,7 @@ class RecipeIntegrationTest {
 		Page<Recipe> filteredResultPage = new Page<Recipe>(2, 1, 2, 2, filteredResult);
 		String filteredResultJSON = new JavalinJackson().toJsonString(filteredResultPage, Page.class);
 		Request request = new Request.Builder()
-				.url(BASE_URL + "/recipes?term=ato&page=2&pageSize=1&sortBy=name&sortDirection=asc").get()
+				.url(BASE_URL + "/recipes?term=ato&page=2&pageSize=1&sortBy=name&sortDirection=asc&view=detail").get()
 				.addHeader("Authorization", token).build();
 		Response response = client.newCall(request).execute();
 		assertEquals(filteredResultJSON,
@@ -196,4 +207,94 @@ class RecipeIntegrationTest {
 				"The single result should be returned");
 	}
 
+	@Test
+	void testFilteredPageOfRecipeSummaries() throws IOException {
+
+		List<RecipeSummary> filteredResult = List.of(new RecipeSummary(3, "tomato soup", 2, "CharlieBrown", 1));
+		Page<RecipeSummary> filteredResultPage = new Page<RecipeSummary>(2, 1, 2, 2, filteredResult);
+		String filteredResultJSON = new JavalinJackson().toJsonString(filteredResultPage, Page.class);
+		Request request = new Request.Builder()
+				.url(BASE_URL + "/recipes?term=ato&page=2&pageSize=1&sortBy=name&sortDirection=asc").get()
+				.addHeader("Authorization", token).build();
+		Response response = client.newCall(request).execute();
+		assertEquals(filteredResultJSON,
+				response.body().string(),
+				"Listings should return recipe summaries by default");
+	}
+
+	@Test
+	void testUnknownViewIsRejected() throws IOException {
+		Request request = new Request.Builder().url(BASE_URL + "/recipes?view=everything").get()
+				.addHeader("Authorization", token).build();
+		Response response = client.newCall(request).execute();
+		assertEquals(400, response.code());
+	}
+
+	@Test
+	void testGetRecipeWithFields() throws IOException {
+		Request request = new Request.Builder().url(BASE_URL + "/recipes/2?fields=name,id")
+				.addHeader("Authorization", token).get().build();
+		Response response = client.newCall(request).execute();
+		assertEquals(200, response.code());
+		assertEquals("{\"id\":2,\"name\":\"potato soup\"}", response.body().string(),
+				"Only the selected fields should be returned");
+	}
+
+	@Test
+	void testListRecipesWithFields() throws IOException {
+		Request request = new Request.Builder().url(BASE_URL + "/recipes?term=ato&fields=name").get()
+				.addHeader("Authorization", token).build();
+		Response response = client.newCall(request).execute();
+		assertEquals(200, response.code());
+		assertEquals("{\"pageNumber\":1,\"pageSize\":10,\"totalPages\":1,\"totalElements\":2,"
+				+ "\"items\":[{\"name\":\"potato soup\"},{\"name\":\"tomato soup\"}]}", response.body().string());
+	}
+
+	@Test
+	void testListRecipesWithFetchPlan() throws IOException {
+		Request request = new Request.Builder().url(BASE_URL + "/recipes?term=lemon&fetch=ingredients").get()
+				.addHeader("Authorization", token).build();
+		Response response = client.newCall(request).execute();
+		assertEquals(200, response.code());
+		String body = response.body().string();
+		assertTrue(body.contains("\"instructions\":null"), () -> "Unfetched instructions should be left out: " + body);
+		assertTrue(body.contains("\"name\":\"rice\""), () -> "Fetched ingredients should be listed: " + body);
+	}
+
+	@Test
+	void testGetSimilarRecipes() throws IOException {
+		Request request = new Request.Builder().url(BASE_URL + "/recipes/4/similar?k=3")
+				.addHeader("Authorization", token).get().build();
+		Response response = client.newCall(request).execute();
+		assertEquals(200, response.code());
+		assertEquals("[]", response.body().string(), "No seeded recipe shares an ingredient with lemon rice soup");
+
+		Request missing = new Request.Builder().url(BASE_URL + "/recipes/99/similar")
+				.addHeader("Authorization", token).get().build();
+		assertEquals(404, client.newCall(missing).execute().code());
+
+		Request tooMany = new Request.Builder().url(BASE_URL + "/recipes/4/similar?k=500")
+				.addHeader("Authorization", token).get().build();
+		assertEquals(400, client.newCall(tooMany).execute().code());
+	}
+
+	@Test
+	void testUnknownFieldIsRejected() throws IOException {
+		Request request = new Request.Builder().url(BASE_URL + "/recipes/2?fields=password")
+				.addHeader("Authorization", token).get().build();
+		Response response = client.newCall(request).execute();
+		assertEquals(400, response.code());
+	}
+
+	@Test
+	void testGetRecipesByIds() throws IOException {
+		Batch<Recipe> expected = new Batch<>(List.of(recipeList.get(2), recipeList.get(0)), List.of(99));
+		Request request = new Request.Builder().url(BASE_URL + "/recipes?ids=3,1,99,3").get()
+				.addHeader("Authorization", token).build();
+		Response response = client.newCall(request).execute();
+		assertEquals(200, response.code());
+		assertEquals(new JavalinJackson().toJsonString(expected, Batch.class), response.body().string(),
+				"Recipes should be returned in request order with the missing ids reported");
+	}
+
 }
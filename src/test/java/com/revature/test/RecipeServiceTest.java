@@ -2,24 +2,38 @@ package com.revature.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.nio.file.Path;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 
+import com.revature.model.ChangeEvent;
+import com.revature.model.Chef;
 import com.revature.model.Ingredient;
 import com.revature.model.Recipe;
+import com.revature.model.RecipeIngredient;
 import com.revature.dao.RecipeDAO;
 import com.revature.service.RecipeService;
+import com.revature.util.CatalogSnapshot;
+import com.revature.util.ChangeLog;
+import com.revature.util.DatabaseExecutor;
 import com.revature.util.Page;
 import com.revature.util.PageOptions;
 
@@ -41,9 +55,14 @@ public class RecipeServiceTest {
         );
     }
 
+    @AfterEach
+    void closeService() {
+        recipeService.close();
+    }
+
     @Test
     void fetchOneRecipe() {
-        when(recipeDao.getRecipeById(1)).thenReturn(MOCKS.get(0));
+        when(recipeDao.getRecipeRow(1)).thenReturn(MOCKS.get(0));
         Optional<Recipe> recipe = recipeService.findRecipe(1);
         assertTrue(recipe.isPresent(), () -> "Recipe should be present");
         assertEquals(MOCKS.get(0), recipe.get(), () -> "Recipe should match");
@@ -51,11 +70,30 @@ public class RecipeServiceTest {
 
     @Test
     void failToFetchOneRecipe() {
-        when(recipeDao.getRecipeById(1)).thenReturn(null);
+        when(recipeDao.getRecipeRow(1)).thenReturn(null);
         Optional<Recipe> recipe = recipeService.findRecipe(1);
         assertTrue(recipe.isEmpty(), () -> "Recipe should not be present");
     }
 
+    @Test
+    void fetchOneRecipeWithAuthorAndIngredients() {
+        Chef author = new Chef(7, "author", "author@example.com", "secret", false);
+        List<RecipeIngredient> ingredients = List.of(new RecipeIngredient(3, "salt", 1.0, "tsp"));
+        when(recipeDao.getRecipeRow(1)).thenReturn(new Recipe(1, "Pasta", "Boil water", null));
+        when(recipeDao.getRecipeAuthor(1)).thenReturn(author);
+        when(recipeDao.getRecipeIngredients(1)).thenReturn(ingredients);
+        Recipe recipe = recipeService.findRecipe(1).orElseThrow();
+        assertEquals(author, recipe.getAuthor(), () -> "The author should be resolved");
+        assertEquals(ingredients, recipe.getIngredients(), () -> "The ingredients should be resolved");
+    }
+
+    @Test
+    void failedSubFetchFailsTheRecipeLookup() {
+        when(recipeDao.getRecipeRow(1)).thenReturn(MOCKS.get(0));
+        when(recipeDao.getRecipeIngredients(1)).thenThrow(new IllegalStateException("boom"));
+        assertThrows(IllegalStateException.class, () -> recipeService.findRecipe(1));
+    }
+
     @Test
     void saveNewRecipe() {
         Recipe newRecipe = new Recipe("New Recipe", "New Recipe Instructions");
@@ -71,7 +109,7 @@ public class RecipeServiceTest {
     void updateRecipe() {
         Recipe existingRecipe = new Recipe(42, "Existing Recipe", "Existing Recipe Instructions", null);
         ArgumentCaptor<Recipe> recipeCaptor = ArgumentCaptor.forClass(Recipe.class);
-        doNothing().when(recipeDao).updateRecipe(any(Recipe.class));
+        when(recipeDao.updateRecipe(any(Recipe.class))).thenReturn(true);
         when(recipeDao.getRecipeById(anyInt())).thenReturn(existingRecipe);
         recipeService.saveRecipe(existingRecipe);
         verify(recipeDao).updateRecipe(recipeCaptor.capture());
@@ -79,10 +117,162 @@ public class RecipeServiceTest {
         assertEquals(42, captureRecipe.getId(), () -> "Services should not change the id of existing recipes");
     }
 
+    @Test
+    void writeBehindCoalescesUpdatesAndReadsOwnWrites() {
+        Chef author = new Chef(7, "author", "author@example.com", "secret", false);
+        when(recipeDao.getRecipeRow(42)).thenReturn(new Recipe(42, "Old name", "Old instructions", author));
+        when(recipeDao.updateRecipes(anyList())).thenReturn(new int[] { 1 });
+        recipeService.enableWriteBehind(60_000, 100);
+        try {
+            recipeService.saveRecipe(new Recipe(42, "Draft", "First draft", author));
+            recipeService.saveRecipe(new Recipe(42, "Final", "Second draft", author));
+            verify(recipeDao, never()).updateRecipe(any(Recipe.class));
+            assertEquals("Second draft", recipeService.findRecipe(42).orElseThrow().getInstructions(),
+                    () -> "Lookups should return the pending update");
+
+            recipeService.flushUpdates();
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<Recipe>> batchCaptor = (ArgumentCaptor<List<Recipe>>) (ArgumentCaptor<?>) ArgumentCaptor
+                    .forClass(List.class);
+            verify(recipeDao).updateRecipes(batchCaptor.capture());
+            assertEquals(1, batchCaptor.getValue().size(), () -> "Updates of one recipe should be coalesced");
+            assertEquals("Second draft", batchCaptor.getValue().get(0).getInstructions(),
+                    () -> "The latest update should be written");
+        } finally {
+            recipeService.close();
+        }
+    }
+
+    @Test
+    void writeBehindRejectsUpdatesWithoutAnAuthor() {
+        recipeService.enableWriteBehind(60_000, 100);
+        try {
+            assertThrows(IllegalArgumentException.class,
+                    () -> recipeService.saveRecipe(new Recipe(42, "Draft", "No author", null)));
+            recipeService.flushUpdates();
+            verify(recipeDao, never()).updateRecipes(anyList());
+        } finally {
+            recipeService.close();
+        }
+    }
+
+    @Test
+    void writesAreRecordedInTheChangeLog(@TempDir Path directory) {
+        ChangeLog changes = new ChangeLog(directory);
+        RecipeService service = new RecipeService(recipeDao, DatabaseExecutor.shared(), changes);
+        Chef author = new Chef(7, "author", "author@example.com", "secret", false);
+        when(recipeDao.createRecipe(any(Recipe.class))).thenReturn(6);
+        when(recipeDao.getRecipeById(6)).thenReturn(new Recipe(6, "Soup", "Boil", author));
+        when(recipeDao.updateRecipe(any(Recipe.class))).thenReturn(true);
+        when(recipeDao.deleteRecipe(any(Recipe.class))).thenReturn(true);
+
+        try {
+            service.saveRecipe(new Recipe(0, "Soup", "Boil", author));
+            service.saveRecipe(new Recipe(6, "Soup", "Boil longer", author));
+            service.deleteRecipe(6);
+
+            List<ChangeEvent> events = changes.read(0, 10);
+            assertEquals(List.of(ChangeEvent.CREATE, ChangeEvent.UPDATE, ChangeEvent.DELETE),
+                    events.stream().map(ChangeEvent::getOperation).collect(Collectors.toList()));
+            assertEquals("Boil longer", ((Map<?, ?>) events.get(1).getData()).get("instructions"));
+            assertEquals(7, ((Map<?, ?>) events.get(1).getData()).get("authorId"),
+                    () -> "The author should be recorded by id only");
+        } finally {
+            service.close();
+            changes.close();
+        }
+    }
+
+    @Test
+    void failedWritesAreNotRecordedInTheChangeLog() {
+        ChangeLog changes = ChangeLog.inMemory();
+        RecipeService service = new RecipeService(recipeDao, DatabaseExecutor.shared(), changes);
+        Chef author = new Chef(7, "author", "author@example.com", "secret", false);
+        when(recipeDao.getRecipeById(6)).thenReturn(new Recipe(6, "Soup", "Boil", author));
+
+        try {
+            service.saveRecipe(new Recipe(0, "Soup", "Boil", author));
+            service.saveRecipe(new Recipe(6, "Soup", "Boil longer", author));
+            service.deleteRecipe(6);
+
+            assertEquals(List.of(), changes.read(0, 10), () -> "Only writes the database took should be recorded");
+        } finally {
+            service.close();
+            changes.close();
+        }
+    }
+
+    @Test
+    void writeBehindRecordsOnlyTheRecipesWritten() {
+        ChangeLog changes = ChangeLog.inMemory();
+        RecipeService service = new RecipeService(recipeDao, DatabaseExecutor.shared(), changes);
+        Chef author = new Chef(7, "author", "author@example.com", "secret", false);
+        // the batch fails once; written again one at a time, recipe 99 no longer exists
+        when(recipeDao.updateRecipes(anyList())).thenReturn(new int[] { Statement.EXECUTE_FAILED,
+                Statement.EXECUTE_FAILED }).thenAnswer(invocation -> {
+                    List<Recipe> recipes = invocation.getArgument(0);
+                    return new int[] { recipes.get(0).getId() == 99 ? 0 : 1 };
+                });
+        service.enableWriteBehind(60_000, 100);
+
+        try {
+            service.saveRecipe(new Recipe(6, "Soup", "Boil longer", author));
+            service.saveRecipe(new Recipe(99, "Gone", "Deleted meanwhile", author));
+            service.flushUpdates();
+
+            verify(recipeDao, times(3)).updateRecipes(anyList());
+            assertEquals(List.of(6), changes.read(0, 10).stream().map(ChangeEvent::getId)
+                    .collect(Collectors.toList()), () -> "Only the recipe written should be recorded, once");
+        } finally {
+            service.close();
+            changes.close();
+        }
+    }
+
+    @Test
+    void lookupsAreServedFromTheSnapshotUntilTheRecipeIsWritten(@TempDir Path directory) throws Exception {
+        ChangeLog changes = new ChangeLog(directory.resolve("changelog"));
+        RecipeService service = new RecipeService(recipeDao, DatabaseExecutor.shared(), changes);
+        Chef author = new Chef(7, "author", "author@example.com", "secret", false);
+        List<RecipeIngredient> ingredients = List.of(new RecipeIngredient(3, "salt", 1.0, "tsp"));
+        when(recipeDao.getRecipeIds()).thenReturn(List.of(1));
+        when(recipeDao.getRecipesByIds(List.of(1)))
+                .thenAnswer(invocation -> new HashMap<>(Map.of(1, new Recipe(1, "Pasta", "Boil", author))));
+        when(recipeDao.getRecipeIngredients(List.of(1))).thenReturn(Map.of(1, ingredients));
+        try {
+            Path file = directory.resolve("catalog.snapshot");
+            service.writeSnapshot(file);
+
+            assertTrue(service.useSnapshot(CatalogSnapshot.open(file)));
+            when(recipeDao.getRecipeAuthor(1)).thenReturn(author);
+            Recipe recipe = service.findRecipe(1).orElseThrow();
+            assertEquals(author, recipe.getAuthor(),
+                    () -> "Snapshot lookups should return the same author as database lookups");
+            service.findRecipe(1);
+            verify(recipeDao, times(1)).getRecipeAuthor(1);
+            assertEquals("salt", recipe.getIngredients().get(0).getName());
+            verify(recipeDao, never()).getRecipeRow(1);
+
+            when(recipeDao.updateRecipe(any(Recipe.class))).thenReturn(true);
+            service.saveRecipe(new Recipe(1, "Pasta", "Boil longer", author));
+            when(recipeDao.getRecipeRow(1)).thenReturn(new Recipe(1, "Pasta", "Boil longer", null));
+            assertEquals("Boil longer", service.findRecipe(1).orElseThrow().getInstructions(),
+                    () -> "A recipe written since the snapshot should be read from the database");
+
+            service.warmUp().join();
+            verify(recipeDao, times(2)).getRecipesByIds(List.of(1));
+            service.findRecipe(2);
+            verify(recipeDao).getRecipeRow(2);
+        } finally {
+            service.close();
+            changes.close();
+        }
+    }
+
     @Test
     void deleteRecipe() {
         when(recipeDao.getRecipeById(1)).thenReturn(MOCKS.get(0));
-        doNothing().when(recipeDao).deleteRecipe(any(Recipe.class));
+        when(recipeDao.deleteRecipe(any(Recipe.class))).thenReturn(true);
         ArgumentCaptor<Recipe> recipeCaptor = ArgumentCaptor.forClass(Recipe.class);
         recipeService.deleteRecipe(1);
         verify(recipeDao).deleteRecipe(recipeCaptor.capture());
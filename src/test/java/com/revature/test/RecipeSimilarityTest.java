@@ -0,0 +1,135 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.revature.dao.ChefDAO;
+import com.revature.dao.IngredientDAO;
+import com.revature.dao.RecipeDAO;
+import com.revature.model.Recipe;
+import com.revature.model.SimilarRecipe;
+import com.revature.service.RecipeService;
+import com.revature.util.ChangeLog;
+import com.revature.util.ConnectionUtil;
+import com.revature.util.DBUtil;
+import com.revature.util.DatabaseExecutor;
+import com.revature.util.RecipeSimilarityIndex;
+
+public class RecipeSimilarityTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recipesAreRankedByIngredientOverlap() {
+        RecipeSimilarityIndex index = new RecipeSimilarityIndex("test");
+        index.put(1, List.of(1, 2, 3, 4));
+        index.put(2, List.of(4, 3, 2, 1, 1));
+        index.put(3, List.of(1, 2, 3, 4, 5));
+        index.put(4, List.of(7, 8));
+        index.put(5, List.of());
+
+        assertEquals(List.of(new SimilarRecipe(2, null, 1.0), new SimilarRecipe(3, null, 0.8)), index.similarTo(1, 5));
+        assertEquals(List.of(new SimilarRecipe(2, null, 1.0)), index.similarTo(1, 1));
+        assertEquals(List.of(), index.similarTo(4, 5));
+        assertEquals(List.of(), index.similarTo(5, 5), "Recipes without ingredients are like no other recipe");
+
+        index.remove(2);
+        index.put(3, List.of(8, 7));
+        assertEquals(List.of(), index.similarTo(1, 5));
+        assertEquals(List.of(new SimilarRecipe(3, null, 1.0)), index.similarTo(4, 5));
+        assertEquals(Set.of(3, 4), Set.copyOf(index.recipesUsing(8)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void closeRecipesAreFoundAmongManyOthers() {
+        RecipeSimilarityIndex index = new RecipeSimilarityIndex("test");
+        Random random = new Random(42);
+        for (int id = 1; id <= 20_000; id++) {
+            List<Integer> ingredients = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                ingredients.add(1 + random.nextInt(2_000));
+            }
+            index.put(id, ingredients);
+        }
+        // shares six of its eight ingredients with recipe 1, a similarity of 0.6
+        index.put(20_001, List.of(1, 2, 3, 4, 5, 6, 7, 8));
+        index.put(20_002, List.of(1, 2, 3, 4, 5, 6, 9, 10));
+
+        List<SimilarRecipe> similar = index.similarTo(20_001, 3);
+        assertEquals(20_002, similar.get(0).getId());
+        assertEquals(0.6, similar.get(0).getSimilarity(), 1e-9);
+    }
+
+    @Test
+    void crowdedBucketsDoNotHideOtherBands() {
+        RecipeSimilarityIndex index = new RecipeSimilarityIndex("test");
+        // more recipes than a lookup reads, each sharing three of recipe 6001's ingredients,
+        // crowd the buckets of the bands recipe 6001 agrees on with them
+        for (int id = 1; id <= 6_000; id++) {
+            index.put(id, List.of(11, 12, 13, 10_000 + id));
+        }
+        index.put(6_001, List.of(11, 12, 13, 14, 15, 16, 17, 18));
+        // shares half of recipe 6001's ingredients, in bands of its own
+        index.put(6_002, List.of(15, 16, 17, 18));
+
+        List<SimilarRecipe> similar = index.similarTo(6_001, 2);
+        assertEquals(new SimilarRecipe(6_002, null, 0.5), similar.get(0));
+        assertEquals(1.0 / 3, similar.get(1).getSimilarity(), 1e-9);
+    }
+
+    @Test
+    void similarRecipesFollowTheChangeLog() throws SQLException {
+        ConnectionUtil database = new ConnectionUtil(List.of("jdbc:h2:mem:similarity;DB_CLOSE_DELAY=-1"));
+        DBUtil.RUN_SQL(database);
+        ChefDAO chefDao = new ChefDAO(database);
+        RecipeDAO recipeDao = new RecipeDAO(chefDao, new IngredientDAO(database), database);
+        ChangeLog changes = new ChangeLog(directory);
+        RecipeService recipeService = new RecipeService(recipeDao, DatabaseExecutor.shared(), changes);
+        try {
+            // carrot soup also gets rice, sharing one of three ingredients with lemon rice soup
+            addIngredient(database, 1, 5);
+            assertEquals(Optional.of(List.of(new SimilarRecipe(1, "carrot soup", 1.0 / 3))),
+                    recipeService.findSimilarRecipes(4, 10));
+
+            Recipe copy = new Recipe(0, "lemon rice stew", "Stew lemon and rice.", chefDao.getChefById(3));
+            recipeService.saveRecipe(copy);
+            addIngredient(database, copy.getId(), 4);
+            addIngredient(database, copy.getId(), 5);
+            assertEquals(List.of(copy.getId(), 1), recipeService.findSimilarRecipes(4, 10).get().stream()
+                    .map(SimilarRecipe::getId).collect(Collectors.toList()));
+
+            recipeService.deleteRecipe(copy.getId());
+            assertEquals(List.of(1), recipeService.findSimilarRecipes(4, 10).get().stream()
+                    .map(SimilarRecipe::getId).collect(Collectors.toList()));
+            assertEquals(Optional.of(List.of()), recipeService.findSimilarRecipes(5, 10),
+                    "Stone soup exists but has no ingredients");
+            assertTrue(recipeService.findSimilarRecipes(99, 10).isEmpty());
+        } finally {
+            recipeService.close();
+            changes.close();
+        }
+    }
+
+    private static void addIngredient(ConnectionUtil database, int recipeId, int ingredientId) throws SQLException {
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO RECIPE_INGREDIENT (recipe_id, ingredient_id, vol, unit) VALUES ("
+                    + recipeId + ", " + ingredientId + ", 1, 'cups')");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.revature.dao.ChefDAO;
+import com.revature.dao.IngredientDAO;
+import com.revature.dao.RecipeDAO;
+import com.revature.model.Chef;
+import com.revature.model.Ingredient;
+import com.revature.model.Recipe;
+import com.revature.model.RecipeSummary;
+import com.revature.util.ConnectionUtil;
+import com.revature.util.DBUtil;
+import com.revature.util.PageOptions;
+import com.revature.util.RecipeSummaryTable;
+
+public class RecipeSummaryTableTest {
+
+    private ConnectionUtil database;
+    private ChefDAO chefDao;
+    private IngredientDAO ingredientDao;
+    private RecipeDAO recipeDao;
+
+    @BeforeEach
+    void setUp() {
+        database = new ConnectionUtil(List.of("jdbc:h2:mem:recipe_summary;DB_CLOSE_DELAY=-1"));
+        DBUtil.RUN_SQL(database);
+        chefDao = new ChefDAO(database);
+        ingredientDao = new IngredientDAO(database);
+        recipeDao = new RecipeDAO(chefDao, ingredientDao, database);
+    }
+
+    private List<RecipeSummary> summaries() {
+        return recipeDao.getRecipeSummaries(new PageOptions(1, 100, "id", "asc")).getItems();
+    }
+
+    @Test
+    void summariesFollowEveryWrite() throws SQLException {
+        assertEquals(new RecipeSummary(4, "lemon rice soup", 4, "ChefTrevin", 2), summaries().get(3));
+
+        Chef trevin = chefDao.getChefById(4);
+        int id = recipeDao.createRecipe(new Recipe(0, "bean soup", "Put beans in water.", trevin));
+        trevin.setUsername("Trevin");
+        chefDao.updateChef(trevin);
+        recipeDao.updateRecipe(new Recipe(2, "potato stew", "Stew the potatoes.", trevin));
+        recipeDao.deleteRecipe(new Recipe(1, "carrot soup", null, null));
+        ingredientDao.deleteIngredient(new Ingredient(5, "rice"));
+
+        assertEquals(List.of(new RecipeSummary(2, "potato stew", 4, "Trevin", 1),
+                new RecipeSummary(3, "tomato soup", 2, "CharlieBrown", 1),
+                new RecipeSummary(4, "lemon rice soup", 4, "Trevin", 1),
+                new RecipeSummary(5, "stone soup", 4, "Trevin", 0),
+                new RecipeSummary(id, "bean soup", 4, "Trevin", 0)), summaries());
+        assertEquals(List.of(), RecipeSummaryTable.check(database));
+    }
+
+    @Test
+    void inconsistenciesAreReportedAndRebuilt() throws SQLException {
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE RECIPE_SUMMARY SET ingredient_count = 9 WHERE id = 1");
+            statement.executeUpdate("DELETE FROM RECIPE_SUMMARY WHERE id = 2");
+            statement.executeUpdate("INSERT INTO RECIPE_SUMMARY VALUES (99, 'ghost soup', 1, 'JoeCool', 0)");
+        }
+
+        List<String> problems = RecipeSummaryTable.check(database);
+        assertEquals(3, problems.size(), problems::toString);
+        assertTrue(problems.get(0).contains("recipe 1 has summary 'carrot soup' by 1 'JoeCool' with 9 ingredients"),
+                problems::toString);
+
+        assertEquals(5, RecipeSummaryTable.rebuild(database));
+        assertEquals(List.of(), RecipeSummaryTable.check(database));
+        assertEquals(new RecipeSummary(1, "carrot soup", 1, "JoeCool", 1), summaries().get(0));
+    }
+
+    @Test
+    void summariesFollowChefDeletes() throws SQLException {
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            // without the foreign key, as after a restore, a chef can be deleted while their recipes remain
+            ResultSet constraint = statement.executeQuery("SELECT CONSTRAINT_NAME FROM "
+                    + "INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE TABLE_NAME = 'RECIPE' "
+                    + "AND CONSTRAINT_TYPE = 'FOREIGN KEY'");
+            constraint.next();
+            statement.executeUpdate("ALTER TABLE RECIPE DROP CONSTRAINT " + constraint.getString(1));
+        }
+
+        chefDao.deleteChef(chefDao.getChefById(1));
+        assertEquals(new RecipeSummary(1, "carrot soup", 1, null, 1), summaries().get(0));
+        assertEquals(List.of(), RecipeSummaryTable.check(database));
+
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO CHEF (id, username, email, password, isAdmin) "
+                    + "VALUES (1, 'JoeCool', 'snoopy@null.com', 'redbarron', false)");
+        }
+        assertEquals(new RecipeSummary(1, "carrot soup", 1, "JoeCool", 1), summaries().get(0));
+        assertEquals(List.of(), RecipeSummaryTable.check(database));
+    }
+
+    @Test
+    void replicasAreCheckedAndRebuilt() throws SQLException {
+        ConnectionUtil replicated = new ConnectionUtil(List.of("jdbc:h2:mem:summary_primary;DB_CLOSE_DELAY=-1"),
+                List.of("jdbc:h2:mem:summary_replica;DB_CLOSE_DELAY=-1"), 60_000, 0);
+        DBUtil.RUN_SQL(replicated);
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:summary_replica", "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE RECIPE_SUMMARY SET name = 'ghost soup' WHERE id = 1");
+        }
+
+        List<String> problems = RecipeSummaryTable.check(replicated);
+        assertEquals(1, problems.size(), problems::toString);
+        assertTrue(problems.get(0).startsWith("replica 0: recipe 1 has summary 'ghost soup'"), problems::toString);
+
+        RecipeSummaryTable.rebuild(replicated);
+        assertEquals(List.of(), RecipeSummaryTable.check(replicated));
+    }
+}
@@ -0,0 +1,68 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.Metrics;
+import com.revature.util.ResponseCache;
+import com.revature.util.TableVersions;
+
+public class ResponseCacheTest {
+    private ResponseCache cache;
+
+    @BeforeEach
+    void setUpCache() {
+        cache = new ResponseCache("test", 2, "CACHE_TEST");
+    }
+
+    @Test
+    void cachedBodyIsReturnedWhileTableIsUnchanged() {
+        byte[] body = "[1,2,3]".getBytes(StandardCharsets.UTF_8);
+        String key = ResponseCache.key("/recipes", "", 1, 10, "name", "asc");
+        assertNull(cache.get(key), () -> "An empty cache should miss");
+        cache.put(key, cache.stamp(), body);
+        assertArrayEquals(body, cache.get(key), () -> "The cached body should be returned");
+        assertEquals(0.5, cache.hitRatio(), () -> "One hit and one miss should give a ratio of one half");
+    }
+
+    @Test
+    void tableChangeInvalidatesEntry() {
+        String key = ResponseCache.key("/recipes", "soup", 1, 10, "name", "asc");
+        cache.put(key, cache.stamp(), new byte[] { 1 });
+        TableVersions.bump("CACHE_TEST");
+        assertNull(cache.get(key), () -> "Entries built before a write should be stale");
+        assertEquals(0, cache.size(), () -> "Stale entries should be evicted");
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        long stamp = cache.stamp();
+        cache.put("a", stamp, new byte[] { 1 });
+        cache.put("b", stamp, new byte[] { 2 });
+        cache.get("a");
+        cache.put("c", stamp, new byte[] { 3 });
+        assertNull(cache.get("b"), () -> "The least recently used entry should be evicted");
+        assertArrayEquals(new byte[] { 1 }, cache.get("a"));
+        assertArrayEquals(new byte[] { 3 }, cache.get("c"));
+    }
+
+    @Test
+    void nullParametersAreNormalized() {
+        assertEquals(ResponseCache.key("/recipes", "", 1), ResponseCache.key("/recipes", null, 1));
+    }
+
+    @Test
+    void laterCachesOfTheSameNameDoNotTakeOverItsMetrics() {
+        ResponseCache first = new ResponseCache("metricsTest", 2, "CACHE_TEST");
+        first.put("a", first.stamp(), new byte[] { 1 });
+        new ResponseCache("metricsTest", 2, "CACHE_TEST");
+        assertEquals(1, Metrics.snapshot().get("cache.metricsTest.size").intValue(),
+                () -> "The gauge should keep reporting the cache that registered it");
+    }
+}
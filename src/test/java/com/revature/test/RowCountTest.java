@@ -0,0 +1,131 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.dao.ChefDAO;
+import com.revature.dao.IngredientDAO;
+import com.revature.dao.RecipeDAO;
+import com.revature.model.Chef;
+import com.revature.model.Recipe;
+import com.revature.model.RecipeSummary;
+import com.revature.util.ConnectionUtil;
+import com.revature.util.DBUtil;
+import com.revature.util.Page;
+import com.revature.util.PageOptions;
+
+public class RowCountTest {
+
+    private ConnectionUtil database;
+    private ChefDAO chefDao;
+    private RecipeDAO recipeDao;
+
+    @BeforeEach
+    void setUp() {
+        database = new ConnectionUtil(List.of("jdbc:h2:mem:row_count;DB_CLOSE_DELAY=-1"));
+        DBUtil.RUN_SQL(database);
+        chefDao = new ChefDAO(database);
+        recipeDao = new RecipeDAO(chefDao, new IngredientDAO(database), database);
+    }
+
+    @Test
+    void countersFollowInsertsDeletesAndMoves() {
+        assertEquals(5, recipeDao.countRecipes());
+        assertEquals(2, recipeDao.countRecipes(4));
+
+        int julia = chefDao.createChef(new Chef("Julia", "julia@example.com", "butter", false));
+        assertEquals(0, recipeDao.countRecipes(julia));
+        Chef author = chefDao.getChefById(julia);
+        recipeDao.createRecipe(new Recipe(0, "bean soup", "Put beans in water.", author));
+        recipeDao.updateRecipe(new Recipe(5, "stone soup", "Put stone in water.  Boil.  Maybe salt.", author));
+        recipeDao.deleteRecipe(new Recipe(1, "carrot soup", null, null));
+
+        assertEquals(5, recipeDao.countRecipes());
+        assertEquals(2, recipeDao.countRecipes(julia));
+        assertEquals(1, recipeDao.countRecipes(4));
+        assertEquals(0, recipeDao.countRecipes(1));
+
+        Page<RecipeSummary> page = recipeDao.getRecipeSummaries(new PageOptions(2, 2, "id", "asc"));
+        assertEquals(List.of(4, 5), page.getItems().stream().map(RecipeSummary::getId).toList());
+        assertEquals(5, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+        assertEquals(5, recipeDao.getRecipeSummaries(new PageOptions(9, 2, "id", "asc")).getTotalElements(),
+                "A page past the end should still report the counted total");
+    }
+
+    @Test
+    void searchTotalsAreEstimatedForLargeCatalogs() throws Exception {
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE TABLE_ROW_COUNT SET row_count = 50000 WHERE table_name = 'RECIPE'");
+        }
+
+        // every sampled recipe matches, so every recipe the counter holds is estimated to match
+        Page<RecipeSummary> estimated = recipeDao.searchRecipeSummaries("soup", new PageOptions(1, 2, "id", "asc"));
+        assertEquals(50000, estimated.getTotalElements());
+        assertTrue(estimated.isApproximate());
+        assertTrue(new ObjectMapper().writeValueAsString(estimated).contains("\"approximate\":true"));
+
+        Page<RecipeSummary> exact = recipeDao.searchRecipeSummaries("soup", new PageOptions(1, 2, "id", "asc"), true);
+        assertEquals(5, exact.getTotalElements());
+        assertFalse(exact.isApproximate());
+        assertFalse(new ObjectMapper().writeValueAsString(exact).contains("approximate"));
+
+        Page<RecipeSummary> last = recipeDao.searchRecipeSummaries("soup", new PageOptions(1, 10, "id", "asc"));
+        assertEquals(5, last.getTotalElements(), "A page holding the last match gives the exact total");
+        assertFalse(last.isApproximate());
+    }
+
+    @Test
+    void sparseListingsReadOnlyThePage() {
+        ChefDAO chefs = spy(chefDao);
+        RecipeDAO projected = new RecipeDAO(chefs, new IngredientDAO(database), database);
+
+        Page<Recipe> page = projected.getAllRecipes(new PageOptions(2, 2, "id", "asc"),
+                RecipeDAO.FIELDS.select("id,author"));
+        assertEquals(List.of(3, 4), page.getItems().stream().map(Recipe::getId).toList());
+        assertEquals(5, page.getTotalElements());
+        assertEquals("ChefTrevin", page.getItems().get(1).getAuthor().getUsername());
+        verify(chefs).getChefsByIds(anyList());
+        verify(chefs, never()).getChefById(anyInt());
+
+        Page<Recipe> found = projected.searchRecipesByTerm("soup", new PageOptions(2, 2, "id", "asc"),
+                RecipeDAO.FIELDS.select("instructions"));
+        assertEquals(5, found.getTotalElements());
+        assertEquals("Put lemon and rice in water.  Boil.  Maybe salt.", found.getItems().get(1).getInstructions());
+    }
+
+    @Test
+    void countersMatchTheirTables() throws SQLException {
+        recipeDao.createRecipe(new Recipe(0, "bean soup", "Put beans in water.", chefDao.getChefById(2)));
+        try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+            ResultSet mismatched = statement.executeQuery("SELECT COUNT(*) FROM CHEF_RECIPE_COUNT WHERE recipe_count "
+                    + "<> (SELECT COUNT(*) FROM RECIPE WHERE RECIPE.chef_id = CHEF_RECIPE_COUNT.chef_id)");
+            mismatched.next();
+            assertEquals(0, mismatched.getInt(1));
+
+            ResultSet counters = statement.executeQuery("SELECT row_count FROM TABLE_ROW_COUNT ORDER BY table_name");
+            List<Long> counts = new ArrayList<>();
+            while (counters.next()) {
+                counts.add(counters.getLong(1));
+            }
+            assertEquals(List.of(4L, 6L, 6L), counts, "CHEF, INGREDIENT and RECIPE rows");
+        }
+    }
+}
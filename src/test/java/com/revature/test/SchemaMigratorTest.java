@@ -0,0 +1,81 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.SchemaMigrator;
+
+public class SchemaMigratorTest {
+
+    private static int count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Test
+    void statementsAreSplitOutsideQuotes() {
+        List<String> statements = SchemaMigrator.splitStatements(
+                "-- a comment;\nINSERT INTO T VALUES ('a;b');\nDELETE FROM T;");
+        assertEquals(List.of("INSERT INTO T VALUES ('a;b')", "DELETE FROM T"), statements);
+
+        statements = SchemaMigrator.splitStatements(
+                "CREATE TABLE T (a INT); -- keyed; unique\nINSERT INTO T VALUES ('--;x') -- one row;\n;");
+        assertEquals(List.of("CREATE TABLE T (a INT)", "INSERT INTO T VALUES ('--;x')"), statements);
+    }
+
+    @Test
+    void changedMigrationStopsStartup() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:migrate_changed", "sa", "")) {
+            SchemaMigrator.migrate(connection);
+            connection.createStatement().executeUpdate("UPDATE SCHEMA_VERSION SET checksum = 1 WHERE version = 2");
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> SchemaMigrator.migrate(connection));
+            assertTrue(e.getMessage().contains("V2"));
+        }
+    }
+
+    @Test
+    void pendingMigrationsAreAppliedOnce() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:migrate_fresh", "sa", "")) {
+            assertTrue(SchemaMigrator.migrate(connection) > 0, () -> "A fresh database should be migrated");
+            assertEquals(4, count(connection, "SELECT COUNT(*) FROM CHEF"));
+
+            connection.createStatement().executeUpdate("DELETE FROM RECIPE_INGREDIENT WHERE recipe_id = 4");
+            assertEquals(0, SchemaMigrator.migrate(connection), () -> "Applied migrations should not run again");
+            assertEquals(3, count(connection, "SELECT COUNT(*) FROM RECIPE_INGREDIENT"),
+                    () -> "Existing data should be preserved");
+        }
+    }
+
+    @Test
+    void legacyDatabaseIsBaselined() throws SQLException, IOException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:migrate_legacy", "sa", "")) {
+            // build the schema the way DBUtil did before versioning existed
+            String script = new String(getClass().getResourceAsStream("/sqlScript.sql").readAllBytes(),
+                    StandardCharsets.UTF_8);
+            for (String sql : SchemaMigrator.splitStatements(script)) {
+                connection.createStatement().executeUpdate(sql);
+            }
+            connection.createStatement().executeUpdate(
+                    "INSERT INTO CHEF (username, email, password, isAdmin) VALUES ('kept', 'k@k.com', 'pw', false)");
+            SchemaMigrator.migrate(connection);
+            assertEquals(1, count(connection, "SELECT COUNT(*) FROM CHEF WHERE username = 'kept'"),
+                    () -> "Baselining should not re-run the seed script");
+            assertEquals(1, count(connection, "SELECT COUNT(*) FROM SCHEMA_VERSION WHERE version = 1"));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.revature.dao.ChefDAO;
+import com.revature.dao.IngredientDAO;
+import com.revature.dao.RecipeDAO;
+import com.revature.model.Chef;
+import com.revature.model.Ingredient;
+import com.revature.model.Recipe;
+import com.revature.model.RecipeSummary;
+import com.revature.util.ConnectionUtil;
+import com.revature.util.DBUtil;
+import com.revature.util.Page;
+import com.revature.util.PageOptions;
+
+public class ShardingTest {
+
+    private ConnectionUtil shards;
+    private ChefDAO chefDao;
+    private IngredientDAO ingredientDao;
+    private RecipeDAO recipeDao;
+
+    @BeforeEach
+    void setUp() {
+        shards = new ConnectionUtil(List.of("jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+                "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1"));
+        DBUtil.RUN_SQL(shards);
+        chefDao = new ChefDAO(shards);
+        ingredientDao = new IngredientDAO(shards);
+        recipeDao = new RecipeDAO(chefDao, ingredientDao, shards);
+    }
+
+    @Test
+    void seededRecipesAreSplitAndReadableById() {
+        for (int id = 1; id <= 5; id++) {
+            Recipe recipe = recipeDao.getRecipeById(id);
+            assertNotNull(recipe, "Recipe " + id + " should be found on its shard");
+            assertEquals(id, recipe.getId());
+            assertNotNull(recipe.getAuthor(), "The author should be joined from the shard's replica");
+        }
+    }
+
+    @Test
+    void mergedListingsFollowTheRequestedOrder() {
+        List<String> names = recipeDao.getAllRecipes(new PageOptions(1, 10, "name", "desc")).getItems().stream()
+                .map(Recipe::getName).collect(Collectors.toList());
+        assertEquals(List.of("tomato soup", "stone soup", "potato soup", "lemon rice soup", "carrot soup"), names);
+
+        List<Integer> page = recipeDao.searchRecipesByTerm("soup", new PageOptions(2, 2, "id", "asc")).getItems()
+                .stream().map(Recipe::getId).collect(Collectors.toList());
+        assertEquals(List.of(3, 4), page, "Pages should be cut from the merged order");
+
+        List<String> summaries = recipeDao.getRecipeSummaries(new PageOptions(1, 10, "name", "asc")).getItems()
+                .stream().map(RecipeSummary::getName).collect(Collectors.toList());
+        assertEquals(List.of("carrot soup", "lemon rice soup", "potato soup", "stone soup", "tomato soup"),
+                summaries);
+    }
+
+    @Test
+    void pagedSummariesAreCountedAcrossShards() {
+        Page<RecipeSummary> page = recipeDao.getRecipeSummaries(new PageOptions(2, 2, "name", "asc"));
+        assertEquals(List.of("potato soup", "stone soup"),
+                page.getItems().stream().map(RecipeSummary::getName).collect(Collectors.toList()));
+        assertEquals(5, page.getTotalElements());
+        assertEquals(5, recipeDao.countRecipes());
+        assertEquals(2, recipeDao.countRecipes(4));
+
+        Page<RecipeSummary> search = recipeDao.searchRecipeSummaries("o", new PageOptions(1, 2, "id", "asc"));
+        assertEquals(List.of(1, 2), search.getItems().stream().map(RecipeSummary::getId).collect(Collectors.toList()));
+        assertEquals(5, search.getTotalElements());
+    }
+
+    @Test
+    void newRecipesRouteToTheirChefsShard() {
+        Chef chef = chefDao.getChefById(3);
+        int id = recipeDao.createRecipe(new Recipe(0, "bean soup", "Put beans in water.", chef));
+        assertEquals(shards.shardForChef(3), shards.shardForRecipe(id),
+                "The new id should route to the shard the chef's recipes are placed on");
+        assertEquals("bean soup", recipeDao.getRecipeById(id).getName());
+        assertEquals(6, recipeDao.getAllRecipes().size());
+    }
+
+    @Test
+    void recipesCannotMoveToAChefOnAnotherShard() {
+        int id = recipeDao.createRecipe(new Recipe(0, "bean soup", "Put beans in water.", chefDao.getChefById(3)));
+        Chef sameShard = null;
+        Chef otherShard = null;
+        for (Chef chef : chefDao.getAllChefs()) {
+            if (chef.getId() == 3) {
+                continue;
+            }
+            if (shards.shardForChef(chef.getId()) == shards.shardForRecipe(id)) {
+                sameShard = chef;
+            } else {
+                otherShard = chef;
+            }
+        }
+        assertNotNull(sameShard);
+        assertNotNull(otherShard);
+
+        assertFalse(recipeDao.updateRecipe(new Recipe(id, "bean soup", "Moved.", otherShard)),
+                "A recipe should not be given to a chef whose recipes are on another shard");
+        assertArrayEquals(new int[] { 0 }, recipeDao.updateRecipes(List.of(new Recipe(id, "bean soup", "Moved.",
+                otherShard))));
+        assertEquals(3, recipeDao.getRecipeById(id).getAuthor().getId());
+        assertEquals("Put beans in water.", recipeDao.getRecipeById(id).getInstructions());
+
+        assertTrue(recipeDao.updateRecipe(new Recipe(id, "bean soup", "Shared.", sameShard)));
+        assertEquals(sameShard.getId(), recipeDao.getRecipeById(id).getAuthor().getId());
+    }
+
+    @Test
+    void chefsAndIngredientsAreReplicatedToEveryShard() {
+        int chefId = chefDao.createChef(new Chef("Julia", "julia@example.com", "butter", false));
+        int ingredientId = ingredientDao.createIngredient(new Ingredient("bean"));
+        ChefDAO replicaChefs = new ChefDAO(new ConnectionUtil(List.of("jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1")));
+        IngredientDAO replicaIngredients = new IngredientDAO(
+                new ConnectionUtil(List.of("jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1")));
+        assertEquals("Julia", replicaChefs.getChefById(chefId).getUsername());
+        assertEquals("bean", replicaIngredients.getIngredientById(ingredientId).getName());
+
+        ingredientDao.updateIngredient(new Ingredient(ingredientId, "black bean"));
+        assertEquals("black bean", replicaIngredients.getIngredientById(ingredientId).getName());
+    }
+
+    @Test
+    void createsFailingOnAShardAreUndone() throws SQLException {
+        // a row only shard 1 holds makes the copy of a new chef and ingredient there fail
+        try (Connection connection = shards.getConnection(1); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO CHEF (id, username, email, password, isAdmin) "
+                    + "VALUES (900, 'julia', 'stray@example.com', 'pw', false)");
+            statement.executeUpdate("INSERT INTO INGREDIENT (id, name) VALUES (900, 'saffron')");
+        }
+
+        assertEquals(0, chefDao.createChef(new Chef("julia", "julia@example.com", "butter", false)));
+        assertTrue(chefDao.searchChefsByTerm("julia@").isEmpty(), "The primary copy should be deleted again");
+        assertEquals(0, ingredientDao.createIngredient(new Ingredient("saffron")));
+        assertTrue(ingredientDao.searchIngredients("saffron").isEmpty(), "The primary copy should be deleted again");
+    }
+}
@@ -0,0 +1,106 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.SingleFlight;
+
+public class SingleFlightTest {
+
+    @Test
+    void concurrentIdenticalLookupsShareOneCall() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test.shared", 5000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> flight.execute(1, () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "recipe";
+                })));
+            }
+            // wait until every caller has either started the load or joined it
+            long deadline = System.currentTimeMillis() + 5000;
+            while (flight.getExecutionCount() + flight.getCollapsedCount() < 8
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("recipe", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get(), () -> "Identical concurrent lookups should only load once");
+        assertEquals(7, flight.getCollapsedCount(), () -> "Followers should be counted as collapsed");
+    }
+
+    @Test
+    void eachCallerGetsItsOwnCopy() throws Exception {
+        SingleFlight<Integer, List<String>> flight = new SingleFlight<>("test.copies", 5000, ArrayList::new);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> leader = executor.submit(() -> flight.execute(1, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new ArrayList<>(List.of("recipe"));
+            }));
+            while (flight.getExecutionCount() < 1) {
+                Thread.sleep(5);
+            }
+            Future<List<String>> follower = executor.submit(() -> flight.execute(1, () -> List.of("unused")));
+            while (flight.getCollapsedCount() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            List<String> led = leader.get(5, TimeUnit.SECONDS);
+            List<String> followed = follower.get(5, TimeUnit.SECONDS);
+            led.add("modified");
+            assertEquals(List.of("recipe"), followed, () -> "Callers should not share one result instance");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("a|1|", SingleFlight.key("a", 1, null));
+    }
+
+    @Test
+    void sequentialLookupsEachLoad() {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test.sequential", 5000);
+        AtomicInteger loads = new AtomicInteger();
+        flight.execute(1, () -> "a" + loads.incrementAndGet());
+        flight.execute(1, () -> "a" + loads.incrementAndGet());
+        assertEquals(2, loads.get(), () -> "Completed calls should not be reused");
+    }
+
+    @Test
+    void leaderExceptionPropagates() {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test.failure", 5000);
+        assertThrows(IllegalArgumentException.class, () -> flight.execute(1, () -> {
+            throw new IllegalArgumentException("boom");
+        }));
+        assertEquals("ok", flight.execute(1, () -> "ok"), () -> "A failed call should not poison the key");
+    }
+}
@@ -0,0 +1,127 @@
+package com.revature.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.revature.util.WriteBehindBuffer;
+
+public class WriteBehindBufferTest {
+
+    @Test
+    void writesToTheSameKeyAreCoalesced() {
+        List<List<String>> batches = new ArrayList<>();
+        try (WriteBehindBuffer<Integer, String> buffer = new WriteBehindBuffer<>("test.coalesce", batches::add,
+                60_000, 100)) {
+            buffer.put(1, "draft 1");
+            buffer.put(1, "draft 2");
+            buffer.put(2, "other");
+            assertEquals("draft 2", buffer.get(1), () -> "Pending writes should be readable before a flush");
+            buffer.flush();
+            assertEquals(List.of(List.of("draft 2", "other")), batches,
+                    () -> "Only the latest write per key should be flushed, in one batch");
+            assertNull(buffer.get(1), () -> "Flushed writes should no longer be pending");
+        }
+    }
+
+    @Test
+    void failedFlushKeepsTheWritesPending() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        List<List<String>> batches = new ArrayList<>();
+        WriteBehindBuffer<Integer, String> buffer = new WriteBehindBuffer<>("test.failure", batch -> {
+            if (fail.get()) {
+                throw new IllegalStateException("database down");
+            }
+            batches.add(batch);
+        }, 60_000, 100);
+        buffer.put(1, "draft");
+        assertThrows(IllegalStateException.class, buffer::flush);
+        assertEquals("draft", buffer.get(1), () -> "A failed batch should stay pending");
+        fail.set(false);
+        buffer.close();
+        assertEquals(List.of(List.of("draft")), batches, () -> "Closing should flush the pending writes");
+    }
+
+    @Test
+    void aRejectedWriteDoesNotHoldBackTheOthers() {
+        List<String> stored = new ArrayList<>();
+        List<String> deadLetters = new ArrayList<>();
+        WriteBehindBuffer<Integer, String> buffer = new WriteBehindBuffer<>("test.rejected", batch -> {
+            if (batch.contains("bad")) {
+                throw new IllegalStateException("foreign key violated");
+            }
+            stored.addAll(batch);
+        }, 60_000, 100, 2, (value, e) -> deadLetters.add(value));
+        buffer.put(1, "good");
+        buffer.put(2, "bad");
+        buffer.put(3, "also good");
+        assertThrows(IllegalStateException.class, buffer::flush);
+        assertEquals(List.of("good", "also good"), stored, () -> "The other writes should be stored one by one");
+        assertEquals(1, buffer.size());
+        assertEquals("bad", buffer.get(2), () -> "A rejected write should be retried before it is dropped");
+
+        assertThrows(IllegalStateException.class, buffer::flush);
+        assertEquals(List.of("bad"), deadLetters, () -> "A write failing in maxAttempts flushes should be dropped");
+        assertEquals(0, buffer.size());
+        buffer.close();
+    }
+
+    @Test
+    void sizeTriggeredFlushesAreCoalesced() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        // the database is down, so every write stays pending and every queued flush retries it
+        WriteBehindBuffer<Integer, String> buffer = new WriteBehindBuffer<>("test.coalesceFlushes", batch -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (batch.size() > 1) {
+                batches.incrementAndGet();
+            }
+            throw new IllegalStateException("database down");
+        }, 60_000, 1, 1000, (value, e) -> { });
+        buffer.put(0, "first");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (calls.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // the scheduler is busy with the first flush, so these queue at most one more
+        for (int i = 1; i <= 100; i++) {
+            buffer.put(i, "write " + i);
+        }
+        release.countDown();
+        assertThrows(IllegalStateException.class, buffer::close);
+        assertEquals(2, batches.get(), () -> "Writes arriving during a flush should share one queued flush");
+    }
+
+    @Test
+    void reachingMaxPendingTriggersAFlush() throws InterruptedException {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        try (WriteBehindBuffer<Integer, String> buffer = new WriteBehindBuffer<>("test.size", batches::add,
+                60_000, 2)) {
+            buffer.put(1, "a");
+            buffer.put(2, "b");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(List.of(List.of("a", "b")), batches,
+                    () -> "A full buffer should be flushed without waiting for the interval");
+        }
+    }
+}